@@ -20,10 +20,11 @@ import com.rebuild.core.configuration.RebuildApiManager;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.privileges.UserService;
 import com.rebuild.core.service.DataSpecificationException;
+import com.rebuild.core.support.ratelimit.RateLimitResult;
+import com.rebuild.core.support.ratelimit.RateLimits;
+import com.rebuild.core.support.ratelimit.RateRule;
 import com.rebuild.core.support.task.TaskExecutors;
 import com.rebuild.utils.CommonsUtils;
-import com.rebuild.utils.RateLimiters;
-import es.moki.ratelimitj.core.limiter.request.RequestRateLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.cglib.core.ReflectUtils;
@@ -46,13 +47,14 @@ import java.util.*;
 @org.springframework.stereotype.Controller
 public class ApiGateway extends Controller implements Initialization {
 
-    // 基于 IP 限流
-    private static final RequestRateLimiter RRL = RateLimiters.createRateLimiter(
-            new int[] { 10, 60 },
-            new int[] { 600, 6000 });
-
     private static final Map<String, Class<? extends BaseApi>> API_CLASSES = new HashMap<>();
 
+    @Override
+    public boolean isConcurrentInit() {
+        // 无依赖其他组件
+        return true;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void init() throws Exception {
@@ -87,7 +89,10 @@ public class ApiGateway extends Controller implements Initialization {
         response.addHeader("X-RB-Server", ServerStatus.STARTUP_ONCE + "/" + Application.BUILD);
         response.setHeader("X-Request-Id", requestId);
 
-        if (RRL.overLimitWhenIncremented("ip:" + remoteIp)) {
+        // 认证前按 IP 限流（APPID 限流在认证后，避免未认证请求耗尽 APPID 的配额）
+        final RateLimitResult rateLimit = checkIpRateLimit(remoteIp);
+        rateLimit.writeHeaders(response);
+        if (!rateLimit.isAllowed()) {
             JSON error = formatFailure("Request frequency exceeded", ApiInvokeException.ERR_FREQUENCY);
             log.error("{} : {}", requestId, error.toJSONString());
             ServletUtils.writeJson(response, error.toJSONString());
@@ -102,6 +107,12 @@ public class ApiGateway extends Controller implements Initialization {
             final BaseApi api = createApi(apiName);
             context = verfiy(request, api);
 
+            final RateLimitResult appRateLimit = checkRateLimit(context.getAppId(), apiName);
+            if (appRateLimit.stricterThan(rateLimit)) appRateLimit.writeHeaders(response);
+            if (!appRateLimit.isAllowed()) {
+                throw new ApiInvokeException(ApiInvokeException.ERR_FREQUENCY, "Request frequency exceeded");
+            }
+
             UserContextHolder.setReqip(remoteIp);
             UserContextHolder.setUser(context.getBindUser());
 
@@ -134,6 +145,35 @@ public class ApiGateway extends Controller implements Initialization {
         ServletUtils.writeJson(response, error.toJSONString());
     }
 
+    /**
+     * 限流。认证前按 IP 限流，规则远高于 APPID 的默认规则
+     *
+     * @param remoteIp
+     * @return
+     * @see RateLimits#RULES_API_IP
+     */
+    protected RateLimitResult checkIpRateLimit(String remoteIp) {
+        return RateLimits.acquire("ip:" + remoteIp, RateLimits.RULES_API_IP);
+    }
+
+    /**
+     * 限流。按 APPID（及 API）限流，仅在认证通过后调用
+     *
+     * @param appid
+     * @param apiName
+     * @return
+     * @see RebuildApiManager#getRateRules(String, String)
+     */
+    protected RateLimitResult checkRateLimit(String appid, String apiName) {
+        List<RateRule>[] rules = RebuildApiManager.instance.getRateRules(appid, apiName);
+        RateLimitResult res = RateLimits.acquire("app:" + appid, rules[0]);
+        if (res.isAllowed() && !rules[1].isEmpty()) {
+            RateLimitResult resApi = RateLimits.acquire("app:" + appid + ":" + apiName, rules[1]);
+            if (resApi.stricterThan(res)) res = resApi;
+        }
+        return res;
+    }
+
     /**
      * 验证请求并构建请求上下文
      *
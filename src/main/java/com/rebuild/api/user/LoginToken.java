@@ -17,8 +17,8 @@ import com.rebuild.core.privileges.bizz.User;
 import com.rebuild.core.privileges.bizz.ZeroEntry;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.i18n.Language;
+import com.rebuild.core.support.ratelimit.RateLimits;
 import com.rebuild.utils.JSONUtils;
-import com.rebuild.utils.RateLimiters;
 
 /**
  * 获取登录 Token 可用于单点登录
@@ -33,7 +33,7 @@ public class LoginToken extends BaseApi {
         String user = context.getParameterNotBlank("user");
         String password = context.getParameterNotBlank("password");
 
-        if (RateLimiters.RRL_LOGIN.overLimitWhenIncremented("user:" + user)) {
+        if (!RateLimits.acquire("login:" + user, RateLimits.RULES_LOGIN).isAllowed()) {
             return formatFailure(Language.L("请求过于频繁，请稍后重试"), ApiInvokeException.ERR_FREQUENCY);
         }
 
@@ -49,9 +49,12 @@ import net.sf.ehcache.CacheManager;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
-import org.springframework.core.OrderComparator;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * 后台入口类
@@ -200,8 +203,11 @@ public class Application implements ApplicationListener<ApplicationStartedEvent>
             return false;
         }
 
+        final StartupPhases phases = new StartupPhases();
+
         // 升级数据库
         new UpgradeDatabase().upgradeQuietly();
+        phases.end("Upgrade database");
 
         // 版本升级会清除缓存
         int lastBuild = ObjectUtils.toInt(RebuildConfiguration.get(ConfigurationItem.AppBuild, true), 0);
@@ -212,13 +218,13 @@ public class Application implements ApplicationListener<ApplicationStartedEvent>
         }
 
         // 刷新配置缓存
-        for (ConfigurationItem item : ConfigurationItem.values()) {
-            RebuildConfiguration.get(item, true);
-        }
+        RebuildConfiguration.refreshAll();
+        phases.end("Refresh configuration");
 
         // 加载自定义实体
         log.info("Loading customized/business entities ...");
         ((DynamicMetadataFactory) _CONTEXT.getBean(PersistManagerFactory.class).getMetadataFactory()).refresh();
+        phases.end("Load metadata");
 
         // 实体对应的服务类
         _ESS = new HashMap<>();
@@ -232,11 +238,32 @@ public class Application implements ApplicationListener<ApplicationStartedEvent>
             }
         }
 
-        // 初始化业务组件
+        // 初始化业务组件。按顺序执行，同顺序且声明可并行的组件并行执行
         List<Initialization> ordered = new ArrayList<>(_CONTEXT.getBeansOfType(Initialization.class).values());
-        OrderComparator.sort(ordered);
-        for (Initialization bean : ordered) {
-            bean.init();
+        // 同顺序的可并行组件排在一起
+        ordered.sort(Comparator.comparingInt(Initialization::getOrder)
+                .thenComparing(Initialization::isConcurrentInit, Comparator.reverseOrder()));
+
+        for (int i = 0; i < ordered.size(); ) {
+            List<Initialization> stage = new ArrayList<>();
+            Initialization first = ordered.get(i++);
+            stage.add(first);
+            if (first.isConcurrentInit()) {
+                while (i < ordered.size() && ordered.get(i).isConcurrentInit()
+                        && ordered.get(i).getOrder() == first.getOrder()) {
+                    stage.add(ordered.get(i++));
+                }
+            }
+
+            if (stage.size() == 1) {
+                first.init();
+            } else {
+                initConcurrently(stage);
+            }
+
+            List<String> names = new ArrayList<>();
+            for (Initialization bean : stage) names.add(bean.getClass().getSimpleName());
+            phases.end("Initialize " + names);
         }
 
         License.isRbvAttached();
@@ -246,6 +273,47 @@ public class Application implements ApplicationListener<ApplicationStartedEvent>
         return true;
     }
 
+    /**
+     * @param stage
+     * @throws Exception
+     */
+    private static void initConcurrently(List<Initialization> stage) throws Exception {
+        ExecutorService exec = Executors.newFixedThreadPool(stage.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Initialization bean : stage) {
+                futures.add(exec.submit(() -> {
+                    bean.init();
+                    return null;
+                }));
+            }
+
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : new RebuildException(cause);
+                }
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    /**
+     * 启动阶段耗时
+     */
+    private static class StartupPhases {
+        private long start = System.currentTimeMillis();
+
+        void end(String phase) {
+            long now = System.currentTimeMillis();
+            log.info("Startup phase [ {} ] in {} ms", phase, now - start);
+            start = now;
+        }
+    }
+
     public static boolean devMode() {
         return BootApplication.devMode();
     }
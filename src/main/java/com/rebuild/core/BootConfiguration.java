@@ -13,6 +13,7 @@ import com.rebuild.core.support.ConfigurationItem;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.distributed.DistributedSupport;
 import com.rebuild.core.support.distributed.DistributedSupportLocal;
+import com.rebuild.core.support.distributed.DistributedSupportRedis;
 import com.rebuild.core.support.distributed.KnownJedisPool;
 import com.rebuild.core.support.setup.InstallState;
 import com.rebuild.utils.CommonsUtils;
@@ -82,24 +83,30 @@ public class BootConfiguration implements InstallState {
     }
 
     @Bean("DistributedSupport")
-    DistributedSupport createDistributedSupport() {
+    DistributedSupport createDistributedSupport(JedisPool jedisPool) {
+        // 优先使用商业版实现（如有）
         Class<?> clazz = null;
-        JedisPool redis = null;
         try {
             clazz = Class.forName("com.rebuild.rbv.core.support.DistributedSupportImpl");
-            redis = createJedisPool();
         } catch (ClassNotFoundException ignored) {
         }
 
-        if (clazz != null && redis != null && redis != USE_EHCACHE) {
+        if (clazz != null && jedisPool != null && jedisPool != USE_EHCACHE) {
             try {
                 Constructor<?> c = clazz.getConstructor(JedisPool.class);
-                return (DistributedSupport) c.newInstance(redis);
+                return (DistributedSupport) c.newInstance(jedisPool);
             } catch (ReflectiveOperationException e) {
                 log.error("Cannot instance `DistributedSupportImpl`!", e);
             }
         }
 
+        // 与 CommonsCache 一致，redis 可用时使用
+        DistributedSupportRedis redis = new DistributedSupportRedis(jedisPool);
+        if (redis.testJedisPool(jedisPool)) {
+            log.info("Use DistributedSupport : redis");
+            return redis;
+        }
+
         return new DistributedSupportLocal();
     }
 
@@ -7,6 +7,7 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core;
 
+import com.rebuild.core.support.integration.SMSendQueue;
 import com.rebuild.core.support.task.TaskExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationListener;
@@ -28,5 +29,6 @@ public class BootShutdown implements ApplicationListener<ContextClosedEvent> {
         log.warn("Rebuild shutting down ...");
 
         TaskExecutors.shutdown();
+        SMSendQueue.shutdown();
     }
 }
@@ -21,4 +21,14 @@ public interface Initialization extends Ordered {
     default int getOrder() {
         return LOWEST_PRECEDENCE;
     }
+
+    /**
+     * 是否可与同顺序（Order）的其他可并行组件并行初始化。
+     * 返回 true 须确保初始化时不依赖其他组件（默认按顺序执行）
+     *
+     * @return
+     */
+    default boolean isConcurrentInit() {
+        return false;
+    }
 }
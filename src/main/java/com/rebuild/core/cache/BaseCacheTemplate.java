@@ -8,6 +8,7 @@ See LICENSE and COMMERCIAL in the project root for license information.
 package com.rebuild.core.cache;
 
 import com.rebuild.core.support.distributed.UseRedis;
+import com.rebuild.core.support.metrics.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.cache.CacheManager;
@@ -60,7 +61,9 @@ public abstract class BaseCacheTemplate<V extends Serializable> implements Cache
 
     @Override
     public String get(String key) {
-        return delegate.get(unityKey(key));
+        String v = delegate.get(unityKey(key));
+        Metrics.recordCache(key, v != null);
+        return v;
     }
 
     @Override
@@ -79,7 +82,9 @@ public abstract class BaseCacheTemplate<V extends Serializable> implements Cache
 
     @Override
     public V getx(String key) {
-        return delegate.getx(unityKey(key));
+        V v = delegate.getx(unityKey(key));
+        Metrics.recordCache(key, v != null);
+        return v;
     }
 
     @Override
@@ -101,6 +106,20 @@ public abstract class BaseCacheTemplate<V extends Serializable> implements Cache
         delegate.evict(unityKey(key));
     }
 
+    @Override
+    public Long incrBy(String key, long delta) {
+        return delegate.incrBy(unityKey(key), delta);
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, int seconds) {
+        if (value == null) {
+            log.warn("Cannot set `{}` to null", key);
+            return false;
+        }
+        return delegate.putIfAbsent(unityKey(key), value, seconds);
+    }
+
     /**
      * @return
      */
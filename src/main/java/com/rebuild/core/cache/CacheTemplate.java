@@ -43,4 +43,23 @@ public interface CacheTemplate<V extends Serializable> {
     void putx(String key, V value, int seconds);
 
     void evict(String key);
+
+    /**
+     * 原子增减（仅当 KEY 存在时，值须为 {@link #put(String, String)} 存入的数字）
+     *
+     * @param key
+     * @param delta
+     * @return 增减后的值，KEY 不存在返回 <tt>null</tt>
+     */
+    Long incrBy(String key, long delta);
+
+    /**
+     * 仅当 KEY 不存在时存入（原子）
+     *
+     * @param key
+     * @param value
+     * @param seconds
+     * @return 是否存入
+     */
+    boolean putIfAbsent(String key, String value, int seconds);
 }
\ No newline at end of file
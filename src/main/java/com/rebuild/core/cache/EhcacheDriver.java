@@ -7,6 +7,7 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.cache;
 
+import cn.devezhao.commons.ObjectUtils;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import org.springframework.cache.Cache;
@@ -81,6 +82,34 @@ public class EhcacheDriver<V extends Serializable> implements CacheTemplate<V> {
         cache().evict(key);
     }
 
+    @Override
+    public Long incrBy(String key, long delta) {
+        final Ehcache ehcache = (Ehcache) cache().getNativeCache();
+        // CAS
+        while (true) {
+            Element el = ehcache.get(key);
+            if (el == null) return null;
+
+            long n = ObjectUtils.toLong(el.getObjectValue()) + delta;
+            Element newEl = new Element(key, String.valueOf(n));
+            if (el.getTimeToLive() > 0) {
+                newEl.setTimeToLive(el.getTimeToLive());
+            }
+            if (ehcache.replace(el, newEl)) return n;
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, int seconds) {
+        Objects.requireNonNull(value, "[value] cannot be null");
+
+        Element el = new Element(key, value);
+        if (seconds > -1) {
+            el.setTimeToLive(seconds);
+        }
+        return ((Ehcache) cache().getNativeCache()).putIfAbsent(el) == null;
+    }
+
     /**
      * @return
      */
@@ -11,9 +11,11 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.SerializationUtils;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.params.SetParams;
 
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Objects;
 
 /**
@@ -24,6 +26,10 @@ import java.util.Objects;
  */
 public class RedisDriver<V extends Serializable> implements CacheTemplate<V> {
 
+    // KEY 存在时才增减，避免过期后从 0 开始计数
+    private static final String SCRIPT_INCRBY =
+            "if redis.call('exists', KEYS[1]) == 1 then return redis.call('incrby', KEYS[1], ARGV[1]) end return false";
+
     private JedisPool jedisPool;
 
     protected RedisDriver(JedisPool jedisPool) {
@@ -120,6 +126,36 @@ public class RedisDriver<V extends Serializable> implements CacheTemplate<V> {
         }
     }
 
+    @Override
+    public Long incrBy(String key, long delta) {
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+
+            Object n = jedis.eval(SCRIPT_INCRBY,
+                    Collections.singletonList(key), Collections.singletonList(String.valueOf(delta)));
+            return (Long) n;
+        } finally {
+            IOUtils.closeQuietly(jedis);
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, int seconds) {
+        Objects.requireNonNull(value, "[value] cannot be null");
+
+        Jedis jedis = null;
+        try {
+            jedis = jedisPool.getResource();
+
+            SetParams params = SetParams.setParams().nx();
+            if (seconds > 0) params.ex(seconds);
+            return "OK".equals(jedis.set(key, value, params));
+        } finally {
+            IOUtils.closeQuietly(jedis);
+        }
+    }
+
     /**
      * @return
      */
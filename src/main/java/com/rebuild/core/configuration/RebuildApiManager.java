@@ -8,6 +8,14 @@ See LICENSE and COMMERCIAL in the project root for license information.
 package com.rebuild.core.configuration;
 
 import com.rebuild.core.Application;
+import com.rebuild.core.support.ratelimit.RateLimits;
+import com.rebuild.core.support.ratelimit.RateRule;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * API 鉴权参数
@@ -15,6 +23,7 @@ import com.rebuild.core.Application;
  * @author ZHAO
  * @since 2019-07-23
  */
+@Slf4j
 public class RebuildApiManager implements ConfigManager {
 
     public static final RebuildApiManager instance = new RebuildApiManager();
@@ -36,7 +45,7 @@ public class RebuildApiManager implements ConfigManager {
         }
 
         Object[] o = Application.createQueryNoFilter(
-                "select appSecret,bindUser,bindIps from RebuildApi where appId = ?")
+                "select appSecret,bindUser,bindIps,rateLimits from RebuildApi where appId = ?")
                 .setParameter(1, appid)
                 .unique();
         if (o == null) return null;
@@ -45,11 +54,39 @@ public class RebuildApiManager implements ConfigManager {
                 .set("appId", appid)
                 .set("appSecret", o[0])
                 .set("bindUser", o[1])
-                .set("bindIps", o[2]);
+                .set("bindIps", o[2])
+                .set("rateLimits", parseRateLimits((String) o[3], appid));
         Application.getCommonsCache().putx(ckey, cb);
         return cb;
     }
 
+    /**
+     * 限流规则
+     *
+     * @param appid
+     * @param apiName
+     * @return [全部 API 共用的规则, 指定 API 的规则]
+     */
+    @SuppressWarnings("unchecked")
+    public List<RateRule>[] getRateRules(String appid, String apiName) {
+        ConfigBean cb = getApp(appid);
+        Map<String, List<RateRule>> rules = cb == null ? null : (Map<String, List<RateRule>>) cb.getObject("rateLimits");
+        if (rules == null) rules = Collections.emptyMap();
+
+        List<RateRule> anyApi = rules.get(RateRule.ANY_API);
+        if (anyApi == null) anyApi = Arrays.asList(RateLimits.RULES_API);
+        return new List[] { anyApi, rules.getOrDefault(apiName, Collections.emptyList()) };
+    }
+
+    private Map<String, List<RateRule>> parseRateLimits(String rateLimits, String appid) {
+        try {
+            return RateRule.parseRules(rateLimits);
+        } catch (IllegalArgumentException ex) {
+            log.warn("Invalid rate limits of app : {} > {}", appid, rateLimits);
+            return Collections.emptyMap();
+        }
+    }
+
     @Override
     public void clean(Object appid) {
         Application.getCommonsCache().evict(CKEY_PREFIX + appid);
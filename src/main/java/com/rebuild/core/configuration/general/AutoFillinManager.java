@@ -221,6 +221,7 @@ public class AutoFillinManager implements ConfigManager {
         final String cKey = "AutoFillinManager-" + field2.getOwnEntity().getName() + "." + field2.getName();
         Application.getCommonsCache().evict(cKey);
         Application.getCommonsCache().evict(CKEY_AFARF);
+        FormsBuilder.instance.cleanModelSkeleton();
     }
 
     private static final String CKEY_AFARF = "AutoFillinReadonlyFields";
@@ -106,6 +106,16 @@ public class BaseLayoutManager extends ShareToManager {
         return findEntry(cached, cfgid);
     }
 
+    /**
+     * Default: configId,shareTo,createdBy,config,modifiedOn
+     *
+     * @return
+     */
+    @Override
+    protected String getConfigFields() {
+        return super.getConfigFields() + ",modifiedOn";
+    }
+
     /**
      * @param uses
      * @param cfgid
@@ -117,7 +127,8 @@ public class BaseLayoutManager extends ShareToManager {
                 return new ConfigBean()
                         .set("id", c[0])
                         .set("shareTo", c[1])
-                        .set("config", JSON.parse((String) c[3]));
+                        .set("config", JSON.parse((String) c[3]))
+                        .set("modifiedOn", c.length > 4 ? c[4] : null);
             }
         }
         return null;
@@ -126,5 +137,6 @@ public class BaseLayoutManager extends ShareToManager {
     @Override
     public void clean(Object layoutId) {
         cleanWithBelongEntity((ID) layoutId, true);
+        FormsBuilder.instance.cleanModelSkeleton();
     }
 }
@@ -58,22 +58,17 @@ public class ClassificationManager implements ConfigManager {
      * @return [名称, 全名称]
      */
     private String[] getItemNames(ID itemId) {
-        final String ckey = "ClassificationNAME-" + itemId;
-        String[] cached = (String[]) Application.getCommonsCache().getx(ckey);
-        if (cached != null) {
-            return cached[0].equals(DELETED_ITEM) ? null : cached;
-        }
-
-        Object[] o = Application.createQueryNoFilter(
-                "select name,fullName from ClassificationData where itemId = ?")
-                .setParameter(1, itemId)
-                .unique();
-        if (o != null) cached = new String[]{(String) o[0], (String) o[1]};
-        // 可能已删除
-        if (cached == null) cached = new String[]{DELETED_ITEM, DELETED_ITEM};
+        return DictionarySnapshot.getClassifications().getItemNames(itemId);
+    }
 
-        Application.getCommonsCache().putx(ckey, cached);
-        return cached[0].equals(DELETED_ITEM) ? null : cached;
+    /**
+     * 获取父级分类项
+     *
+     * @param itemId
+     * @return
+     */
+    public ID getParent(ID itemId) {
+        return DictionarySnapshot.getClassifications().getParent(itemId);
     }
 
     /**
@@ -115,17 +110,8 @@ public class ClassificationManager implements ConfigManager {
             return BAD_CLASSIFICATION;
         }
 
-        String ckey = "ClassificationLEVEL-" + dataId;
-        Integer cLevel = (Integer) Application.getCommonsCache().getx(ckey);
-        if (cLevel == null) {
-            Object[] o = Application.createQueryNoFilter(
-                    "select openLevel from Classification where dataId = ?")
-                    .setParameter(1, dataId)
-                    .unique();
-
-            cLevel = o == null ? BAD_CLASSIFICATION : (Integer) o[0];
-            Application.getCommonsCache().putx(ckey, cLevel);
-        }
+        Integer cLevel = DictionarySnapshot.getClassifications().getOpenLevel(dataId);
+        if (cLevel == null) cLevel = BAD_CLASSIFICATION;
 
         // 字段指定
         String specLevel = EasyMetaFactory.valueOf(field).getExtraAttr(EasyFieldConfigProps.CLASSIFICATION_LEVEL);
@@ -160,10 +146,9 @@ public class ClassificationManager implements ConfigManager {
     @Override
     public void clean(Object cid) {
         ID id2 = (ID) cid;
-        if (id2.getEntityCode() == EntityHelper.ClassificationData) {
-            Application.getCommonsCache().evict("ClassificationNAME-" + cid);
-        } else if (id2.getEntityCode() == EntityHelper.Classification) {
-            Application.getCommonsCache().evict("ClassificationLEVEL-" + cid);
+        DictionarySnapshot.invalidateClassifications();
+        if (id2.getEntityCode() == EntityHelper.Classification) {
+            FormsBuilder.instance.cleanModelSkeleton();
         }
     }
 }
@@ -18,6 +18,7 @@ import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
 import com.rebuild.core.privileges.AdminGuard;
 import com.rebuild.core.privileges.UserService;
 import com.rebuild.core.service.DataSpecificationException;
+import com.rebuild.core.service.TransactionManual;
 import com.rebuild.core.service.general.QuickCodeReindexTask;
 import com.rebuild.core.support.i18n.Language;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +35,9 @@ import org.springframework.stereotype.Service;
 @Service
 public class ClassificationService extends BaseConfigurationService implements AdminGuard {
 
+    // 批量变更中（字典快照延迟到结束后失效）
+    private static final ThreadLocal<Boolean> IN_BATCH = new ThreadLocal<>();
+
     protected ClassificationService(PersistManagerFactory aPMFactory) {
         super(aPMFactory);
     }
@@ -59,9 +63,41 @@ public class ClassificationService extends BaseConfigurationService implements A
         return super.delete(recordId);
     }
 
+    @Override
+    public Record update(Record record) {
+        record = super.update(record);
+        // 字典快照需在更新后失效
+        cleanCache(record.getPrimary());
+        return record;
+    }
+
     @Override
     protected void cleanCache(ID cfgid) {
-        ClassificationManager.instance.clean(cfgid);
+        // 批量中的在结束后统一失效
+        if (IN_BATCH.get() != null) return;
+        // 提交后失效，避免其他线程以未提交的数据重建快照
+        TransactionManual.afterCommit(() -> ClassificationManager.instance.clean(cfgid));
+    }
+
+    /**
+     * 批量变更分类项（如导入）。期间每项变更不失效字典快照，结束后失效一次
+     *
+     * @param dataId
+     * @param task
+     */
+    public void executeBatch(ID dataId, Runnable task) {
+        if (IN_BATCH.get() != null) {
+            task.run();
+            return;
+        }
+
+        IN_BATCH.set(true);
+        try {
+            task.run();
+        } finally {
+            IN_BATCH.remove();
+            TransactionManual.afterCommit(() -> ClassificationManager.instance.clean(dataId));
+        }
     }
 
     // -- for DataItem
@@ -81,18 +117,21 @@ public class ClassificationService extends BaseConfigurationService implements A
         record = super.update(record);
         if (reindex) {
             final ID itemId = record.getPrimary();
-            cleanCache(itemId);
-            final long start = System.currentTimeMillis();
-            ThreadPool.exec(() -> {
+            final String fullName = record.getString("fullName");
+            // 提交后重建子级，结束后失效一次
+            TransactionManual.afterCommit(() -> ThreadPool.exec(() -> {
+                final long start = System.currentTimeMillis();
                 try {
-                    reindexFullNameByParent(itemId);
+                    reindexFullNameByParent(itemId, fullName, null);
                 } finally {
+                    ClassificationManager.instance.clean(itemId);
+
                     long cost = System.currentTimeMillis() - start;
                     if (cost > 2000 || Application.devMode()) {
                         log.info("Reindex FullName [ {} ] in {} ms", itemId, cost);
                     }
                 }
-            });
+            }));
         }
         return record;
     }
@@ -128,40 +167,55 @@ public class ClassificationService extends BaseConfigurationService implements A
         }
 
         if (parent != null) {
-            fullName = ClassificationManager.instance.getFullName(parent) + "." + fullName;
+            fullName = getFullName(parent) + "." + fullName;
         }
         record.setString("fullName", fullName);
         record.setString("quickCode", quickCode);
         return true;
     }
 
+    // 批量中的新增/变更在快照中尚不可见
+    private String getFullName(ID itemId) {
+        if (IN_BATCH.get() == null) return ClassificationManager.instance.getFullName(itemId);
+
+        Object[] o = Application.createQueryNoFilter(
+                "select fullName from ClassificationData where itemId = ?")
+                .setParameter(1, itemId)
+                .unique();
+        return o == null ? null : (String) o[0];
+    }
+
     /**
      * 重建子级 fullName
      *
      * @param parent
      * @return
-     * @see #reindexFullNameByParent(ID, ID)
+     * @see #reindexFullNameByParent(ID, String, ID)
      */
     protected int reindexFullNameByParent(ID parent) {
         Object[] data = Application.createQueryNoFilter(
-                "select dataId from ClassificationData where itemId = ?")
+                "select dataId,fullName from ClassificationData where itemId = ?")
                 .setParameter(1, parent)
                 .unique();
         if (data == null) {
             return 0;
         }
-        return reindexFullNameByParent(parent, (ID) data[0]);
+
+        int reindex = reindexFullNameByParent(parent, (String) data[1], (ID) data[0]);
+        ClassificationManager.instance.clean(parent);
+        return reindex;
     }
 
     /**
-     * 重建子级 fullName
+     * 重建子级 fullName。子级全名由父级全名逐级传递，期间不读取（也不失效）字典快照，由调用方结束后失效一次
      *
      * @param parent
+     * @param parentFullName
      * @param dataId 可选。但指定此值处理效率较高
      * @return
      */
-    protected int reindexFullNameByParent(ID parent, ID dataId) {
-        String sql = "select itemId,name,parent from ClassificationData where parent = ?";
+    protected int reindexFullNameByParent(ID parent, String parentFullName, ID dataId) {
+        String sql = "select itemId,name from ClassificationData where parent = ?";
         if (dataId != null) {
             sql += " and dataId = '" + dataId + "'";
         }
@@ -172,20 +226,15 @@ public class ClassificationService extends BaseConfigurationService implements A
         int reindex = 0;
         for (Object[] c : array) {
             ID itemId = (ID) c[0];
-            String fullName = (String) c[1];
-            String quickCode = QuickCodeReindexTask.generateQuickCode(fullName);
-            if (c[2] != null) {
-                String pfn = ClassificationManager.instance.getFullName((ID) c[2]);
-                fullName = pfn + "." + fullName;
-            }
+            String name = (String) c[1];
+            String fullName = parentFullName == null ? name : parentFullName + "." + name;
             Record record = EntityHelper.forUpdate(itemId, UserService.SYSTEM_USER, false);
             record.setString("fullName", fullName);
-            record.setString("quickCode", quickCode);
+            record.setString("quickCode", QuickCodeReindexTask.generateQuickCode(name));
             super.updateOnly(record);
             reindex++;
 
-            cleanCache(itemId);
-            reindex += reindexFullNameByParent(itemId, dataId);
+            reindex += reindexFullNameByParent(itemId, fullName, dataId);
         }
         return reindex;
     }
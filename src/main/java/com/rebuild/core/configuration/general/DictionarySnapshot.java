@@ -0,0 +1,275 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.configuration.general;
+
+import cn.devezhao.commons.CodecUtils;
+import cn.devezhao.persist4j.engine.ID;
+import com.rebuild.core.Application;
+import com.rebuild.core.configuration.ConfigBean;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字典数据（列表项/分类数据）进程内快照。
+ * 整体加载，变更时整体失效并在下次读取时重建，读取为纯内存操作。
+ * 多节点部署时通过共享缓存中的版本标记感知其他节点的变更。
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see PickListManager
+ * @see ClassificationManager
+ */
+@Slf4j
+final class DictionarySnapshot {
+
+    private static final String CKEY_PICKLIST_VERSION = "DictionaryVERSION-PickList";
+    private static final String CKEY_CLASSIFICATION_VERSION = "DictionaryVERSION-Classification";
+
+    // 检查共享版本的间隔（毫秒）
+    private static final long VERSION_CHECK_INTERVAL = 3000;
+
+    private static volatile PickLists pickLists;
+    private static volatile Classifications classifications;
+
+    private DictionarySnapshot() {
+    }
+
+    /**
+     * @return
+     */
+    static PickLists getPickLists() {
+        PickLists s = pickLists;
+        if (s != null && s.isCurrent(CKEY_PICKLIST_VERSION)) return s;
+
+        synchronized (DictionarySnapshot.class) {
+            s = pickLists;
+            if (s != null && s.isCurrent(CKEY_PICKLIST_VERSION)) return s;
+
+            s = new PickLists(getOrCreateVersion(CKEY_PICKLIST_VERSION));
+            pickLists = s;
+            return s;
+        }
+    }
+
+    /**
+     * @return
+     */
+    static Classifications getClassifications() {
+        Classifications s = classifications;
+        if (s != null && s.isCurrent(CKEY_CLASSIFICATION_VERSION)) return s;
+
+        synchronized (DictionarySnapshot.class) {
+            s = classifications;
+            if (s != null && s.isCurrent(CKEY_CLASSIFICATION_VERSION)) return s;
+
+            s = new Classifications(getOrCreateVersion(CKEY_CLASSIFICATION_VERSION));
+            classifications = s;
+            return s;
+        }
+    }
+
+    /**
+     * 列表项变更
+     */
+    static void invalidatePickLists() {
+        Application.getCommonsCache().put(CKEY_PICKLIST_VERSION, newVersion());
+        synchronized (DictionarySnapshot.class) {
+            pickLists = null;
+        }
+    }
+
+    /**
+     * 分类数据变更
+     */
+    static void invalidateClassifications() {
+        Application.getCommonsCache().put(CKEY_CLASSIFICATION_VERSION, newVersion());
+        synchronized (DictionarySnapshot.class) {
+            classifications = null;
+        }
+    }
+
+    private static String getOrCreateVersion(String ckey) {
+        String version = Application.getCommonsCache().get(ckey);
+        if (version == null) {
+            version = newVersion();
+            Application.getCommonsCache().put(ckey, version);
+        }
+        return version;
+    }
+
+    private static String newVersion() {
+        return System.currentTimeMillis() + "-" + CodecUtils.randomCode(6);
+    }
+
+    /**
+     * 快照基类（版本校验）
+     */
+    abstract static class Versioned {
+
+        final String version;
+        volatile long lastChecked;
+
+        Versioned(String version) {
+            this.version = version;
+            this.lastChecked = System.currentTimeMillis();
+        }
+
+        boolean isCurrent(String ckey) {
+            long now = System.currentTimeMillis();
+            if (now - lastChecked < VERSION_CHECK_INTERVAL) return true;
+
+            lastChecked = now;
+            return version.equals(Application.getCommonsCache().get(ckey));
+        }
+    }
+
+    /**
+     * 列表项（含多选）
+     */
+    static class PickLists extends Versioned {
+
+        // <entity.field, [items]>
+        private final Map<String, ConfigBean[]> fieldItems;
+        // <itemId, text>
+        private final Map<ID, String> labels;
+
+        PickLists(String version) {
+            super(version);
+
+            Object[][] array = Application.createQueryNoFilter(
+                    "select itemId,text,isDefault,isHide,maskValue,belongEntity,belongField from PickList order by seq asc")
+                    .array();
+
+            Map<String, List<ConfigBean>> temp = new LinkedHashMap<>();
+            Map<ID, String> labels = new HashMap<>();
+            for (Object[] o : array) {
+                ConfigBean entry = new ConfigBean()
+                        .set("id", o[0])
+                        .set("text", o[1])
+                        .set("default", o[2])
+                        .set("hide", o[3])
+                        .set("mask", o[4]);
+                temp.computeIfAbsent(o[5] + "." + o[6], k -> new ArrayList<>()).add(entry);
+                labels.put((ID) o[0], (String) o[1]);
+            }
+
+            Map<String, ConfigBean[]> fieldItems = new HashMap<>();
+            for (Map.Entry<String, List<ConfigBean>> e : temp.entrySet()) {
+                fieldItems.put(e.getKey(), e.getValue().toArray(new ConfigBean[0]));
+            }
+
+            this.fieldItems = Collections.unmodifiableMap(fieldItems);
+            this.labels = Collections.unmodifiableMap(labels);
+            log.info("Loaded [ {} ] picklist items", labels.size());
+        }
+
+        /**
+         * 注意返回的是共享数据，不可修改
+         *
+         * @param entity
+         * @param field
+         * @return
+         */
+        ConfigBean[] getItems(String entity, String field) {
+            ConfigBean[] items = fieldItems.get(entity + "." + field);
+            return items == null ? new ConfigBean[0] : items;
+        }
+
+        /**
+         * @param itemId
+         * @return
+         */
+        String getLabel(ID itemId) {
+            return labels.get(itemId);
+        }
+    }
+
+    /**
+     * 分类数据
+     */
+    static class Classifications extends Versioned {
+
+        // <itemId, index>
+        private final Map<ID, Integer> itemIndex;
+        private final ID[] ids;
+        private final String[] names;
+        private final String[] fullNames;
+        // 父级位置，无父级为 -1
+        private final int[] parents;
+
+        // <dataId, openLevel>
+        private final Map<ID, Integer> openLevels;
+
+        Classifications(String version) {
+            super(version);
+
+            Object[][] array = Application.createQueryNoFilter(
+                    "select itemId,name,fullName,parent from ClassificationData")
+                    .array();
+
+            Map<ID, Integer> itemIndex = new HashMap<>(array.length * 4 / 3 + 1);
+            this.ids = new ID[array.length];
+            this.names = new String[array.length];
+            this.fullNames = new String[array.length];
+            this.parents = new int[array.length];
+            for (int i = 0; i < array.length; i++) {
+                Object[] o = array[i];
+                itemIndex.put((ID) o[0], i);
+                ids[i] = (ID) o[0];
+                names[i] = (String) o[1];
+                fullNames[i] = (String) o[2];
+            }
+            for (int i = 0; i < array.length; i++) {
+                Integer p = array[i][3] == null ? null : itemIndex.get((ID) array[i][3]);
+                parents[i] = p == null ? -1 : p;
+            }
+
+            Map<ID, Integer> openLevels = new HashMap<>();
+            array = Application.createQueryNoFilter("select dataId,openLevel from Classification").array();
+            for (Object[] o : array) {
+                openLevels.put((ID) o[0], (Integer) o[1]);
+            }
+
+            this.itemIndex = Collections.unmodifiableMap(itemIndex);
+            this.openLevels = Collections.unmodifiableMap(openLevels);
+            log.info("Loaded [ {} ] classification items", names.length);
+        }
+
+        /**
+         * @param itemId
+         * @return [名称, 全名称]
+         */
+        String[] getItemNames(ID itemId) {
+            Integer i = itemIndex.get(itemId);
+            return i == null ? null : new String[]{names[i], fullNames[i]};
+        }
+
+        /**
+         * @param itemId
+         * @return
+         */
+        ID getParent(ID itemId) {
+            Integer i = itemIndex.get(itemId);
+            return i == null || parents[i] == -1 ? null : ids[parents[i]];
+        }
+
+        /**
+         * @param dataId
+         * @return
+         */
+        Integer getOpenLevel(ID dataId) {
+            return openLevels.get(dataId);
+        }
+    }
+}
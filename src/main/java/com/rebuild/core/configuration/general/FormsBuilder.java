@@ -17,6 +17,7 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.rebuild.core.Application;
+import com.rebuild.core.UserContextHolder;
 import com.rebuild.core.configuration.ConfigBean;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.MetadataHelper;
@@ -166,6 +167,14 @@ public class FormsBuilder extends FormsManager {
             return formatModelError(Language.L("此表单布局尚未配置，请配置后使用"));
         }
 
+        // 表单骨架（与记录无关，可缓存）
+        elements = getModelSkeleton(model.getID("id"), (Date) model.getObject("modifiedOn"),
+                elements, entityMeta, record == null, !viewMode);
+        model.set("elements", elements);
+        if (elements.isEmpty()) {
+            return formatModelError(Language.L("此表单布局尚未配置，请配置后使用"));
+        }
+
         Record data = null;
         if (record != null) {
             data = findRecord(record, user, elements);
@@ -174,20 +183,7 @@ public class FormsBuilder extends FormsManager {
             }
         }
 
-        // 自动只读
-        Set<String> roAutos = EasyMetaFactory.getAutoReadonlyFields(entity);
-        for (Object o : elements) {
-            JSONObject field = (JSONObject) o;
-            if (roAutos.contains(field.getString("field"))) {
-                field.put("readonly", true);
-            }
-        }
-
-        buildModelElements(elements, entityMeta, data, user, !viewMode);
-
-        if (elements.isEmpty()) {
-            return formatModelError(Language.L("此表单布局尚未配置，请配置后使用"));
-        }
+        buildModelValues(elements, entityMeta, data, user);
 
         // 主/明细实体处理
         if (hasMainEntity != null) {
@@ -252,6 +248,105 @@ public class FormsBuilder extends FormsManager {
         return RobotApprovalManager.instance.hadApproval(entity.getMainEntity(), mainid);
     }
 
+    // 表单骨架缓存上限
+    private static final int SKELETON_CACHE_MAX = 500;
+
+    // 表单骨架缓存 <KEY, ELEMENTS>（LRU）
+    private final Map<String, JSONArray> modelSkeletons = Collections.synchronizedMap(
+            new LinkedHashMap<String, JSONArray>(64, 0.75f, true) {
+                private static final long serialVersionUID = 5437432866536455153L;
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, JSONArray> eldest) {
+                    return size() > SKELETON_CACHE_MAX;
+                }
+            });
+
+    /**
+     * 获取表单骨架（与记录无关部分，按 布局 x 实体 x 新建/编辑/视图 x 语言 缓存）
+     *
+     * @param layoutId
+     * @param layoutModifiedOn
+     * @param elements
+     * @param entity
+     * @param newMode
+     * @param useAdvControl
+     * @return 副本，可直接修改
+     */
+    protected JSONArray getModelSkeleton(ID layoutId, Date layoutModifiedOn, JSONArray elements, Entity entity, boolean newMode, boolean useAdvControl) {
+        final Set<String> roAutos = EasyMetaFactory.getAutoReadonlyFields(entity.getName());
+
+        // 布局修改时间及自动只读字段参与 KEY，以便其他节点变更后也能失效
+        final String skeletonKey = String.format("%s-%s-%d-%s-%s-%s",
+                entity.getName(), layoutId, layoutModifiedOn == null ? 0 : layoutModifiedOn.getTime(),
+                StringUtils.join(new TreeSet<>(roAutos), ","),
+                newMode ? "NEW" : (useAdvControl ? "EDIT" : "VIEW"), UserContextHolder.getLocale());
+
+        JSONArray skeleton = modelSkeletons.get(skeletonKey);
+        if (skeleton == null) {
+            skeleton = elements;
+
+            // 自动只读
+            for (Object o : skeleton) {
+                JSONObject field = (JSONObject) o;
+                if (roAutos.contains(field.getString("field"))) {
+                    field.put("readonly", true);
+                }
+            }
+
+            buildModelSkeleton(skeleton, entity, newMode, useAdvControl);
+            // 无布局ID的不缓存
+            if (layoutId != null) modelSkeletons.put(skeletonKey, skeleton);
+        }
+
+        // 调用方可能修改嵌套属性（如选项），须深复制
+        return (JSONArray) deepCopy(skeleton);
+    }
+
+    /**
+     * @param o
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected static Object deepCopy(Object o) {
+        if (o instanceof JSONObject) {
+            JSONObject copy = new JSONObject(true);
+            for (Map.Entry<String, Object> e : ((JSONObject) o).entrySet()) {
+                copy.put(e.getKey(), deepCopy(e.getValue()));
+            }
+            return copy;
+        }
+        if (o instanceof JSONArray) {
+            JSONArray copy = new JSONArray(((JSONArray) o).size());
+            for (Object item : (JSONArray) o) copy.add(deepCopy(item));
+            return copy;
+        }
+        if (o instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<Object, Object> e : ((Map<Object, Object>) o).entrySet()) {
+                copy.put(e.getKey(), deepCopy(e.getValue()));
+            }
+            return copy;
+        }
+        if (o instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<Object>) o).size());
+            for (Object item : (List<Object>) o) copy.add(deepCopy(item));
+            return copy;
+        }
+        if (o instanceof Object[]) {
+            Object[] copy = ((Object[]) o).clone();
+            for (int i = 0; i < copy.length; i++) copy[i] = deepCopy(copy[i]);
+            return copy;
+        }
+        return o;
+    }
+
+    /**
+     * 清理表单骨架缓存（布局、元数据、触发器等变更时）
+     */
+    public void cleanModelSkeleton() {
+        modelSkeletons.clear();
+    }
+
     /**
      * 构建表单元素
      *
@@ -262,9 +357,19 @@ public class FormsBuilder extends FormsManager {
      * @param useAdvControl
      */
     protected void buildModelElements(JSONArray elements, Entity entity, Record data, ID user, boolean useAdvControl) {
-        final User formUser = Application.getUserStore().getUser(user);
-        final Date now = CalendarUtils.now();
+        buildModelSkeleton(elements, entity, data == null, useAdvControl);
+        buildModelValues(elements, entity, data, user);
+    }
 
+    /**
+     * 构建表单元素（与记录无关部分）
+     *
+     * @param elements
+     * @param entity
+     * @param newMode
+     * @param useAdvControl
+     */
+    protected void buildModelSkeleton(JSONArray elements, Entity entity, boolean newMode, boolean useAdvControl) {
         // Check and clean
         for (Iterator<Object> iter = elements.iterator(); iter.hasNext(); ) {
             JSONObject el = (JSONObject) iter.next();
@@ -285,20 +390,20 @@ public class FormsBuilder extends FormsManager {
             Object requiredOnUpdate = el.remove("requiredOnUpdate");
             if (useAdvControl) {
                 // 显示
-                if (displayOnCreate != null && !(Boolean) displayOnCreate && data == null) {
+                if (displayOnCreate != null && !(Boolean) displayOnCreate && newMode) {
                     iter.remove();
                     continue;
                 }
-                if (displayOnUpdate != null && !(Boolean) displayOnUpdate && data != null) {
+                if (displayOnUpdate != null && !(Boolean) displayOnUpdate && !newMode) {
                     iter.remove();
                     continue;
                 }
 
                 // 必填
-                if (requiredOnCreate != null && (Boolean) requiredOnCreate && data == null) {
+                if (requiredOnCreate != null && (Boolean) requiredOnCreate && newMode) {
                     el.put("nullable", false);
                 }
-                if (requiredOnUpdate != null && (Boolean) requiredOnUpdate && data != null) {
+                if (requiredOnUpdate != null && (Boolean) requiredOnUpdate && !newMode) {
                     el.put("nullable", false);
                 }
             }
@@ -312,7 +417,7 @@ public class FormsBuilder extends FormsManager {
             el.put("label", easyField.getLabel());
             el.put("type", dt.name());
 
-            el.put("readonly", (data != null && !fieldMeta.isUpdatable()) || roViaAuto);
+            el.put("readonly", (!newMode && !fieldMeta.isUpdatable()) || roViaAuto);
 
             // 优先使用指定值
             final Boolean nullable = el.getBoolean("nullable");
@@ -356,6 +461,31 @@ public class FormsBuilder extends FormsManager {
             } else if (dt == DisplayType.CLASSIFICATION) {
                 el.put("openLevel", ClassificationManager.instance.getOpenLevel(fieldMeta));
             }
+        }  // end for
+    }
+
+    /**
+     * 填充表单元素值（记录/用户相关部分）
+     *
+     * @param elements 须先经 {@link #buildModelSkeleton(JSONArray, Entity, boolean, boolean)} 处理
+     * @param entity
+     * @param data
+     * @param user
+     */
+    protected void buildModelValues(JSONArray elements, Entity entity, Record data, ID user) {
+        final User formUser = Application.getUserStore().getUser(user);
+        final Date now = CalendarUtils.now();
+
+        for (Object o : elements) {
+            JSONObject el = (JSONObject) o;
+            String fieldName = el.getString("field");
+            if (DIVIDER_LINE.equalsIgnoreCase(fieldName)) {
+                continue;
+            }
+
+            final Field fieldMeta = entity.getField(fieldName);
+            final EasyField easyField = EasyMetaFactory.valueOf(fieldMeta);
+            final DisplayType dt = easyField.getDisplayType();
 
             // 编辑/视图
             if (data != null) {
@@ -366,6 +496,9 @@ public class FormsBuilder extends FormsManager {
             }
             // 新建记录
             else {
+                // 新建时骨架中的只读即自动只读
+                final boolean roViaAuto = el.getBooleanValue("readonly");
+
                 if (!fieldMeta.isCreatable()) {
                     el.put("readonly", true);
                     switch (fieldName) {
@@ -8,7 +8,6 @@ See LICENSE and COMMERCIAL in the project root for license information.
 package com.rebuild.core.configuration.general;
 
 import cn.devezhao.persist4j.Field;
-import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSONArray;
 import com.rebuild.core.configuration.ConfigBean;
 import com.rebuild.utils.JSONUtils;
@@ -54,8 +53,9 @@ public class MultiSelectManager extends PickListManager {
         }
 
         List<String> labels = new ArrayList<>();
-        ConfigBean[] entries = getPickListRaw(field, false);
-        for (ConfigBean e : entries) {
+        for (ConfigBean e : getPickListShared(field)) {
+            if (e.getBoolean("hide")) continue;
+
             long m = e.get("mask", Long.class);
             if ((maskValue & m) != 0) {
                 labels.add(e.getString("text"));
@@ -72,8 +72,8 @@ public class MultiSelectManager extends PickListManager {
      */
     public Long getDefaultValue(Field field) {
         long maskValue = 0;
-        for (ConfigBean e : getPickListRaw(field, false)) {
-            if (e.getBoolean("default")) {
+        for (ConfigBean e : getPickListShared(field)) {
+            if (!e.getBoolean("hide") && e.getBoolean("default")) {
                 maskValue += e.get("mask", Long.class);
             }
         }
@@ -86,21 +86,11 @@ public class MultiSelectManager extends PickListManager {
      * @return
      */
     public long findMultiItemByLabel(String labelValue, Field field) {
-        ConfigBean[] items = getPickListRaw(field, true);
-        for (ConfigBean item : items) {
+        for (ConfigBean item : getPickListShared(field)) {
             if (StringUtils.equalsIgnoreCase(item.getString("text"), labelValue)) {
                 return item.getLong("mask");
             }
         }
         return 0;
     }
-
-    @Override
-    public void clean(Object idOrField) {
-        if (idOrField instanceof ID) {
-            // NOOP
-        } else {
-            super.clean(idOrField);
-        }
-    }
 }
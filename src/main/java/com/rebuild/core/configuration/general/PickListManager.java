@@ -10,7 +10,6 @@ package com.rebuild.core.configuration.general;
 import cn.devezhao.persist4j.Field;
 import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSONArray;
-import com.rebuild.core.Application;
 import com.rebuild.core.configuration.ConfigBean;
 import com.rebuild.core.configuration.ConfigManager;
 import com.rebuild.utils.JSONUtils;
@@ -60,32 +59,8 @@ public class PickListManager implements ConfigManager {
      * @return
      */
     public ConfigBean[] getPickListRaw(String entity, String field, boolean includeHide) {
-        final String ckey = String.format("PickList-%s.%s", entity, field);
-        ConfigBean[] cached = (ConfigBean[]) Application.getCommonsCache().getx(ckey);
-
-        if (cached == null) {
-            Object[][] array = Application.createQueryNoFilter(
-                    "select itemId,text,isDefault,isHide,maskValue from PickList where belongEntity = ? and belongField = ? order by seq asc")
-                    .setParameter(1, entity)
-                    .setParameter(2, field)
-                    .array();
-            List<ConfigBean> list = new ArrayList<>();
-            for (Object[] o : array) {
-                ConfigBean entry = new ConfigBean()
-                        .set("id", o[0])
-                        .set("text", o[1])
-                        .set("default", o[2])
-                        .set("hide", o[3])
-                        .set("mask", o[4]);
-                list.add(entry);
-            }
-
-            cached = list.toArray(new ConfigBean[0]);
-            Application.getCommonsCache().putx(ckey, cached);
-        }
-
         List<ConfigBean> ret = new ArrayList<>();
-        for (ConfigBean entry : cached) {
+        for (ConfigBean entry : DictionarySnapshot.getPickLists().getItems(entity, field)) {
             if (includeHide || !entry.getBoolean("hide")) {
                 ret.add(entry.clone());
             }
@@ -93,27 +68,22 @@ public class PickListManager implements ConfigManager {
         return ret.toArray(new ConfigBean[0]);
     }
 
+    /**
+     * 获取列表项（共享数据，只读勿改）
+     *
+     * @param field
+     * @return
+     */
+    protected ConfigBean[] getPickListShared(Field field) {
+        return DictionarySnapshot.getPickLists().getItems(field.getOwnEntity().getName(), field.getName());
+    }
+
     /**
      * @param itemId
      * @return
      */
     public String getLabel(ID itemId) {
-        final String ckey = "PickListLABEL-" + itemId;
-        String cached = Application.getCommonsCache().get(ckey);
-        if (cached != null) {
-            return cached.equals(DELETED_ITEM) ? null : cached;
-        }
-
-        Object[] o = Application.createQueryNoFilter(
-                "select text from PickList where itemId = ?")
-                .setParameter(1, itemId)
-                .unique();
-        if (o != null) cached = (String) o[0];
-        // 可能已删除
-        if (cached == null) cached = DELETED_ITEM;
-
-        Application.getCommonsCache().put(ckey, cached);
-        return cached.equals(DELETED_ITEM) ? null : cached;
+        return DictionarySnapshot.getPickLists().getLabel(itemId);
     }
 
     /**
@@ -122,8 +92,7 @@ public class PickListManager implements ConfigManager {
      * @return
      */
     public ID findItemByLabel(String labelValue, Field field) {
-        ConfigBean[] items = getPickListRaw(field, true);
-        for (ConfigBean item : items) {
+        for (ConfigBean item : getPickListShared(field)) {
             if (StringUtils.equalsIgnoreCase(item.getString("text"), labelValue)) {
                 return item.getID("id");
             }
@@ -138,8 +107,8 @@ public class PickListManager implements ConfigManager {
      * @return
      */
     public ID getDefaultItem(Field field) {
-        for (ConfigBean e : getPickListRaw(field, false)) {
-            if (e.getBoolean("default")) {
+        for (ConfigBean e : getPickListShared(field)) {
+            if (!e.getBoolean("hide") && e.getBoolean("default")) {
                 return e.getID("id");
             }
         }
@@ -148,11 +117,9 @@ public class PickListManager implements ConfigManager {
 
     @Override
     public void clean(Object idOrField) {
-        if (idOrField instanceof ID) {
-            Application.getCommonsCache().evict("PickListLABEL-" + idOrField);
-        } else if (idOrField instanceof Field) {
-            Field field = (Field) idOrField;
-            Application.getCommonsCache().evict(String.format("PickList-%s.%s", field.getOwnEntity().getName(), field.getName()));
+        DictionarySnapshot.invalidatePickLists();
+        if (idOrField instanceof Field) {
+            FormsBuilder.instance.cleanModelSkeleton();
         }
     }
 }
@@ -7,18 +7,24 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.configuration.general;
 
+import cn.devezhao.commons.CodecUtils;
 import cn.devezhao.persist4j.engine.ID;
 import com.rebuild.core.Application;
 import com.rebuild.core.configuration.ConfigManager;
 import com.rebuild.core.privileges.UserHelper;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 可共享的配置
@@ -37,6 +43,9 @@ public abstract class ShareToManager implements ConfigManager {
      */
     public static final String SHARE_SELF = "SELF";
 
+    // 共享索引（本地） <cacheKey, AudienceIndex>
+    private final Map<String, AudienceIndex> audienceIndexes = new ConcurrentHashMap<>();
+
     /**
      * @return
      */
@@ -62,10 +71,23 @@ public abstract class ShareToManager implements ConfigManager {
                 (hasApplyType ? ",applyType" : ""), getConfigEntity());
         Object[] c = Application.createQueryNoFilter(ql).setParameter(1, cfgid).unique();
         if (c != null) {
-            Application.getCommonsCache().evict(formatCacheKey((String) c[0], hasApplyType ? (String) c[1] : null));
+            evictCache((String) c[0], hasApplyType ? (String) c[1] : null);
         }
     }
 
+    /**
+     * 清理缓存（含本地共享索引）
+     *
+     * @param belongEntity
+     * @param applyType
+     */
+    protected void evictCache(String belongEntity, String applyType) {
+        final String cacheKey = formatCacheKey(belongEntity, applyType);
+        Application.getCommonsCache().evict(cacheKey);
+        Application.getCommonsCache().evict(cacheKey + "-STAMP");
+        audienceIndexes.remove(cacheKey);
+    }
+
     /**
      * 确定用户使用哪个配置
      *
@@ -75,29 +97,19 @@ public abstract class ShareToManager implements ConfigManager {
      * @return
      */
     public ID detectUseConfig(ID user, String belongEntity, String applyType) {
-        final Object[][] alls = getAllConfig(belongEntity, applyType);
-        if (alls.length == 0) return null;
+        final AudienceIndex index = getAudienceIndex(belongEntity, applyType);
+        if (index.rows.length == 0) return null;
 
         // 1.优先使用自己的
-        for (Object[] d : alls) {
-            ID createdBy = (ID) d[2];
-            if (UserHelper.isSelf(user, createdBy)) {
-                return (ID) d[0];
-            }
-        }
-
+        int use = index.firstOwn(user);
         // 2.其次使用共享的
-        for (Object[] d : alls) {
-            if (isShareTo((String) d[1], user)) {
-                return (ID) d[0];
-            }
-        }
+        if (use == -1) use = index.firstShared(user);
 
-        return null;
+        return use == -1 ? null : (ID) index.rows[use][0];
     }
 
     /**
-     * 获取用户可用的配置列表
+     * 获取用户可用的配置列表（注意返回的是共享数据，只读）
      *
      * @param user
      * @param belongEntity
@@ -105,29 +117,47 @@ public abstract class ShareToManager implements ConfigManager {
      * @return
      */
     protected Object[][] getUsesConfig(ID user, String belongEntity, String applyType) {
-        Object[][] cached = getAllConfig(belongEntity, applyType);
-        List<Object[]> canUses = new ArrayList<>();
-        for (Object[] d : cached) {
-            ID createdBy = (ID) d[2];
-            if (UserHelper.isSelf(user, createdBy) || isShareTo((String) d[1], user)) {
-                canUses.add(d);
-            }
+        final AudienceIndex index = getAudienceIndex(belongEntity, applyType);
+        int[] uses = index.getUses(user);
+
+        Object[][] canUses = new Object[uses.length][];
+        for (int i = 0; i < uses.length; i++) {
+            canUses[i] = index.rows[uses[i]];
         }
-        return canUses.toArray(new Object[0][]);
+        return canUses;
     }
 
     /**
-     * 获取全部配置（带缓存）
+     * 获取全部配置（带缓存。注意返回的是共享数据，只读）
      *
      * @param belongEntity
      * @param applyType
      * @return
      */
     protected Object[][] getAllConfig(String belongEntity, String applyType) {
+        return getAudienceIndex(belongEntity, applyType).rows;
+    }
+
+    /**
+     * 获取共享索引。用户体系变更（版本变化）或配置变更后重建
+     *
+     * @param belongEntity
+     * @param applyType
+     * @return
+     */
+    private AudienceIndex getAudienceIndex(String belongEntity, String applyType) {
         final String cacheKey = formatCacheKey(belongEntity, applyType);
-        Object[][] cached = (Object[][]) Application.getCommonsCache().getx(cacheKey);
+        final long userVersion = Application.getUserStore().getVersion();
+
+        AudienceIndex index = audienceIndexes.get(cacheKey);
+        if (index != null && index.userVersion == userVersion && index.isCurrent(cacheKey)) {
+            return index;
+        }
 
-        if (cached == null) {
+        String stamp = Application.getCommonsCache().get(cacheKey + "-STAMP");
+        Object[][] rows = stamp == null ? null : (Object[][]) Application.getCommonsCache().getx(cacheKey);
+
+        if (rows == null) {
             List<String> sqlWhere = new ArrayList<>();
             if (belongEntity != null) {
                 sqlWhere.add(String.format("belongEntity = '%s'", belongEntity));
@@ -142,41 +172,31 @@ public abstract class ShareToManager implements ConfigManager {
                 ql = ql.replace("(1=1)", StringUtils.join(sqlWhere.iterator(), " and "));
             }
 
-            cached = Application.createQueryNoFilter(ql).array();
-            Application.getCommonsCache().putx(cacheKey, cached);
-        }
-
-        if (cached == null) {
-            return new Object[0][];
+            rows = Application.createQueryNoFilter(ql).array();
+            stamp = System.currentTimeMillis() + "-" + CodecUtils.randomCode(6);
+            Application.getCommonsCache().putx(cacheKey, rows);
+            Application.getCommonsCache().put(cacheKey + "-STAMP", stamp);
         }
 
-        Object[][] clone = new Object[cached.length][];
-        for (int i = 0; i < cached.length; i++) {
-            clone[i] = (Object[]) ObjectUtils.clone(cached[i]);
-        }
-        return clone;
+        index = new AudienceIndex(rows, userVersion, stamp);
+        audienceIndexes.put(cacheKey, index);
+        return index;
     }
 
     /**
-     * 是否为共享成员
+     * 共享对象（部门/角色/团队/用户）展开后的用户集
      *
      * @param shareTo
-     * @param user
      * @return
      */
-    private boolean isShareTo(String shareTo, ID user) {
-        if (SHARE_ALL.equals(shareTo)) {
-            return true;
-
-        } else if (shareTo != null && shareTo.length() >= 20) {
+    private static Set<ID> parseShareTo(String shareTo) {
+        if (shareTo != null && shareTo.length() >= 20) {
             Set<String> userDefs = new HashSet<>();
             CollectionUtils.addAll(userDefs, shareTo.split(","));
-            Set<ID> sharedUsers = UserHelper.parseUsers(userDefs, null);
-            return sharedUsers.contains(user);
-
-        } else {  // SELF
-            return false;
+            return UserHelper.parseUsers(userDefs, null);
         }
+        // SELF
+        return Collections.emptySet();
     }
 
     /**
@@ -189,4 +209,115 @@ public abstract class ShareToManager implements ConfigManager {
                 StringUtils.defaultIfBlank(belongEntity, "N"),
                 StringUtils.defaultIfBlank(applyType, "N")).toUpperCase();
     }
+
+    /**
+     * 共享索引。每个配置的共享对象只展开一次，按用户直接查得可用配置（位置）
+     */
+    private static class AudienceIndex {
+
+        // 检查共享缓存版本的间隔（毫秒）
+        private static final long STAMP_CHECK_INTERVAL = 3000;
+
+        final Object[][] rows;
+        final long userVersion;
+        final String stamp;
+        volatile long lastChecked;
+
+        // 共享给全部
+        final int[] sharedAll;
+        // 管理员创建的（所有管理员被视为同一用户）
+        final int[] ownedByAdmin;
+        // <USER, [位置]>
+        final Map<ID, int[]> owned;
+        final Map<ID, int[]> sharedTo;
+
+        AudienceIndex(Object[][] rows, long userVersion, String stamp) {
+            this.rows = rows;
+            this.userVersion = userVersion;
+            this.stamp = stamp;
+            this.lastChecked = System.currentTimeMillis();
+
+            List<Integer> sharedAll = new ArrayList<>();
+            List<Integer> ownedByAdmin = new ArrayList<>();
+            Map<ID, List<Integer>> owned = new HashMap<>();
+            Map<ID, List<Integer>> sharedTo = new HashMap<>();
+
+            for (int i = 0; i < rows.length; i++) {
+                ID createdBy = (ID) rows[i][2];
+                owned.computeIfAbsent(createdBy, k -> new ArrayList<>()).add(i);
+                if (UserHelper.isAdmin(createdBy)) ownedByAdmin.add(i);
+
+                String shareTo = (String) rows[i][1];
+                if (SHARE_ALL.equals(shareTo)) {
+                    sharedAll.add(i);
+                } else {
+                    for (ID u : parseShareTo(shareTo)) {
+                        sharedTo.computeIfAbsent(u, k -> new ArrayList<>()).add(i);
+                    }
+                }
+            }
+
+            this.sharedAll = toIntArray(sharedAll);
+            this.ownedByAdmin = toIntArray(ownedByAdmin);
+            this.owned = toIntArrayMap(owned);
+            this.sharedTo = toIntArrayMap(sharedTo);
+        }
+
+        boolean isCurrent(String cacheKey) {
+            long now = System.currentTimeMillis();
+            if (now - lastChecked < STAMP_CHECK_INTERVAL) return true;
+
+            lastChecked = now;
+            return stamp.equals(Application.getCommonsCache().get(cacheKey + "-STAMP"));
+        }
+
+        int firstOwn(ID user) {
+            int first = first(owned.get(user));
+            if (UserHelper.isAdmin(user)) first = min(first, first(ownedByAdmin));
+            return first;
+        }
+
+        int firstShared(ID user) {
+            return min(first(sharedAll), first(sharedTo.get(user)));
+        }
+
+        int[] getUses(ID user) {
+            Set<Integer> uses = new TreeSet<>();
+            addAll(uses, owned.get(user));
+            if (UserHelper.isAdmin(user)) addAll(uses, ownedByAdmin);
+            addAll(uses, sharedAll);
+            addAll(uses, sharedTo.get(user));
+            return toIntArray(uses);
+        }
+
+        private static int first(int[] a) {
+            return a == null || a.length == 0 ? -1 : a[0];
+        }
+
+        private static int min(int a, int b) {
+            if (a == -1) return b;
+            if (b == -1) return a;
+            return Math.min(a, b);
+        }
+
+        private static void addAll(Set<Integer> set, int[] a) {
+            if (a == null) return;
+            for (int i : a) set.add(i);
+        }
+
+        private static int[] toIntArray(Collection<Integer> c) {
+            int[] a = new int[c.size()];
+            int i = 0;
+            for (Integer o : c) a[i++] = o;
+            return a;
+        }
+
+        private static Map<ID, int[]> toIntArrayMap(Map<ID, List<Integer>> m) {
+            Map<ID, int[]> map = new HashMap<>(m.size() * 4 / 3 + 1);
+            for (Map.Entry<ID, List<Integer>> e : m.entrySet()) {
+                map.put(e.getKey(), toIntArray(e.getValue()));
+            }
+            return map;
+        }
+    }
 }
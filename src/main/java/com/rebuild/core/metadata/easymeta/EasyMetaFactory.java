@@ -23,7 +23,9 @@ import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Constructor;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.rebuild.core.metadata.easymeta.DisplayType.*;
 
@@ -57,11 +59,39 @@ public class EasyMetaFactory {
         return valueOf(MetadataHelper.getEntity(entityName));
     }
 
+    // 字段描述缓存（EasyField 不可变，可复用）
+    private static final Map<Field, EasyField> FIELD_DESCRIPTORS = new ConcurrentHashMap<>();
+
     /**
      * @param field
      * @return
      */
     public static EasyField valueOf(Field field) {
+        EasyField cached = FIELD_DESCRIPTORS.get(field);
+        // 元数据刷新后为新的字段实例
+        if (cached != null && cached.getRawMeta() == field) {
+            return cached;
+        }
+
+        cached = newEasyField(field);
+        FIELD_DESCRIPTORS.put(field, cached);
+        return cached;
+    }
+
+    /**
+     * 清理字段描述缓存
+     *
+     * @see com.rebuild.core.metadata.impl.DynamicMetadataFactory#refresh(boolean)
+     */
+    public static void cleanCache() {
+        FIELD_DESCRIPTORS.clear();
+    }
+
+    /**
+     * @param field
+     * @return
+     */
+    private static EasyField newEasyField(Field field) {
         String displayType = field.getExtraAttrs() == null
                 ? null : field.getExtraAttrs().getString("displayType");
         DisplayType dt = displayType == null ? convertBuiltinFieldType(field) : DisplayType.valueOf(displayType);
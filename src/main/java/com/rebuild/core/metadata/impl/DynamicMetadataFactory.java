@@ -15,15 +15,20 @@ import cn.devezhao.persist4j.util.XmlHelper;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.rebuild.core.Application;
+import com.rebuild.core.configuration.general.FormsBuilder;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.easymeta.DisplayType;
+import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
 import com.rebuild.utils.JSONUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 import org.dom4j.Document;
 import org.dom4j.Element;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import static com.rebuild.core.metadata.MetadataHelper.SPLITER;
@@ -41,6 +46,16 @@ public class DynamicMetadataFactory extends ConfigurationMetadataFactory {
         super(configLocation, dialect);
     }
 
+    // 最近一次完整读取的配置（含数据库），用于增量刷新
+    private Document configCache;
+    // 实体索引 <NAME, ELEMENT>
+    private final Map<String, Element> entityIndex = new HashMap<>();
+    // 使用缓存的配置构建
+    private boolean useConfigCache = false;
+
+    /**
+     * 完整刷新（启动或恢复时使用）
+     */
     public void refresh() {
         refresh(false);
     }
@@ -48,21 +63,99 @@ public class DynamicMetadataFactory extends ConfigurationMetadataFactory {
     @Override
     public synchronized void refresh(boolean initState) {
         super.refresh(initState);
+        EasyMetaFactory.cleanCache();
+        FormsBuilder.instance.cleanModelSkeleton();
 
-        if (!initState && !DynamicMetadataContextHolder.isSkipLanguageRefresh(false)) {
+        if (!initState && !useConfigCache && !DynamicMetadataContextHolder.isSkipLanguageRefresh(false)) {
             Application.getLanguage().refresh();
         }
     }
 
+    /**
+     * 增量刷新单个实体（含其字段）。适用于实体/字段的新增、修改、删除
+     *
+     * @param entityName
+     */
+    public synchronized void refreshEntity(String entityName) {
+        if (configCache == null) {
+            refresh();
+            return;
+        }
+
+        final Element rootElement = configCache.getRootElement();
+
+        Object[][] customEntity = Application.createQueryNoFilter(
+                "select " + ENTITY_FIELDS + " from MetaEntity where entityName = ?")
+                .setParameter(1, entityName)
+                .array();
+
+        Element entityElement = entityIndex.get(entityName);
+        // 新增/修改
+        if (customEntity.length > 0) {
+            if (entityElement != null) rootElement.remove(entityElement);
+            entityElement = appendEntityElement(rootElement, customEntity[0]);
+            entityIndex.put(entityName, entityElement);
+        }
+        // 删除
+        else if (entityElement != null && isCustomMeta(entityElement)) {
+            rootElement.remove(entityElement);
+            entityIndex.remove(entityName);
+            entityElement = null;
+        }
+        // 内置实体，仅刷新自定义字段
+        else if (entityElement != null) {
+            for (Object o : new ArrayList<>(entityElement.elements("field"))) {
+                Element field = (Element) o;
+                if (isCustomMeta(field)) entityElement.remove(field);
+            }
+        } else {
+            log.warn("No entity `{}` found, do full refresh", entityName);
+            refresh();
+            return;
+        }
+
+        if (entityElement != null) {
+            Object[][] customFields = Application.createQueryNoFilter(
+                    "select " + FIELD_FIELDS + " from MetaField where belongEntity = ?")
+                    .setParameter(1, entityName)
+                    .array();
+            appendFieldElements(customFields);
+        }
+
+        useConfigCache = true;
+        try {
+            refresh(false);
+        } finally {
+            useConfigCache = false;
+        }
+    }
+
     @Override
     protected Document readConfiguration(boolean initState) {
+        if (useConfigCache) {
+            return (Document) configCache.clone();
+        }
+
         Document config = super.readConfiguration(initState);
         if (!initState) {
             appendConfig4Db(config);
+
+            configCache = (Document) config.clone();
+            entityIndex.clear();
+            for (Object o : configCache.getRootElement().elements("entity")) {
+                Element entity = (Element) o;
+                entityIndex.put(entity.attributeValue("name"), entity);
+            }
         }
         return config;
     }
 
+    private static final String ENTITY_FIELDS =
+            "typeCode,entityName,physicalName,entityLabel,entityId,comments,icon,nameField,masterEntity,extConfig";
+    private static final String FIELD_FIELDS =
+            "belongEntity,fieldName,physicalName,fieldLabel,displayType,nullable,creatable,updatable,"
+                    + "maxLength,defaultValue,refEntity,cascade,fieldId,comments,extConfig,repeatable,queryable";
+
     /**
      * 从数据库读取配置
      *
@@ -71,48 +164,74 @@ public class DynamicMetadataFactory extends ConfigurationMetadataFactory {
     private void appendConfig4Db(Document config) {
         final Element rootElement = config.getRootElement();
 
+        entityIndex.clear();
+        for (Object o : rootElement.elements("entity")) {
+            Element entity = (Element) o;
+            entityIndex.put(entity.attributeValue("name"), entity);
+        }
+
         Object[][] customEntities = Application.createQueryNoFilter(
-                "select typeCode,entityName,physicalName,entityLabel,entityId,comments,icon,nameField,masterEntity,extConfig from MetaEntity")
+                "select " + ENTITY_FIELDS + " from MetaEntity")
                 .array();
         for (Object[] c : customEntities) {
-            String name = (String) c[1];
-            Element entity = rootElement.addElement("entity");
-            entity.addAttribute("type-code", c[0].toString())
-                    .addAttribute("name", name)
-                    .addAttribute("physical-name", (String) c[2])
-                    .addAttribute("description", (String) c[3])
-                    .addAttribute("parent", "false")
-                    .addAttribute("name-field", StringUtils.defaultIfBlank((String) c[7], EntityHelper.CreatedOn))
-                    .addAttribute("main", (String) c[8])
-                    .addAttribute("creatable", "true")
-                    .addAttribute("updatable", "true")
-                    .addAttribute("queryable", "true")
-                    .addAttribute("deletable", "true");
-
-            // 实体扩展配置
-            JSONObject extraAttrs;
-            if (StringUtils.isBlank((String) c[9])) {
-                extraAttrs = new JSONObject();
-            } else {
-                extraAttrs = JSON.parseObject((String) c[9]);
-            }
+            entityIndex.put((String) c[1], appendEntityElement(rootElement, c));
+        }
+
+        Object[][] customFields = Application.createQueryNoFilter(
+                "select " + FIELD_FIELDS + " from MetaField")
+                .array();
+        appendFieldElements(customFields);
+
+        if (log.isDebugEnabled()) XmlHelper.dump(rootElement);
+    }
 
-            extraAttrs.put("metaId", c[4]);
-            extraAttrs.put("comments", c[5]);
-            extraAttrs.put("icon", c[6]);
-            entity.addAttribute("extra-attrs", extraAttrs.toJSONString());
+    /**
+     * @param rootElement
+     * @param c
+     * @return
+     */
+    private Element appendEntityElement(Element rootElement, Object[] c) {
+        String name = (String) c[1];
+        Element entity = rootElement.addElement("entity");
+        entity.addAttribute("type-code", c[0].toString())
+                .addAttribute("name", name)
+                .addAttribute("physical-name", (String) c[2])
+                .addAttribute("description", (String) c[3])
+                .addAttribute("parent", "false")
+                .addAttribute("name-field", StringUtils.defaultIfBlank((String) c[7], EntityHelper.CreatedOn))
+                .addAttribute("main", (String) c[8])
+                .addAttribute("creatable", "true")
+                .addAttribute("updatable", "true")
+                .addAttribute("queryable", "true")
+                .addAttribute("deletable", "true");
+
+        // 实体扩展配置
+        JSONObject extraAttrs;
+        if (StringUtils.isBlank((String) c[9])) {
+            extraAttrs = new JSONObject();
+        } else {
+            extraAttrs = JSON.parseObject((String) c[9]);
         }
 
+        extraAttrs.put("metaId", c[4]);
+        extraAttrs.put("comments", c[5]);
+        extraAttrs.put("icon", c[6]);
+        entity.addAttribute("extra-attrs", extraAttrs.toJSONString());
+        return entity;
+    }
+
+    /**
+     * 字段需在实体索引 {@link #entityIndex} 中
+     *
+     * @param customFields
+     */
+    private void appendFieldElements(Object[][] customFields) {
         Set<String> cascadingFieldsChild = new HashSet<>();
 
-        Object[][] customFields = Application.createQueryNoFilter(
-                "select belongEntity,fieldName,physicalName,fieldLabel,displayType,nullable,creatable,updatable,"
-                        + "maxLength,defaultValue,refEntity,cascade,fieldId,comments,extConfig,repeatable,queryable from MetaField")
-                .array();
         for (Object[] c : customFields) {
             final String entityName = (String) c[0];
             final String fieldName = (String) c[1];
-            Element entityElement = (Element) rootElement.selectSingleNode("entity[@name='" + entityName + "']");
+            Element entityElement = entityIndex.get(entityName);
             if (entityElement == null) {
                 log.warn("No entity `{}` found for field `{}`", entityName, fieldName);
                 continue;
@@ -192,8 +311,7 @@ public class DynamicMetadataFactory extends ConfigurationMetadataFactory {
         // 处理父级级联的父子级关系
         for (String child : cascadingFieldsChild) {
             String[] fs = child.split(SPLITER_RE);
-            Element fieldElement = (Element) rootElement.selectSingleNode(
-                    String.format("entity[@name='%s']/field[@name='%s']", fs[0], fs[1]));
+            Element fieldElement = getFieldElement(entityIndex.get(fs[0]), fs[1]);
             if (fieldElement == null) {
                 log.warn("No field found: {}.{}", fs[0], fs[1]);
                 continue;
@@ -203,8 +321,34 @@ public class DynamicMetadataFactory extends ConfigurationMetadataFactory {
             extraAttrs.put("_cascadingFieldChild", fs[2] + SPLITER + fs[3]);
             fieldElement.addAttribute("extra-attrs", extraAttrs.toJSONString());
         }
+    }
 
-        if (log.isDebugEnabled()) XmlHelper.dump(rootElement);
+    /**
+     * 是否自定义（来自数据库）的实体/字段
+     *
+     * @param metaElement
+     * @return
+     */
+    private boolean isCustomMeta(Element metaElement) {
+        String extraAttrs = metaElement.attributeValue("extra-attrs");
+        return JSONUtils.wellFormat(extraAttrs) && JSON.parseObject(extraAttrs).containsKey("metaId");
+    }
+
+    /**
+     * @param entityElement
+     * @param fieldName
+     * @return
+     */
+    private Element getFieldElement(Element entityElement, String fieldName) {
+        if (entityElement == null) return null;
+
+        for (Object o : entityElement.elements("field")) {
+            Element field = (Element) o;
+            if (fieldName.equals(field.attributeValue("name"))) {
+                return field;
+            }
+        }
+        return null;
     }
 
     @Override
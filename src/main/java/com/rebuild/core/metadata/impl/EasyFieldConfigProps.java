@@ -126,6 +126,12 @@ public class EasyFieldConfigProps {
      */
     public static final String ADV_PATTERN = "advPattern";
 
+    /**
+     * 建立索引（加速查询，不允许重复的字段为唯一索引）
+     * @see Index2Schema
+     */
+    public static final String ADV_INDEX = "advIndex";
+
     /**
      * 视图直接显示地图
      */
@@ -162,7 +162,8 @@ public class Entity2Schema extends Field2Schema {
             throw new MetadataModificationException(Language.L("无法同步元数据到数据库"));
         }
 
-        MetadataHelper.getMetadataFactory().refresh();
+        MetadataHelper.getMetadataFactory().refreshEntity(entityName);
+        Index2Schema.syncAllAsync(MetadataHelper.getEntity(entityName));
         return entityName;
     }
 
@@ -241,7 +242,7 @@ public class Entity2Schema extends Field2Schema {
             return false;
         }
 
-        MetadataHelper.getMetadataFactory().refresh();
+        MetadataHelper.getMetadataFactory().refreshEntity(entity.getName());
         return true;
     }
 
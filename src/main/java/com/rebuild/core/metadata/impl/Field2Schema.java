@@ -115,7 +115,8 @@ public class Field2Schema extends SetUser {
             throw new MetadataModificationException(Language.L("无法同步元数据到数据库"));
         }
 
-        MetadataHelper.getMetadataFactory().refresh();
+        MetadataHelper.getMetadataFactory().refreshEntity(entity.getName());
+        Index2Schema.syncAsync(MetadataHelper.getField(entity.getName(), fieldName));
         return fieldName;
     }
 
@@ -143,6 +144,8 @@ public class Field2Schema extends SetUser {
             }
         }
 
+        if (Index2Schema.getCurrentIndexType(field) != null) Index2Schema.dropIndex(field);
+
         String ddl = String.format("alter table `%s` drop column `%s`", entity.getPhysicalName(), field.getPhysicalName());
         try {
             Application.getSqlExecutor().execute(ddl, 10 * 60);
@@ -156,7 +159,7 @@ public class Field2Schema extends SetUser {
         }
 
         Application.getBean(MetaFieldService.class).delete(metaRecordId);
-        MetadataHelper.getMetadataFactory().refresh();
+        MetadataHelper.getMetadataFactory().refreshEntity(entity.getName());
         return true;
     }
 
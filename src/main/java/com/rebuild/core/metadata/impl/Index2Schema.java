@@ -0,0 +1,266 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.metadata.impl;
+
+import cn.devezhao.commons.EncryptUtils;
+import cn.devezhao.commons.ObjectUtils;
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
+import cn.devezhao.persist4j.dialect.FieldType;
+import com.rebuild.core.Application;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.metadata.easymeta.DisplayType;
+import com.rebuild.core.metadata.easymeta.EasyField;
+import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
+import com.rebuild.core.support.setup.Installer;
+import com.rebuild.core.support.task.TaskExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * 自定义字段的索引（单列）。以下字段建立索引：
+ * 1. 引用字段（自动），公共字段仅所属用户/所属部门/创建人
+ * 2. 不允许重复的字段（自动，查重使用）
+ * 3. 指定了 {@link EasyFieldConfigProps#ADV_INDEX} 的字段（筛选使用），其中不允许重复的为唯一索引
+ * 使用在线 DDL（不锁表）建立/删除，新增/修改字段后排队异步执行。已有字段由 {@link IndexBackfillTask} 补建
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Slf4j
+public class Index2Schema {
+
+    public static final String TYPE_INDEX = "index";
+    public static final String TYPE_UNIQUE = "unique";
+
+    private static final String INDEX_PREFIX = "IXF_";
+
+    // 可建立索引的类型（可作为筛选/引用条件的）
+    private static final DisplayType[] INDEXABLE_TYPES = new DisplayType[] {
+            DisplayType.NUMBER, DisplayType.DECIMAL, DisplayType.DATE, DisplayType.DATETIME,
+            DisplayType.TEXT, DisplayType.EMAIL, DisplayType.URL, DisplayType.PHONE, DisplayType.SERIES,
+            DisplayType.PICKLIST, DisplayType.CLASSIFICATION, DisplayType.REFERENCE, DisplayType.ANYREFERENCE,
+            DisplayType.STATE,
+    };
+
+    // 建立索引的公共字段（权限过滤/常用筛选）
+    private static final String[] INDEXED_COMMONS_FIELDS = new String[] {
+            EntityHelper.OwningUser, EntityHelper.OwningDept, EntityHelper.CreatedBy,
+    };
+
+    private Index2Schema() {
+    }
+
+    /**
+     * 字段应建立的索引类型
+     *
+     * @param field
+     * @return <tt>null</tt> 表示无需索引
+     * @see #TYPE_INDEX
+     * @see #TYPE_UNIQUE
+     */
+    public static String getIndexType(Field field) {
+        if (!isIndexable(field)) return null;
+        if (MetadataHelper.isCommonsField(field)) {
+            for (String name : INDEXED_COMMONS_FIELDS) {
+                if (name.equalsIgnoreCase(field.getName())) return TYPE_INDEX;
+            }
+            return null;
+        }
+
+        final EasyField easyField = EasyMetaFactory.valueOf(field);
+        final DisplayType dt = easyField.getDisplayType();
+
+        boolean advIndex = ObjectUtils.toBool(easyField.getExtraAttr(EasyFieldConfigProps.ADV_INDEX), false);
+        if (advIndex) {
+            return field.isRepeatable() ? TYPE_INDEX : TYPE_UNIQUE;
+        }
+
+        if (dt == DisplayType.REFERENCE || dt == DisplayType.ANYREFERENCE || !field.isRepeatable()) {
+            return TYPE_INDEX;
+        }
+        return null;
+    }
+
+    /**
+     * 是否可建立索引（自定义实体的部分类型字段）
+     *
+     * @param field
+     * @return
+     */
+    public static boolean isIndexable(Field field) {
+        if (EasyMetaFactory.valueOf(field.getOwnEntity()).isBuiltin()) return false;
+        if (field.getType() == FieldType.PRIMARY) return false;
+
+        final DisplayType dt = EasyMetaFactory.getDisplayType(field);
+        for (DisplayType t : INDEXABLE_TYPES) {
+            if (t == dt) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 同步实体所有字段的索引
+     *
+     * @param entity
+     * @return 变更数
+     */
+    public static int syncAll(Entity entity) {
+        int changed = 0;
+        for (Field field : entity.getFields()) {
+            if (sync(field)) changed++;
+        }
+        return changed;
+    }
+
+    /**
+     * 异步同步实体所有字段的索引（排队执行，不阻塞请求）
+     *
+     * @param entity
+     */
+    public static void syncAllAsync(Entity entity) {
+        final String entityName = entity.getName();
+        TaskExecutors.queue(() -> {
+            if (!MetadataHelper.containsEntity(entityName)) return;
+            try {
+                syncAll(MetadataHelper.getEntity(entityName));
+            } catch (Exception ex) {
+                log.error("Cannot sync indexes : {}", entityName, ex);
+            }
+        });
+    }
+
+    /**
+     * 异步同步字段索引（排队执行，不阻塞请求）
+     *
+     * @param field
+     */
+    public static void syncAsync(Field field) {
+        final String entityName = field.getOwnEntity().getName();
+        final String fieldName = field.getName();
+        TaskExecutors.queue(() -> {
+            // 执行前已删除
+            if (!MetadataHelper.containsField(entityName, fieldName)) return;
+            try {
+                sync(MetadataHelper.getField(entityName, fieldName));
+            } catch (Exception ex) {
+                log.error("Cannot sync index : {}.{}", entityName, fieldName, ex);
+            }
+        });
+    }
+
+    /**
+     * 同步字段索引（按需建立/删除/变更）
+     *
+     * @param field
+     * @return 是否有变更
+     */
+    public static boolean sync(Field field) {
+        final String expected = getIndexType(field);
+        final String current = getCurrentIndexType(field);
+        if (StringUtils.equals(expected, current)) return false;
+
+        if (current != null) dropIndex(field);
+        if (expected == null) return true;
+
+        if (TYPE_UNIQUE.equals(expected)) {
+            if (createIndex(field, true)) return true;
+            // 已有重复数据，使用普通索引
+            log.warn("Cannot create unique index, fallback to normal : {}", field);
+        }
+        return createIndex(field, false);
+    }
+
+    /**
+     * 删除字段索引（删除字段前）
+     *
+     * @param field
+     * @return
+     */
+    public static boolean dropIndex(Field field) {
+        final String table = field.getOwnEntity().getPhysicalName();
+        final String ddl = Installer.isUseH2()
+                ? String.format("drop index if exists `%s`", getIndexName(field))
+                : String.format("alter table `%s` drop index `%s`, algorithm=inplace, lock=none", table, getIndexName(field));
+        return executeDdl(ddl);
+    }
+
+    private static boolean createIndex(Field field, boolean unique) {
+        final String table = field.getOwnEntity().getPhysicalName();
+        final String ddl = Installer.isUseH2()
+                ? String.format("create %s index if not exists `%s` on `%s` (`%s`)",
+                        unique ? "unique" : "", getIndexName(field), table, field.getPhysicalName())
+                : String.format("alter table `%s` add %s index `%s` (`%s`), algorithm=inplace, lock=none",
+                        table, unique ? "unique" : "", getIndexName(field), field.getPhysicalName());
+        return executeDdl(ddl);
+    }
+
+    private static boolean executeDdl(String ddl) {
+        try {
+            Application.getSqlExecutor().execute(ddl, 30 * 60);
+            log.info("Index DDL executed : {}", ddl);
+            return true;
+        } catch (Throwable ex) {
+            log.error("DDL ERROR : \n" + ddl, ex);
+            return false;
+        }
+    }
+
+    /**
+     * 数据库中的索引类型
+     *
+     * @param field
+     * @return
+     */
+    protected static String getCurrentIndexType(Field field) {
+        final String table = field.getOwnEntity().getPhysicalName();
+        final String sql = Installer.isUseH2()
+                ? String.format("select NON_UNIQUE from INFORMATION_SCHEMA.INDEXES where upper(TABLE_NAME) = '%s' and upper(INDEX_NAME) = '%s'",
+                        table.toUpperCase(), getIndexName(field).toUpperCase())
+                : String.format("select NON_UNIQUE from information_schema.STATISTICS where TABLE_SCHEMA = database() and TABLE_NAME = '%s' and INDEX_NAME = '%s'",
+                        table, getIndexName(field));
+
+        Object[] o = Application.getQueryFactory().createNativeQuery(sql).unique();
+        if (o == null) return null;
+
+        // MySQL 为 0/1，H2 为布尔
+        boolean nonUnique = o[0] instanceof Boolean ? (Boolean) o[0] : ObjectUtils.toInt(o[0]) == 1;
+        return nonUnique ? TYPE_INDEX : TYPE_UNIQUE;
+    }
+
+    /**
+     * 是否已有以此字段开头的索引（包括联合索引）
+     *
+     * @param field
+     * @return
+     */
+    public static boolean hasLeadingIndex(Field field) {
+        if (getCurrentIndexType(field) != null) return true;
+        if (Installer.isUseH2()) return false;
+
+        String sql = String.format(
+                "select INDEX_NAME from information_schema.STATISTICS where TABLE_SCHEMA = database() and TABLE_NAME = '%s' and COLUMN_NAME = '%s' and SEQ_IN_INDEX = 1",
+                field.getOwnEntity().getPhysicalName(), field.getPhysicalName());
+        return Application.getQueryFactory().createNativeQuery(sql).unique() != null;
+    }
+
+    /**
+     * @param field
+     * @return
+     */
+    protected static String getIndexName(Field field) {
+        String name = INDEX_PREFIX + field.getOwnEntity().getPhysicalName() + "__" + field.getPhysicalName();
+        // 最长 64
+        if (name.length() > 64) {
+            name = INDEX_PREFIX + EncryptUtils.toMD5Hex(name).substring(0, 12) + "_" + field.getPhysicalName();
+            name = StringUtils.left(name, 64);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,167 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.metadata.impl;
+
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
+import cn.devezhao.persist4j.Record;
+import cn.devezhao.persist4j.engine.ID;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.Application;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
+import com.rebuild.core.service.query.SlowQueryStore;
+import com.rebuild.core.support.i18n.Language;
+import com.rebuild.utils.JSONUtils;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 索引建议。根据反复出现的慢查询，找出条件/排序中使用但没有索引的自定义字段
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see SlowQueryStore
+ * @see Index2Schema
+ */
+public class IndexAdvisor {
+
+    // 查询形态至少出现次数
+    private static final int MIN_OCCURS = 3;
+
+    private static final Pattern PATT_WHERE = Pattern.compile("\\swhere\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PATT_COND_COLUMN = Pattern.compile(
+            "(?:\\w+\\.)?`?([A-Za-z][A-Za-z0-9_]*)`?\\s*(?:=|<>|!=|>=|<=|>|<|\\s(?:in|like|between|is)\\s)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PATT_ORDER_COLUMN = Pattern.compile(
+            "\\sorder\\s+by\\s+(?:\\w+\\.)?`?([A-Za-z][A-Za-z0-9_]*)`?", Pattern.CASE_INSENSITIVE);
+
+    private IndexAdvisor() {
+    }
+
+    /**
+     * 索引建议（按影响的总耗时倒序）
+     *
+     * @return
+     */
+    public static List<Suggestion> suggest() {
+        Map<Field, Suggestion> suggestions = new LinkedHashMap<>();
+        for (SlowQueryStore.QueryShape shape : SlowQueryStore.aggregate()) {
+            if (shape.getCount() < MIN_OCCURS || shape.getEntity() == null) continue;
+
+            Entity entity = MetadataHelper.getEntity(shape.getEntity());
+            if (EasyMetaFactory.valueOf(entity).isBuiltin()) continue;
+
+            for (String column : findColumns(shape.getShape())) {
+                Field field = getFieldByColumn(entity, column);
+                if (field == null || !Index2Schema.isIndexable(field)) continue;
+
+                Suggestion s = suggestions.get(field);
+                if (s == null) {
+                    // 已有（或应有）索引
+                    if (Index2Schema.getIndexType(field) != null || Index2Schema.hasLeadingIndex(field)) continue;
+                    s = new Suggestion(field);
+                    suggestions.put(field, s);
+                }
+                s.add(shape);
+            }
+        }
+
+        List<Suggestion> list = new ArrayList<>(suggestions.values());
+        list.sort(Comparator.comparingLong(Suggestion::getTotalTime).reversed());
+        return list;
+    }
+
+    /**
+     * 应用建议（设置字段的索引选项并建立索引）
+     *
+     * @param field
+     * @param user
+     */
+    public static void apply(Field field, ID user) {
+        ID metaId = EasyMetaFactory.valueOf(field).getMetaId();
+        if (metaId == null || !Index2Schema.isIndexable(field)) {
+            throw new MetadataModificationException(Language.L("此字段不支持建立索引"));
+        }
+
+        Object[] o = Application.createQueryNoFilter("select extConfig from MetaField where fieldId = ?")
+                .setParameter(1, metaId)
+                .unique();
+        JSONObject extConfig = o != null && JSONUtils.wellFormat((String) o[0])
+                ? JSON.parseObject((String) o[0]) : new JSONObject();
+        extConfig.put(EasyFieldConfigProps.ADV_INDEX, true);
+
+        Record record = EntityHelper.forUpdate(metaId, user);
+        record.setString("extConfig", extConfig.toJSONString());
+        Application.getBean(MetaFieldService.class).update(record);
+    }
+
+    /**
+     * 条件及排序中的列名
+     *
+     * @param sql
+     * @return
+     */
+    protected static Set<String> findColumns(String sql) {
+        Set<String> columns = new LinkedHashSet<>();
+
+        Matcher where = PATT_WHERE.matcher(sql);
+        if (where.find()) {
+            Matcher m = PATT_COND_COLUMN.matcher(sql.substring(where.end() - 1));
+            while (m.find()) columns.add(m.group(1));
+        }
+
+        Matcher m = PATT_ORDER_COLUMN.matcher(sql);
+        while (m.find()) columns.add(m.group(1));
+        return columns;
+    }
+
+    private static Field getFieldByColumn(Entity entity, String column) {
+        for (Field field : entity.getFields()) {
+            if (field.getPhysicalName().equalsIgnoreCase(column)) return field;
+        }
+        return null;
+    }
+
+    /**
+     * 建议
+     */
+    @Getter
+    public static class Suggestion {
+        private final Field field;
+        private final List<String> shapes = new ArrayList<>();
+        private int count;
+        private long totalTime;
+
+        protected Suggestion(Field field) {
+            this.field = field;
+        }
+
+        protected void add(SlowQueryStore.QueryShape shape) {
+            count += shape.getCount();
+            totalTime += shape.getTotalTime();
+            if (shapes.size() < 3) shapes.add(shape.getShape());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s.%s : %d slow queries, %dms total",
+                    field.getOwnEntity().getName(), field.getName(), count, totalTime);
+        }
+    }
+}
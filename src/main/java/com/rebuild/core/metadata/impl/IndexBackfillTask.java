@@ -0,0 +1,64 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.metadata.impl;
+
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
+import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 为已有的自定义字段补建索引（仅建立缺少的，已有索引不变）
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see Index2Schema
+ */
+@Slf4j
+public class IndexBackfillTask extends HeavyTask<Integer> {
+
+    @Override
+    protected Integer exec() {
+        Entity[] entities = MetadataHelper.getEntities();
+        this.setTotal(entities.length);
+
+        int created = 0;
+        for (Entity entity : entities) {
+            if (this.isInterrupt()) {
+                this.setInterrupted();
+                break;
+            }
+            if (EasyMetaFactory.valueOf(entity).isBuiltin()) {
+                this.addCompleted();
+                continue;
+            }
+
+            for (Field field : entity.getFields()) {
+                if (Index2Schema.getIndexType(field) == null) continue;
+                // 已有索引（含联合索引）
+                if (Index2Schema.hasLeadingIndex(field)) continue;
+
+                if (Index2Schema.sync(field)) created++;
+            }
+
+            this.addCompleted();
+            this.addSucceeded();
+        }
+
+        log.info("Index backfill completed : {}", created);
+        return created;
+    }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.REINDEX;
+    }
+}
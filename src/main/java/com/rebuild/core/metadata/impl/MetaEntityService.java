@@ -92,7 +92,14 @@ public class MetaEntityService extends InternalPersistService implements AdminGu
     public Record update(Record record) {
         record = super.update(record);
 
-        MetadataHelper.getMetadataFactory().refresh();
+        Object[] o = getPersistManagerFactory().createQuery("select entityName from MetaEntity where entityId = ?")
+                .setParameter(1, record.getPrimary())
+                .unique();
+        if (o == null) {
+            MetadataHelper.getMetadataFactory().refresh();
+        } else {
+            MetadataHelper.getMetadataFactory().refreshEntity((String) o[0]);
+        }
         return record;
     }
 
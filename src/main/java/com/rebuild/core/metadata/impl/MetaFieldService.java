@@ -91,7 +91,19 @@ public class MetaFieldService extends InternalPersistService implements AdminGua
     public Record update(Record record) {
         record = super.update(record);
 
-        MetadataHelper.getMetadataFactory().refresh();
+        Object[] o = getPersistManagerFactory().createQuery("select belongEntity,fieldName from MetaField where fieldId = ?")
+                .setParameter(1, record.getPrimary())
+                .unique();
+        if (o == null) {
+            MetadataHelper.getMetadataFactory().refresh();
+        } else {
+            MetadataHelper.getMetadataFactory().refreshEntity((String) o[0]);
+
+            // 索引
+            if (record.hasValue("extConfig", true) || record.hasValue("repeatable", true)) {
+                Index2Schema.syncAsync(MetadataHelper.getField((String) o[0], (String) o[1]));
+            }
+        }
         return record;
     }
 
@@ -13,6 +13,7 @@ import com.rebuild.core.Application;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.StopWatch;
 
@@ -74,4 +75,9 @@ public class ChangeOwningDeptTask extends HeavyTask<Integer> {
         log.info("Modify the `OwningDept` to complete : {} > {}\n{}", this.user, changed, sw.prettyPrint());
         return changed;
     }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.REINDEX;
+    }
 }
@@ -21,6 +21,7 @@ import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.Application;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
@@ -33,7 +34,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 基于角色权限的查询过滤器
@@ -45,6 +48,10 @@ import java.util.Set;
 public class RoleBaseQueryFilter implements Filter, QueryFilter {
     private static final long serialVersionUID = -7388577069739389698L;
 
+    // 部门及下级部门的条件 <用户体系版本:部门:格式, 条件>
+    private static final Map<String, String> DEEPDOWN_FILTERS = new ConcurrentHashMap<>();
+    private static volatile long deepdownVersion = -1;
+
     /**
      * 总是拒绝
      */
@@ -161,17 +168,37 @@ public class RoleBaseQueryFilter implements Filter, QueryFilter {
             return joinFilters(deptFilter, customFilter, shareFilter);
 
         } else if (depth == BizzDepthEntry.DEEPDOWN) {
+            deptFilter = buildDeepdownFilter(dept, deptFilter, owningFormat);
+            return joinFilters(deptFilter, customFilter, shareFilter);
+        }
+
+        return DENIED.evaluate(null);
+    }
+
+    /**
+     * 部门及下级部门（按用户体系版本缓存，部门变更后重建）
+     *
+     * @param dept
+     * @param deptFilter
+     * @param owningFormat
+     * @return
+     */
+    private String buildDeepdownFilter(Department dept, String deptFilter, String owningFormat) {
+        final long version = Application.getUserStore().getVersion();
+        if (version != deepdownVersion) {
+            DEEPDOWN_FILTERS.clear();
+            deepdownVersion = version;
+        }
+
+        final String key = version + ":" + dept.getIdentity() + ":" + owningFormat;
+        return DEEPDOWN_FILTERS.computeIfAbsent(key, k -> {
             Set<String> set = new HashSet<>();
             set.add(deptFilter);
             for (BusinessUnit ch : dept.getAllChildren()) {
                 set.add(String.format(owningFormat, EntityHelper.OwningDept, ch.getIdentity()));
             }
-
-            deptFilter = StringUtils.join(set, " or ");
-            return joinFilters(deptFilter, customFilter, shareFilter);
-        }
-
-        return DENIED.evaluate(null);
+            return StringUtils.join(set, " or ");
+        });
     }
 
     private String joinFilters(String baseFilter, String customFilter, String shareFilter) {
@@ -22,6 +22,7 @@ import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.privileges.bizz.CombinedRole;
 import com.rebuild.core.privileges.bizz.Department;
 import com.rebuild.core.privileges.bizz.User;
+import com.rebuild.core.service.files.ThumbnailCache;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.general.N2NReferenceSupport;
 import com.rebuild.utils.CommonsUtils;
@@ -320,6 +321,7 @@ public class UserHelper {
         if (avatarFile.exists()) {
             if (forceMake) {
                 FileUtils.deleteQuietly(avatarFile);
+                ThumbnailCache.remove(avatarFile);
             } else {
                 return avatarFile;
             }
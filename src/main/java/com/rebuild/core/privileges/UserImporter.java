@@ -23,12 +23,16 @@ import com.rebuild.core.support.i18n.Language;
 import com.rebuild.core.support.i18n.LanguageBundle;
 import com.rebuild.core.support.integration.SMSender;
 import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
 import com.rebuild.utils.ExcelUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 用户导入
@@ -56,6 +60,28 @@ public class UserImporter extends HeavyTask<Integer> {
         final List<Cell[]> data = ExcelUtils.readExcel(useFile, -1, false);
         this.setTotal(data.size());
 
+        // 批量导入，结束后一次发布
+        final List<Object[]> created = new ArrayList<>();
+        Application.getUserStore().batch(() -> importRows(data, created));
+
+        if (emailNotify) {
+            for (Object[] c : created) {
+                sendEmailNotify(Application.getUserStore().getUser((ID) c[0]), (String) c[1]);
+            }
+        }
+
+        return this.getSucceeded();
+    }
+
+    /**
+     * @param data
+     * @param created [ID, 密码]
+     */
+    private void importRows(List<Cell[]> data, List<Object[]> created) {
+        // 批量中新建的用户尚不可读
+        final Set<String> newNames = new HashSet<>();
+        final Set<String> newEmails = new HashSet<>();
+
         for (Cell[] row : data) {
             String loginName = cellAsString(row, 0);
             String password = cellAsString(row, 1);
@@ -64,13 +90,14 @@ public class UserImporter extends HeavyTask<Integer> {
                 continue;
             }
 
-            if (Application.getUserStore().existsName(loginName)) {
+            if (Application.getUserStore().existsName(loginName) || newNames.contains(loginName.toLowerCase())) {
                 log.warn("[loginName] cannot be repeated");
                 continue;
             }
 
             String email = cellAsString(row, 7);
-            if (StringUtils.isNotBlank(email) && Application.getUserStore().existsEmail(email)) {
+            if (StringUtils.isNotBlank(email)
+                    && (Application.getUserStore().existsEmail(email) || newEmails.contains(email.toLowerCase()))) {
                 log.warn("[email] cannot be repeated");
                 continue;
             }
@@ -101,9 +128,9 @@ public class UserImporter extends HeavyTask<Integer> {
                 newUser = Application.getBean(UserService.class).create(newUser);
                 this.addSucceeded();
 
-                if (emailNotify) {
-                    sendEmailNotify(Application.getUserStore().getUser(newUser.getPrimary()), password);
-                }
+                newNames.add(loginName.toLowerCase());
+                if (StringUtils.isNotBlank(email)) newEmails.add(email.toLowerCase());
+                created.add(new Object[] { newUser.getPrimary(), password });
 
             } catch (Exception ex) {
                 log.error("Cannot create new user : " + loginName, ex);
@@ -111,8 +138,6 @@ public class UserImporter extends HeavyTask<Integer> {
                 this.addCompleted();
             }
         }
-
-        return this.getSucceeded();
     }
 
     private ID findRole(String roleName) {
@@ -159,4 +184,9 @@ public class UserImporter extends HeavyTask<Integer> {
 
         SMSender.sendMailAsync(to.getEmail(), subject, content);
     }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.IMPORT;
+    }
 }
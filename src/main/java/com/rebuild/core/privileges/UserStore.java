@@ -23,9 +23,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.stereotype.Component;
 
-import java.security.Principal;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 用户体系缓存
@@ -37,28 +35,37 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 public class UserStore implements Initialization {
 
-    final private Map<ID, User> USERS = new ConcurrentHashMap<>();
-    final private Map<ID, Role> ROLES = new ConcurrentHashMap<>();
-    final private Map<ID, Department> DEPTS = new ConcurrentHashMap<>();
-    final private Map<ID, Team> TEAMS = new ConcurrentHashMap<>();
+    // 当前快照（发布后只读，变更时整体替换）
+    volatile private Snapshot snapshot = new Snapshot(new SnapshotData(), null, 0);
 
-    final private Map<String, ID> USERS_NAME2ID = new ConcurrentHashMap<>();
-    final private Map<String, ID> USERS_MAIL2ID = new ConcurrentHashMap<>();
+    // 未发布的变更
+    private SnapshotData pending;
+    // 有待发布的变更（非批量的变更在下次读取时才构建快照，连续变更仅构建一次）
+    volatile private boolean dirty;
+    // 批量变更的线程（其变更在批量结束时一次发布）
+    private Thread batchThread;
 
     final private PersistManagerFactory aPMFactory;
 
-    private boolean isLoaded;
-
     protected UserStore(PersistManagerFactory aPMFactory) {
         this.aPMFactory = aPMFactory;
     }
 
+    /**
+     * 快照版本，每次变更递增。可作为与用户体系相关的缓存 KEY
+     *
+     * @return
+     */
+    public long getVersion() {
+        return snap().version;
+    }
+
     /**
      * @param username
      * @return
      */
     public boolean existsName(String username) {
-        return USERS_NAME2ID.containsKey(normalIdentifier(username));
+        return snap().USERS_NAME2ID.containsKey(normalIdentifier(username));
     }
 
     /**
@@ -66,7 +73,7 @@ public class UserStore implements Initialization {
      * @return
      */
     public boolean existsEmail(String email) {
-        return USERS_MAIL2ID.containsKey(normalIdentifier(email));
+        return snap().USERS_MAIL2ID.containsKey(normalIdentifier(email));
     }
 
     /**
@@ -82,7 +89,7 @@ public class UserStore implements Initialization {
      * @return
      */
     public boolean existsUser(ID userId) {
-        return USERS.containsKey(userId);
+        return snap().USERS.containsKey(userId);
     }
 
     /**
@@ -90,14 +97,15 @@ public class UserStore implements Initialization {
      * @return
      */
     public boolean existsAny(ID bizzId) {
+        final Snapshot s = snap();
         if (bizzId.getEntityCode() == EntityHelper.User) {
-            return USERS.containsKey(bizzId);
+            return s.USERS.containsKey(bizzId);
         } else if (bizzId.getEntityCode() == EntityHelper.Role) {
-            return ROLES.containsKey(bizzId);
+            return s.ROLES.containsKey(bizzId);
         } else if (bizzId.getEntityCode() == EntityHelper.Department) {
-            return DEPTS.containsKey(bizzId);
+            return s.DEPTS.containsKey(bizzId);
         } else if (bizzId.getEntityCode() == EntityHelper.Team) {
-            return TEAMS.containsKey(bizzId);
+            return s.TEAMS.containsKey(bizzId);
         }
         return false;
     }
@@ -108,11 +116,12 @@ public class UserStore implements Initialization {
      * @throws NoMemberFoundException
      */
     public User getUserByName(String username) throws NoMemberFoundException {
-        ID userId = USERS_NAME2ID.get(normalIdentifier(username));
+        final Snapshot s = snap();
+        ID userId = s.USERS_NAME2ID.get(normalIdentifier(username));
         if (userId == null) {
             throw new NoMemberFoundException("No User found: " + username);
         }
-        return getUser(userId);
+        return s.getUser(userId);
     }
 
     /**
@@ -121,11 +130,12 @@ public class UserStore implements Initialization {
      * @throws NoMemberFoundException
      */
     public User getUserByEmail(String email) throws NoMemberFoundException {
-        ID userId = USERS_MAIL2ID.get(normalIdentifier(email));
+        final Snapshot s = snap();
+        ID userId = s.USERS_MAIL2ID.get(normalIdentifier(email));
         if (userId == null) {
             throw new NoMemberFoundException("No User found: " + email);
         }
-        return getUser(userId);
+        return s.getUser(userId);
     }
 
     /**
@@ -147,18 +157,14 @@ public class UserStore implements Initialization {
      * @throws NoMemberFoundException
      */
     public User getUser(ID userId) throws NoMemberFoundException {
-        User u = USERS.get(userId);
-        if (u == null) {
-            throw new NoMemberFoundException("No User found: " + userId);
-        }
-        return u;
+        return snap().getUser(userId);
     }
 
     /**
      * @return
      */
     public User[] getAllUsers() {
-        return USERS.values().toArray(new User[0]);
+        return snap().USERS.values().toArray(new User[0]);
     }
 
     /**
@@ -167,18 +173,14 @@ public class UserStore implements Initialization {
      * @throws NoMemberFoundException
      */
     public Department getDepartment(ID deptId) throws NoMemberFoundException {
-        Department b = DEPTS.get(deptId);
-        if (b == null) {
-            throw new NoMemberFoundException("No Department found: " + deptId);
-        }
-        return b;
+        return snap().getDepartment(deptId);
     }
 
     /**
      * @return
      */
     public Department[] getAllDepartments() {
-        return DEPTS.values().toArray(new Department[0]);
+        return snap().DEPTS.values().toArray(new Department[0]);
     }
 
     /**
@@ -188,7 +190,7 @@ public class UserStore implements Initialization {
      */
     public Department[] getTopDepartments() {
         List<Department> top = new ArrayList<>();
-        for (Department dept : DEPTS.values()) {
+        for (Department dept : snap().DEPTS.values()) {
             if (dept.getParent() == null) {
                 top.add(dept);
             }
@@ -202,18 +204,14 @@ public class UserStore implements Initialization {
      * @throws NoMemberFoundException
      */
     public Role getRole(ID roleId) throws NoMemberFoundException {
-        Role r = ROLES.get(roleId);
-        if (r == null) {
-            throw new NoMemberFoundException("No Role found: " + roleId);
-        }
-        return r;
+        return snap().getRole(roleId);
     }
 
     /**
      * @return
      */
     public Role[] getAllRoles() {
-        return ROLES.values().toArray(new Role[0]);
+        return snap().ROLES.values().toArray(new Role[0]);
     }
 
     /**
@@ -222,7 +220,7 @@ public class UserStore implements Initialization {
      * @throws NoMemberFoundException
      */
     public Team getTeam(ID teamId) throws NoMemberFoundException {
-        Team t = TEAMS.get(teamId);
+        Team t = snap().TEAMS.get(teamId);
         if (t == null) {
             throw new NoMemberFoundException("No Team found: " + teamId);
         }
@@ -233,7 +231,50 @@ public class UserStore implements Initialization {
      * @return
      */
     public Team[] getAllTeams() {
-        return TEAMS.values().toArray(new Team[0]);
+        return snap().TEAMS.values().toArray(new Team[0]);
+    }
+
+    /**
+     * 批量变更（如导入），期间当前线程的变更不发布（其他线程不可见，当前线程也读取不到），结束后一次发布。
+     * 避免每次变更都复制并构建快照
+     *
+     * @param task
+     */
+    public void batch(Runnable task) {
+        boolean owner;
+        synchronized (this) {
+            owner = batchThread == null;
+            if (owner) batchThread = Thread.currentThread();
+        }
+
+        // 嵌套或已有其他线程在批量中
+        if (!owner) {
+            task.run();
+            return;
+        }
+
+        try {
+            task.run();
+        } finally {
+            synchronized (this) {
+                batchThread = null;
+                if (pending != null) {
+                    publish(pending);
+                    pending = null;
+                }
+                dirty = false;
+            }
+        }
+    }
+
+    /**
+     * 用户数量（含批量中未发布的）
+     *
+     * @return
+     */
+    synchronized
+    public int getUserCount() {
+        return pending == null ? snapshot.USERS.size() : pending.users.size();
     }
 
     /**
@@ -241,48 +282,30 @@ public class UserStore implements Initialization {
      *
      * @param userId
      */
+    synchronized
     public void refreshUser(ID userId) {
         Object[] o = aPMFactory.createQuery("select " + USER_FS + " from User where userId = ?")
                 .setParameter(1, userId)
                 .unique();
-        final User newUser = new User(
-                userId, (String) o[1], (String) o[2], (String) o[8], (String) o[3], (String) o[4], (Boolean) o[5]);
-        final ID deptId = (ID) o[6];
-        final ID roleId = (ID) o[7];
-
-        final User oldUser = existsUser(userId) ? getUser(userId) : null;
-        if (oldUser != null) {
-            Role role = oldUser.getOwningRole();
-            if (role != null) {
-                role.removeMember(oldUser);
-            }
-
-            Department dept = oldUser.getOwningDept();
-            if (dept != null) {
-                dept.removeMember(oldUser);
-            }
-
-            for (Team team : oldUser.getOwningTeams().toArray(new Team[0])) {
-                team.removeMember(oldUser);
-                team.addMember(newUser);
-            }
-
-            // 邮箱可更改
-            if (oldUser.getEmail() != null) {
-                USERS_MAIL2ID.remove(normalIdentifier(oldUser.getEmail()));
-            }
-        }
+        Object[][] appends = aPMFactory.createQuery("select roleId from RoleMember where userId = ?")
+                .setParameter(1, userId)
+                .array();
 
-        if (deptId != null) {
-            getDepartment(deptId).addMember(newUser);
+        SnapshotData data = working();
+        // 已删除
+        if (o == null) {
+            removeUser(data, userId);
+            commit();
+            return;
         }
 
-        if (roleId != null) {
-            getRole(roleId).addMember(newUser);
-            refreshUserRoleAppends(newUser);
+        data.users.put(userId, o);
+        Set<ID> appendRoles = new HashSet<>();
+        for (Object[] a : appends) {
+            appendRoles.add((ID) a[0]);
         }
-
-        store(newUser);
+        data.roleAppends.put(userId, appendRoles);
+        commit();
     }
 
     /**
@@ -290,34 +313,24 @@ public class UserStore implements Initialization {
      *
      * @param userId
      */
+    synchronized
     public void removeUser(ID userId) {
-        final User oldUser = getUser(userId);
+        getUser(userId);
 
-        // 移除成员
-        if (oldUser.getOwningDept() != null) {
-            oldUser.getOwningDept().removeMember(oldUser);
-        }
-        if (oldUser.getOwningRole() != null) {
-            oldUser.getOwningRole().removeMember(oldUser);
-        }
-        for (Team team : oldUser.getOwningTeams()) {
-            team.removeMember(oldUser);
-        }
+        removeUser(working(), userId);
+        commit();
+    }
 
-        // 移除缓存
-        for (Map.Entry<String, ID> e : USERS_NAME2ID.entrySet()) {
-            if (e.getValue().equals(userId)) {
-                USERS_NAME2ID.remove(e.getKey());
-                break;
+    private void removeUser(SnapshotData data, ID userId) {
+        data.users.remove(userId);
+        data.roleAppends.remove(userId);
+        for (Map.Entry<ID, Set<ID>> e : data.teamMembers.entrySet()) {
+            if (e.getValue().contains(userId)) {
+                Set<ID> members = new HashSet<>(e.getValue());
+                members.remove(userId);
+                e.setValue(members);
             }
         }
-        for (Map.Entry<String, ID> e : USERS_MAIL2ID.entrySet()) {
-            if (e.getValue().equals(userId)) {
-                USERS_MAIL2ID.remove(e.getKey());
-                break;
-            }
-        }
-        USERS.remove(userId);
     }
 
     /**
@@ -325,31 +338,25 @@ public class UserStore implements Initialization {
      *
      * @param roleId
      */
+    synchronized
     public void refreshRole(ID roleId) {
-        final Role oldRole = ROLES.get(roleId);
-        if (oldRole != null) {
-            for (Principal u : toMemberArray(oldRole)) {
-                oldRole.removeMember(u);
-            }
-        }
-
         Object[] o = aPMFactory.createQuery("select roleId,name,isDisabled from Role where roleId = ?")
                 .setParameter(1, roleId)
                 .unique();
-        final Role newRole = new Role(roleId, (String) o[1], (Boolean) o[2]);
-
-        // Members
-        Object[][] array = aPMFactory.createQuery("select userId from User where roleId = ?")
+        Object[][] definition = aPMFactory.createQuery(
+                "select entity,definition,zeroKey from RolePrivileges where roleId = ?")
                 .setParameter(1, roleId)
                 .array();
-        for (Object[] member : array) {
-            newRole.addMember(getUser((ID) member[0]));
-        }
 
-        loadPrivileges(newRole);
-
-        ROLES.put(roleId, newRole);
-        refreshRoleAppends(roleId);
+        SnapshotData data = working();
+        if (o == null) {
+            data.roles.remove(roleId);
+            data.privileges.remove(roleId);
+        } else {
+            data.roles.put(roleId, o);
+            data.privileges.put(roleId, Arrays.asList(definition));
+        }
+        commit();
     }
 
     /**
@@ -358,22 +365,23 @@ public class UserStore implements Initialization {
      * @param roleId
      * @param transferTo
      */
+    synchronized
     public void removeRole(ID roleId, ID transferTo) {
-        final Role role = getRole(roleId);
+        getRole(roleId);
+        if (transferTo != null) getRole(transferTo);
+
+        SnapshotData data = working();
+        data.roles.remove(roleId);
+        data.privileges.remove(roleId);
         // 转至新角色
-        if (transferTo != null) {
-            Role transferToRole = getRole(transferTo);
-            for (Principal user : role.getMembers()) {
-                transferToRole.addMember(user);
+        for (Map.Entry<ID, Object[]> e : data.users.entrySet()) {
+            if (roleId.equals(e.getValue()[7])) {
+                Object[] o = e.getValue().clone();
+                o[7] = transferTo;
+                e.setValue(o);
             }
         }
-
-        for (Principal u : toMemberArray(role)) {
-            role.removeMember(u);
-        }
-
-        ROLES.remove(roleId);
-        refreshRoleAppends(roleId);
+        commit();
     }
 
     /**
@@ -381,53 +389,16 @@ public class UserStore implements Initialization {
      *
      * @param deptId
      */
+    synchronized
     public void refreshDepartment(ID deptId) {
-        final Department oldDept = DEPTS.get(deptId);
-        if (oldDept != null) {
-            for (Principal u : toMemberArray(oldDept)) {
-                oldDept.removeMember(u);
-            }
-        }
-
-        Object[] o = aPMFactory.createQuery("select name,isDisabled,parentDept from Department where deptId = ?")
+        Object[] o = aPMFactory.createQuery("select deptId,name,isDisabled,parentDept from Department where deptId = ?")
                 .setParameter(1, deptId)
                 .unique();
-        final Department newDept = new Department(deptId, (String) o[0], (Boolean) o[1]);
-
-        // Members
-        Object[][] array = aPMFactory.createQuery("select userId from User where deptId = ?")
-                .setParameter(1, deptId)
-                .array();
-        for (Object[] member : array) {
-            newDept.addMember(getUser((ID) member[0]));
-        }
-
-        // 组织父子级部门关系
-        final ID newParent = (ID) o[2];
-        if (oldDept != null) {
-            BusinessUnit oldParent = oldDept.getParent();
-            if (oldParent != null) {
-                oldParent.removeChild(oldDept);
-                if (oldParent.getIdentity().equals(newParent)) {
-                    oldParent.addChild(newDept);
-                } else if (newParent != null) {
-                    getDepartment(newParent).addChild(newDept);
-                }
 
-            } else if (newParent != null) {
-                getDepartment(newParent).addChild(newDept);
-            }
-
-            for (BusinessUnit child : oldDept.getChildren().toArray(new BusinessUnit[0])) {
-                oldDept.removeChild(child);
-                newDept.addChild(child);
-            }
-
-        } else if (newParent != null && DEPTS.get(newParent) != null /* init */) {
-            getDepartment(newParent).addChild(newDept);
-        }
-
-        DEPTS.put(deptId, newDept);
+        SnapshotData data = working();
+        if (o == null) data.depts.remove(deptId);
+        else data.depts.put(deptId, o);
+        commit();
     }
 
     /**
@@ -436,23 +407,22 @@ public class UserStore implements Initialization {
      * @param deptId
      * @param transferTo
      */
+    synchronized
     public void removeDepartment(ID deptId, ID transferTo) {
-        final Department dept = getDepartment(deptId);
+        getDepartment(deptId);
+        if (transferTo != null) getDepartment(transferTo);
+
+        SnapshotData data = working();
+        data.depts.remove(deptId);
         // 转至新部门
-        if (transferTo != null) {
-            Department transferToDept = getDepartment(transferTo);
-            for (Principal user : dept.getMembers()) {
-                transferToDept.addMember(user);
+        for (Map.Entry<ID, Object[]> e : data.users.entrySet()) {
+            if (deptId.equals(e.getValue()[6])) {
+                Object[] o = e.getValue().clone();
+                o[6] = transferTo;
+                e.setValue(o);
             }
         }
-
-        if (dept.getParent() != null) {
-            dept.getParent().removeChild(dept);
-        }
-        for (Principal u : toMemberArray(dept)) {
-            dept.removeMember(u);
-        }
-        DEPTS.remove(deptId);
+        commit();
     }
 
     /**
@@ -460,28 +430,30 @@ public class UserStore implements Initialization {
      *
      * @param teamId
      */
+    synchronized
     public void refreshTeam(ID teamId) {
-        final Team oldTeam = TEAMS.get(teamId);
-        if (oldTeam != null) {
-            for (Principal u : toMemberArray(oldTeam)) {
-                oldTeam.removeMember(u);
-            }
-        }
-
         Object[] o = aPMFactory.createQuery("select teamId,name,isDisabled from Team where teamId = ?")
                 .setParameter(1, teamId)
                 .unique();
-        final Team newTeam = new Team(teamId, (String) o[1], (Boolean) o[2]);
-
-        // Members
         Object[][] array = aPMFactory.createQuery("select userId from TeamMember where teamId = ?")
                 .setParameter(1, teamId)
                 .array();
-        for (Object[] member : array) {
-            newTeam.addMember(getUser((ID) member[0]));
+
+        SnapshotData data = working();
+        if (o == null) {
+            data.teams.remove(teamId);
+            data.teamMembers.remove(teamId);
+            commit();
+            return;
         }
 
-        TEAMS.put(teamId, newTeam);
+        data.teams.put(teamId, o);
+        Set<ID> members = new HashSet<>();
+        for (Object[] member : array) {
+            members.add((ID) member[0]);
+        }
+        data.teamMembers.put(teamId, members);
+        commit();
     }
 
     /**
@@ -489,152 +461,324 @@ public class UserStore implements Initialization {
      *
      * @param teamId
      */
+    synchronized
     public void removeTeam(ID teamId) {
-        final Team team = getTeam(teamId);
-        for (Principal u : toMemberArray(team)) {
-            team.removeMember(u);
-        }
-        TEAMS.remove(teamId);
-    }
+        getTeam(teamId);
 
-    /**
-     * @param user
-     */
-    private void refreshUserRoleAppends(User user) {
-        // 最高权限无需合并
-        if (user.getMainRole().getIdentity().equals(RoleService.ADMIN_ROLE)) {
-            return;
-        }
-
-        // 附加权限（角色）
-        Object[][] appends = aPMFactory.createQuery("select roleId from RoleMember where userId = ?")
-                .setParameter(1, user.getId())
-                .array();
-        Set<Role> actived = new HashSet<>();
-        for (Object[] a : appends) {
-            Role role = ROLES.get((ID) a[0]);
-            if (role != null && !role.isDisabled()) {
-                actived.add(role);
-            }
-        }
-
-        if (actived.isEmpty()) return;
-        new CombinedRole(user, actived);
+        SnapshotData data = working();
+        data.teams.remove(teamId);
+        data.teamMembers.remove(teamId);
+        commit();
     }
 
-    /**
-     * @param roleId
-     */
-    private void refreshRoleAppends(ID roleId) {
-        // 初始化时无需处理
-        if (!isLoaded) return;
-
-        for (User user : USERS.values()) {
-            Role role = user.getOwningRole();
-            if (role == null) continue;
+    private static final String USER_FS = "userId,loginName,email,fullName,avatarUrl,isDisabled,deptId,roleId,workphone";
 
-            if (role.getIdentity().equals(roleId)
-                    || (role instanceof CombinedRole && ((CombinedRole) role).getRoleAppends().contains(roleId))) {
-                refreshUserRoleAppends(user);
-            }
-        }
+    @Override
+    public boolean isConcurrentInit() {
+        // 无依赖其他组件
+        return true;
     }
 
-    private static final String USER_FS = "userId,loginName,email,fullName,avatarUrl,isDisabled,deptId,roleId,workphone";
-
     @Override
+    synchronized
     public void init() {
-        // 用户
+        // 一次性批量加载，避免逐个角色/部门/团队查询
+        SnapshotData data = new SnapshotData();
 
         Object[][] array = aPMFactory.createQuery("select " + USER_FS + " from User").array();
         for (Object[] o : array) {
-            ID userId = (ID) o[0];
-            User user = new User(
-                    userId, (String) o[1], (String) o[2], (String) o[8], (String) o[3], (String) o[4], (Boolean) o[5]);
-            store(user);
+            data.users.put((ID) o[0], o);
         }
-        log.info("Loaded [ " + USERS.size() + " ] users.");
-
-        // 角色
 
-        array = aPMFactory.createQuery("select roleId from Role").array();
+        array = aPMFactory.createQuery("select roleId,name,isDisabled from Role").array();
         for (Object[] o : array) {
-            this.refreshRole((ID) o[0]);
+            data.roles.put((ID) o[0], o);
         }
-        log.info("Loaded [ " + ROLES.size() + " ] roles.");
 
-        // 附加角色
-        for (User user : USERS.values()) {
-            if (user.getMainRole() != null) {
-                refreshUserRoleAppends(user);
-            }
+        array = aPMFactory.createQuery("select roleId,entity,definition,zeroKey from RolePrivileges").array();
+        for (Object[] o : array) {
+            data.privileges.computeIfAbsent((ID) o[0], k -> new ArrayList<>())
+                    .add(new Object[] { o[1], o[2], o[3] });
         }
 
-        // 部门
+        array = aPMFactory.createQuery("select userId,roleId from RoleMember").array();
+        for (Object[] o : array) {
+            data.roleAppends.computeIfAbsent((ID) o[0], k -> new HashSet<>()).add((ID) o[1]);
+        }
 
-        array = aPMFactory.createQuery("select deptId,parentDept from Department").array();
-        Map<ID, Set<ID>> parentTemp = new HashMap<>();
+        array = aPMFactory.createQuery("select deptId,name,isDisabled,parentDept from Department").array();
         for (Object[] o : array) {
-            ID deptId = (ID) o[0];
-            this.refreshDepartment(deptId);
+            data.depts.put((ID) o[0], o);
+        }
 
-            ID parent = (ID) o[1];
-            if (parent != null) {
-                Set<ID> child = parentTemp.computeIfAbsent(parent, k -> new HashSet<>());
-                child.add(deptId);
-            }
+        array = aPMFactory.createQuery("select teamId,name,isDisabled from Team").array();
+        for (Object[] o : array) {
+            data.teams.put((ID) o[0], o);
         }
 
-        // 组织部门关系
-        for (Map.Entry<ID, Set<ID>> e : parentTemp.entrySet()) {
-            BusinessUnit parent = getDepartment(e.getKey());
-            for (ID child : e.getValue()) {
-                parent.addChild(getDepartment(child));
-            }
+        array = aPMFactory.createQuery("select teamId,userId from TeamMember").array();
+        for (Object[] o : array) {
+            data.teamMembers.computeIfAbsent((ID) o[0], k -> new HashSet<>()).add((ID) o[1]);
         }
 
-        log.info("Loaded [ " + DEPTS.size() + " ] departments.");
+        pending = null;
+        dirty = false;
+        publish(data);
 
-        // 团队
+        final Snapshot s = snapshot;
+        log.info("Loaded [ " + s.USERS.size() + " ] users.");
+        log.info("Loaded [ " + s.ROLES.size() + " ] roles.");
+        log.info("Loaded [ " + s.DEPTS.size() + " ] departments.");
+        log.info("Loaded [ " + s.TEAMS.size() + " ] teams.");
+    }
 
-        array = aPMFactory.createQuery("select teamId from Team").array();
-        for (Object[] o : array) {
-            this.refreshTeam((ID) o[0]);
-        }
-        log.info("Loaded [ " + TEAMS.size() + " ] teams.");
+    /**
+     * 待变更数据（未发布的）
+     *
+     * @return
+     */
+    private SnapshotData working() {
+        if (pending == null) pending = snapshot.data.copy();
+        return pending;
+    }
 
-        isLoaded = true;
+    /**
+     * 提交变更（批量中的不发布，否则在下次读取时发布）
+     */
+    private void commit() {
+        if (batchThread == Thread.currentThread()) return;
+        dirty = true;
     }
 
     /**
-     * @param user
+     * 当前快照（有待发布的变更先发布）
+     *
+     * @return
      */
-    private void store(User user) {
-        USERS.put(user.getId(), user);
-        USERS_NAME2ID.put(normalIdentifier(user.getName()), user.getId());
-        if (user.getEmail() != null) {
-            USERS_MAIL2ID.put(normalIdentifier(user.getEmail()), user.getId());
+    private Snapshot snap() {
+        if (!dirty) return snapshot;
+
+        synchronized (this) {
+            if (dirty) {
+                if (pending != null) publish(pending);
+                pending = null;
+                dirty = false;
+            }
+            return snapshot;
         }
     }
 
+    /**
+     * 构建并发布新快照
+     *
+     * @param data
+     */
+    private void publish(SnapshotData data) {
+        snapshot = new Snapshot(data, snapshot, snapshot.version + 1);
+    }
+
     // 统一化 Key
-    private String normalIdentifier(String ident) {
+    private static String normalIdentifier(String ident) {
         return StringUtils.defaultIfEmpty(ident, "").toLowerCase();
     }
 
-    // Fix: ConcurrentModificationException
-    private Principal[] toMemberArray(MemberGroup group) {
-        return group.getMembers().toArray(new Principal[0]);
+    /**
+     * 快照原始数据。发布后不再修改，变更时先复制
+     */
+    private static class SnapshotData {
+        // USER_FS
+        final Map<ID, Object[]> users;
+        // roleId,name,isDisabled
+        final Map<ID, Object[]> roles;
+        // <ROLE, [entity,definition,zeroKey]>
+        final Map<ID, List<Object[]>> privileges;
+        // <USER, ROLES>
+        final Map<ID, Set<ID>> roleAppends;
+        // deptId,name,isDisabled,parentDept
+        final Map<ID, Object[]> depts;
+        // teamId,name,isDisabled
+        final Map<ID, Object[]> teams;
+        // <TEAM, USERS>
+        final Map<ID, Set<ID>> teamMembers;
+
+        SnapshotData() {
+            this(new LinkedHashMap<>(), new LinkedHashMap<>(), new HashMap<>(), new HashMap<>(),
+                    new LinkedHashMap<>(), new LinkedHashMap<>(), new HashMap<>());
+        }
+
+        private SnapshotData(Map<ID, Object[]> users, Map<ID, Object[]> roles, Map<ID, List<Object[]>> privileges,
+                             Map<ID, Set<ID>> roleAppends, Map<ID, Object[]> depts, Map<ID, Object[]> teams,
+                             Map<ID, Set<ID>> teamMembers) {
+            this.users = users;
+            this.roles = roles;
+            this.privileges = privileges;
+            this.roleAppends = roleAppends;
+            this.depts = depts;
+            this.teams = teams;
+            this.teamMembers = teamMembers;
+        }
+
+        // 浅复制，值（行/集合）须整体替换而非修改
+        SnapshotData copy() {
+            return new SnapshotData(new LinkedHashMap<>(users), new LinkedHashMap<>(roles), new HashMap<>(privileges),
+                    new HashMap<>(roleAppends), new LinkedHashMap<>(depts), new LinkedHashMap<>(teams),
+                    new HashMap<>(teamMembers));
+        }
     }
 
     /**
-     * @param role
+     * 用户体系快照（由原始数据在内存中构建，无数据库查询）
      */
-    private void loadPrivileges(Role role) {
-        Object[][] definition = aPMFactory.createQuery(
-                "select entity,definition,zeroKey from RolePrivileges where roleId = ?")
-                .setParameter(1, role.getIdentity())
-                .array();
+    private static class Snapshot {
+
+        final SnapshotData data;
+        final long version;
+
+        // 已解析的角色权限 <ROLE, PRIVILEGES>，权限定义未变更的沿用上一快照的
+        final Map<ID, List<Privileges>> PRIVILEGES = new HashMap<>();
+
+        final Map<ID, User> USERS = new HashMap<>();
+        final Map<ID, Role> ROLES = new HashMap<>();
+        final Map<ID, Department> DEPTS = new HashMap<>();
+        final Map<ID, Team> TEAMS = new HashMap<>();
+
+        final Map<String, ID> USERS_NAME2ID = new HashMap<>();
+        final Map<String, ID> USERS_MAIL2ID = new HashMap<>();
+
+        Snapshot(SnapshotData data, Snapshot prev, long version) {
+            this.data = data;
+            this.version = version;
+
+            // 用户
+            for (Object[] o : data.users.values()) {
+                ID userId = (ID) o[0];
+                User user = new User(
+                        userId, (String) o[1], (String) o[2], (String) o[8], (String) o[3], (String) o[4], (Boolean) o[5]);
+                USERS.put(userId, user);
+                USERS_NAME2ID.put(normalIdentifier(user.getName()), userId);
+                if (user.getEmail() != null) {
+                    USERS_MAIL2ID.put(normalIdentifier(user.getEmail()), userId);
+                }
+            }
+
+            // 角色
+            for (Object[] o : data.roles.values()) {
+                ID roleId = (ID) o[0];
+                Role role = new Role(roleId, (String) o[1], (Boolean) o[2]);
+                List<Object[]> definition = data.privileges.get(roleId);
+                if (definition != null) {
+                    List<Privileges> ps = prev != null && prev.data.privileges.get(roleId) == definition
+                            ? prev.PRIVILEGES.get(roleId) : null;
+                    if (ps == null) ps = parsePrivileges(definition);
+
+                    for (Privileges p : ps) role.addPrivileges(p);
+                    PRIVILEGES.put(roleId, ps);
+                }
+                ROLES.put(roleId, role);
+            }
+
+            // 部门
+            for (Object[] o : data.depts.values()) {
+                ID deptId = (ID) o[0];
+                DEPTS.put(deptId, new Department(deptId, (String) o[1], (Boolean) o[2]));
+            }
+            // 组织部门关系
+            for (Object[] o : data.depts.values()) {
+                Department parent = DEPTS.get((ID) o[3]);
+                if (parent != null) {
+                    parent.addChild(DEPTS.get((ID) o[0]));
+                }
+            }
+
+            // 用户所属角色/部门
+            for (Object[] o : data.users.values()) {
+                User user = USERS.get((ID) o[0]);
+                Department dept = o[6] == null ? null : DEPTS.get((ID) o[6]);
+                if (dept != null) {
+                    dept.addMember(user);
+                }
+                Role role = o[7] == null ? null : ROLES.get((ID) o[7]);
+                if (role != null) {
+                    role.addMember(user);
+                }
+            }
+
+            // 附加角色
+            for (User user : USERS.values()) {
+                Set<ID> appendRoles = data.roleAppends.get(user.getId());
+                if (user.getMainRole() != null && appendRoles != null && !appendRoles.isEmpty()) {
+                    combineRoleAppends(user, appendRoles);
+                }
+            }
+
+            // 团队
+            for (Object[] o : data.teams.values()) {
+                ID teamId = (ID) o[0];
+                Team team = new Team(teamId, (String) o[1], (Boolean) o[2]);
+                Set<ID> members = data.teamMembers.get(teamId);
+                if (members != null) {
+                    for (ID member : members) {
+                        User user = USERS.get(member);
+                        if (user != null) team.addMember(user);
+                    }
+                }
+                TEAMS.put(teamId, team);
+            }
+        }
+
+        User getUser(ID userId) throws NoMemberFoundException {
+            User u = USERS.get(userId);
+            if (u == null) {
+                throw new NoMemberFoundException("No User found: " + userId);
+            }
+            return u;
+        }
+
+        Role getRole(ID roleId) throws NoMemberFoundException {
+            Role r = ROLES.get(roleId);
+            if (r == null) {
+                throw new NoMemberFoundException("No Role found: " + roleId);
+            }
+            return r;
+        }
+
+        Department getDepartment(ID deptId) throws NoMemberFoundException {
+            Department b = DEPTS.get(deptId);
+            if (b == null) {
+                throw new NoMemberFoundException("No Department found: " + deptId);
+            }
+            return b;
+        }
+
+        /**
+         * @param user
+         * @param appendRoles
+         */
+        private void combineRoleAppends(User user, Set<ID> appendRoles) {
+            // 最高权限无需合并
+            if (user.getMainRole().getIdentity().equals(RoleService.ADMIN_ROLE)) {
+                return;
+            }
+
+            Set<Role> actived = new HashSet<>();
+            for (ID a : appendRoles) {
+                Role role = ROLES.get(a);
+                if (role != null && !role.isDisabled()) {
+                    actived.add(role);
+                }
+            }
+
+            if (actived.isEmpty()) return;
+            new CombinedRole(user, actived);
+        }
+    }
+
+    /**
+     * @param definition [entity, definition, zeroKey]
+     * @return
+     */
+    private static List<Privileges> parsePrivileges(List<Object[]> definition) {
+        List<Privileges> ps = new ArrayList<>();
         for (Object[] d : definition) {
             int entity = (int) d[0];
             Privileges p;
@@ -644,8 +788,9 @@ public class UserStore implements Initialization {
                 JSONObject def = JSON.parseObject((String) d[1]);
                 p = new CustomEntityPrivileges(entity, converEntityPrivilegesDefinition(def), def);
             }
-            role.addPrivileges(p);
+            ps.add(p);
         }
+        return ps;
     }
 
     /**
@@ -656,7 +801,7 @@ public class UserStore implements Initialization {
      * @see EntityPrivileges
      * @see BizzPermission
      */
-    private String converEntityPrivilegesDefinition(JSONObject definition) {
+    private static String converEntityPrivilegesDefinition(JSONObject definition) {
         int C = definition.getIntValue("C");
         int D = definition.getIntValue("D");
         int U = definition.getIntValue("U");
@@ -15,6 +15,7 @@ import com.rebuild.core.Application;
 import com.rebuild.core.configuration.general.ClassificationService;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 
@@ -45,10 +46,13 @@ public class ClassificationImporter extends HeavyTask<Integer> {
         final JSONArray data = (JSONArray) RBStore.fetchClassification(fileUrl);
         this.setTotal(data.size());
 
-        for (Object o : data) {
-            addNItem((JSONObject) o, null, LEVEL_BEGIN);
-            this.addCompleted();
-        }
+        // 全部导入后失效一次分类数据快照
+        Application.getBean(ClassificationService.class).executeBatch(dest, () -> {
+            for (Object o : data) {
+                addNItem((JSONObject) o, null, LEVEL_BEGIN);
+                this.addCompleted();
+            }
+        });
         return getSucceeded();
     }
 
@@ -110,4 +114,9 @@ public class ClassificationImporter extends HeavyTask<Integer> {
         this.addSucceeded();
         return item.getPrimary();
     }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.IMPORT;
+    }
 }
@@ -7,10 +7,13 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.service;
 
+import com.rebuild.core.service.files.ContentStore;
+import com.rebuild.core.service.files.ThumbnailCache;
 import com.rebuild.core.support.ConfigurationItem;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.SystemDiagnosis;
 import com.rebuild.core.support.distributed.DistributedJobLock;
+import com.rebuild.core.support.integration.SMSendQueue;
 import com.rebuild.core.support.setup.DatafileBackup;
 import com.rebuild.core.support.setup.DatabaseBackup;
 import com.rebuild.utils.FileFilterByLastModified;
@@ -43,6 +46,9 @@ public class PerHourJob extends DistributedJobLock {
             doDatabaseBackup();
         } else if (hour == 1) {
             doCleanTempFiles();
+            SMSendQueue.clean(7);
+            ContentStore.gc();
+            ThumbnailCache.clean();
         }
 
         new SystemDiagnosis().diagnose();
@@ -9,13 +9,17 @@ package com.rebuild.core.service;
 
 import cn.devezhao.persist4j.DataAccessException;
 import cn.devezhao.persist4j.PersistManagerFactory;
+import cn.devezhao.persist4j.engine.ID;
 import cn.devezhao.persist4j.engine.JdbcSupport;
 import cn.devezhao.persist4j.engine.StatementCallback;
 import org.springframework.stereotype.Service;
 
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -69,6 +73,45 @@ public class SqlExecutor {
         }
     }
 
+    /**
+     * 带参数（`?` 占位）执行
+     *
+     * @param sql
+     * @param params
+     * @param timeout in seconds
+     * @return
+     */
+    public int execute(String sql, Object[] params, int timeout) {
+        try {
+            final JdbcSupport jdbcSupport = (JdbcSupport) aPMFactory.createPersistManager();
+            jdbcSupport.setTimeout(timeout);
+
+            return jdbcSupport.execute(new StatementCallback() {
+                @Override
+                public Object doInParameters(PreparedStatement pstmt) {
+                    try {
+                        for (int i = 0; i < params.length; i++) {
+                            Object p = params[i];
+                            if (p instanceof Date) p = new Timestamp(((Date) p).getTime());
+                            else if (p instanceof ID) p = p.toString();
+                            pstmt.setObject(i + 1, p);
+                        }
+                    } catch (SQLException ex) {
+                        throw new DataAccessException("Bad parameters", ex);
+                    }
+                    return null;
+                }
+
+                @Override
+                public String getSql() {
+                    return sql;
+                }
+            });
+        } catch (Exception ex) {
+            throw new DataAccessException("SQL#: " + sql, ex);
+        }
+    }
+
     /**
      * @param sqls
      * @return
@@ -10,9 +10,12 @@ package com.rebuild.core.service;
 import com.rebuild.core.Application;
 import org.apache.commons.lang.RandomStringUtils;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
 import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * 手动事物管理。默认事务管理见 `application-bean.xml`
@@ -34,6 +37,17 @@ public class TransactionManual {
         return getTxManager().getTransaction(attr);
     }
 
+    /**
+     * 开启一个独立的新事物（挂起当前事务，如有）
+     *
+     * @return
+     */
+    public static TransactionStatus newTransactionRequiresNew() {
+        DefaultTransactionAttribute attr = new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        attr.setName("rb-txm-" + RandomStringUtils.randomNumeric(12));
+        return getTxManager().getTransaction(attr);
+    }
+
     /**
      * Shadow for TransactionAspectSupport#currentTransactionStatus
      *
@@ -63,6 +77,24 @@ public class TransactionManual {
         status.flush();
     }
 
+    /**
+     * 在当前事务提交后执行（无事务时立即执行）
+     *
+     * @param action
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     /**
      * 获取事物管理器
      *
@@ -22,6 +22,7 @@ import com.rebuild.core.privileges.UserHelper;
 import com.rebuild.core.service.general.EntityService;
 import com.rebuild.core.support.SetUser;
 import com.rebuild.core.support.i18n.Language;
+import com.rebuild.core.support.metrics.Metrics;
 import com.rebuild.utils.JSONUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
@@ -47,6 +48,8 @@ public class ApprovalProcessor extends SetUser {
     private ID approval;
     // 流程定义
     private FlowParser flowParser;
+    // 条件分支用到的记录值
+    private Map<String, Object> branchValues;
 
     /**
      * @param record
@@ -72,6 +75,15 @@ public class ApprovalProcessor extends SetUser {
      * @throws ApprovalException
      */
     public boolean submit(JSONObject selectNextUsers) throws ApprovalException {
+        final long start = System.nanoTime();
+        try {
+            return submit0(selectNextUsers);
+        } finally {
+            recordTime("submit", start);
+        }
+    }
+
+    private boolean submit0(JSONObject selectNextUsers) throws ApprovalException {
         final ApprovalState currentState = ApprovalHelper.getApprovalState(this.record);
         if (currentState == ApprovalState.PROCESSING || currentState == ApprovalState.APPROVED) {
             throw new ApprovalException(Language.L("无效审批状态 (%s) ，请刷新后重试", currentState));
@@ -132,6 +144,15 @@ public class ApprovalProcessor extends SetUser {
      * @throws ApprovalException
      */
     public void approve(ID approver, ApprovalState state, String remark, JSONObject selectNextUsers, Record addedData, String checkUseGroup) throws ApprovalException {
+        final long start = System.nanoTime();
+        try {
+            approve0(approver, state, remark, selectNextUsers, addedData, checkUseGroup);
+        } finally {
+            recordTime("approve", start);
+        }
+    }
+
+    private void approve0(ID approver, ApprovalState state, String remark, JSONObject selectNextUsers, Record addedData, String checkUseGroup) throws ApprovalException {
         final ApprovalStatus status = ApprovalHelper.getApprovalStatus(this.record);
         ApprovalState currentState = status.getCurrentState();
         if (currentState != ApprovalState.PROCESSING) {
@@ -265,7 +286,7 @@ public class ApprovalProcessor extends SetUser {
             }
 
             FlowBranch branch = (FlowBranch) node;
-            if (branch.matches(record)) {
+            if (branch.matches(record, getBranchValues())) {
                 return getNextNode(branch.getNodeId());
             }
         }
@@ -322,6 +343,28 @@ public class ApprovalProcessor extends SetUser {
         return currentNode;
     }
 
+    /**
+     * 一次取出所有条件分支用到的字段值
+     *
+     * @return
+     */
+    private Map<String, Object> getBranchValues() {
+        if (branchValues != null) return branchValues;
+
+        Set<String> fields = getFlowParser().getBranchFields(MetadataHelper.getEntity(this.record.getEntityCode()));
+        branchValues = new HashMap<>();
+        if (fields.isEmpty()) return branchValues;
+
+        String[] fieldsArray = fields.toArray(new String[0]);
+        Object[] o = Application.getQueryFactory().uniqueNoFilter(this.record, fieldsArray);
+        if (o != null) {
+            for (int i = 0; i < fieldsArray.length; i++) {
+                branchValues.put(fieldsArray[i], o[i]);
+            }
+        }
+        return branchValues;
+    }
+
     /**
      * @return
      */
@@ -462,4 +505,11 @@ public class ApprovalProcessor extends SetUser {
             }
         }
     }
+
+    // 审批耗时
+    private void recordTime(String op, long start) {
+        Metrics.timer("rb_approval_seconds",
+                "approval", this.approval == null ? "_" : this.approval.toLiteral(), "op", op)
+                .recordSince(start);
+    }
 }
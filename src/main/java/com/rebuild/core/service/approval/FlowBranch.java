@@ -7,11 +7,15 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.service.approval;
 
+import cn.devezhao.persist4j.Entity;
 import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.service.query.AdvFilterEvaluator;
 import com.rebuild.core.service.query.QueryHelper;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -27,6 +31,9 @@ public class FlowBranch extends FlowNode {
     private Set<String> childNodes = new HashSet<>();
     private String lastNode;
 
+    // 条件的内存求值（编译后缓存）
+    volatile private Object[] evaluator;
+
     /**
      * @param nodeId
      * @param priority
@@ -73,7 +80,37 @@ public class FlowBranch extends FlowNode {
      * @return
      */
     public boolean matches(ID record) {
-        return QueryHelper.isMatchAdvFilter(record, (JSONObject) getDataMap().get("filter"));
+        return QueryHelper.isMatchAdvFilter(record, getFilter());
+    }
+
+    /**
+     * 匹配条件分支（优先使用记录值在内存中求值）
+     *
+     * @param record
+     * @param recordValues 记录值，须包含 {@link FlowParser#getBranchFields(Entity)}
+     * @return
+     */
+    public boolean matches(ID record, Map<String, Object> recordValues) {
+        AdvFilterEvaluator e = getEvaluator(MetadataHelper.getEntity(record.getEntityCode()));
+        if (e == null || recordValues == null) return matches(record);
+        return e.matches(recordValues);
+    }
+
+    /**
+     * @param entity
+     * @return <tt>null</tt> 表示不支持内存求值
+     */
+    protected AdvFilterEvaluator getEvaluator(Entity entity) {
+        Object[] e = evaluator;
+        if (e == null || !entity.equals(e[0])) {
+            e = new Object[] { entity, AdvFilterEvaluator.compile(entity, getFilter()) };
+            evaluator = e;
+        }
+        return (AdvFilterEvaluator) e[1];
+    }
+
+    private JSONObject getFilter() {
+        return (JSONObject) getDataMap().get("filter");
     }
 
     @Override
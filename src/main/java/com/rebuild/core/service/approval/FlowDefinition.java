@@ -33,7 +33,8 @@ public class FlowDefinition extends ConfigBean {
      */
     public FlowParser createFlowParser() {
         if (flowParser == null) {
-            flowParser = new FlowParser(getJSON("flowDefinition"));
+            Long version = getLong("version");
+            flowParser = FlowParser.compile(getID("id"), version == null ? 0 : version, getJSON("flowDefinition"));
         }
         return flowParser;
     }
@@ -153,10 +153,13 @@ public class FlowNode {
         Set<ID> users = new HashSet<>();
 
         List<String> defsList = new ArrayList<>();
+        // 同一用户（部门）的多个字段一次查询
+        Map<ID, Set<Field>> userFields = new LinkedHashMap<>();
+        ApprovalState state = null;
         for (Object o : userDefs) {
             String def = (String) o;
             if (def.startsWith(ApprovalHelper.APPROVAL_SUBMITOR) || def.startsWith(ApprovalHelper.APPROVAL_APPROVER)) {
-                ApprovalState state = ApprovalHelper.getApprovalState(record);
+                if (state == null) state = ApprovalHelper.getApprovalState(record);
                 boolean isSubmitted = state == ApprovalState.PROCESSING || state == ApprovalState.APPROVED;
 
                 ID whichUser = operator;
@@ -178,22 +181,13 @@ public class FlowNode {
                 if (whichUser != null) {
                     Field userField = ApprovalHelper.checkVirtualField(def);
                     if (userField != null) {
-                        Object[] ud;
+                        ID whichId = whichUser;
                         // 部门中的用户（如上级）
                         if (userField.getOwnEntity().getEntityCode() == EntityHelper.Department) {
                             Department d = Application.getUserStore().getUser(whichUser).getOwningDept();
-                            ud = Application.getQueryFactory().uniqueNoFilter((ID) d.getIdentity(), userField.getName());
-                        } else {
-                            ud = Application.getQueryFactory().uniqueNoFilter(whichUser, userField.getName());
-                        }
-
-                        if (ud != null && ud[0] != null) {
-                            if (userField.getReferenceEntity().getEntityCode() == EntityHelper.Department) {
-                                defsList.add(ud[0].toString());
-                            } else {
-                                users.add((ID) ud[0]);
-                            }
+                            whichId = (ID) d.getIdentity();
                         }
+                        userFields.computeIfAbsent(whichId, k -> new LinkedHashSet<>()).add(userField);
                     }
                 }
 
@@ -202,6 +196,24 @@ public class FlowNode {
             }
         }
 
+        for (Map.Entry<ID, Set<Field>> e : userFields.entrySet()) {
+            Field[] fields = e.getValue().toArray(new Field[0]);
+            String[] fieldNames = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) fieldNames[i] = fields[i].getName();
+
+            Object[] ud = Application.getQueryFactory().uniqueNoFilter(e.getKey(), fieldNames);
+            if (ud == null) continue;
+
+            for (int i = 0; i < fields.length; i++) {
+                if (ud[i] == null) continue;
+                if (fields[i].getReferenceEntity().getEntityCode() == EntityHelper.Department) {
+                    defsList.add(ud[i].toString());
+                } else {
+                    users.add((ID) ud[i]);
+                }
+            }
+        }
+
         users.addAll(UserHelper.parseUsers(defsList, record));
         users.removeIf(id -> !UserHelper.isActive(id));
 
@@ -7,17 +7,21 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.service.approval;
 
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.service.query.AdvFilterEvaluator;
 import com.rebuild.core.support.i18n.Language;
 import com.rebuild.utils.JSONUtils;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * 流程解析
+ * 流程解析。解析后为不可变的节点图（邻接表），可按流程定义的版本编译一次后共享使用
  *
  * @author devezhao-mbp zhaofang123@gmail.com
  * @since 2019/07/06
@@ -26,9 +30,14 @@ public class FlowParser {
 
     private static final JSONObject EMPTY_FLOWS = JSONUtils.toJSONObject("nodes", new Object[0]);
 
+    // 已编译 <流程ID, [版本, FlowParser]>
+    private static final Map<ID, Object[]> COMPILED = new ConcurrentHashMap<>();
+
     final private JSON flowDefinition;
 
-    private final Map<String, FlowNode> nodeMap = new HashMap<>();
+    private Map<String, FlowNode> nodeMap = new HashMap<>();
+    // 节点 > 下级节点（条件分支已按优先级排序）
+    private Map<String, List<FlowNode>> nextNodeMap;
 
     /**
      * @param flowDefinition
@@ -36,6 +45,26 @@ public class FlowParser {
     public FlowParser(JSON flowDefinition) {
         this.flowDefinition = flowDefinition == null ? EMPTY_FLOWS : flowDefinition;
         preparedNodes(((JSONObject) this.flowDefinition).getJSONArray("nodes"), null);
+        preparedNextNodes();
+    }
+
+    /**
+     * 按流程定义的版本编译（同一版本仅解析一次）
+     *
+     * @param approvalId
+     * @param version
+     * @param flowDefinition
+     * @return
+     */
+    public static FlowParser compile(ID approvalId, long version, JSON flowDefinition) {
+        if (approvalId == null) return new FlowParser(flowDefinition);
+
+        Object[] c = COMPILED.get(approvalId);
+        if (c != null && (Long) c[0] == version) return (FlowParser) c[1];
+
+        FlowParser flowParser = new FlowParser(flowDefinition);
+        COMPILED.put(approvalId, new Object[] { version, flowParser });
+        return flowParser;
     }
 
     /**
@@ -87,33 +116,37 @@ public class FlowParser {
     }
 
     /**
-     * @param nodeId
-     * @return
+     * 构建邻接表
      */
-    public List<FlowNode> getNextNodes(String nodeId) {
-        List<FlowNode> next = new ArrayList<>();
-        for (FlowNode node : getAllNodes()) {
-            if (node.prevNodes != null && node.prevNodes.contains(nodeId)) {
-                next.add(node);
+    private void preparedNextNodes() {
+        Map<String, List<FlowNode>> map = new HashMap<>();
+        for (FlowNode node : nodeMap.values()) {
+            if (node.prevNodes == null) continue;
+            for (String prev : node.prevNodes.split("\\|")) {
+                map.computeIfAbsent(prev, k -> new ArrayList<>()).add(node);
             }
         }
 
-        if (next.isEmpty()) {
-            return Collections.emptyList();
+        for (Map.Entry<String, List<FlowNode>> e : map.entrySet()) {
+            List<FlowNode> next = e.getValue();
+            // 条件节点优先级排序
+            if (FlowNode.TYPE_BRANCH.equals(next.get(0).getType())) {
+                next.sort(Comparator.comparingInt(o -> ((FlowBranch) o).getPriority()));
+            }
+            e.setValue(Collections.unmodifiableList(next));
         }
 
-        // 非条件分支，只会有一个节点
-        if (!FlowNode.TYPE_BRANCH.equals(next.get(0).getType())) {
-            return next;
-        }
+        this.nextNodeMap = Collections.unmodifiableMap(map);
+        this.nodeMap = Collections.unmodifiableMap(nodeMap);
+    }
 
-        // 条件节点优先级排序
-        next.sort((o1, o2) -> {
-            int p1 = ((FlowBranch) o1).getPriority();
-            int p2 = ((FlowBranch) o2).getPriority();
-            return Integer.compare(p1, p2);
-        });
-        return next;
+    /**
+     * @param nodeId
+     * @return
+     */
+    public List<FlowNode> getNextNodes(String nodeId) {
+        List<FlowNode> next = nextNodeMap.get(nodeId);
+        return next == null ? Collections.emptyList() : next;
     }
 
     /**
@@ -139,6 +172,23 @@ public class FlowParser {
         return false;
     }
 
+    /**
+     * 所有条件分支中用到的字段（可内存求值的）
+     *
+     * @param entity
+     * @return
+     */
+    public Set<String> getBranchFields(Entity entity) {
+        Set<String> fields = new HashSet<>();
+        for (FlowNode node : nodeMap.values()) {
+            if (!(node instanceof FlowBranch)) continue;
+
+            AdvFilterEvaluator evaluator = ((FlowBranch) node).getEvaluator(entity);
+            if (evaluator != null) fields.addAll(evaluator.getFields());
+        }
+        return fields;
+    }
+
     /**
      * @return
      */
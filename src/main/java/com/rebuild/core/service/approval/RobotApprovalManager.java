@@ -21,6 +21,7 @@ import com.rebuild.core.privileges.UserHelper;
 import com.rebuild.core.service.query.QueryHelper;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -150,7 +151,8 @@ public class RobotApprovalManager implements ConfigManager {
                     .set("flowDefinition", JSON.parseObject((String) o[0]))
                     .set("disabled", o[1])
                     .set("name", o[2])
-                    .set("id", o[3]);
+                    .set("id", o[3])
+                    .set("version", ((Date) o[4]).getTime());
             list.add(def);
         }
 
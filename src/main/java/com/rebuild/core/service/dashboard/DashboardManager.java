@@ -64,6 +64,8 @@ public class DashboardManager extends ShareToManager {
         Object[][] canUses = getUsesConfig(user, null, null);
         // 补充图表标题
         for (int i = 0; i < canUses.length; i++) {
+            // 共享数据不可修改
+            canUses[i] = canUses[i].clone();
             JSONArray charts = JSON.parseArray((String) canUses[i][3]);
             ChartManager.instance.richingCharts(charts, user);
             canUses[i][3] = charts;
@@ -76,6 +78,6 @@ public class DashboardManager extends ShareToManager {
 
     @Override
     public void clean(Object cacheKey) {
-        Application.getCommonsCache().evict(formatCacheKey(null, null));
+        evictCache(null, null);
     }
 }
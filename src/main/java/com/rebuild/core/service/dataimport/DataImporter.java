@@ -20,6 +20,7 @@ import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.metadata.easymeta.DisplayType;
 import com.rebuild.core.service.general.GeneralEntityServiceContextHolder;
 import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
 import com.rebuild.utils.JSONUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -185,4 +186,9 @@ public class DataImporter extends HeavyTask<Integer> {
     public List<Object[]> getTraceLogs() {
         return traceLogs;
     }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.IMPORT;
+    }
 }
@@ -0,0 +1,167 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.files;
+
+import cn.devezhao.commons.EncryptUtils;
+import cn.devezhao.persist4j.engine.ID;
+import com.rebuild.core.RebuildException;
+import com.rebuild.core.service.DataSpecificationException;
+import com.rebuild.core.support.RebuildConfiguration;
+import com.rebuild.core.support.i18n.Language;
+import com.rebuild.core.support.integration.QiniuCloud;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 分片（可续传）上传。分片直接写入磁盘临时文件（不在内存缓冲），完成后按内容存储。
+ * 流程：init（获取已接收字节数）> chunk（按偏移顺序追加）> complete
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ContentStore
+ */
+@Slf4j
+public class ChunkedUploader {
+
+    /**
+     * 分片最大字节数
+     */
+    public static final int MAX_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private ChunkedUploader() {
+    }
+
+    /**
+     * 上传 ID。同一用户的同一文件（由客户端标识，如名称+大小+修改时间）可在中断后续传
+     *
+     * @param user
+     * @param fileIdent
+     * @return
+     */
+    public static String getUploadId(ID user, String fileIdent) {
+        return EncryptUtils.toMD5Hex(user + ":" + fileIdent);
+    }
+
+    /**
+     * 已接收字节数
+     *
+     * @param uploadId
+     * @return
+     */
+    public static long getReceived(String uploadId) {
+        File part = getPartFile(uploadId);
+        return part.exists() ? part.length() : 0;
+    }
+
+    /**
+     * 追加分片。偏移与已接收不一致时忽略本分片，客户端据返回值重新定位
+     *
+     * @param uploadId
+     * @param offset
+     * @param in
+     * @param length 未知时为 -1
+     * @return 已接收字节数
+     * @throws IOException
+     */
+    public static long appendChunk(String uploadId, long offset, InputStream in, long length) throws IOException {
+        if (length > MAX_CHUNK_SIZE) {
+            throw new RebuildException("Chunk too large : " + length);
+        }
+
+        final long maxSize = FilesHelper.getUploadMaxSize();
+        final File part = getPartFile(uploadId);
+        synchronized (uploadId.intern()) {
+            try (FileChannel channel = FileChannel.open(part.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long received = channel.size();
+                if (offset != received) return received;
+
+                // 总大小不能超出限制（长度未知时最多多读 1 字节，读取后判断）
+                if (length >= 0 && received + length > maxSize) {
+                    throw new DataSpecificationException(Language.L("超出文件大小限制"));
+                }
+                long limit = length < 0 ? Math.min(MAX_CHUNK_SIZE, maxSize - received + 1) : length;
+
+                ReadableByteChannel src = Channels.newChannel(in);
+                long pos = received;
+                long n;
+                while (pos - received < limit
+                        && (n = channel.transferFrom(src, pos, limit - (pos - received))) > 0) {
+                    pos += n;
+                }
+
+                if (pos > maxSize) {
+                    channel.truncate(received);
+                    throw new DataSpecificationException(Language.L("超出文件大小限制"));
+                }
+
+                channel.force(false);
+                return pos;
+            }
+        }
+    }
+
+    /**
+     * 完成上传
+     *
+     * @param uploadId
+     * @param fileName
+     * @param fileSize
+     * @param temp 临时文件
+     * @return 文件路径
+     * @throws IOException
+     */
+    public static String complete(String uploadId, String fileName, long fileSize, boolean temp) throws IOException {
+        final File part = getPartFile(uploadId);
+        synchronized (uploadId.intern()) {
+            if (!part.exists() || part.length() != fileSize) {
+                throw new RebuildException("Upload incomplete : " + uploadId);
+            }
+            FilesHelper.checkUploadFile(fileName, fileSize, false);
+
+            String fileKey = QiniuCloud.formatFileKey(fileName);
+            // 临时文件无需按内容存储
+            if (temp) {
+                fileKey = fileKey.split("/")[2];
+                Files.move(part.toPath(), RebuildConfiguration.getFileOfTemp(fileKey).toPath());
+            } else {
+                ContentStore.store(part, RebuildConfiguration.getFileOfData(fileKey));
+            }
+            return fileKey;
+        }
+    }
+
+    /**
+     * 放弃上传
+     *
+     * @param uploadId
+     */
+    public static void abort(String uploadId) {
+        try {
+            Files.deleteIfExists(getPartFile(uploadId).toPath());
+        } catch (IOException ex) {
+            log.warn("Cannot delete part file : {}", uploadId, ex);
+        }
+    }
+
+    // 临时目录下的文件会定期清理
+    private static File getPartFile(String uploadId) {
+        if (!uploadId.matches("[0-9a-fA-F]{32}")) {
+            throw new SecurityException("Bad upload id : " + uploadId);
+        }
+        return RebuildConfiguration.getFileOfTemp("chunked-" + uploadId + ".part");
+    }
+}
@@ -0,0 +1,176 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.files;
+
+import com.rebuild.core.RebuildException;
+import com.rebuild.core.support.RebuildConfiguration;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 按内容（SHA-256）存储文件。相同内容只存一份，上传路径以硬链接引用（不支持时复制），
+ * 因此原有的文件路径（`rb/yyyyMMdd/...`）、下载及附件记录均无需变化。
+ * 硬链接数即引用数，无引用的内容由 {@link #gc()} 清理。
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Slf4j
+public class ContentStore {
+
+    private static final String BLOBS_DIR = ".blobs";
+
+    // 无引用的保留时间
+    private static final long GC_KEEP_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private ContentStore() {
+    }
+
+    /**
+     * 存储文件。完成后源文件将被移除
+     *
+     * @param source 已完整的文件（如上传临时文件）
+     * @param dest 目标路径
+     * @return 内容 HASH
+     * @throws IOException
+     */
+    public static String store(File source, File dest) throws IOException {
+        final String hash = sha256(source);
+        final Path blob = getBlob(hash).toPath();
+
+        synchronized (hash.intern()) {
+            if (Files.exists(blob) && Files.size(blob) == Files.size(source.toPath())) {
+                Files.delete(source.toPath());
+                log.info("Duplicate content found, reference to : {}", hash);
+            } else {
+                Files.createDirectories(blob.getParent());
+                try {
+                    Files.move(source.toPath(), blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(source.toPath(), blob, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+
+            link(blob, dest.toPath());
+        }
+        return hash;
+    }
+
+    /**
+     * 是否已有此内容
+     *
+     * @param hash
+     * @return
+     */
+    public static boolean exists(String hash) {
+        return isHash(hash) && getBlob(hash).exists();
+    }
+
+    /**
+     * 清理无引用的内容（硬链接数为 1，即仅剩自身）。
+     * 以复制方式引用的内容被清理后不影响已有文件，仅后续相同内容不再共用
+     *
+     * @return 清理数量
+     */
+    public static int gc() {
+        File blobsDir = RebuildConfiguration.getFileOfData(BLOBS_DIR);
+        File[] dirs = blobsDir.listFiles(File::isDirectory);
+        if (dirs == null) return 0;
+
+        final long keepAfter = System.currentTimeMillis() - GC_KEEP_MILLIS;
+        int deleted = 0;
+        for (File dir : dirs) {
+            File[] blobs = dir.listFiles((d, name) -> isHash(name));
+            if (blobs == null) continue;
+
+            for (File blob : blobs) {
+                synchronized (blob.getName().intern()) {
+                    try {
+                        if (blob.lastModified() > keepAfter) continue;
+
+                        int nlink = (Integer) Files.getAttribute(blob.toPath(), "unix:nlink");
+                        if (nlink > 1) continue;
+
+                        Files.deleteIfExists(blob.toPath());
+                        deleted++;
+                    } catch (UnsupportedOperationException | IllegalArgumentException ex) {
+                        log.warn("Content store GC unsupported on this file system");
+                        return deleted;
+                    } catch (IOException ex) {
+                        log.warn("Cannot clean content : {}", blob, ex);
+                    }
+                }
+            }
+        }
+
+        if (deleted > 0) log.info("Content store GC cleaned : {}", deleted);
+        return deleted;
+    }
+
+    private static void link(Path blob, Path dest) throws IOException {
+        Files.createDirectories(dest.getParent());
+        try {
+            Files.createLink(dest, blob);
+        } catch (FileAlreadyExistsException ex) {
+            // 路径冲突不可覆盖
+            throw ex;
+        } catch (IOException | UnsupportedOperationException ex) {
+            // 跨设备或文件系统不支持
+            Files.copy(blob, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static File getBlob(String hash) {
+        return RebuildConfiguration.getFileOfData(BLOBS_DIR + "/" + hash.substring(0, 2) + "/" + hash);
+    }
+
+    /**
+     * @param hash
+     * @return
+     */
+    public static boolean isHash(String hash) {
+        return hash != null && hash.matches("[0-9a-f]{64}");
+    }
+
+    /**
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RebuildException(ex);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+}
@@ -14,11 +14,16 @@ import com.alibaba.fastjson.JSONObject;
 import com.rebuild.core.Application;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.privileges.UserHelper;
+import com.rebuild.core.service.DataSpecificationException;
+import com.rebuild.core.support.ConfigurationItem;
+import com.rebuild.core.support.RebuildConfiguration;
+import com.rebuild.core.support.i18n.Language;
 import com.rebuild.utils.JSONUtils;
 import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -38,6 +43,37 @@ public class FilesHelper {
 
     private static final LRUMap<String, Integer> FILESIZES = new LRUMap<>(2000);
 
+    // 允许上传的图片类型（与前端一致）
+    private static final Set<String> IMAGE_EXTS = new HashSet<>(
+            Arrays.asList("png", "jpe", "jpg", "jpeg", "gif", "bmp"));
+
+    /**
+     * 上传文件大小限制
+     *
+     * @return bytes
+     * @see ConfigurationItem#PortalUploadMaxSize
+     */
+    public static long getUploadMaxSize() {
+        return RebuildConfiguration.getLong(ConfigurationItem.PortalUploadMaxSize) * 1024 * 1024;
+    }
+
+    /**
+     * 检查上传文件（大小及类型）
+     *
+     * @param fileName
+     * @param fileSize
+     * @param imageOnly
+     * @throws DataSpecificationException
+     */
+    public static void checkUploadFile(String fileName, long fileSize, boolean imageOnly) throws DataSpecificationException {
+        if (fileSize > getUploadMaxSize()) {
+            throw new DataSpecificationException(Language.L("超出文件大小限制"));
+        }
+        if (imageOnly && !IMAGE_EXTS.contains(FilenameUtils.getExtension(fileName).toLowerCase())) {
+            throw new DataSpecificationException(Language.L("请上传图片"));
+        }
+    }
+
     /**
      * 暂存文件大小，以便在创建文件记录时使用
      *
@@ -0,0 +1,319 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.files;
+
+import cn.devezhao.commons.EncryptUtils;
+import com.rebuild.core.support.RebuildConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import net.coobird.thumbnailator.Thumbnails;
+import org.apache.commons.io.FileUtils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缩略图（本地存储）。生成后按原图分目录持久化在磁盘（目录为文件路径，文件名为尺寸分组+修改时间+大小），
+ * 在独立的有界线程池中生成，同一缩略图的并发请求只生成一次。
+ * 原图删除或变更后缩略图随之清理，长期未访问的及超出总大小的由 {@link #clean()} 定期清理。
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Slf4j
+public class ThumbnailCache {
+
+    private static final String THUMBS_DIR = ".thumbs";
+
+    // 尺寸分组（向上取）
+    private static final int[] SIZE_BUCKETS = new int[] { 60, 120, 200, 300, 400, 600, 800, 1000 };
+
+    // 等待生成的最长时间
+    private static final long WAIT_SECONDS = 30;
+
+    // 记录原图路径
+    private static final String SOURCE_NAME = "source";
+    // 未访问超过此时间的清理
+    private static final long MAX_IDLE_MILLIS = 30 * 24 * 60 * 60 * 1000L;
+    // 总大小上限，超出后清理最久未访问的
+    private static final long MAX_TOTAL_SIZE = 2 * 1024 * 1024 * 1024L;
+    // 访问时间的更新间隔
+    private static final long TOUCH_INTERVAL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            Math.max(Runtime.getRuntime().availableProcessors() / 2, 2),
+            Math.max(Runtime.getRuntime().availableProcessors() / 2, 2),
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(200), new ThumbnailThreadFactory());
+
+    private static final Map<String, CompletableFuture<File>> GENERATING = new ConcurrentHashMap<>();
+
+    private ThumbnailCache() {
+    }
+
+    /**
+     * 获取缩略图，不存在则生成
+     *
+     * @param image 原图
+     * @param width 期望宽度
+     * @param png 输出 PNG（否则 JPG）
+     * @return 无法生成（非图片、繁忙等）返回 null，此时应使用原图
+     */
+    public static File getThumbnail(File image, int width, boolean png) {
+        final int size = bucketOf(width);
+        final File thumb = new File(getThumbsDir(image), String.format("%d-%s-%s.%s",
+                size, Long.toHexString(image.lastModified()), Long.toHexString(image.length()), png ? "png" : "jpg"));
+        if (thumb.exists()) {
+            // 访问时间（用于清理）
+            long now = System.currentTimeMillis();
+            if (now - thumb.lastModified() > TOUCH_INTERVAL_MILLIS) thumb.setLastModified(now);
+            return thumb;
+        }
+
+        final String genKey = thumb.getAbsolutePath();
+        CompletableFuture<File> future = new CompletableFuture<>();
+        CompletableFuture<File> existing = GENERATING.putIfAbsent(genKey, future);
+        // 已在生成中
+        if (existing != null) {
+            future = existing;
+        } else {
+            future.whenComplete((r, ex) -> GENERATING.remove(genKey));
+
+            final CompletableFuture<File> f = future;
+            try {
+                EXECUTOR.execute(() -> {
+                    try {
+                        f.complete(generate(image, size, png, thumb));
+                    } catch (Throwable ex) {
+                        f.completeExceptionally(ex);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                log.warn("Thumbnail executor busy, use original : {}", image);
+                f.complete(null);
+            }
+        }
+
+        try {
+            return future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            log.warn("Cannot make thumbnail : {}", image, ex.getCause());
+        } catch (TimeoutException ex) {
+            log.warn("Make thumbnail timeout : {}", image);
+        }
+        return null;
+    }
+
+    /**
+     * @param image
+     * @param size
+     * @param png
+     * @param dest
+     * @return
+     * @throws IOException
+     */
+    private static File generate(File image, int size, boolean png, File dest) throws IOException {
+        if (dest.exists()) return dest;
+
+        int[] wh = readSize(image);
+        if (wh == null) {
+            log.debug("Unsupport image type : {}", image);
+            return null;
+        }
+
+        Files.createDirectories(dest.getParentFile().toPath());
+        writeSource(image, dest.getParentFile());
+        final String ext = png ? "png" : "jpg";
+        File tmp = new File(dest.getParentFile(), dest.getName() + ".tmp" + Thread.currentThread().getId() + "." + ext);
+
+        // 从文件读取，可按目标尺寸降采样解码
+        Thumbnails.Builder<File> builder = Thumbnails.of(image);
+        if (wh[0] > size) {
+            builder.size(size, size);
+        } else {
+            builder.scale(1.0);
+        }
+        builder.outputFormat(ext).toFile(tmp);
+
+        try {
+            Files.move(tmp.toPath(), dest.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return dest;
+    }
+
+    /**
+     * 记录原图路径，并清理原图变更前的缩略图
+     *
+     * @param image
+     * @param dir
+     * @throws IOException
+     */
+    private static void writeSource(File image, File dir) throws IOException {
+        final String version = String.format("-%s-%s.", Long.toHexString(image.lastModified()), Long.toHexString(image.length()));
+        File[] stales = dir.listFiles((d, name) -> !name.equals(SOURCE_NAME) && !name.contains(".tmp") && !name.contains(version));
+        if (stales != null) {
+            for (File s : stales) Files.deleteIfExists(s.toPath());
+        }
+
+        File source = new File(dir, SOURCE_NAME);
+        if (!source.exists()) {
+            Files.write(source.toPath(), image.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 删除原图的全部缩略图（原图删除时调用）
+     *
+     * @param image
+     */
+    public static void remove(File image) {
+        File dir = getThumbsDir(image);
+        if (dir.exists()) FileUtils.deleteQuietly(dir);
+    }
+
+    /**
+     * 清理缩略图：原图已不存在的、长期未访问的，以及超出总大小时最久未访问的
+     *
+     * @return 清理数量
+     */
+    public static int clean() {
+        File[] dirs = RebuildConfiguration.getFileOfData(THUMBS_DIR).listFiles(File::isDirectory);
+        if (dirs == null) return 0;
+
+        final long idleBefore = System.currentTimeMillis() - MAX_IDLE_MILLIS;
+        final List<File> remains = new ArrayList<>();
+        long totalSize = 0;
+        int deleted = 0;
+
+        for (File parent : dirs) {
+            File[] thumbsDirs = parent.listFiles(File::isDirectory);
+            if (thumbsDirs == null) continue;
+
+            for (File dir : thumbsDirs) {
+                File source = new File(dir, SOURCE_NAME);
+                File image = null;
+                try {
+                    if (source.exists()) image = new File(new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8));
+                } catch (IOException ex) {
+                    log.warn("Cannot read thumbnail source : {}", source, ex);
+                    continue;
+                }
+
+                File[] thumbs = dir.listFiles((d, name) -> !name.equals(SOURCE_NAME));
+                // 原图已删除
+                if (image == null || !image.exists()) {
+                    deleted += thumbs == null ? 0 : thumbs.length;
+                    FileUtils.deleteQuietly(dir);
+                    continue;
+                }
+                if (thumbs == null) continue;
+
+                for (File thumb : thumbs) {
+                    if (thumb.lastModified() < idleBefore) {
+                        if (FileUtils.deleteQuietly(thumb)) deleted++;
+                    } else {
+                        remains.add(thumb);
+                        totalSize += thumb.length();
+                    }
+                }
+            }
+        }
+
+        // 超出总大小
+        if (totalSize > MAX_TOTAL_SIZE) {
+            remains.sort(Comparator.comparingLong(File::lastModified));
+            for (File thumb : remains) {
+                if (totalSize <= MAX_TOTAL_SIZE) break;
+
+                long len = thumb.length();
+                if (FileUtils.deleteQuietly(thumb)) {
+                    totalSize -= len;
+                    deleted++;
+                }
+            }
+        }
+
+        if (deleted > 0) log.info("Thumbnail cache cleaned : {}", deleted);
+        return deleted;
+    }
+
+    private static File getThumbsDir(File image) {
+        String key = EncryptUtils.toMD5Hex(image.getAbsolutePath());
+        return RebuildConfiguration.getFileOfData(String.format("%s/%s/%s", THUMBS_DIR, key.substring(0, 2), key));
+    }
+
+    /**
+     * 只读取尺寸（不解码）
+     *
+     * @param image
+     * @return [width, height]
+     * @throws IOException
+     */
+    private static int[] readSize(File image) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(image)) {
+            if (iis == null) return null;
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * @param width
+     * @return
+     */
+    protected static int bucketOf(int width) {
+        for (int b : SIZE_BUCKETS) {
+            if (width <= b) return b;
+        }
+        return SIZE_BUCKETS[SIZE_BUCKETS.length - 1];
+    }
+
+    private static class ThumbnailThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "rb-thumbnail-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.service.query.AdvFilterParser;
 import com.rebuild.core.service.query.FilterParseException;
 import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -86,4 +87,9 @@ public abstract class BulkOperator extends HeavyTask<Integer> {
     public Integer exec() {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.BULK;
+    }
 }
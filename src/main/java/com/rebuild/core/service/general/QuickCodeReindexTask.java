@@ -23,6 +23,7 @@ import com.rebuild.core.support.i18n.Language;
 import com.rebuild.core.support.state.StateManager;
 import com.rebuild.core.support.state.StateSpec;
 import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.StringUtils;
 
@@ -202,4 +203,9 @@ public class QuickCodeReindexTask extends HeavyTask<Integer> {
         if (quickCode.length() > 50) quickCode = quickCode.substring(0, 50);
         return quickCode.toUpperCase();
     }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.REINDEX;
+    }
 }
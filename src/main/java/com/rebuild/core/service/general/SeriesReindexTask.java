@@ -19,6 +19,7 @@ import com.rebuild.core.metadata.easymeta.DisplayType;
 import com.rebuild.core.privileges.UserService;
 import com.rebuild.core.service.general.series.SeriesGeneratorFactory;
 import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
 
 /**
  * 自动编号字段值重建
@@ -72,4 +73,9 @@ public class SeriesReindexTask extends HeavyTask<Integer> {
 
         return this.getSucceeded();
     }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.REINDEX;
+    }
 }
@@ -8,95 +8,101 @@ See LICENSE and COMMERCIAL in the project root for license information.
 package com.rebuild.core.service.general.recyclebin;
 
 import cn.devezhao.commons.CalendarUtils;
-import cn.devezhao.persist4j.Entity;
-import com.rebuild.core.Application;
 import com.rebuild.core.metadata.EntityHelper;
-import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.privileges.UserService;
 import com.rebuild.core.support.ConfigurationItem;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.distributed.DistributedJobLock;
+import com.rebuild.core.support.task.TaskExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-
 /**
  * 回收站/变更历史清理
  *
  * @author devezhao
  * @since 2019/8/21
+ * @see RetentionPurgeTask
  */
 @Slf4j
 @Component
 public class RecycleBinCleanerJob extends DistributedJobLock {
 
+    // 当前（最近）的清理任务
+    private static String purgeTaskId;
+
+    public RecycleBinCleanerJob() {
+        super();
+        // 重启后从断点继续
+        TaskExecutors.registerResumable(RetentionPurgeTask.class, this::submitPurgeTask);
+    }
+
     @Scheduled(cron = "0 0 4 * * ?")
     protected void executeJob() {
         if (!tryLock()) return;
+        submitPurgeTask();
+    }
 
-        // 回收站
-
-        final int rbDays = RebuildConfiguration.getInt(ConfigurationItem.RecycleBinKeepingDays);
-        if (rbDays > 0) {
-            log.info("RecycleBin clean running ... {}d", rbDays);
+    /**
+     * 提交清理任务
+     */
+    protected void submitPurgeTask() {
+        RetentionPurgeTask running = getPurgeTask();
+        if (running != null && !running.isCompleted()) {
+            log.warn("Last purge task is running, skip : {}", purgeTaskId);
+            return;
+        }
 
-            Entity entity = MetadataHelper.getEntity(EntityHelper.RecycleBin);
-            Date before = CalendarUtils.addDay(-rbDays);
+        RetentionPurgeTask task = createPurgeTask();
+        if (task == null) return;
 
-            final String commonFrom = String.format(
-                    "from `%s` where `%s` < '%s 00:00:00'",
-                    entity.getPhysicalName(),
-                    entity.getField("deletedOn").getPhysicalName(),
-                    CalendarUtils.getUTCDateFormat().format(before));
-            final String recordIdName = entity.getField("recordId").getPhysicalName();
+        // 分批清理耗时较长，不占用调度线程
+        purgeTaskId = TaskExecutors.submit(task, UserService.SYSTEM_USER);
+        log.info("Purge task submitted : {}", purgeTaskId);
+    }
 
-            List<String> dels = new ArrayList<>();
+    /**
+     * @return <tt>null</tt> 表示无需清理
+     */
+    protected RetentionPurgeTask createPurgeTask() {
+        RetentionPurgeTask task = new RetentionPurgeTask();
+        boolean hasTarget = false;
 
+        // 回收站
+        final int rbDays = RebuildConfiguration.getInt(ConfigurationItem.RecycleBinKeepingDays);
+        if (rbDays > 0) {
+            log.info("RecycleBin clean running ... {}d", rbDays);
             // 相关引用也在此时一并删除，因为记录已经彻底删除
-            // Field: recordId
-            String[] refs = new String[] {
-                    "Attachment", "ShareAccess", "RobotApprovalStep", "NreferenceItem"
-            };
-            for (String refName : refs) {
-                Entity refEntity = MetadataHelper.getEntity(refName);
-                String refRecordIdName = "Attachment".equals(refName) ? "relatedRecord" : "recordId";
-
-                String delRef = String.format(
-                        "delete from `%s` where `%s` in ( select %s %s )",
-                        refEntity.getPhysicalName(),
-                        refEntity.getField(refRecordIdName).getPhysicalName(),
-                        recordIdName, commonFrom);
-                dels.add(delRef);
-            }
-
-            String delSql = "delete " + commonFrom;
-            dels.add(delSql);
-
-            int del = Application.getSqlExecutor().executeBatch(dels.toArray(new String[0]), 60 * 15);
-            log.warn("RecycleBin cleaned : {}", del);
+            task.addTarget(EntityHelper.RecycleBin, CalendarUtils.addDay(-rbDays));
+            hasTarget = true;
         }
 
         // 变更历史
-
         final int rhDays = RebuildConfiguration.getInt(ConfigurationItem.RevisionHistoryKeepingDays);
         if (rhDays > 0) {
             log.info("RevisionHistory clean running ... {}d", rhDays);
+            task.addTarget(EntityHelper.RevisionHistory, CalendarUtils.addDay(-rhDays));
+            hasTarget = true;
+        }
 
-            Entity entity = MetadataHelper.getEntity(EntityHelper.RevisionHistory);
-            Date before = CalendarUtils.addDay(-rhDays);
+        return hasTarget ? task : null;
+    }
 
-            String delSql = String.format(
-                    "delete from `%s` where `%s` < '%s 00:00:00'",
-                    entity.getPhysicalName(),
-                    entity.getField("revisionOn").getPhysicalName(),
-                    CalendarUtils.getUTCDateFormat().format(before));
+    /**
+     * 当前（最近）的清理任务，可暂停/继续/取消
+     *
+     * @return
+     */
+    public static RetentionPurgeTask getPurgeTask() {
+        return purgeTaskId == null ? null : (RetentionPurgeTask) TaskExecutors.get(purgeTaskId);
+    }
 
-            int del = Application.getSqlExecutor().execute(delSql, 60 * 3);
-            log.warn("RevisionHistory cleaned : {}", del);
-        }
+    /**
+     * @return
+     */
+    public static String getPurgeTaskId() {
+        return purgeTaskId;
     }
 
     /**
@@ -0,0 +1,345 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.general.recyclebin;
+
+import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.commons.ObjectUtils;
+import cn.devezhao.commons.ThreadPool;
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
+import com.rebuild.core.Application;
+import com.rebuild.core.BootEnvironmentPostProcessor;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.metadata.MetadataSorter;
+import com.rebuild.core.metadata.easymeta.DisplayType;
+import com.rebuild.core.support.KVStorage;
+import com.rebuild.core.support.setup.Installer;
+import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 回收站/变更历史过期数据清理。
+ * 按主键分段（keyset）查找过期数据，每批删除少量数据并立即提交，批次间按执行耗时及数据库负载限速，
+ * 避免长时间锁表阻塞业务写入和主从复制。支持暂停/继续，中断后下次从断点继续
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see RecycleBinCleanerJob
+ */
+@Slf4j
+public class RetentionPurgeTask extends HeavyTask<Integer> {
+
+    // 每批数量
+    private static final int BATCH_MIN = 50;
+    private static final int BATCH_MAX = 1000;
+    private static final int BATCH_INIT = 500;
+    // 单批期望耗时（ms），超过则减小批量并退避
+    private static final int BATCH_EXPECTED_TIME = 500;
+    // 批次间隔（ms）
+    private static final int INTERVAL_MIN = 100;
+    private static final int INTERVAL_MAX = 10 * 1000;
+    // 数据库繁忙（活跃线程数）
+    private static final int BUSY_THREADS_RUNNING = 32;
+    // 复制延迟（s）
+    private static final int BUSY_REPLICATION_LAG = 30;
+    // 复制延迟检查间隔（ms）
+    private static final int REPLICATION_CHECK_INTERVAL = 10 * 1000;
+
+    private static final String CHECKPOINT_KEY = "RetentionPurge.";
+
+    // Entity > 过期时间
+    final private Map<Integer, Date> targets = new LinkedHashMap<>();
+
+    private int batchSize = BATCH_INIT;
+    private int interval = INTERVAL_MIN;
+
+    private long replicationCheckTime = 0;
+    private boolean replicationLagging = false;
+
+    volatile private boolean paused = false;
+
+    public RetentionPurgeTask() {
+        super();
+    }
+
+    /**
+     * @param entityCode {@link EntityHelper#RecycleBin} or {@link EntityHelper#RevisionHistory}
+     * @param before 清理此日期之前的
+     * @return
+     */
+    public RetentionPurgeTask addTarget(int entityCode, Date before) {
+        if (entityCode != EntityHelper.RecycleBin && entityCode != EntityHelper.RevisionHistory) {
+            throw new IllegalArgumentException("Unsupported entity : " + entityCode);
+        }
+        targets.put(entityCode, before);
+        return this;
+    }
+
+    /**
+     * 暂停
+     */
+    public void pause() {
+        this.paused = true;
+    }
+
+    /**
+     * 继续
+     */
+    public void resume() {
+        this.paused = false;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    protected Integer exec() {
+        // 总数未知（预先计数需全表扫描），进度按批次推进
+        for (Map.Entry<Integer, Date> e : targets.entrySet()) {
+            if (isInterrupted()) break;
+
+            Entity entity = MetadataHelper.getEntity(e.getKey());
+            int del = purge(entity, e.getValue());
+            log.warn("{} cleaned : {}", entity.getName(), del);
+        }
+
+        this.setTotal(getCompleted());
+        return getSucceeded();
+    }
+
+    /**
+     * @param entity
+     * @param before
+     * @return
+     */
+    protected int purge(Entity entity, Date before) {
+        final boolean isRecycleBin = entity.getEntityCode() == EntityHelper.RecycleBin;
+        final String pkName = entity.getPrimaryField().getPhysicalName();
+        final String dateName = getDateField(entity).getPhysicalName();
+
+        final String checkpointKey = CHECKPOINT_KEY + entity.getName();
+        String lastKey = getCheckpoint(entity);
+        if (!lastKey.isEmpty()) log.info("{} purge resumed from : {}", entity.getName(), lastKey);
+
+        final String beforeTime = formatBefore(before);
+        int deleted = 0;
+
+        while (true) {
+            while (paused && !isInterrupt()) {
+                ThreadPool.waitFor(1000);
+            }
+            if (isInterrupt()) {
+                KVStorage.setCustomValue(checkpointKey, lastKey);
+                setInterrupted();
+                break;
+            }
+
+            // 主键有序扫描，每批从上次结束处开始
+            String sql = String.format(
+                    "select `%s`,`%s`,`%s` from `%s` where `%s` > '%s' and `%s` < '%s' order by `%s` limit %d",
+                    pkName, entity.getField("recordId").getPhysicalName(), entity.getField("belongEntity").getPhysicalName(),
+                    entity.getPhysicalName(), pkName, lastKey, dateName, beforeTime, pkName, batchSize);
+            Object[][] array = Application.getQueryFactory().createNativeQuery(sql).array();
+            if (array.length == 0) {
+                KVStorage.removeCustomValue(checkpointKey);
+                break;
+            }
+
+            final long start = System.currentTimeMillis();
+
+            if (isRecycleBin) deleteReferences(array);
+
+            List<String> ids = new ArrayList<>();
+            for (Object[] o : array) ids.add((String) o[0]);
+            String delSql = String.format("delete from `%s` where `%s` in ('%s')",
+                    entity.getPhysicalName(), pkName, StringUtils.join(ids, "','"));
+            int del = Application.getSqlExecutor().execute(delSql, 60);
+
+            deleted += del;
+            for (int i = 0; i < del; i++) addSucceeded();
+            setCompleted(getCompleted() + array.length);
+            // 可能还有下一批
+            setTotal(getCompleted() + batchSize);
+            lastKey = ids.get(ids.size() - 1);
+
+            if (array.length < batchSize) {
+                KVStorage.removeCustomValue(checkpointKey);
+                break;
+            }
+
+            throttle(System.currentTimeMillis() - start);
+        }
+        return deleted;
+    }
+
+    private Field getDateField(Entity entity) {
+        return entity.getField(entity.getEntityCode() == EntityHelper.RecycleBin ? "deletedOn" : "revisionOn");
+    }
+
+    private String getCheckpoint(Entity entity) {
+        return StringUtils.defaultString(KVStorage.getCustomValue(CHECKPOINT_KEY + entity.getName()), "");
+    }
+
+    private String formatBefore(Date before) {
+        return CalendarUtils.getUTCDateFormat().format(before) + " 00:00:00";
+    }
+
+    /**
+     * 记录已彻底删除，一并删除相关引用
+     *
+     * @param array [recycleId, recordId, belongEntity]
+     */
+    private void deleteReferences(Object[][] array) {
+        // 按实体分组，以便使用 (belongEntity, recordId) 索引
+        Map<String, List<String>> byEntity = new LinkedHashMap<>();
+        for (Object[] o : array) {
+            byEntity.computeIfAbsent((String) o[2], k -> new ArrayList<>()).add((String) o[1]);
+        }
+
+        final Entity attachment = MetadataHelper.getEntity(EntityHelper.Attachment);
+        final Entity shareAccess = MetadataHelper.getEntity(EntityHelper.ShareAccess);
+        final Entity approvalStep = MetadataHelper.getEntity(EntityHelper.RobotApprovalStep);
+        final Entity nreferenceItem = MetadataHelper.getEntity(EntityHelper.NreferenceItem);
+
+        List<String> dels = new ArrayList<>();
+        for (Map.Entry<String, List<String>> e : byEntity.entrySet()) {
+            final String belongEntity = StringEscapeUtils.escapeSql(e.getKey());
+            final String inIds = "'" + StringUtils.join(e.getValue(), "','") + "'";
+
+            dels.add(String.format("delete from `%s` where `%s` in (%s)",
+                    attachment.getPhysicalName(), attachment.getField("relatedRecord").getPhysicalName(), inIds));
+            dels.add(String.format("delete from `%s` where `%s` = '%s' and `%s` in (%s)",
+                    shareAccess.getPhysicalName(), shareAccess.getField("belongEntity").getPhysicalName(), belongEntity,
+                    shareAccess.getField("recordId").getPhysicalName(), inIds));
+            dels.add(String.format("delete from `%s` where `%s` in (%s)",
+                    approvalStep.getPhysicalName(), approvalStep.getField("recordId").getPhysicalName(), inIds));
+
+            // 多引用按 (belongField, recordId) 索引删除
+            List<String> n2nFields = new ArrayList<>();
+            if (MetadataHelper.containsEntity(e.getKey())) {
+                for (Field field : MetadataSorter.sortFields(MetadataHelper.getEntity(e.getKey()), DisplayType.N2NREFERENCE)) {
+                    n2nFields.add(field.getName());
+                }
+            }
+            if (n2nFields.isEmpty()) {
+                dels.add(String.format("delete from `%s` where `%s` = '%s' and `%s` in (%s)",
+                        nreferenceItem.getPhysicalName(), nreferenceItem.getField("belongEntity").getPhysicalName(), belongEntity,
+                        nreferenceItem.getField("recordId").getPhysicalName(), inIds));
+            } else {
+                dels.add(String.format("delete from `%s` where `%s` in ('%s') and `%s` in (%s)",
+                        nreferenceItem.getPhysicalName(), nreferenceItem.getField("belongField").getPhysicalName(), StringUtils.join(n2nFields, "','"),
+                        nreferenceItem.getField("recordId").getPhysicalName(), inIds));
+            }
+        }
+
+        Application.getSqlExecutor().executeBatch(dels.toArray(new String[0]), 60);
+    }
+
+    /**
+     * 限速：按本批耗时调整批量及间隔，数据库繁忙时退避
+     *
+     * @param cost
+     */
+    private void throttle(long cost) {
+        if (cost > BATCH_EXPECTED_TIME) {
+            batchSize = Math.max(batchSize / 2, BATCH_MIN);
+            interval = (int) Math.min(Math.max(interval * 2, cost), INTERVAL_MAX);
+        } else {
+            batchSize = Math.min(batchSize + BATCH_MIN, BATCH_MAX);
+            interval = Math.max(interval / 2, INTERVAL_MIN);
+        }
+
+        if (isDatabaseBusy()) {
+            interval = INTERVAL_MAX;
+            log.info("Database busy, purge backoff {}ms", interval);
+        }
+
+        ThreadPool.waitFor(interval);
+    }
+
+    /**
+     * 数据库繁忙（活跃线程数过多，或复制延迟过高）。
+     * 注意：复制延迟须在从库上检查，因此仅在配置了从库地址 `db.ReplicaUrl`（使用与主库相同的账号）时检查
+     *
+     * @return
+     */
+    protected boolean isDatabaseBusy() {
+        if (Installer.isUseH2()) return false;
+
+        DataSource ds = Application.getBean(DataSource.class);
+        try (Connection conn = ds.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery("show global status like 'Threads_running'")) {
+                    if (rs.next() && ObjectUtils.toInt(rs.getString(2)) > BUSY_THREADS_RUNNING) return true;
+                }
+            }
+        } catch (SQLException ex) {
+            // 无权限等，忽略
+            log.debug("Cannot check database status : {}", ex.getLocalizedMessage());
+        }
+
+        return isReplicationLagging();
+    }
+
+    /**
+     * 从库复制延迟是否过高（未配置从库时为 false）
+     *
+     * @return
+     */
+    protected boolean isReplicationLagging() {
+        final String replicaUrl = BootEnvironmentPostProcessor.getProperty("db.ReplicaUrl");
+        if (StringUtils.isBlank(replicaUrl)) return false;
+
+        // 非每批都检查
+        if (System.currentTimeMillis() - replicationCheckTime < REPLICATION_CHECK_INTERVAL) return replicationLagging;
+        replicationCheckTime = System.currentTimeMillis();
+
+        replicationLagging = false;
+        try (Connection conn = DriverManager.getConnection(replicaUrl,
+                BootEnvironmentPostProcessor.getProperty("db.user"), BootEnvironmentPostProcessor.getProperty("db.passwd"))) {
+            try (Statement stmt = conn.createStatement()) {
+                try (ResultSet rs = stmt.executeQuery("show slave status")) {
+                    if (rs.next()) {
+                        int lag = ObjectUtils.toInt(rs.getString("Seconds_Behind_Master"), 0);
+                        replicationLagging = lag > BUSY_REPLICATION_LAG;
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            log.warn("Cannot check replication lag : {}", ex.getLocalizedMessage());
+        }
+        return replicationLagging;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + targets.keySet() + (paused ? "[PAUSED]" : "");
+    }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.MAINTENANCE;
+    }
+}
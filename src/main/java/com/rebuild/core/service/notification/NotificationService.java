@@ -9,16 +9,23 @@ package com.rebuild.core.service.notification;
 
 import cn.devezhao.commons.ObjectUtils;
 import cn.devezhao.commons.ThreadPool;
+import cn.devezhao.persist4j.Entity;
 import cn.devezhao.persist4j.PersistManagerFactory;
 import cn.devezhao.persist4j.Record;
 import cn.devezhao.persist4j.engine.ID;
 import com.rebuild.core.Application;
 import com.rebuild.core.UserContextHolder;
+import com.rebuild.core.cache.CacheTemplate;
 import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.service.InternalPersistService;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 消息通知服务
  *
@@ -29,6 +36,8 @@ import org.springframework.stereotype.Service;
 @Service
 public class NotificationService extends InternalPersistService {
 
+    private static final String CKEY_UNREAD = "UnreadNotificationCount-";
+
     protected NotificationService(PersistManagerFactory aPMFactory) {
         super(aPMFactory);
     }
@@ -42,32 +51,51 @@ public class NotificationService extends InternalPersistService {
     public Record create(Record record) {
         record.setBoolean("unread", true);
         record = super.create(record);
-        cleanCache(record.getPrimary());
+        adjustUnread(record.getID("toUser"), 1);
         return record;
     }
 
     @Override
     public Record update(Record record) {
-        cleanCache(record.getPrimary());
-        return super.update(record);
+        Object[] before = record.hasValue("unread") ? getToUserAndUnread(record.getPrimary()) : null;
+        record = super.update(record);
+
+        if (before != null) {
+            boolean unread = (Boolean) record.getObjectValue("unread");
+            if (unread != (Boolean) before[1]) adjustUnread((ID) before[0], unread ? 1 : -1);
+        }
+        return record;
     }
 
     @Override
     public int delete(ID recordId) {
-        cleanCache(recordId);
-        return super.delete(recordId);
+        Object[] before = getToUserAndUnread(recordId);
+        int del = super.delete(recordId);
+
+        if (before != null && (Boolean) before[1]) adjustUnread((ID) before[0], -1);
+        return del;
     }
 
-    // 清理缓存
-    private void cleanCache(ID messageId) {
-        Object[] m = Application.createQueryNoFilter(
-                "select toUser from Notification where messageId = ?")
+    private Object[] getToUserAndUnread(ID messageId) {
+        return Application.createQueryNoFilter(
+                "select toUser,unread from Notification where messageId = ?")
                 .setParameter(1, messageId)
                 .unique();
-        if (m != null) {
-            final String ckey = "UnreadNotification-" + m[0];
-            Application.getCommonsCache().evict(ckey);
-        }
+    }
+
+    /**
+     * 未读计数增减（计数不存在时忽略，下次读取时重新统计）
+     *
+     * @param user
+     * @param delta
+     */
+    private void adjustUnread(ID user, int delta) {
+        if (user == null || delta == 0) return;
+
+        final String ckey = CKEY_UNREAD + user;
+        Long n = Application.getCommonsCache().incrBy(ckey, delta);
+        // 计数偏差
+        if (n != null && n < 0) Application.getCommonsCache().evict(ckey);
     }
 
     // --
@@ -112,10 +140,10 @@ public class NotificationService extends InternalPersistService {
      * @return
      */
     public int getUnreadMessage(ID user) {
-        final String ckey = "UnreadNotification-" + user;
-        Object cval = Application.getCommonsCache().getx(ckey);
+        final String ckey = CKEY_UNREAD + user;
+        String cval = Application.getCommonsCache().get(ckey);
         if (cval != null) {
-            return (Integer) cval;
+            return ObjectUtils.toInt(cval);
         }
 
         Object[] unread = Application.createQueryNoFilter(
@@ -123,7 +151,12 @@ public class NotificationService extends InternalPersistService {
                 .setParameter(1, user)
                 .unique();
         int count = unread == null ? 0 : ObjectUtils.toInt(unread[0]);
-        Application.getCommonsCache().putx(ckey, count);
+        // 计数由发送/已读/删除维护，过期后重新统计以修正可能的偏差。
+        // 仅不存在时存入，避免覆盖统计期间已初始化并增减过的计数
+        if (!Application.getCommonsCache().putIfAbsent(ckey, String.valueOf(count), CacheTemplate.TS_DAY)) {
+            cval = Application.getCommonsCache().get(ckey);
+            if (cval != null) return ObjectUtils.toInt(cval);
+        }
         return count;
     }
 
@@ -137,4 +170,32 @@ public class NotificationService extends InternalPersistService {
         record.setBoolean("unread", false);
         this.update(record);
     }
+
+    /**
+     * 批量设为已读
+     *
+     * @param user
+     * @param messageIds 为空则全部
+     * @return
+     */
+    public int makeRead(ID user, ID[] messageIds) {
+        final Entity entity = MetadataHelper.getEntity(EntityHelper.Notification);
+        String sql = String.format("update `%s` set `%s` = 'F' where `%s` = ? and `%s` = 'T'",
+                entity.getPhysicalName(), entity.getField("unread").getPhysicalName(),
+                entity.getField("toUser").getPhysicalName(), entity.getField("unread").getPhysicalName());
+        sql += appendIdsIn(entity, messageIds);
+
+        int affected = Application.getSqlExecutor().execute(sql, new Object[] { user }, 60);
+        adjustUnread(user, -affected);
+        return affected;
+    }
+
+    private String appendIdsIn(Entity entity, ID[] messageIds) {
+        if (messageIds == null || messageIds.length == 0) return "";
+
+        List<String> ids = new ArrayList<>();
+        for (ID id : messageIds) ids.add(id.toLiteral());
+        return String.format(" and `%s` in ('%s')",
+                entity.getPrimaryField().getPhysicalName(), StringUtils.join(ids, "','"));
+    }
 }
@@ -73,6 +73,22 @@ public class ProjectHelper {
         return createdBy != null && createdBy[0].equals(user);
     }
 
+    /**
+     * 是否可管理（已知项目及创建人，无需查询）
+     *
+     * @param project
+     * @param createdBy
+     * @param user
+     * @return
+     * @see #isManageable(ID, ID)
+     */
+    public static boolean isManageable(ConfigBean project, ID createdBy, ID user) {
+        if (UserHelper.isAdmin(user)) return true;
+        if (user.equals(project.getID("principal"))) return true;
+        if (!project.get("members", Set.class).contains(user)) return false;
+        return user.equals(createdBy);
+    }
+
     // 转为任务 ID
     private static ID convert2Task(ID taskOrComment) {
         if (taskOrComment.getEntityCode() == EntityHelper.ProjectTaskComment) {
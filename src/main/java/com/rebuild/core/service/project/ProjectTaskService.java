@@ -8,6 +8,7 @@ See LICENSE and COMMERCIAL in the project root for license information.
 package com.rebuild.core.service.project;
 
 import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.commons.ObjectUtils;
 import cn.devezhao.persist4j.PersistManagerFactory;
 import cn.devezhao.persist4j.Record;
 import cn.devezhao.persist4j.engine.ID;
@@ -32,12 +33,12 @@ import org.springframework.stereotype.Service;
 @Service
 public class ProjectTaskService extends BaseTaskService {
 
-    // 中值法排序
-    private static final int MID_VALUE = 1000;
-
     // 最后
     private static final int SEQ_ATLAST = -1;
 
+    // 排序键超过此长度立即重排
+    private static final int RANK_MAX_LENGTH = 90;
+
     protected ProjectTaskService(PersistManagerFactory aPMFactory) {
         super(aPMFactory);
     }
@@ -61,7 +62,7 @@ public class ProjectTaskService extends BaseTaskService {
 
         record.setLong("taskNumber", getNextTaskNumber(projectId));
         applyFlowStatus(record);
-        record.setInt("seq", getNextSeqViaMidValue(projectPlanId));
+        record.setString("seqRank", getRankAtLast(projectPlanId));
 
         record = super.create(record);
 
@@ -87,7 +88,7 @@ public class ProjectTaskService extends BaseTaskService {
             // 处理完成时间
             if (status == 0) {
                 record.setNull("endTime");
-                record.setInt("seq", getSeqInStatus(record.getPrimary(), false));
+                record.setString("seqRank", getRankInStatus(record.getPrimary(), false));
             } else {
 
                 // 检查工作流
@@ -98,13 +99,13 @@ public class ProjectTaskService extends BaseTaskService {
                 }
 
                 record.setDate("endTime", CalendarUtils.now());
-                record.setInt("seq", getSeqInStatus(record.getPrimary(), true));
+                record.setString("seqRank", getRankInStatus(record.getPrimary(), true));
             }
 
         } else if (record.hasValue("seq")) {
             int seq = record.getInt("seq");
             if (seq == SEQ_ATLAST) {
-                record.setInt("seq", getSeqInStatus(record.getPrimary(), true));
+                record.setString("seqRank", getRankInStatus(record.getPrimary(), true));
             }
         }
 
@@ -153,17 +154,129 @@ public class ProjectTaskService extends BaseTaskService {
         return (max == null || max[0] == null) ? 1 : ((Long) max[0] + 1);
     }
 
+    /**
+     * 移动任务（拖动排序）
+     *
+     * @param taskId
+     * @param newPlanId 不变则为空
+     * @param prevTaskId 移动后的前一任务（为空表示最前）
+     * @param nextTaskId 移动后的后一任务（为空表示最后）
+     */
+    public void moveTask(ID taskId, ID newPlanId, ID prevTaskId, ID nextTaskId) {
+        final ID user = UserContextHolder.getUser();
+        // 先检查权限（重排会修改其他任务）
+        checkModifications(user, taskId);
+
+        Object[] task = Application.getQueryFactory().uniqueNoFilter(taskId, "projectId", "projectPlanId");
+        if (task == null) throw new DataSpecificationException("No task found : " + taskId);
+
+        // 仅可移至本项目的面板
+        if (newPlanId != null) ProjectManager.instance.getPlanOfProject(newPlanId, (ID) task[0]);
+
+        final ID planId = newPlanId != null ? newPlanId : (ID) task[1];
+
+        synchronized (TaskRankRebalancer.getPlanLock(planId)) {
+            String rank = getRankBetween(planId, prevTaskId, nextTaskId);
+            // 排序键过长或重复（如历史数据）时立即重排
+            if (rank == null || rank.length() > RANK_MAX_LENGTH) {
+                TaskRankRebalancer.rebalance(planId);
+                rank = getRankBetween(planId, prevTaskId, nextTaskId);
+                if (rank == null) throw new DataSpecificationException("Cannot rank task : " + taskId);
+            }
+
+            Record record = EntityHelper.forUpdate(taskId, user);
+            if (newPlanId != null) record.setID("projectPlanId", newPlanId);
+            record.setString("seqRank", rank);
+            this.update(record);
+        }
+    }
+
+    /**
+     * @param planId
+     * @param prevTaskId
+     * @param nextTaskId
+     * @return 前后任务排序键冲突返回 <tt>null</tt>
+     */
+    private String getRankBetween(ID planId, ID prevTaskId, ID nextTaskId) {
+        String prevRank = prevTaskId == null ? null : getRank(prevTaskId);
+        String nextRank = nextTaskId == null ? null : getRank(nextTaskId);
+
+        if (prevRank != null && nextRank != null) {
+            return prevRank.compareTo(nextRank) < 0 ? RankKeys.between(prevRank, nextRank) : null;
+        }
+        if (prevRank != null) return getRankAfter(planId, prevRank);
+        if (nextRank != null) return getRankBefore(planId, nextRank);
+        return getRankAtLast(planId);
+    }
+
     /**
      * @param projectPlanId
      * @return
      */
-    synchronized
-    private int getNextSeqViaMidValue(ID projectPlanId) {
-        Object[] seqMax = Application.createQueryNoFilter(
-                "select max(seq) from ProjectTask where projectPlanId = ?")
+    private String getRankAtLast(ID projectPlanId) {
+        synchronized (TaskRankRebalancer.getPlanLock(projectPlanId)) {
+            return getRankAfter(projectPlanId, getRankEdge(projectPlanId, null, true));
+        }
+    }
+
+    /**
+     * @param taskId
+     * @return
+     */
+    private String getRank(ID taskId) {
+        Object[] o = Application.getQueryFactory().uniqueNoFilter(taskId, "seqRank");
+        return o == null ? null : (String) o[0];
+    }
+
+    /**
+     * 面板（状态）下的最大/最小排序键
+     *
+     * @param projectPlanId
+     * @param status 为空则不区分
+     * @param desc Use max or min
+     * @return
+     */
+    private String getRankEdge(ID projectPlanId, Integer status, boolean desc) {
+        String sql = "select " + (desc ? "max" : "min") + "(seqRank) from ProjectTask where projectPlanId = ?";
+        if (status != null) sql += " and status = " + status;
+
+        Object[] o = Application.createQueryNoFilter(sql)
                 .setParameter(1, projectPlanId)
                 .unique();
-        return (seqMax == null || seqMax[0] == null) ? 0 : ((Integer) seqMax[0] + MID_VALUE);
+        return o == null ? null : (String) o[0];
+    }
+
+    /**
+     * 紧随指定键之后的新键（不与面板内其他任务冲突）
+     *
+     * @param projectPlanId
+     * @param rank 为空表示最前
+     * @return
+     */
+    private String getRankAfter(ID projectPlanId, String rank) {
+        Object[] next = rank == null ? null : Application.createQueryNoFilter(
+                "select min(seqRank) from ProjectTask where projectPlanId = ? and seqRank > ?")
+                .setParameter(1, projectPlanId)
+                .setParameter(2, rank)
+                .unique();
+        if (rank == null) next = new Object[] { getRankEdge(projectPlanId, null, false) };
+        return RankKeys.between(rank, next == null ? null : (String) next[0]);
+    }
+
+    /**
+     * 紧随指定键之前的新键（不与面板内其他任务冲突）
+     *
+     * @param projectPlanId
+     * @param rank
+     * @return
+     */
+    private String getRankBefore(ID projectPlanId, String rank) {
+        Object[] prev = Application.createQueryNoFilter(
+                "select max(seqRank) from ProjectTask where projectPlanId = ? and seqRank < ?")
+                .setParameter(1, projectPlanId)
+                .setParameter(2, rank)
+                .unique();
+        return RankKeys.between(prev == null ? null : (String) prev[0], rank);
     }
 
     /**
@@ -171,22 +284,20 @@ public class ProjectTaskService extends BaseTaskService {
      * @param desc   Use max or min
      * @return
      */
-    synchronized
-    private int getSeqInStatus(ID taskId, boolean desc) {
+    private String getRankInStatus(ID taskId, boolean desc) {
         Object[] taskStatus = Application.createQueryNoFilter(
                 "select status,projectPlanId from ProjectTask where taskId = ?")
                 .setParameter(1, taskId)
                 .unique();
-        if (taskStatus == null) return 1;
+        if (taskStatus == null) return null;
 
-        Object[] seq = Application.createQueryNoFilter(
-                "select " + (desc ? "max" : "min") + "(seq) from ProjectTask where status = ? and projectPlanId = ?")
-                .setParameter(1, taskStatus[0])
-                .setParameter(2, taskStatus[1])
-                .unique();
+        final ID planId = (ID) taskStatus[1];
+        synchronized (TaskRankRebalancer.getPlanLock(planId)) {
+            String edge = getRankEdge(planId, ObjectUtils.toInt(taskStatus[0]), desc);
 
-        if (desc) return (Integer) seq[0] + MID_VALUE;
-        else return (Integer) seq[0] - MID_VALUE;
+            if (desc) return getRankAfter(planId, edge);
+            else return edge == null ? getRankAfter(planId, null) : getRankBefore(planId, edge);
+        }
     }
 
     /**
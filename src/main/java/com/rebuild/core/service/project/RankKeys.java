@@ -0,0 +1,96 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.project;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * 排序键（字典序）。任意两个键之间总能生成新的键，因此拖动排序无需移动其他数据。
+ * 仅使用 `0-9a-z`（与数据库不区分大小写的排序规则一致），且键不以 `0` 结尾
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class RankKeys {
+
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+
+    // 均匀分布时的结尾字符（非 `0`）
+    private static final char TAIL = 'i';
+
+    private RankKeys() {
+    }
+
+    /**
+     * 生成位于两个键之间的键
+     *
+     * @param prev 为空表示最前
+     * @param next 为空表示最后
+     * @return
+     */
+    public static String between(String prev, String next) {
+        prev = StringUtils.defaultString(prev);
+        if (next != null && prev.compareTo(next) >= 0) {
+            throw new IllegalArgumentException("Bad range : " + prev + " >= " + next);
+        }
+        return midpoint(prev, next);
+    }
+
+    private static String midpoint(String a, String b) {
+        if (b != null) {
+            // 公共前缀（a 不足位视为 `0`）
+            int n = 0;
+            while (n < b.length() && (n < a.length() ? a.charAt(n) : DIGITS.charAt(0)) == b.charAt(n)) n++;
+            if (n > 0) {
+                return b.substring(0, n) + midpoint(n < a.length() ? a.substring(n) : "", b.substring(n));
+            }
+        }
+
+        int da = a.isEmpty() ? 0 : DIGITS.indexOf(a.charAt(0));
+        int db = b == null ? BASE : DIGITS.indexOf(b.charAt(0));
+        if (db - da > 1) {
+            // 在首尾追加时逐位递增/递减，避免键快速变长
+            if (b == null) return String.valueOf(DIGITS.charAt(da + 1));
+            if (a.isEmpty()) return String.valueOf(DIGITS.charAt(db - 1));
+            return String.valueOf(DIGITS.charAt((da + db) / 2));
+        }
+
+        if (b != null && b.length() > 1) {
+            return b.substring(0, 1);
+        }
+        if (a.isEmpty()) {
+            return DIGITS.charAt(da) + String.valueOf(DIGITS.charAt(BASE - 1));
+        }
+        return DIGITS.charAt(da) + midpoint(a.substring(1), null);
+    }
+
+    /**
+     * 生成均匀分布的键（用于重排）
+     *
+     * @param count
+     * @return
+     */
+    public static String[] evenly(int count) {
+        // 相邻键之间至少保留一位的空间
+        int width = 2;
+        long space = (long) BASE * BASE;
+        while (space < (count + 1L) * BASE) {
+            space *= BASE;
+            width++;
+        }
+
+        final long step = space / (count + 1);
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            String k = Long.toString(step * (i + 1), BASE);
+            keys[i] = StringUtils.leftPad(k, width, DIGITS.charAt(0)) + TAIL;
+        }
+        return keys;
+    }
+}
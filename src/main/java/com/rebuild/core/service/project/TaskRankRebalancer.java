@@ -0,0 +1,112 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.project;
+
+import cn.devezhao.commons.ThreadPool;
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.engine.ID;
+import com.rebuild.core.Application;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.support.distributed.DistributedJobLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务排序键重排。排序键在同一位置反复插入会变长，后台定期将过长（或为空）的面板重新均匀分布
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see RankKeys
+ */
+@Slf4j
+@Component
+public class TaskRankRebalancer extends DistributedJobLock {
+
+    // 超过此长度需重排
+    protected static final int REBALANCE_LENGTH = 40;
+    // 每次最多处理面板数
+    private static final int MAX_PLANS = 20;
+    private static final int BATCH_SIZE = 500;
+
+    private static final Map<ID, Object> PLAN_LOCKS = new ConcurrentHashMap<>();
+
+    @Scheduled(cron = "0 15 * * * ?")
+    protected void executeJob() {
+        if (!tryLock()) return;
+
+        final Entity entity = MetadataHelper.getEntity(EntityHelper.ProjectTask);
+        final String rankName = entity.getField("seqRank").getPhysicalName();
+        String sql = String.format(
+                "select `%s` from `%s` where `%s` is null or length(`%s`) > %d group by `%s` limit %d",
+                entity.getField("projectPlanId").getPhysicalName(), entity.getPhysicalName(),
+                rankName, rankName, REBALANCE_LENGTH, entity.getField("projectPlanId").getPhysicalName(), MAX_PLANS);
+        Object[][] plans = Application.getQueryFactory().createNativeQuery(sql).array();
+
+        for (Object[] o : plans) {
+            int c = rebalance(ID.valueOf((String) o[0]));
+            log.info("Task ranks rebalanced : {} ({})", o[0], c);
+            ThreadPool.waitFor(200);
+        }
+    }
+
+    /**
+     * 重排面板下的任务排序键（保持原有顺序）
+     *
+     * @param projectPlanId
+     * @return
+     */
+    public static int rebalance(ID projectPlanId) {
+        synchronized (getPlanLock(projectPlanId)) {
+            return rebalance0(projectPlanId);
+        }
+    }
+
+    private static int rebalance0(ID projectPlanId) {
+        Object[][] tasks = Application.createQueryNoFilter(
+                "select taskId from ProjectTask where projectPlanId = ? order by seqRank, seq, createdOn")
+                .setParameter(1, projectPlanId)
+                .array();
+        if (tasks.length == 0) return 0;
+
+        final Entity entity = MetadataHelper.getEntity(EntityHelper.ProjectTask);
+        final String[] keys = RankKeys.evenly(tasks.length);
+
+        List<String> sqls = new ArrayList<>();
+        for (int i = 0; i < tasks.length; i++) {
+            sqls.add(String.format("update `%s` set `%s` = '%s' where `%s` = '%s'",
+                    entity.getPhysicalName(), entity.getField("seqRank").getPhysicalName(), keys[i],
+                    entity.getPrimaryField().getPhysicalName(), tasks[i][0]));
+
+            if (sqls.size() >= BATCH_SIZE) {
+                Application.getSqlExecutor().executeBatch(sqls.toArray(new String[0]), 60);
+                sqls.clear();
+            }
+        }
+        if (!sqls.isEmpty()) {
+            Application.getSqlExecutor().executeBatch(sqls.toArray(new String[0]), 60);
+        }
+        return tasks.length;
+    }
+
+    /**
+     * 面板锁。计算或重排面板下的排序键时均需持有
+     *
+     * @param projectPlanId
+     * @return
+     */
+    protected static Object getPlanLock(ID projectPlanId) {
+        return PLAN_LOCKS.computeIfAbsent(projectPlanId, k -> new Object());
+    }
+}
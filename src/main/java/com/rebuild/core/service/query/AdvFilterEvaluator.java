@@ -0,0 +1,232 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
+import cn.devezhao.persist4j.dialect.FieldType;
+import cn.devezhao.persist4j.dialect.Type;
+import cn.devezhao.persist4j.engine.ID;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.metadata.easymeta.DisplayType;
+import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 高级查询的内存求值（针对已取出的记录值）。
+ * 仅支持简单条件（常规比较操作及部分字段类型），与 {@link AdvFilterParser} 生成的 SQL 语义一致，
+ * 不支持的条件 {@link #compile(Entity, JSONObject)} 返回 <tt>null</tt>，此时应使用 SQL 匹配
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see QueryHelper#isMatchAdvFilter(ID, JSONObject)
+ */
+public class AdvFilterEvaluator {
+
+    private static final Set<String> SUPPORTED_OPS = new HashSet<>(Arrays.asList(
+            ParseHelper.EQ, ParseHelper.NEQ, ParseHelper.GT, ParseHelper.LT, ParseHelper.GE, ParseHelper.LE,
+            ParseHelper.NL, ParseHelper.NT, ParseHelper.IN, ParseHelper.NIN, ParseHelper.LK, ParseHelper.NLK,
+            ParseHelper.BW));
+
+    private static final Set<DisplayType> SUPPORTED_TYPES = new HashSet<>(Arrays.asList(
+            DisplayType.NUMBER, DisplayType.DECIMAL, DisplayType.TEXT, DisplayType.NTEXT,
+            DisplayType.EMAIL, DisplayType.PHONE, DisplayType.URL, DisplayType.SERIES,
+            DisplayType.PICKLIST, DisplayType.STATE, DisplayType.BOOL, DisplayType.REFERENCE));
+
+    final private boolean useAnd;
+    final private List<Item> items;
+
+    private AdvFilterEvaluator(boolean useAnd, List<Item> items) {
+        this.useAnd = useAnd;
+        this.items = items;
+    }
+
+    /**
+     * 条件中用到的字段（取值时需包含）
+     *
+     * @return
+     */
+    public Set<String> getFields() {
+        Set<String> fields = new LinkedHashSet<>();
+        for (Item item : items) fields.add(item.field);
+        return fields;
+    }
+
+    /**
+     * @param values 字段值（须包含 {@link #getFields()}）
+     * @return
+     */
+    public boolean matches(Map<String, Object> values) {
+        // 无有效条件
+        if (items.isEmpty()) return true;
+
+        for (Item item : items) {
+            boolean m = item.matches(values.get(item.field));
+            if (useAnd && !m) return false;
+            if (!useAnd && m) return true;
+        }
+        return useAnd;
+    }
+
+    /**
+     * 编译
+     *
+     * @param rootEntity
+     * @param advFilter
+     * @return 不支持内存求值的返回 <tt>null</tt>
+     */
+    public static AdvFilterEvaluator compile(Entity rootEntity, JSONObject advFilter) {
+        if (!ParseHelper.validAdvFilter(advFilter)) {
+            return new AdvFilterEvaluator(false, Collections.emptyList());
+        }
+        // 快速查询
+        if ("QUICK".equalsIgnoreCase(advFilter.getString("type"))) return null;
+
+        String equation = StringUtils.defaultIfBlank(advFilter.getString("equation"), "OR");
+        if (!("OR".equalsIgnoreCase(equation) || "AND".equalsIgnoreCase(equation))) return null;
+
+        List<Item> items = new ArrayList<>();
+        for (Object o : advFilter.getJSONArray("items")) {
+            JSONObject item = (JSONObject) o;
+            String field = item.getString("field");
+            // 名称字段/分类等
+            if (field == null || field.contains("&")) return null;
+
+            Field fieldMeta = MetadataHelper.getLastJoinField(rootEntity, field);
+            // 与 SQL 一致，忽略无效字段
+            if (fieldMeta == null) continue;
+
+            DisplayType dt = EasyMetaFactory.getDisplayType(fieldMeta);
+            String op = StringUtils.upperCase(item.getString("op"));
+            if (!SUPPORTED_TYPES.contains(dt) || !SUPPORTED_OPS.contains(op)) return null;
+
+            final boolean isNumber = isNumberType(fieldMeta.getType());
+            String value = item.getString("value");
+            String value2 = null;
+
+            if (!(ParseHelper.NL.equals(op) || ParseHelper.NT.equals(op))) {
+                // 与 SQL 一致，忽略无值
+                if (StringUtils.isBlank(value)) continue;
+                // 占位符/通配符
+                if (value.matches("\\{\\d+}")) return null;
+                if ((ParseHelper.LK.equals(op) || ParseHelper.NLK.equals(op))
+                        && (value.contains("%") || value.contains("_"))) return null;
+
+                // 大小比较仅支持数字
+                boolean isCompare = ParseHelper.GT.equals(op) || ParseHelper.LT.equals(op)
+                        || ParseHelper.GE.equals(op) || ParseHelper.LE.equals(op) || ParseHelper.BW.equals(op);
+                if (isCompare && !isNumber) return null;
+
+                if (ParseHelper.BW.equals(op)) {
+                    value2 = StringUtils.defaultIfBlank(item.getString("value2"), value);
+                    if (!NumberUtils.isNumber(value2)) return null;
+                }
+                if (isNumber && !(ParseHelper.IN.equals(op) || ParseHelper.NIN.equals(op))
+                        && !NumberUtils.isNumber(value)) return null;
+            }
+
+            items.add(new Item(field, op, value, value2, isNumber));
+        }
+
+        return new AdvFilterEvaluator("AND".equalsIgnoreCase(equation), items);
+    }
+
+    private static boolean isNumberType(Type type) {
+        return type == FieldType.INT || type == FieldType.SMALL_INT || type == FieldType.LONG
+                || type == FieldType.DOUBLE || type == FieldType.DECIMAL;
+    }
+
+    /**
+     * 条件项
+     */
+    private static class Item {
+        final String field;
+        final String op;
+        final String value;
+        final String value2;
+        final boolean isNumber;
+
+        Item(String field, String op, String value, String value2, boolean isNumber) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+            this.value2 = value2;
+            this.isNumber = isNumber;
+        }
+
+        boolean matches(Object v) {
+            if (ParseHelper.NL.equals(op)) return v == null;
+            if (ParseHelper.NT.equals(op)) return v != null;
+            // SQL 中与 NULL 比较总是不成立
+            if (v == null) return false;
+
+            final String s;
+            if (v instanceof ID) s = ((ID) v).toLiteral();
+            else if (v instanceof Boolean) s = (Boolean) v ? "T" : "F";
+            else s = v.toString();
+
+            switch (op) {
+                case ParseHelper.EQ:
+                    return same(s, value);
+                case ParseHelper.NEQ:
+                    return !same(s, value);
+                case ParseHelper.IN:
+                case ParseHelper.NIN: {
+                    boolean in = false;
+                    for (String x : value.split("\\|")) {
+                        if (same(s, x)) {
+                            in = true;
+                            break;
+                        }
+                    }
+                    return ParseHelper.IN.equals(op) == in;
+                }
+                case ParseHelper.LK:
+                    return StringUtils.containsIgnoreCase(s, value);
+                case ParseHelper.NLK:
+                    return !StringUtils.containsIgnoreCase(s, value);
+                case ParseHelper.GT:
+                    return compare(s, value) > 0;
+                case ParseHelper.LT:
+                    return compare(s, value) < 0;
+                case ParseHelper.GE:
+                    return compare(s, value) >= 0;
+                case ParseHelper.LE:
+                    return compare(s, value) <= 0;
+                case ParseHelper.BW:
+                    return compare(s, value) >= 0 && compare(s, value2) <= 0;
+                default:
+                    return false;
+            }
+        }
+
+        boolean same(String s, String x) {
+            if (isNumber) {
+                return NumberUtils.isNumber(x) && compare(s, x) == 0;
+            }
+            // 数据库默认排序规则不区分大小写
+            return s.equalsIgnoreCase(x);
+        }
+
+        int compare(String s, String x) {
+            return new BigDecimal(s).compareTo(new BigDecimal(x));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 查询代理。仅在查询执行期间标记 AJQL（执行后恢复），避免标记遗留到其他语句
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see SlowQueryStore#hint(String)
+ */
+class HintedQuery implements InvocationHandler {
+
+    private final Object target;
+    private final String ajql;
+    private Object proxy;
+
+    private HintedQuery(Object target, String ajql) {
+        this.target = target;
+        this.ajql = ajql;
+    }
+
+    /**
+     * @param target
+     * @param type 接口
+     * @param ajql
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T wrap(T target, Class<T> type, String ajql) {
+        HintedQuery h = new HintedQuery(target, ajql);
+        h.proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, h);
+        return (T) h.proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(target, args);
+        }
+
+        final String prev = SlowQueryStore.hint(ajql);
+        try {
+            Object result = method.invoke(target, args);
+            // 链式调用
+            return result == target ? this.proxy : result;
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        } finally {
+            SlowQueryStore.hint(prev);
+        }
+    }
+}
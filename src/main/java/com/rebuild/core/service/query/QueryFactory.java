@@ -29,7 +29,7 @@ import org.springframework.util.Assert;
 public class QueryFactory {
 
     private static final int QUERY_TIMEOUT = 10 * 1000;
-    private static final int SLOW_LOGGER_TIME = 1000;
+    static final int SLOW_LOGGER_TIME = 1000;
 
     private final PersistManagerFactory aPMFactory;
 
@@ -62,10 +62,11 @@ public class QueryFactory {
      */
     public Query createQuery(String ajql, Filter filter) {
         Assert.notNull(filter, "[filter] cannot be null");
-        return aPMFactory.createQuery(ajql)
+        Query query = aPMFactory.createQuery(ajql)
                 .setTimeout(QUERY_TIMEOUT)
                 .setSlowLoggerTime(SLOW_LOGGER_TIME)
                 .setFilter(filter);
+        return HintedQuery.wrap(query, Query.class, ajql);
     }
 
     /**
@@ -87,9 +88,10 @@ public class QueryFactory {
      * @return
      */
     public NativeQuery createNativeQuery(String rawSql) {
-        return aPMFactory.createNativeQuery(rawSql)
+        NativeQuery query = aPMFactory.createNativeQuery(rawSql)
                 .setTimeout(QUERY_TIMEOUT)
                 .setSlowLoggerTime(SLOW_LOGGER_TIME);
+        return HintedQuery.wrap(query, NativeQuery.class, rawSql);
     }
 
     /**
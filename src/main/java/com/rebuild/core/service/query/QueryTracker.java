@@ -0,0 +1,213 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询跟踪（当前线程/请求）。按查询形态计数，用于发现循环中逐条查询（N+1）及超出预算的请求。
+ * 仅记录原始 SQL，取结果时才对可能重复的计算形态
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see SlowQueryFilter
+ */
+public class QueryTracker {
+
+    /**
+     * 同一形态查询超过此次数视为 N+1
+     */
+    public static final int REPEATED_THRESHOLD = 10;
+    /**
+     * 单个请求查询预算
+     */
+    public static final int REQUEST_BUDGET = 200;
+
+    // 单个跟踪最多保留的 SQL（超出仅计数）
+    private static final int MAX_TRACKED = 2000;
+
+    private static final ThreadLocal<Tracking> CURRENT = new ThreadLocal<>();
+
+    private QueryTracker() {
+    }
+
+    /**
+     * 开始跟踪（可嵌套，结束后恢复外层）
+     *
+     * @return
+     */
+    public static Tracking begin() {
+        Tracking t = new Tracking(CURRENT.get());
+        CURRENT.set(t);
+        return t;
+    }
+
+    /**
+     * 结束跟踪
+     *
+     * @return
+     */
+    public static Tracking end() {
+        Tracking t = CURRENT.get();
+        if (t == null) return null;
+
+        if (t.parent == null) CURRENT.remove();
+        else CURRENT.set(t.parent);
+        return t;
+    }
+
+    /**
+     * 清除当前线程的跟踪（请求开始时，避免上个请求未正常结束的残留）
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return
+     */
+    public static Tracking current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 记录查询（由 {@link SlowQueryFilter} 调用）
+     *
+     * @param sql
+     * @param nanos
+     */
+    protected static void record(String sql, long nanos) {
+        Tracking t = CURRENT.get();
+        if (t == null) return;
+
+        boolean write = isWrite(sql);
+        for (; t != null; t = t.parent) {
+            t.count++;
+            if (write) t.writes++;
+            t.nanos += nanos;
+            if (t.sqls.size() < MAX_TRACKED) t.sqls.add(sql);
+            t.repeated = null;
+        }
+    }
+
+    private static boolean isWrite(String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) i++;
+        return sql.regionMatches(true, i, "insert", 0, 6) || sql.regionMatches(true, i, "update", 0, 6)
+                || sql.regionMatches(true, i, "delete", 0, 6) || sql.regionMatches(true, i, "replace", 0, 7);
+    }
+
+    // 首个字面量（字符串/数字）之前的部分。同一形态的必然相同，用于预先分组
+    private static String literalPrefix(String sql) {
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || Character.isDigit(c)) return sql.substring(0, i);
+        }
+        return sql;
+    }
+
+    /**
+     * 跟踪结果
+     */
+    public static class Tracking implements AutoCloseable {
+
+        final private Tracking parent;
+        final private List<String> sqls = new ArrayList<>();
+        private Map<String, Integer> repeated;
+        private int count;
+        private int writes;
+        private long nanos;
+
+        private Tracking(Tracking parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * @return 查询次数
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return 其中写入（insert/update/delete）次数
+         */
+        public int getWrites() {
+            return writes;
+        }
+
+        /**
+         * @return 查询耗时（ns）
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return 是否超出预算
+         */
+        public boolean isOverBudget() {
+            return count > REQUEST_BUDGET;
+        }
+
+        /**
+         * 重复的查询形态
+         *
+         * @param threshold
+         * @return [形态, 次数]（次数降序）
+         */
+        public Map<String, Integer> getRepeated(int threshold) {
+            if (sqls.size() < threshold) return Collections.emptyMap();
+
+            // 先按字面量前缀分组，仅对数量达到阈值的计算形态
+            String[] keys = new String[sqls.size()];
+            Map<String, Integer> prefixes = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = literalPrefix(sqls.get(i));
+                prefixes.merge(keys[i], 1, Integer::sum);
+            }
+
+            Map<String, Integer> shapes = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (prefixes.get(keys[i]) < threshold) continue;
+                shapes.merge(SlowQueryStore.toShape(sqls.get(i)), 1, Integer::sum);
+            }
+
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            shapes.entrySet().stream()
+                    .filter(e -> e.getValue() >= threshold)
+                    .sorted((a, b) -> b.getValue() - a.getValue())
+                    .forEach(e -> repeated.put(e.getKey(), e.getValue()));
+            return repeated;
+        }
+
+        /**
+         * @return
+         * @see #REPEATED_THRESHOLD
+         */
+        public Map<String, Integer> getRepeated() {
+            if (repeated == null) repeated = getRepeated(REPEATED_THRESHOLD);
+            return repeated;
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) end();
+        }
+
+        @Override
+        public String toString() {
+            return count + "; repeated=" + getRepeated().size();
+        }
+    }
+}
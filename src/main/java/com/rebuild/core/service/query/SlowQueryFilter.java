@@ -0,0 +1,91 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.filter.FilterEventAdapter;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+import com.rebuild.core.support.metrics.Metrics;
+
+import java.sql.SQLException;
+
+/**
+ * 连接池（Druid）过滤器，记录慢查询到 {@link SlowQueryStore}，同时统计查询次数/耗时及请求内的查询形态（{@link QueryTracker}）
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class SlowQueryFilter extends FilterEventAdapter {
+
+    private static final ThreadLocal<Long> START_TIME = new ThreadLocal<>();
+    // 等待读取行数
+    private static final ThreadLocal<SlowQueryStore.SlowQuery> PENDING_ROWS = new ThreadLocal<>();
+
+    @Override
+    protected void statementExecuteQueryBefore(StatementProxy statement, String sql) {
+        START_TIME.set(System.nanoTime());
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(StatementProxy statement, String sql, ResultSetProxy resultSet) {
+        SlowQueryStore.SlowQuery q = end(sql);
+        if (q != null) PENDING_ROWS.set(q);
+    }
+
+    @Override
+    protected void statementExecuteUpdateBefore(StatementProxy statement, String sql) {
+        START_TIME.set(System.nanoTime());
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(StatementProxy statement, String sql, int updateCount) {
+        SlowQueryStore.SlowQuery q = end(sql);
+        if (q != null) q.setRows(updateCount);
+    }
+
+    @Override
+    protected void statementExecuteBefore(StatementProxy statement, String sql) {
+        START_TIME.set(System.nanoTime());
+    }
+
+    @Override
+    protected void statementExecuteAfter(StatementProxy statement, String sql, boolean result) {
+        end(sql);
+    }
+
+    @Override
+    protected void statement_executeErrorAfter(StatementProxy statement, String sql, Throwable error) {
+        end(sql);
+    }
+
+    @Override
+    public void resultSet_close(FilterChain chain, ResultSetProxy resultSet) throws SQLException {
+        SlowQueryStore.SlowQuery q = PENDING_ROWS.get();
+        if (q != null) {
+            PENDING_ROWS.remove();
+            q.setRows(resultSet.getFetchRowCount());
+        }
+        super.resultSet_close(chain, resultSet);
+    }
+
+    private SlowQueryStore.SlowQuery end(String sql) {
+        Long start = START_TIME.get();
+        START_TIME.remove();
+        String ajql = SlowQueryStore.getHint();
+        if (start == null) return null;
+
+        long nanos = System.nanoTime() - start;
+        Metrics.recordQuery(nanos);
+        QueryTracker.record(sql, nanos);
+
+        long cost = nanos / 1000000;
+        if (!SlowQueryStore.isSlow(cost)) return null;
+        return SlowQueryStore.record(sql, ajql, cost);
+    }
+}
@@ -0,0 +1,253 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import cn.devezhao.persist4j.Entity;
+import com.rebuild.core.Application;
+import com.rebuild.core.metadata.MetadataHelper;
+import lombok.Getter;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 慢查询记录（内存环形缓冲），可按查询形态（去除参数后的 SQL）聚合
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see SlowQueryFilter
+ */
+public class SlowQueryStore {
+
+    // 慢查询阈值（ms）
+    protected static final long SLOW_TIME = QueryFactory.SLOW_LOGGER_TIME;
+
+    private static final int CAPACITY = 500;
+    private static final SlowQuery[] RING = new SlowQuery[CAPACITY];
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    private static final ThreadLocal<String> AJQL_HINT = new ThreadLocal<>();
+
+    private static final Pattern PATT_STRING = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern PATT_NUMBER = Pattern.compile("(?<![\\w`.])-?\\d+(\\.\\d+)?(?![\\w`])");
+    private static final Pattern PATT_INLIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern PATT_TABLE = Pattern.compile("\\sfrom\\s+`?(\\w+)`?", Pattern.CASE_INSENSITIVE);
+
+    private SlowQueryStore() {
+    }
+
+    /**
+     * 标记当前线程正在执行的 AJQL（由 {@link HintedQuery} 在执行期间设置）
+     *
+     * @param ajql 为空则清除
+     * @return 之前的标记
+     */
+    protected static String hint(String ajql) {
+        String prev = AJQL_HINT.get();
+        if (ajql == null) {
+            AJQL_HINT.remove();
+        } else {
+            AJQL_HINT.set(ajql);
+        }
+        return prev;
+    }
+
+    /**
+     * @param cost ms
+     * @return 是否为慢查询
+     */
+    protected static boolean isSlow(long cost) {
+        return cost >= SLOW_TIME;
+    }
+
+    /**
+     * 当前 AJQL 标记
+     *
+     * @return
+     */
+    protected static String getHint() {
+        return AJQL_HINT.get();
+    }
+
+    /**
+     * 记录慢查询
+     *
+     * @param sql
+     * @param ajql
+     * @param cost ms
+     * @return
+     */
+    protected static SlowQuery record(String sql, String ajql, long cost) {
+        SlowQuery q = new SlowQuery(sql, ajql, cost, findCaller());
+        RING[(int) (COUNTER.getAndIncrement() % CAPACITY)] = q;
+        return q;
+    }
+
+    /**
+     * 最近的慢查询（新的在前）
+     *
+     * @return
+     */
+    public static List<SlowQuery> getRecent() {
+        final long count = COUNTER.get();
+        List<SlowQuery> list = new ArrayList<>();
+        for (long i = count - 1; i >= 0 && i >= count - CAPACITY; i--) {
+            SlowQuery q = RING[(int) (i % CAPACITY)];
+            if (q != null) list.add(q);
+        }
+        return list;
+    }
+
+    /**
+     * 按查询形态聚合（总耗时倒序）
+     *
+     * @return
+     */
+    public static List<QueryShape> aggregate() {
+        Map<String, QueryShape> shapes = new HashMap<>();
+        for (SlowQuery q : getRecent()) {
+            QueryShape s = shapes.computeIfAbsent(q.getShape(), k -> new QueryShape(k, q.getSql(), q.getEntity()));
+            s.add(q);
+        }
+
+        List<QueryShape> list = new ArrayList<>(shapes.values());
+        list.sort(Comparator.comparingLong(QueryShape::getTotalTime).reversed());
+        return list;
+    }
+
+    /**
+     * 清空
+     */
+    public static void clean() {
+        for (int i = 0; i < CAPACITY; i++) RING[i] = null;
+        COUNTER.set(0);
+    }
+
+    /**
+     * 查询形态（去除参数值、合并 IN 列表）
+     *
+     * @param sql
+     * @return
+     */
+    protected static String toShape(String sql) {
+        String s = PATT_STRING.matcher(sql).replaceAll("?");
+        s = PATT_NUMBER.matcher(s).replaceAll("?");
+        s = PATT_INLIST.matcher(s).replaceAll("(?)");
+        return s.replaceAll("\\s+", " ").trim();
+    }
+
+    /**
+     * 主表对应的实体
+     *
+     * @param sql
+     * @return
+     */
+    protected static String findEntity(String sql) {
+        Matcher m = PATT_TABLE.matcher(sql);
+        if (!m.find()) return null;
+
+        String table = m.group(1);
+        if (!Application.isReady()) return null;
+        for (Entity e : MetadataHelper.getEntities()) {
+            if (e.getPhysicalName().equalsIgnoreCase(table)) return e.getName();
+        }
+        return null;
+    }
+
+    // 调用方（业务代码中的第一个类）
+    private static String findCaller() {
+        for (StackTraceElement el : Thread.currentThread().getStackTrace()) {
+            String c = el.getClassName();
+            if (c.startsWith("com.rebuild.")
+                    && !c.startsWith("com.rebuild.core.service.query.")
+                    && !c.equals(Application.class.getName())
+                    && !c.equals("com.rebuild.core.service.SqlExecutor")) {
+                return c + "#" + el.getMethodName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 慢查询
+     */
+    @Getter
+    public static class SlowQuery {
+        private final long time;
+        private final String sql;
+        private final String shape;
+        private final String ajql;
+        private final String entity;
+        private final String caller;
+        private final long cost;
+        private volatile int rows = -1;
+
+        protected SlowQuery(String sql, String ajql, long cost, String caller) {
+            this.time = System.currentTimeMillis();
+            this.sql = sql;
+            this.shape = toShape(sql);
+            this.ajql = ajql;
+            this.entity = findEntity(sql);
+            this.caller = caller;
+            this.cost = cost;
+        }
+
+        protected void setRows(int rows) {
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * 查询形态
+     */
+    @Getter
+    public static class QueryShape {
+        private final String shape;
+        private final String sample;
+        private final String entity;
+        private final Set<String> callers = new LinkedHashSet<>();
+        private int count;
+        private long totalTime;
+        private long maxTime;
+        private long maxRows;
+
+        protected QueryShape(String shape, String sample, String entity) {
+            this.shape = shape;
+            this.sample = sample;
+            this.entity = entity;
+        }
+
+        protected void add(SlowQuery q) {
+            count++;
+            totalTime += q.getCost();
+            maxTime = Math.max(maxTime, q.getCost());
+            maxRows = Math.max(maxRows, q.getRows());
+            if (q.getCaller() != null && callers.size() < 5) callers.add(q.getCaller());
+        }
+
+        public long getAvgTime() {
+            return count == 0 ? 0 : totalTime / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%dx avg %dms max %dms rows %d [%s] %s%s",
+                    count, getAvgTime(), maxTime, maxRows, StringUtils.defaultIfBlank(entity, "-"), shape,
+                    callers.isEmpty() ? "" : "\n    < " + StringUtils.join(callers, ", "));
+        }
+    }
+}
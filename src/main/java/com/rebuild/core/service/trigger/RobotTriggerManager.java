@@ -14,6 +14,7 @@ import com.alibaba.fastjson.JSONObject;
 import com.rebuild.core.Application;
 import com.rebuild.core.configuration.ConfigBean;
 import com.rebuild.core.configuration.ConfigManager;
+import com.rebuild.core.configuration.general.FormsBuilder;
 import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.service.query.QueryHelper;
 import lombok.extern.slf4j.Slf4j;
@@ -151,6 +152,7 @@ public class RobotTriggerManager implements ConfigManager {
         final String cKey = "RobotTriggerManager-" + ((Entity) entity).getName();
         Application.getCommonsCache().evict(cKey);
         Application.getCommonsCache().evict(CKEY_TARF);
+        FormsBuilder.instance.cleanModelSkeleton();
     }
 
     private static final String CKEY_TARF = "TriggersAutoReadonlyFields";
@@ -15,8 +15,10 @@ import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.service.general.OperatingContext;
 import com.rebuild.core.service.general.OperatingObserver;
 import com.rebuild.core.service.general.RepeatedRecordsException;
+import com.rebuild.core.service.query.QueryTracker;
 import com.rebuild.core.support.CommonsLog;
 import com.rebuild.core.support.i18n.Language;
+import com.rebuild.core.support.metrics.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.NamedThreadLocal;
 
@@ -146,9 +148,13 @@ public class RobotTriggerObserver extends OperatingObserver {
             for (TriggerAction action : beExecuted) {
                 log.info("Trigger.{} [ {} ] executing on record ({}) : {}", depth, action.getType(), when.name(), primaryId);
 
+                final long start = System.nanoTime();
+                final QueryTracker.Tracking queries = QueryTracker.begin();
+                boolean failed = true;
                 try {
                     action.execute(context);
                     CommonsLog.createLog(TYPE_TRIGGER, context.getOperator(), action.getActionContext().getConfigId());
+                    failed = false;
 
                 } catch (Throwable ex) {
                     // DataValidate 直接抛出
@@ -169,6 +175,16 @@ public class RobotTriggerObserver extends OperatingObserver {
                     }
 
                 } finally {
+                    queries.close();
+                    final long nanos = System.nanoTime() - start;
+                    final ID configId = action.getActionContext().getConfigId();
+
+                    Metrics.timer("rb_trigger_seconds", "trigger", configId.toLiteral(), "type", action.getType().name())
+                            .record(nanos);
+                    // 含级联触发的
+                    TriggerProfiler.record(configId, nanos, queries.getCount(), queries.getWrites(),
+                            Math.max(depth, getCascadeDepth()), failed);
+
                     if (originTriggerSource) {
                         action.clean();
                     }
@@ -183,6 +199,12 @@ public class RobotTriggerObserver extends OperatingObserver {
         }
     }
 
+    // 当前已达到的级联深度
+    private int getCascadeDepth() {
+        TriggerSource ts = getTriggerSource();
+        return ts == null ? 1 : ts.getSourceDepth();
+    }
+
     /**
      * 获取实际影响的记录。
      * 例如在共享时传入的 Record 是 ShareAccess，而实际影响的是其中的 recordId 记录
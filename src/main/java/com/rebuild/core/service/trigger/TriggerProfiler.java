@@ -0,0 +1,362 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.trigger;
+
+import cn.devezhao.commons.ObjectUtils;
+import cn.devezhao.persist4j.Record;
+import cn.devezhao.persist4j.engine.ID;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.Application;
+import com.rebuild.core.UserContextHolder;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.service.notification.Message;
+import com.rebuild.core.service.notification.MessageBuilder;
+import com.rebuild.core.support.ConfigurationItem;
+import com.rebuild.core.support.RebuildConfiguration;
+import com.rebuild.core.support.distributed.DistributedSupport;
+import com.rebuild.core.support.i18n.Language;
+import com.rebuild.utils.AppUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 触发器执行分析。按触发器记录执行次数、耗时分布、查询/写入次数及级联深度，
+ * 本地累计后定时合并到 {@link DistributedSupport}（集群可见）。
+ * 可配置 {@link ConfigurationItem#TriggerCostBudget}，近期平均耗时（集群，按时间衰减）超出的触发器将被自动禁用并通知管理员
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see RobotTriggerObserver
+ */
+@Slf4j
+@Component
+public class TriggerProfiler {
+
+    // 统计数组 [次数, 失败, 耗时ns, 查询, 写入, 最大深度, 最大耗时ns, 分桶...]
+    protected static final int S_COUNT = 0;
+    protected static final int S_ERRORS = 1;
+    protected static final int S_NANOS = 2;
+    protected static final int S_QUERIES = 3;
+    protected static final int S_WRITES = 4;
+    protected static final int S_DEPTH = 5;
+    protected static final int S_MAXNANOS = 6;
+    private static final int S_BUCKETS = 7;
+
+    // 耗时分桶：第 i 个为 <= 2^i ms，最后一个为超出
+    private static final int BUCKETS = 20;
+    protected static final int STATS_LENGTH = S_BUCKETS + BUCKETS + 1;
+
+    // 超出预算判断的最少执行次数
+    private static final int BUDGET_MIN_SAMPLES = 20;
+    // 超出预算判断的近期统计半衰期
+    private static final long BUDGET_HALF_LIFE = 10 * 60 * 1000L;
+
+    // 近期统计数组 [次数, 耗时ns, 更新时间]
+    protected static final int R_COUNT = 0;
+    protected static final int R_NANOS = 1;
+    protected static final int R_TIME = 2;
+
+    // 本地未合并的（合并后清零）
+    private static final Map<ID, long[]> PENDINGS = new ConcurrentHashMap<>();
+
+    private ConcurrentMap<String, long[]> profiles;
+    private ConcurrentMap<String, double[]> recents;
+
+    /**
+     * 记录一次执行
+     *
+     * @param configId
+     * @param nanos
+     * @param queries
+     * @param writes
+     * @param depth
+     * @param error
+     */
+    public static void record(ID configId, long nanos, int queries, int writes, int depth, boolean error) {
+        long[] stats = PENDINGS.computeIfAbsent(configId, k -> new long[STATS_LENGTH]);
+        synchronized (stats) {
+            add(stats, nanos, queries, writes, depth, error);
+        }
+    }
+
+    /**
+     * 累加一次执行
+     *
+     * @param stats
+     * @param nanos
+     * @param queries
+     * @param writes
+     * @param depth
+     * @param error
+     */
+    protected static void add(long[] stats, long nanos, int queries, int writes, int depth, boolean error) {
+        stats[S_COUNT]++;
+        if (error) stats[S_ERRORS]++;
+        stats[S_NANOS] += nanos;
+        stats[S_QUERIES] += queries;
+        stats[S_WRITES] += writes;
+        stats[S_DEPTH] = Math.max(stats[S_DEPTH], depth);
+        stats[S_MAXNANOS] = Math.max(stats[S_MAXNANOS], nanos);
+        stats[S_BUCKETS + bucketOf(nanos)]++;
+    }
+
+    /**
+     * 定时合并
+     */
+    @Scheduled(fixedDelay = 60 * 1000, initialDelay = 60 * 1000)
+    protected void flush() {
+        final long budgetMs = RebuildConfiguration.getLong(ConfigurationItem.TriggerCostBudget);
+        for (Map.Entry<ID, long[]> e : PENDINGS.entrySet()) {
+            long[] stats;
+            synchronized (e.getValue()) {
+                if (e.getValue()[S_COUNT] == 0) continue;
+                stats = e.getValue().clone();
+                Arrays.fill(e.getValue(), 0);
+            }
+
+            long[] merged = null;
+            try {
+                merged = mergeInto(e.getKey().toLiteral(), stats);
+            } catch (Exception ex) {
+                log.warn("Merge trigger profile failed : {}", e.getKey(), ex);
+            }
+            // 合并失败放回，下次再合并
+            if (merged == null) {
+                putBack(e.getKey(), stats);
+                continue;
+            }
+
+            if (budgetMs <= 0) continue;
+
+            // 按近期（集群）的统计判断，而非累计统计
+            double[] recent = null;
+            try {
+                recent = mergeRecent(e.getKey().toLiteral(), stats);
+            } catch (Exception ex) {
+                log.warn("Merge trigger recent profile failed : {}", e.getKey(), ex);
+            }
+
+            if (recent != null && recent[R_COUNT] >= BUDGET_MIN_SAMPLES) {
+                long avgMs = (long) (recent[R_NANOS] / recent[R_COUNT] / 1000000);
+                if (avgMs > budgetMs) disableOverBudget(e.getKey(), avgMs, budgetMs);
+            }
+        }
+    }
+
+    // 返回合并后的，失败返回 null
+    private long[] mergeInto(String key, long[] stats) {
+        final ConcurrentMap<String, long[]> store = getProfilesStore();
+        for (int retry = 0; retry < 10; retry++) {
+            long[] exists = store.get(key);
+            if (exists == null) {
+                if (store.putIfAbsent(key, stats) == null) return stats;
+            } else {
+                long[] merged = merge(exists, stats);
+                if (store.replace(key, exists, merged)) return merged;
+            }
+        }
+        log.warn("Merge trigger profile failed after retries : {}", key);
+        return null;
+    }
+
+    // 返回合并后的近期统计，失败返回 null
+    private double[] mergeRecent(String key, long[] stats) {
+        final ConcurrentMap<String, double[]> store = getRecentsStore();
+        for (int retry = 0; retry < 10; retry++) {
+            double[] exists = store.get(key);
+            double[] recent = decay(exists, stats, System.currentTimeMillis());
+            if (exists == null) {
+                if (store.putIfAbsent(key, recent) == null) return recent;
+            } else {
+                if (store.replace(key, exists, recent)) return recent;
+            }
+        }
+        log.warn("Merge trigger recent profile failed after retries : {}", key);
+        return null;
+    }
+
+    private void putBack(ID configId, long[] stats) {
+        long[] pending = PENDINGS.computeIfAbsent(configId, k -> new long[STATS_LENGTH]);
+        synchronized (pending) {
+            System.arraycopy(merge(pending, stats), 0, pending, 0, STATS_LENGTH);
+        }
+    }
+
+    private void disableOverBudget(ID configId, long avgMs, long budgetMs) {
+        Object[] config = Application.getQueryFactory().uniqueNoFilter(configId, "name", "isDisabled");
+        // 已删除或已禁用（如其他实例已处理）
+        if (config == null || ObjectUtils.toBool(config[1], false)) return;
+
+        log.warn("Trigger over cost budget, disabled : {} (avg {} ms > {} ms)", configId, avgMs, budgetMs);
+
+        Record record = EntityHelper.forUpdate(configId, UserService.SYSTEM_USER, false);
+        record.setBoolean("isDisabled", true);
+
+        UserContextHolder.setUser(UserService.SYSTEM_USER);
+        try {
+            Application.getBean(RobotTriggerConfigService.class).update(record);
+        } catch (Exception ex) {
+            log.error("Cannot disable trigger : {}", configId, ex);
+            return;
+        } finally {
+            UserContextHolder.clearUser();
+        }
+
+        // 清除统计，重新启用后重新计算
+        reset(configId);
+
+        // 通知管理员
+        String name = StringUtils.defaultIfBlank((String) config[0], configId.toLiteral());
+        String content = Language.L("触发器 %s 平均耗时 %d ms，超出预算 %d ms，已自动禁用", name, avgMs, budgetMs);
+        content += String.format(" [%s](%s)",
+                Language.L("查看"), AppUtils.getContextPath("/admin/robot/trigger/" + configId));
+
+        Message message = MessageBuilder.createMessage(UserService.ADMIN_USER, content, Message.TYPE_DEFAULT);
+        Application.getNotifications().send(message);
+    }
+
+    /**
+     * 执行分析（含本地未合并的）
+     *
+     * @return [触发器ID, 统计]
+     */
+    public Map<String, JSONObject> getProfiles() {
+        Map<String, long[]> all = new HashMap<>(getProfilesStore());
+        for (Map.Entry<ID, long[]> e : PENDINGS.entrySet()) {
+            synchronized (e.getValue()) {
+                all.merge(e.getKey().toLiteral(), e.getValue().clone(), TriggerProfiler::merge);
+            }
+        }
+
+        Map<String, JSONObject> res = new HashMap<>();
+        all.forEach((k, v) -> res.put(k, toView(v)));
+        return res;
+    }
+
+    /**
+     * 清除执行分析
+     *
+     * @param configId
+     */
+    public void reset(ID configId) {
+        PENDINGS.remove(configId);
+        getProfilesStore().remove(configId.toLiteral());
+        getRecentsStore().remove(configId.toLiteral());
+    }
+
+    private ConcurrentMap<String, long[]> getProfilesStore() {
+        if (profiles == null) {
+            profiles = Application.getBean(DistributedSupport.class).getMap("TriggerProfiles");
+        }
+        return profiles;
+    }
+
+    private ConcurrentMap<String, double[]> getRecentsStore() {
+        if (recents == null) {
+            recents = Application.getBean(DistributedSupport.class).getMap("TriggerProfilesRecent");
+        }
+        return recents;
+    }
+
+    // --
+
+    /**
+     * @param a
+     * @param b
+     * @return
+     */
+    protected static long[] merge(long[] a, long[] b) {
+        long[] m = new long[STATS_LENGTH];
+        for (int i = 0; i < STATS_LENGTH; i++) {
+            if (i == S_DEPTH || i == S_MAXNANOS) m[i] = Math.max(a[i], b[i]);
+            else m[i] = a[i] + b[i];
+        }
+        return m;
+    }
+
+    /**
+     * 近期统计按时间衰减后累加
+     *
+     * @param recent 可为 null
+     * @param stats
+     * @param now
+     * @return
+     */
+    protected static double[] decay(double[] recent, long[] stats, long now) {
+        double factor = 0;
+        if (recent != null) {
+            long elapsed = Math.max(now - (long) recent[R_TIME], 0);
+            factor = Math.pow(0.5, elapsed / (double) BUDGET_HALF_LIFE);
+        }
+
+        double[] d = new double[3];
+        d[R_COUNT] = (recent == null ? 0 : recent[R_COUNT] * factor) + stats[S_COUNT];
+        d[R_NANOS] = (recent == null ? 0 : recent[R_NANOS] * factor) + stats[S_NANOS];
+        d[R_TIME] = now;
+        return d;
+    }
+
+    /**
+     * @param stats
+     * @return
+     */
+    protected static JSONObject toView(long[] stats) {
+        long count = stats[S_COUNT];
+        JSONObject view = new JSONObject(true);
+        view.put("count", count);
+        view.put("errors", stats[S_ERRORS]);
+        view.put("avg", count == 0 ? 0 : stats[S_NANOS] / count / 1000000);
+        view.put("p50", percentile(stats, 0.5));
+        view.put("p99", percentile(stats, 0.99));
+        view.put("max", stats[S_MAXNANOS] / 1000000);
+        view.put("queries", count == 0 ? 0 : Math.round(stats[S_QUERIES] * 10d / count) / 10d);
+        view.put("writes", count == 0 ? 0 : Math.round(stats[S_WRITES] * 10d / count) / 10d);
+        view.put("depth", stats[S_DEPTH]);
+        return view;
+    }
+
+    /**
+     * 百分位耗时（所在分桶的上限，不超过最大耗时）
+     *
+     * @param stats
+     * @param p
+     * @return ms
+     */
+    protected static long percentile(long[] stats, double p) {
+        long count = stats[S_COUNT];
+        if (count == 0) return 0;
+
+        long maxMs = stats[S_MAXNANOS] / 1000000;
+        long rank = (long) Math.ceil(count * p);
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += stats[S_BUCKETS + i];
+            if (seen >= rank) {
+                return i == BUCKETS ? maxMs : Math.min(1L << i, Math.max(maxMs, 1));
+            }
+        }
+        return maxMs;
+    }
+
+    private static int bucketOf(long nanos) {
+        long ms = nanos / 1000000;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (ms <= (1L << i)) return i;
+        }
+        return BUCKETS;
+    }
+}
@@ -63,6 +63,12 @@ public enum ConfigurationItem {
     // 回收站数据保留天数（0为禁用）
     RecycleBinKeepingDays(180),
 
+    // 日志归档天数，早于此的日志移至归档文件（0为禁用）
+    LogArchiveDays(0),
+
+    // 日志归档保留天数（0为永久保留）。变更历史的归档按变更历史保留天数
+    LogArchiveKeepingDays(0),
+
     // 启用数据库备份
     DBBackupsEnable(true),
 
@@ -110,6 +116,17 @@ public enum ConfigurationItem {
     PortalOfficePreviewUrl,
     PortalUploadMaxSize(100),
 
+    // 本地文件同时下载数
+    DownloadMaxConcurrent(50),
+    // 单个下载限速 KB/s（0为不限）
+    DownloadMaxRate(0),
+
+    // 邮件/短信队列每分钟发送数（0为不限）
+    SmsendMaxRate(60),
+
+    // 触发器平均执行耗时预算 ms，超出自动禁用（0为不限）
+    TriggerCostBudget(0),
+
     // !!! 仅命令行适用
     DataDirectory,                  // 数据目录
     RedisDatabase(0),     // Redis DB
@@ -15,6 +15,9 @@ import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.privileges.UserService;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * K/V 对存储
  *
@@ -84,6 +87,38 @@ public class KVStorage {
         Application.getCommonsCache().evict(key);
     }
 
+    /**
+     * 批量刷新（缓存），仅查询一次数据库
+     *
+     * @param keysWithDefault <KEY, DEFAULT_VALUE>
+     */
+    protected static void refreshValues(Map<String, Object> keysWithDefault) {
+        if (!Application.isReady()) return;
+
+        Map<String, String> fromDb = new HashMap<>();
+        Object[][] array = Application.createQueryNoFilter("select item,value from SystemConfig").array();
+        for (Object[] o : array) {
+            fromDb.put((String) o[0], StringUtils.defaultIfBlank((String) o[1], null));
+        }
+
+        for (Map.Entry<String, Object> e : keysWithDefault.entrySet()) {
+            final String key = e.getKey();
+            String value = fromDb.get(key);
+            if (value == null) {
+                value = BootEnvironmentPostProcessor.getProperty(key);
+            }
+            if (value == null && e.getValue() != null) {
+                value = e.getValue().toString();
+            }
+
+            if (value == null) {
+                Application.getCommonsCache().evict(key);
+            } else {
+                Application.getCommonsCache().put(key, value);
+            }
+        }
+    }
+
     /**
      * @param key
      * @param noCache
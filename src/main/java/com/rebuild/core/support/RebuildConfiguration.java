@@ -18,7 +18,9 @@ import org.apache.commons.lang3.math.NumberUtils;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 全局系统配置
@@ -254,6 +256,17 @@ public class RebuildConfiguration extends KVStorage {
                 : BooleanUtils.toBoolean(s);
     }
 
+    /**
+     * 刷新全部配置项缓存
+     */
+    public static void refreshAll() {
+        Map<String, Object> items = new LinkedHashMap<>();
+        for (ConfigurationItem item : ConfigurationItem.values()) {
+            items.put(item.name(), item.getDefaultValue());
+        }
+        refreshValues(items);
+    }
+
     /**
      * @param name
      * @param value
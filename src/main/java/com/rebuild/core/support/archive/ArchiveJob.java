@@ -0,0 +1,73 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.archive;
+
+import cn.devezhao.commons.CalendarUtils;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.support.ConfigurationItem;
+import com.rebuild.core.support.RebuildConfiguration;
+import com.rebuild.core.support.distributed.DistributedJobLock;
+import com.rebuild.core.support.task.TaskExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日志归档
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ArchiveTask
+ */
+@Slf4j
+@Component
+public class ArchiveJob extends DistributedJobLock {
+
+    public ArchiveJob() {
+        super();
+        // 重启后重新归档（已归档的已从主表删除）
+        TaskExecutors.registerResumable(ArchiveTask.class, this::submitArchiveTask);
+    }
+
+    @Scheduled(cron = "0 30 4 * * ?")
+    protected void executeJob() {
+        if (!tryLock()) return;
+
+        submitArchiveTask();
+        cleanArchives();
+    }
+
+    /**
+     * 清理过期归档。变更历史的归档同样遵循变更历史保留时间，其他按日志归档保留时间
+     */
+    protected void cleanArchives() {
+        final int rhDays = RebuildConfiguration.getInt(ConfigurationItem.RevisionHistoryKeepingDays);
+        final int logDays = RebuildConfiguration.getInt(ConfigurationItem.LogArchiveKeepingDays);
+
+        for (Integer entityCode : ArchiveStore.getArchivables()) {
+            int days = entityCode == EntityHelper.RevisionHistory ? rhDays : logDays;
+            if (days > 0) {
+                ArchiveStore.clean(MetadataHelper.getEntity(entityCode), CalendarUtils.addDay(-days));
+            }
+        }
+    }
+
+    /**
+     * 提交归档任务
+     */
+    protected void submitArchiveTask() {
+        final int days = RebuildConfiguration.getInt(ConfigurationItem.LogArchiveDays);
+        if (days > 0) {
+            log.info("Log archive running ... {}d", days);
+            String taskid = TaskExecutors.submit(new ArchiveTask(CalendarUtils.addDay(-days)), UserService.SYSTEM_USER);
+            log.info("Archive task submitted : {}", taskid);
+        }
+    }
+}
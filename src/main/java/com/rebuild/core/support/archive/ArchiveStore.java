@@ -0,0 +1,345 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.archive;
+
+import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.commons.CodecUtils;
+import cn.devezhao.persist4j.Entity;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.support.RebuildConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 日志归档存储。按月存放于数据目录 `_archives/{ENTITY}/{yyyyMM}/`，每行一条记录（JSON）。
+ * 每次归档写入独立的段文件 `{SEGMENT}.json.gz`（先写临时文件落盘后再重命名，中断不会产生残缺的段），
+ * 并附主键索引 `{SEGMENT}.idx` 以便按主键查找时无需解压全部归档
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ArchiveTask
+ */
+@Slf4j
+public class ArchiveStore {
+
+    private static final String ARCHIVE_DIR = "_archives";
+    private static final String FILE_EXT = ".json.gz";
+    private static final String INDEX_EXT = ".idx";
+    private static final String TEMP_EXT = ".tmp";
+
+    // 未完成的临时文件保留时间
+    private static final long TEMP_KEEP_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // 可归档实体 > 时间字段
+    private static final Map<Integer, String> ARCHIVABLES = new LinkedHashMap<>();
+    static {
+        ARCHIVABLES.put(EntityHelper.RevisionHistory, "revisionOn");
+        ARCHIVABLES.put(EntityHelper.CommonsLog, "logTime");
+        ARCHIVABLES.put(EntityHelper.RebuildApiRequest, "requestTime");
+        ARCHIVABLES.put(EntityHelper.LoginLog, "loginTime");
+        ARCHIVABLES.put(EntityHelper.SmsendLog, "sendTime");
+    }
+
+    private ArchiveStore() {
+    }
+
+    /**
+     * @return
+     */
+    public static Set<Integer> getArchivables() {
+        return ARCHIVABLES.keySet();
+    }
+
+    /**
+     * @param entity
+     * @return
+     */
+    public static boolean isArchivable(Entity entity) {
+        return ARCHIVABLES.containsKey(entity.getEntityCode());
+    }
+
+    /**
+     * 归档依据的时间字段
+     *
+     * @param entity
+     * @return
+     */
+    public static String getTimeField(Entity entity) {
+        String timeField = ARCHIVABLES.get(entity.getEntityCode());
+        if (timeField == null) throw new IllegalArgumentException("Unsupported entity : " + entity.getName());
+        return timeField;
+    }
+
+    /**
+     * 写入新段（同一批次按月分组后调用）
+     *
+     * @param entity
+     * @param month yyyyMM
+     * @param rows
+     * @throws IOException
+     */
+    protected static void append(Entity entity, String month, Collection<JSONObject> rows) throws IOException {
+        final File dir = getMonthDir(entity, month);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot mkdir : " + dir);
+        }
+
+        // 段名有序且唯一
+        final String segment = String.format("%013d-%s", System.currentTimeMillis(), CodecUtils.randomCode(8));
+        final String pkName = entity.getPrimaryField().getName();
+
+        File tmp = new File(dir, segment + FILE_EXT + TEMP_EXT);
+        File idxTmp = new File(dir, segment + INDEX_EXT + TEMP_EXT);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                GZIPOutputStream gzip = new GZIPOutputStream(fos);
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+                for (JSONObject row : rows) {
+                    writer.write(row.toJSONString());
+                    writer.write('\n');
+                }
+                writer.flush();
+                gzip.finish();
+                fos.getFD().sync();
+            }
+
+            try (FileOutputStream fos = new FileOutputStream(idxTmp)) {
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8));
+                for (JSONObject row : rows) {
+                    writer.write(row.getString(pkName));
+                    writer.write('\n');
+                }
+                writer.flush();
+                fos.getFD().sync();
+            }
+
+            // 段文件最后可见，落盘后才可删除源数据
+            moveAtomic(idxTmp, new File(dir, segment + INDEX_EXT));
+            moveAtomic(tmp, new File(dir, segment + FILE_EXT));
+            syncDir(dir);
+
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+            Files.deleteIfExists(idxTmp.toPath());
+        }
+    }
+
+    private static void moveAtomic(File source, File dest) throws IOException {
+        try {
+            Files.move(source.toPath(), dest.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source.toPath(), dest.toPath());
+        }
+    }
+
+    // 目录项（重命名）落盘，部分系统不支持
+    private static void syncDir(File dir) {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 已归档的月份（新的在前）
+     *
+     * @param entity
+     * @return
+     */
+    public static List<String> listMonths(Entity entity) {
+        File[] dirs = getArchiveDir(entity).listFiles(
+                (dir, name) -> name.matches("\\d{6}") && new File(dir, name).isDirectory());
+        if (dirs == null) return new ArrayList<>();
+
+        List<String> months = new ArrayList<>();
+        for (File dir : dirs) months.add(dir.getName());
+        months.sort(Comparator.reverseOrder());
+        return months;
+    }
+
+    /**
+     * 月份下的段（按写入顺序）
+     *
+     * @param entity
+     * @param month
+     * @return 段名
+     */
+    protected static List<String> listSegments(Entity entity, String month) {
+        File[] files = getMonthDir(entity, month).listFiles((dir, name) -> name.endsWith(FILE_EXT));
+        if (files == null) return new ArrayList<>();
+
+        List<String> segments = new ArrayList<>();
+        for (File file : files) {
+            segments.add(file.getName().substring(0, file.getName().length() - FILE_EXT.length()));
+        }
+        segments.sort(Comparator.naturalOrder());
+        return segments;
+    }
+
+    /**
+     * 查询归档数据
+     *
+     * @param entity
+     * @param month yyyyMM
+     * @param keyword 匹配任意内容（可选）
+     * @param offset
+     * @param limit
+     * @return [总数, 数据列表]
+     */
+    public static Object[] query(Entity entity, String month, String keyword, int offset, int limit) {
+        final String pkName = entity.getPrimaryField().getName();
+        final Set<String> seen = new HashSet<>();
+        final List<JSONObject> data = new ArrayList<>();
+        int total = 0;
+
+        for (String segment : listSegments(entity, month)) {
+            File file = new File(getMonthDir(entity, month), segment + FILE_EXT);
+            // 单个段损坏不影响其他段
+            try (BufferedReader reader = openSegment(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (StringUtils.isNotBlank(keyword) && !StringUtils.containsIgnoreCase(line, keyword)) continue;
+
+                    JSONObject row = JSON.parseObject(line);
+                    // 归档中断重试可能产生重复
+                    if (!seen.add(row.getString(pkName))) continue;
+
+                    if (total >= offset && data.size() < limit) data.add(row);
+                    total++;
+                }
+            } catch (IOException ex) {
+                log.error("Cannot read archive : {}", file, ex);
+            }
+        }
+        return new Object[] { total, data };
+    }
+
+    /**
+     * 按主键查找（先查索引，仅解压包含此主键的段）
+     *
+     * @param entity
+     * @param id
+     * @return
+     */
+    public static JSONObject find(Entity entity, String id) {
+        final String pkName = entity.getPrimaryField().getName();
+        for (String month : listMonths(entity)) {
+            final File dir = getMonthDir(entity, month);
+            for (String segment : listSegments(entity, month)) {
+                if (!indexContains(new File(dir, segment + INDEX_EXT), id)) continue;
+
+                File file = new File(dir, segment + FILE_EXT);
+                try (BufferedReader reader = openSegment(file)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.contains(id)) continue;
+
+                        JSONObject row = JSON.parseObject(line);
+                        if (id.equals(row.getString(pkName))) return row;
+                    }
+                } catch (IOException ex) {
+                    log.error("Cannot read archive : {}", file, ex);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean indexContains(File index, String id) {
+        try (BufferedReader reader = Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(id)) return true;
+            }
+        } catch (IOException ex) {
+            log.warn("Cannot read archive index : {}", index, ex);
+        }
+        return false;
+    }
+
+    private static BufferedReader openSegment(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 删除早于指定日期的整月归档，及未完成的临时文件
+     *
+     * @param entity
+     * @param before
+     * @return
+     */
+    protected static int clean(Entity entity, Date before) {
+        final String beforeMonth = CalendarUtils.format("yyyyMM", before);
+        final long tempBefore = System.currentTimeMillis() - TEMP_KEEP_MILLIS;
+        int del = 0;
+        for (String month : listMonths(entity)) {
+            File dir = getMonthDir(entity, month);
+            if (month.compareTo(beforeMonth) < 0) {
+                try {
+                    FileUtils.deleteDirectory(dir);
+                    del++;
+                    log.info("Archive deleted : {}", dir);
+                } catch (IOException ex) {
+                    log.warn("Cannot delete archive : {}", dir, ex);
+                }
+                continue;
+            }
+
+            File[] temps = dir.listFiles((d, name) -> name.endsWith(TEMP_EXT));
+            if (temps == null) continue;
+            for (File temp : temps) {
+                if (temp.lastModified() < tempBefore) FileUtils.deleteQuietly(temp);
+            }
+        }
+        return del;
+    }
+
+    /**
+     * @param entity
+     * @param month
+     * @return
+     */
+    protected static File getMonthDir(Entity entity, String month) {
+        if (!month.matches("\\d{6}")) throw new IllegalArgumentException("Bad month : " + month);
+        return new File(getArchiveDir(entity), month);
+    }
+
+    private static File getArchiveDir(Entity entity) {
+        return RebuildConfiguration.getFileOfData(ARCHIVE_DIR + "/" + entity.getName());
+    }
+}
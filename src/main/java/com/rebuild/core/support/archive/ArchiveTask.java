@@ -0,0 +1,149 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.archive;
+
+import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.commons.ThreadPool;
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.Application;
+import com.rebuild.core.RebuildException;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.support.task.HeavyTask;
+import com.rebuild.core.support.task.TaskGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 日志归档。将早于指定日期的数据按主键分批写入归档文件，写入成功后再从主表删除
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ArchiveStore
+ */
+@Slf4j
+public class ArchiveTask extends HeavyTask<Integer> {
+
+    private static final int BATCH_SIZE = 500;
+    // 批次间隔（ms），不低于本批耗时
+    private static final int INTERVAL_MIN = 100;
+
+    final private Date before;
+
+    /**
+     * @param before 归档此日期之前的
+     */
+    public ArchiveTask(Date before) {
+        super();
+        this.before = before;
+    }
+
+    @Override
+    protected Integer exec() {
+        for (Integer entityCode : ArchiveStore.getArchivables()) {
+            if (isInterrupted()) break;
+
+            Entity entity = MetadataHelper.getEntity(entityCode);
+            int a = archive(entity);
+            if (a > 0) log.info("{} archived : {}", entity.getName(), a);
+        }
+        return getSucceeded();
+    }
+
+    /**
+     * @param entity
+     * @return
+     */
+    protected int archive(Entity entity) {
+        final Field[] fields = entity.getFields();
+        final String pkName = entity.getPrimaryField().getPhysicalName();
+        final String timeName = entity.getField(ArchiveStore.getTimeField(entity)).getPhysicalName();
+
+        int pkIndex = 0;
+        List<String> columns = new ArrayList<>();
+        for (Field field : fields) {
+            if (field.getPhysicalName().equals(pkName)) pkIndex = columns.size();
+            columns.add("`" + field.getPhysicalName() + "`");
+        }
+
+        final String beforeTime = CalendarUtils.getUTCDateFormat().format(before) + " 00:00:00";
+        String lastKey = "";
+        int archived = 0;
+
+        while (true) {
+            if (isInterrupt()) {
+                setInterrupted();
+                break;
+            }
+
+            String sql = String.format(
+                    "select %s from `%s` where `%s` > '%s' and `%s` < '%s' order by `%s` limit %d",
+                    StringUtils.join(columns, ","), entity.getPhysicalName(),
+                    pkName, lastKey, timeName, beforeTime, pkName, BATCH_SIZE);
+            Object[][] array = Application.getQueryFactory().createNativeQuery(sql).array();
+            if (array.length == 0) break;
+
+            final long start = System.currentTimeMillis();
+
+            // 按月分组
+            Map<String, List<JSONObject>> byMonth = new LinkedHashMap<>();
+            List<String> ids = new ArrayList<>();
+            for (Object[] o : array) {
+                JSONObject row = new JSONObject(true);
+                Date time = null;
+                for (int i = 0; i < fields.length; i++) {
+                    Object v = o[i];
+                    if (v instanceof Date) {
+                        if (fields[i].getName().equals(ArchiveStore.getTimeField(entity))) time = (Date) v;
+                        v = CalendarUtils.getUTCDateTimeFormat().format(v);
+                    }
+                    if (v != null) row.put(fields[i].getName(), v);
+                }
+
+                String month = CalendarUtils.format("yyyyMM", time == null ? before : time);
+                byMonth.computeIfAbsent(month, k -> new ArrayList<>()).add(row);
+                ids.add((String) o[pkIndex]);
+            }
+
+            try {
+                for (Map.Entry<String, List<JSONObject>> e : byMonth.entrySet()) {
+                    ArchiveStore.append(entity, e.getKey(), e.getValue());
+                }
+            } catch (IOException ex) {
+                throw new RebuildException("Cannot write archive : " + entity.getName(), ex);
+            }
+
+            String delSql = String.format("delete from `%s` where `%s` in ('%s')",
+                    entity.getPhysicalName(), pkName, StringUtils.join(ids, "','"));
+            int del = Application.getSqlExecutor().execute(delSql, 60);
+
+            archived += del;
+            for (int i = 0; i < del; i++) addSucceeded();
+            setCompleted(getCompleted() + array.length);
+            lastKey = ids.get(ids.size() - 1);
+
+            if (array.length < BATCH_SIZE) break;
+
+            ThreadPool.waitFor((int) Math.max(System.currentTimeMillis() - start, INTERVAL_MIN));
+        }
+        return archived;
+    }
+
+    @Override
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.MAINTENANCE;
+    }
+}
@@ -7,11 +7,16 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.support.distributed;
 
-import java.util.*;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
+ * 单实例（本地）实现。返回的集合均为线程安全的
+ *
  * @author devezhao
  * @since 2022/1/6
  */
@@ -32,11 +37,11 @@ public class DistributedSupportLocal implements DistributedSupport {
 
     @Override
     public <T> List<T> getList(String namespace) {
-        return (List<T>) LOCAL_LIST.computeIfAbsent(namespace, k -> new ArrayList<T>());
+        return (List<T>) LOCAL_LIST.computeIfAbsent(namespace, k -> new CopyOnWriteArrayList<T>());
     }
 
     @Override
     public <T> Set<T> getSet(String namespace) {
-        return (Set<T>) LOCAL_SET.computeIfAbsent(namespace, k -> new HashSet<T>());
+        return (Set<T>) LOCAL_SET.computeIfAbsent(namespace, k -> ConcurrentHashMap.<T>newKeySet());
     }
 }
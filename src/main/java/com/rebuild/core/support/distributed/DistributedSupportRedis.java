@@ -0,0 +1,492 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.distributed;
+
+import org.apache.commons.lang.SerializationUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 基于 redis 的分布式支持。Map/List/Set 分别对应 redis 的 hash/list/set，
+ * 键值使用 Java 序列化（因此元素应为简单值对象，如 String/ID 等）。
+ * Map 的读取使用本地缓存（{@link #LOCAL_TTL}），其他实例的写入最多延迟此时间可见
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@SuppressWarnings("unchecked")
+public class DistributedSupportRedis implements DistributedSupport, UseRedis {
+
+    private static final String KEY_PREFIX = "RBDS:";
+
+    // 本地缓存时间（ms）
+    protected static final long LOCAL_TTL = 2000;
+    // 批量操作每批数量
+    private static final int BATCH_SIZE = 500;
+
+    // 删除指定位置的元素（LREM 只能按值删除）
+    private static final byte[] SCRIPT_LREMAT = (
+            "local v = redis.call('lindex', KEYS[1], ARGV[1]) " +
+            "if not v then return false end " +
+            "redis.call('lset', KEYS[1], ARGV[1], ARGV[2]) redis.call('lrem', KEYS[1], 1, ARGV[2]) return v")
+            .getBytes(StandardCharsets.UTF_8);
+    // 在指定位置插入（LINSERT 只能按值定位，先将该位置临时替换为唯一的定位值）
+    private static final byte[] SCRIPT_LINSERTAT = (
+            "local n = redis.call('llen', KEYS[1]) local i = tonumber(ARGV[1]) " +
+            "if i < 0 or i > n then return -1 end " +
+            "if i == n then return redis.call('rpush', KEYS[1], ARGV[2]) end " +
+            "local v = redis.call('lindex', KEYS[1], i) " +
+            "redis.call('lset', KEYS[1], i, ARGV[3]) redis.call('linsert', KEYS[1], 'BEFORE', ARGV[3], ARGV[2]) " +
+            "redis.call('lset', KEYS[1], i + 1, v) return n + 1")
+            .getBytes(StandardCharsets.UTF_8);
+    // 值相同时删除
+    private static final byte[] SCRIPT_HDELEQ = (
+            "if redis.call('hget', KEYS[1], ARGV[1]) == ARGV[2] then return redis.call('hdel', KEYS[1], ARGV[1]) end return 0")
+            .getBytes(StandardCharsets.UTF_8);
+    // 值相同时替换
+    private static final byte[] SCRIPT_HSETEQ = (
+            "if redis.call('hget', KEYS[1], ARGV[1]) == ARGV[2] then redis.call('hset', KEYS[1], ARGV[1], ARGV[3]) return 1 end return 0")
+            .getBytes(StandardCharsets.UTF_8);
+    // 存在时替换
+    private static final byte[] SCRIPT_HSETXX = (
+            "local v = redis.call('hget', KEYS[1], ARGV[1]) " +
+            "if v then redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) end return v")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TOMBSTONE = "__RBDS_DELETED__".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PIVOT = "__RBDS_PIVOT__".getBytes(StandardCharsets.UTF_8);
+
+    private JedisPool jedisPool;
+
+    private final Map<String, RedisMap<?, ?>> MAPS = new ConcurrentHashMap<>();
+
+    public DistributedSupportRedis(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    @Override
+    public <K, V> ConcurrentMap<K, V> getMap(String namespace) {
+        return (ConcurrentMap<K, V>) MAPS.computeIfAbsent(namespace, k -> new RedisMap<K, V>(bkey("MAP:" + k)));
+    }
+
+    @Override
+    public <T> List<T> getList(String namespace) {
+        return new RedisList<>(bkey("LIST:" + namespace));
+    }
+
+    @Override
+    public <T> Set<T> getSet(String namespace) {
+        return new RedisSet<>(bkey("SET:" + namespace));
+    }
+
+    @Override
+    public boolean reinjectJedisPool(JedisPool pool) {
+        if (testJedisPool(pool)) {
+            this.jedisPool = pool;
+            return true;
+        }
+        return false;
+    }
+
+    // --
+
+    private static byte[] bkey(String namespace) {
+        return (KEY_PREFIX + namespace).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ser(Object o) {
+        return SerializationUtils.serialize((Serializable) o);
+    }
+
+    private static <T> T deser(byte[] bs) {
+        return bs == null ? null : (T) SerializationUtils.deserialize(bs);
+    }
+
+    private interface JedisCallback<T> {
+        T doInJedis(Jedis jedis);
+    }
+
+    private <T> T execute(JedisCallback<T> callback) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return callback.doInJedis(jedis);
+        }
+    }
+
+    // 分批管道执行
+    private void pipelined(Collection<?> items, BatchCommand command) {
+        if (items.isEmpty()) return;
+
+        List<byte[]> all = new ArrayList<>(items.size());
+        for (Object o : items) all.add(ser(o));
+
+        execute(jedis -> {
+            Pipeline p = jedis.pipelined();
+            for (int i = 0; i < all.size(); i += BATCH_SIZE) {
+                List<byte[]> batch = all.subList(i, Math.min(i + BATCH_SIZE, all.size()));
+                command.apply(p, batch.toArray(new byte[0][]));
+            }
+            p.sync();
+            return null;
+        });
+    }
+
+    private interface BatchCommand {
+        void apply(Pipeline p, byte[][] batch);
+    }
+
+    /**
+     * Hash
+     */
+    private class RedisMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+        final byte[] key;
+        // 本地缓存 [值, 过期时间]
+        final Map<K, Object[]> local = new ConcurrentHashMap<>();
+
+        RedisMap(byte[] key) {
+            this.key = key;
+        }
+
+        @Override
+        public V get(Object k) {
+            Object[] c = local.get(k);
+            if (c != null && (long) c[1] > System.currentTimeMillis()) return (V) c[0];
+
+            V v = deser(execute(jedis -> jedis.hget(key, ser(k))));
+            cacheLocal((K) k, v);
+            return v;
+        }
+
+        @Override
+        public boolean containsKey(Object k) {
+            return get(k) != null;
+        }
+
+        @Override
+        public V put(K k, V v) {
+            byte[] old = execute(jedis -> {
+                Pipeline p = jedis.pipelined();
+                Response<byte[]> r = p.hget(key, ser(k));
+                p.hset(key, ser(k), ser(v));
+                p.sync();
+                return r.get();
+            });
+            cacheLocal(k, v);
+            return deser(old);
+        }
+
+        @Override
+        public V remove(Object k) {
+            byte[] old = execute(jedis -> {
+                Pipeline p = jedis.pipelined();
+                Response<byte[]> r = p.hget(key, ser(k));
+                p.hdel(key, ser(k));
+                p.sync();
+                return r.get();
+            });
+            local.remove(k);
+            return deser(old);
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> m) {
+            if (m.isEmpty()) return;
+
+            List<Map.Entry<? extends K, ? extends V>> entries = new ArrayList<>(m.entrySet());
+            execute(jedis -> {
+                Pipeline p = jedis.pipelined();
+                for (int i = 0; i < entries.size(); i += BATCH_SIZE) {
+                    Map<byte[], byte[]> batch = new LinkedHashMap<>();
+                    for (Map.Entry<? extends K, ? extends V> e : entries.subList(i, Math.min(i + BATCH_SIZE, entries.size()))) {
+                        batch.put(ser(e.getKey()), ser(e.getValue()));
+                    }
+                    p.hset(key, batch);
+                }
+                p.sync();
+                return null;
+            });
+            for (Map.Entry<? extends K, ? extends V> e : entries) cacheLocal(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public int size() {
+            return execute(jedis -> jedis.hlen(key)).intValue();
+        }
+
+        @Override
+        public void clear() {
+            execute(jedis -> jedis.del(key));
+            local.clear();
+        }
+
+        @Override
+        public V putIfAbsent(K k, V v) {
+            V exists = null;
+            boolean set = execute(jedis -> jedis.hsetnx(key, ser(k), ser(v))) == 1;
+            if (!set) exists = deser(execute(jedis -> jedis.hget(key, ser(k))));
+
+            cacheLocal(k, set ? v : exists);
+            return exists;
+        }
+
+        @Override
+        public boolean remove(Object k, Object v) {
+            Object r = execute(jedis -> jedis.eval(SCRIPT_HDELEQ, Collections.singletonList(key), Arrays.asList(ser(k), ser(v))));
+            local.remove(k);
+            return r != null && (Long) r > 0;
+        }
+
+        @Override
+        public boolean replace(K k, V oldValue, V newValue) {
+            Object r = execute(jedis -> jedis.eval(SCRIPT_HSETEQ, Collections.singletonList(key), Arrays.asList(ser(k), ser(oldValue), ser(newValue))));
+            local.remove(k);
+            return r != null && (Long) r > 0;
+        }
+
+        @Override
+        public V replace(K k, V v) {
+            Object r = execute(jedis -> jedis.eval(SCRIPT_HSETXX, Collections.singletonList(key), Arrays.asList(ser(k), ser(v))));
+            local.remove(k);
+            return r instanceof byte[] ? deser((byte[]) r) : null;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            final Map<byte[], byte[]> all = execute(jedis -> jedis.hgetAll(key));
+            final List<Entry<K, V>> entries = new ArrayList<>(all.size());
+            for (Map.Entry<byte[], byte[]> e : all.entrySet()) {
+                entries.add(new SimpleEntry<K, V>(deser(e.getKey()), deser(e.getValue())) {
+                    @Override
+                    public V setValue(V value) {
+                        RedisMap.this.put(getKey(), value);
+                        return super.setValue(value);
+                    }
+                });
+            }
+
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    return new SnapshotIterator<Entry<K, V>>(entries.iterator()) {
+                        @Override
+                        void remove(Entry<K, V> last) {
+                            RedisMap.this.remove(last.getKey());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        void cacheLocal(K k, V v) {
+            if (v == null) local.remove(k);
+            else local.put(k, new Object[] { v, System.currentTimeMillis() + LOCAL_TTL });
+        }
+    }
+
+    /**
+     * List
+     */
+    private class RedisList<T> extends AbstractList<T> {
+
+        final byte[] key;
+
+        RedisList(byte[] key) {
+            this.key = key;
+        }
+
+        @Override
+        public T get(int index) {
+            byte[] v = execute(jedis -> jedis.lindex(key, index));
+            if (v == null) throw new IndexOutOfBoundsException("Index: " + index);
+            return deser(v);
+        }
+
+        @Override
+        public int size() {
+            return execute(jedis -> jedis.llen(key)).intValue();
+        }
+
+        @Override
+        public boolean add(T t) {
+            execute(jedis -> jedis.rpush(key, ser(t)));
+            return true;
+        }
+
+        @Override
+        public void add(int index, T t) {
+            Object r = execute(jedis -> jedis.eval(SCRIPT_LINSERTAT,
+                    Collections.singletonList(key), Arrays.asList(String.valueOf(index).getBytes(StandardCharsets.UTF_8), ser(t), PIVOT)));
+            if (r instanceof Long && (Long) r < 0) throw new IndexOutOfBoundsException("Index: " + index);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends T> c) {
+            pipelined(c, (p, batch) -> p.rpush(key, batch));
+            return !c.isEmpty();
+        }
+
+        @Override
+        public T set(int index, T t) {
+            T old = get(index);
+            execute(jedis -> jedis.lset(key, index, ser(t)));
+            return old;
+        }
+
+        @Override
+        public T remove(int index) {
+            Object v = execute(jedis -> jedis.eval(SCRIPT_LREMAT,
+                    Collections.singletonList(key), Arrays.asList(String.valueOf(index).getBytes(StandardCharsets.UTF_8), TOMBSTONE)));
+            if (!(v instanceof byte[])) throw new IndexOutOfBoundsException("Index: " + index);
+            return deser((byte[]) v);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return execute(jedis -> jedis.lrem(key, 1, ser(o))) > 0;
+        }
+
+        @Override
+        public void clear() {
+            execute(jedis -> jedis.del(key));
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            List<T> snapshot = new ArrayList<>();
+            for (byte[] bs : execute(jedis -> jedis.lrange(key, 0, -1))) snapshot.add(deser(bs));
+
+            return new SnapshotIterator<T>(snapshot.iterator()) {
+                @Override
+                void remove(T last) {
+                    RedisList.this.remove(last);
+                }
+            };
+        }
+    }
+
+    /**
+     * Set
+     */
+    private class RedisSet<T> extends AbstractSet<T> {
+
+        final byte[] key;
+
+        RedisSet(byte[] key) {
+            this.key = key;
+        }
+
+        @Override
+        public int size() {
+            return execute(jedis -> jedis.scard(key)).intValue();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return execute(jedis -> jedis.sismember(key, ser(o)));
+        }
+
+        @Override
+        public boolean add(T t) {
+            return execute(jedis -> jedis.sadd(key, ser(t))) > 0;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return execute(jedis -> jedis.srem(key, ser(o))) > 0;
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends T> c) {
+            int before = size();
+            pipelined(c, (p, batch) -> p.sadd(key, batch));
+            return size() != before;
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            int before = size();
+            pipelined(c, (p, batch) -> p.srem(key, batch));
+            return size() != before;
+        }
+
+        @Override
+        public void clear() {
+            execute(jedis -> jedis.del(key));
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            List<T> snapshot = new ArrayList<>();
+            for (byte[] bs : execute(jedis -> jedis.smembers(key))) snapshot.add(deser(bs));
+
+            return new SnapshotIterator<T>(snapshot.iterator()) {
+                @Override
+                void remove(T last) {
+                    RedisSet.this.remove(last);
+                }
+            };
+        }
+    }
+
+    /**
+     * 快照迭代（删除时同步到 redis）
+     */
+    private abstract static class SnapshotIterator<E> implements Iterator<E> {
+
+        final Iterator<E> delegate;
+        E last;
+
+        SnapshotIterator(Iterator<E> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public E next() {
+            last = delegate.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            remove(last);
+            last = null;
+        }
+
+        abstract void remove(E last);
+    }
+}
@@ -0,0 +1,267 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.integration;
+
+import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.commons.ObjectUtils;
+import cn.devezhao.persist4j.Record;
+import cn.devezhao.persist4j.engine.ID;
+import com.rebuild.core.Application;
+import com.rebuild.core.configuration.ConfigurationException;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.service.TransactionManual;
+import com.rebuild.core.support.ConfigurationItem;
+import com.rebuild.core.support.RebuildConfiguration;
+import com.rebuild.utils.CommonsUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 邮件/短信发送队列。消息持久化后由单独的线程按速率发送，失败按指数退避重试。
+ * 多实例时各自发送，通过条件更新（租约）保证同一消息只被一个实例领取。
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ConfigurationItem#SmsendMaxRate
+ */
+@Slf4j
+@Component
+public class SMSendQueue {
+
+    // 状态
+    private static final int STATUS_PENDING = 0;
+    private static final int STATUS_SENT = 2;
+    private static final int STATUS_FAILED = 3;
+
+    // 最多重试次数
+    private static final int MAX_RETRIES = 5;
+    // 首次重试间隔（此后翻倍）
+    private static final long BACKOFF_SECONDS = 30;
+    // 领取后未完成（如实例宕机）可被再次领取的时间
+    private static final long LEASE_SECONDS = 300;
+
+    private static final int FETCH_SIZE = 100;
+
+    // 接收人最大长度（同字段长度）
+    private static final int MAX_TO_LENGTH = 100;
+
+    private static final ScheduledExecutorService WORKER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rb-smsend");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final AtomicBoolean DRAIN_SCHEDULED = new AtomicBoolean();
+
+    private static long lastSendTime = 0;
+
+    /**
+     * 在当前事务提交后入队（独立事务），入队失败仅记录日志，不影响调用方
+     *
+     * @param type
+     * @param to
+     * @param subject
+     * @param content
+     */
+    public static void enqueueAfterCommit(int type, String to, String subject, String content) {
+        TransactionManual.afterCommit(() -> {
+            TransactionStatus tx = TransactionManual.newTransactionRequiresNew();
+            try {
+                enqueue(type, to, subject, content);
+                TransactionManual.commit(tx);
+            } catch (Exception ex) {
+                if (!tx.isCompleted()) TransactionManual.rollback(tx);
+                log.error("SMSendQueue failed to enqueue : {}", to, ex);
+            }
+        });
+    }
+
+    /**
+     * 入队
+     *
+     * @param type
+     * @param to
+     * @param subject
+     * @param content
+     * @return 接收人无效返回 null
+     */
+    public static ID enqueue(int type, String to, String subject, String content) {
+        if (StringUtils.isBlank(to) || to.length() > MAX_TO_LENGTH) {
+            log.warn("SMSendQueue ignored invalid receiver : {}", to);
+            return null;
+        }
+
+        Date now = CalendarUtils.now();
+
+        Record queue = EntityHelper.forNew(EntityHelper.SmsendQueue, UserService.SYSTEM_USER);
+        queue.setInt("type", type);
+        queue.setString("to", to);
+        if (subject != null) queue.setString("subject", CommonsUtils.maxstr(subject, 300));
+        queue.setString("content", content);
+        queue.setInt("status", STATUS_PENDING);
+        queue.setDate("nextTime", now);
+        queue.setDate("createdOn", now);
+        queue = Application.getCommonsService().create(queue);
+
+        wakeup();
+        return queue.getPrimary();
+    }
+
+    /**
+     * 唤醒发送
+     */
+    public static void wakeup() {
+        if (DRAIN_SCHEDULED.compareAndSet(false, true)) {
+            WORKER.schedule(SMSendQueue::drain, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 发送所有到期消息
+     */
+    static void drain() {
+        DRAIN_SCHEDULED.set(false);
+        try {
+            while (drainOnce() > 0 && !Thread.currentThread().isInterrupted()) {
+                // NEXT
+            }
+        } catch (Throwable ex) {
+            log.error("SMSendQueue drain failed", ex);
+        } finally {
+            SMSender.flushLogs();
+            SmtpTransportPool.closeIdle();
+        }
+    }
+
+    private static int drainOnce() {
+        Object[][] array = Application.createQueryNoFilter(
+                "select queueId,type,to,subject,content,retryTimes from SmsendQueue where status = ? and nextTime <= ? order by nextTime")
+                .setParameter(1, STATUS_PENDING)
+                .setParameter(2, CalendarUtils.now())
+                .setLimit(FETCH_SIZE)
+                .array();
+
+        for (Object[] o : array) {
+            if (!throttle()) break;
+
+            final ID queueId = (ID) o[0];
+            if (!claim(queueId)) continue;
+
+            final int type = ObjectUtils.toInt(o[1]);
+            final int retryTimes = ObjectUtils.toInt(o[5]);
+
+            String sendId = null;
+            String error = null;
+            try {
+                if (type == SMSender.TYPE_SMS) {
+                    sendId = SMSender.sendSMS((String) o[2], (String) o[4]);
+                } else {
+                    sendId = SMSender.sendMail((String) o[2], (String) o[3], (String) o[4]);
+                }
+            } catch (ConfigurationException ex) {
+                // 账户未配置，无需重试
+                complete(queueId, STATUS_FAILED, retryTimes, null, ex.getLocalizedMessage());
+                continue;
+            } catch (Exception ex) {
+                log.error("SMSendQueue failed to send : {}", queueId, ex);
+                error = ex.getLocalizedMessage();
+            }
+
+            if (sendId != null) {
+                complete(queueId, STATUS_SENT, retryTimes, null, null);
+            } else if (retryTimes >= MAX_RETRIES) {
+                complete(queueId, STATUS_FAILED, retryTimes, null, StringUtils.defaultIfBlank(error, "Send failed"));
+            } else {
+                Date next = new Date(System.currentTimeMillis() + getBackoffSeconds(retryTimes + 1) * 1000);
+                complete(queueId, STATUS_PENDING, retryTimes + 1, next, StringUtils.defaultIfBlank(error, "Send failed"));
+            }
+        }
+        return array.length;
+    }
+
+    // 按速率等待
+    private static boolean throttle() {
+        int rate = RebuildConfiguration.getInt(ConfigurationItem.SmsendMaxRate);
+        if (rate <= 0) return true;
+
+        long wait = lastSendTime + 60 * 1000 / rate - System.currentTimeMillis();
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        lastSendTime = System.currentTimeMillis();
+        return true;
+    }
+
+    // 领取（设置租约）
+    private static boolean claim(ID queueId) {
+        Date now = CalendarUtils.now();
+        Date lease = new Date(now.getTime() + LEASE_SECONDS * 1000);
+        return Application.getSqlExecutor().execute(
+                "update `smsend_queue` set `NEXT_TIME` = ? where `QUEUE_ID` = ? and `STATUS` = ? and `NEXT_TIME` <= ?",
+                new Object[] { lease, queueId, STATUS_PENDING, now }, 10) == 1;
+    }
+
+    private static void complete(ID queueId, int status, int retryTimes, Date nextTime, String error) {
+        if (nextTime == null) nextTime = CalendarUtils.now();
+        if (error != null) error = CommonsUtils.maxstr(error, 190);
+
+        Application.getSqlExecutor().execute(
+                "update `smsend_queue` set `STATUS` = ?, `RETRY_TIMES` = ?, `NEXT_TIME` = ?, `LAST_ERROR` = ? where `QUEUE_ID` = ?",
+                new Object[] { status, retryTimes, nextTime, error, queueId }, 10);
+    }
+
+    /**
+     * @param retry
+     * @return
+     */
+    protected static long getBackoffSeconds(int retry) {
+        return BACKOFF_SECONDS << Math.max(retry - 1, 0);
+    }
+
+    /**
+     * 清理已完成消息
+     *
+     * @param keepingDays
+     * @return
+     */
+    public static int clean(int keepingDays) {
+        return Application.getSqlExecutor().execute(
+                "delete from `smsend_queue` where `STATUS` in (?, ?) and `CREATED_ON` < ?",
+                new Object[] { STATUS_SENT, STATUS_FAILED, CalendarUtils.addDay(-keepingDays) }, 60 * 3);
+    }
+
+    /**
+     * 停止发送
+     */
+    public static void shutdown() {
+        WORKER.shutdownNow();
+        SMSender.flushLogs();
+        SmtpTransportPool.closeAll();
+    }
+
+    // -- 兜底（重试消息、重启前未发送的消息）
+
+    @Scheduled(fixedDelay = 10000, initialDelay = 60000)
+    public void executeJob() {
+        if (Application.isReady() && !Application.isWaitLoad()) wakeup();
+    }
+}
@@ -9,14 +9,15 @@ package com.rebuild.core.support.integration;
 
 import cn.devezhao.commons.CalendarUtils;
 import cn.devezhao.commons.ThreadPool;
-import cn.devezhao.persist4j.Record;
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.rebuild.core.Application;
 import com.rebuild.core.configuration.ConfigurationException;
 import com.rebuild.core.metadata.EntityHelper;
-import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.support.ConfigurationItem;
 import com.rebuild.core.support.HeavyStopWatcher;
 import com.rebuild.core.support.License;
@@ -35,9 +36,15 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.springframework.util.Assert;
 
+import javax.mail.MessagingException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * SUBMAIL SMS/MAIL 发送
@@ -50,15 +57,30 @@ public class SMSender {
 
     private static final String STATUS_OK = "success";
 
-    private static final int TYPE_SMS = 1;
-    private static final int TYPE_EMAIL = 2;
+    protected static final int TYPE_SMS = 1;
+    protected static final int TYPE_EMAIL = 2;
+
+    // 可指定（测试）
+    protected static String SUBMAIL_API = "https://api-v4.mysubmail.com";
+
+    // 日志批量写入
+    private static final int LOG_BATCH_SIZE = 100;
+    private static final Queue<Object[]> LOG_BUFFER = new ConcurrentLinkedQueue<>();
 
     /**
+     * 加入发送队列
+     *
      * @param to
      * @param subject
      * @param content
+     * @see SMSendQueue
      */
     public static void sendMailAsync(String to, String subject, String content) {
+        if (Application.isReady()) {
+            SMSendQueue.enqueueAfterCommit(TYPE_EMAIL, to, subject, content);
+            return;
+        }
+
         ThreadPool.exec(() -> {
             try {
                 sendMail(to, subject, content);
@@ -150,7 +172,7 @@ public class SMSender {
 
         JSONObject rJson;
         try {
-            String r = OkHttpUtils.post("https://api-v4.mysubmail.com/mail/send.json", params);
+            String r = OkHttpUtils.post(SUBMAIL_API + "/mail/send.json", params);
             rJson = JSON.parseObject(r);
         } catch (Exception ex) {
             log.error("Submail failed to send : " + to + " > " + subject, ex);
@@ -171,7 +193,7 @@ public class SMSender {
     }
 
     /**
-     * SMTP 发送
+     * SMTP 发送（复用连接）
      *
      * @param to
      * @param subject
@@ -198,7 +220,13 @@ public class SMSender {
 
         email.addHeader("X-User-Agent", OkHttpUtils.RB_UA);
         email.setCharset("UTF-8");
-        return email.send();
+        email.buildMimeMessage();
+
+        try {
+            return SmtpTransportPool.send(email.getMimeMessage(), email.getMailSession(), specAccount[0], specAccount[1]);
+        } catch (MessagingException ex) {
+            throw new EmailException(ex);
+        }
     }
 
     private static Element MT_CACHE = null;
@@ -229,6 +257,11 @@ public class SMSender {
      * @param content
      */
     public static void sendSMSAsync(String to, String content) {
+        if (Application.isReady()) {
+            SMSendQueue.enqueueAfterCommit(TYPE_SMS, to, null, content);
+            return;
+        }
+
         ThreadPool.exec(() -> {
             try {
                 sendSMS(to, content);
@@ -275,7 +308,7 @@ public class SMSender {
         HeavyStopWatcher.createWatcher("Subsms Send", to);
         JSONObject rJson;
         try {
-            String r = OkHttpUtils.post("https://api-v4.mysubmail.com/sms/send.json", params);
+            String r = OkHttpUtils.post(SUBMAIL_API + "/sms/send.json", params);
             rJson = JSON.parseObject(r);
         } catch (Exception ex) {
             log.error("Subsms failed to send : " + to + " > " + content, ex);
@@ -299,18 +332,47 @@ public class SMSender {
     private static void createLog(String to, String content, int type, String sentid, String error) {
         if (!Application.isReady()) return;
 
-        Record slog = EntityHelper.forNew(EntityHelper.SmsendLog, UserService.SYSTEM_USER);
-        slog.setString("to", to);
-        slog.setString("content", CommonsUtils.maxstr(content, 10000));
-        slog.setDate("sendTime", CalendarUtils.now());
-        slog.setInt("type", type);
-        if (sentid != null) {
-            slog.setString("sendResult", sentid);
-        } else {
-            slog.setString("sendResult",
-                    CommonsUtils.maxstr("ERR:" + StringUtils.defaultIfBlank(error, "Unknow"), 200));
+        String sendResult = sentid != null ? sentid
+                : CommonsUtils.maxstr("ERR:" + StringUtils.defaultIfBlank(error, "Unknow"), 190);
+        LOG_BUFFER.add(new Object[] {
+                ID.newId(EntityHelper.SmsendLog), CommonsUtils.maxstr(to, 100), CommonsUtils.maxstr(content, 10000),
+                type, CalendarUtils.now(), sendResult });
+
+        if (LOG_BUFFER.size() >= LOG_BATCH_SIZE) flushLogs();
+    }
+
+    /**
+     * 批量写入发送日志
+     */
+    public static void flushLogs() {
+        List<Object[]> batch = new ArrayList<>();
+        Object[] o;
+        while (batch.size() < LOG_BATCH_SIZE && (o = LOG_BUFFER.poll()) != null) {
+            batch.add(o);
+        }
+        if (batch.isEmpty()) return;
+
+        Entity entity = MetadataHelper.getEntity(EntityHelper.SmsendLog);
+        StringBuilder sql = new StringBuilder("insert into `").append(entity.getPhysicalName()).append("` (");
+        for (String name : new String[] { "sendId", "to", "content", "type", "sendTime", "sendResult" }) {
+            sql.append('`').append(entity.getField(name).getPhysicalName()).append("`,");
+        }
+        sql.deleteCharAt(sql.length() - 1).append(") values ");
+
+        List<Object> params = new ArrayList<>();
+        for (Object[] row : batch) {
+            sql.append("(?,?,?,?,?,?),");
+            Collections.addAll(params, row);
+        }
+        sql.deleteCharAt(sql.length() - 1);
+
+        try {
+            Application.getSqlExecutor().execute(sql.toString(), params.toArray(), 60);
+        } catch (Exception ex) {
+            log.error("Cannot write {} smsend log(s)", batch.size(), ex);
         }
-        Application.getCommonsService().create(slog);
+
+        if (LOG_BUFFER.size() >= LOG_BATCH_SIZE) flushLogs();
     }
 
     /**
@@ -0,0 +1,123 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.integration;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SMTP 连接复用。同一账户的邮件使用同一连接发送，空闲或发送一定数量后关闭
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Slf4j
+class SmtpTransportPool {
+
+    // 空闲关闭
+    private static final long MAX_IDLE_MILLIS = 60 * 1000;
+    // 单连接最多发送数（多数服务商有限制）
+    private static final int MAX_MESSAGES = 50;
+
+    private static final Map<String, PooledTransport> POOL = new ConcurrentHashMap<>();
+
+    private SmtpTransportPool() {
+    }
+
+    /**
+     * 发送邮件
+     *
+     * @param message 已构建的邮件（{@link org.apache.commons.mail.Email#buildMimeMessage()}）
+     * @param session
+     * @param user
+     * @param password
+     * @return Message-ID
+     * @throws MessagingException
+     */
+    static String send(MimeMessage message, Session session, String user, String password) throws MessagingException {
+        final String host = session.getProperty("mail.smtp.host");
+        final String port = session.getProperty("mail.smtp.port");
+        final String key = host + ":" + port + ":" + user;
+
+        PooledTransport pooled = POOL.computeIfAbsent(key, k -> new PooledTransport());
+        synchronized (pooled) {
+            message.saveChanges();
+
+            try {
+                pooled.connect(session, host, port, user, password);
+                pooled.transport.sendMessage(message, message.getAllRecipients());
+            } catch (MessagingException ex) {
+                // 连接可能已被服务端关闭，重连一次
+                log.warn("SMTP send failed, reconnect and retry : {}", key, ex);
+                pooled.close();
+                pooled.connect(session, host, port, user, password);
+                pooled.transport.sendMessage(message, message.getAllRecipients());
+            }
+
+            if (++pooled.sent >= MAX_MESSAGES) pooled.close();
+            else pooled.lastUsed = System.currentTimeMillis();
+        }
+        return message.getMessageID();
+    }
+
+    /**
+     * 关闭空闲连接
+     */
+    static void closeIdle() {
+        for (PooledTransport pooled : POOL.values()) {
+            synchronized (pooled) {
+                if (pooled.transport != null && System.currentTimeMillis() - pooled.lastUsed > MAX_IDLE_MILLIS) {
+                    pooled.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 关闭所有连接
+     */
+    static void closeAll() {
+        for (PooledTransport pooled : POOL.values()) {
+            synchronized (pooled) {
+                pooled.close();
+            }
+        }
+        POOL.clear();
+    }
+
+    private static class PooledTransport {
+        Transport transport;
+        long lastUsed;
+        int sent;
+
+        void connect(Session session, String host, String port, String user, String password) throws MessagingException {
+            if (transport != null && transport.isConnected()) return;
+
+            close();
+            transport = session.getTransport("smtp");
+            transport.connect(host, Integer.parseInt(port), user, password);
+        }
+
+        void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException ignored) {
+                }
+            }
+            transport = null;
+            sent = 0;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 运行指标（计数/计时/仪表），可输出为 Prometheus 文本格式。
+ * 热点路径仅有一次 Map 查找和若干 {@link LongAdder} 累加
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Slf4j
+public class Metrics {
+
+    // 每个指标最多序列数（避免标签值过多）
+    private static final int MAX_SERIES = 500;
+    private static final String OVERFLOW = "_overflow";
+
+    // 计时分桶（秒）
+    private static final double[] BUCKETS = new double[] { .005, .01, .025, .05, .1, .25, .5, 1, 2.5, 5, 10 };
+
+    private static final Map<String, Meter> METERS = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> SERIES = new ConcurrentHashMap<>();
+    private static final Map<String, String> HELPS = new ConcurrentHashMap<>();
+
+    // 当前请求的查询统计 [次数, 耗时ns]
+    private static final ThreadLocal<long[]> REQUEST_QUERIES = new ThreadLocal<>();
+
+    static {
+        describe("rb_http_request_seconds", "HTTP request latency");
+        describe("rb_http_request_queries_total", "Database queries issued by HTTP requests");
+        describe("rb_http_request_query_millis_total", "Database query time of HTTP requests (ms)");
+        describe("rb_http_request_repeated_queries_total", "HTTP requests with repeated query shapes (N+1)");
+        describe("rb_http_request_over_budget_total", "HTTP requests exceeding the query budget");
+        describe("rb_db_query_seconds", "Database query latency");
+        describe("rb_cache_hits_total", "Cache hits by key prefix");
+        describe("rb_cache_misses_total", "Cache misses by key prefix");
+        describe("rb_trigger_seconds", "Trigger execution time");
+        describe("rb_approval_seconds", "Approval submit/approve time");
+        describe("rb_task_running", "Running heavy tasks");
+        describe("rb_task_pending", "Pending heavy tasks");
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * @param name
+     * @param help
+     */
+    public static void describe(String name, String help) {
+        HELPS.put(name, help);
+    }
+
+    /**
+     * @param name
+     * @param labels 标签名/值交替
+     * @return
+     */
+    public static Counter counter(String name, String... labels) {
+        return (Counter) getOrCreate(name, labels, Counter::new);
+    }
+
+    /**
+     * @param name
+     * @param labels 标签名/值交替
+     * @return
+     */
+    public static Timer timer(String name, String... labels) {
+        return (Timer) getOrCreate(name, labels, Timer::new);
+    }
+
+    /**
+     * @param name
+     * @param supplier
+     * @param labels 标签名/值交替
+     */
+    public static void gauge(String name, Supplier<Number> supplier, String... labels) {
+        String key = name + formatLabels(labels);
+        METERS.put(key, new Gauge(name, formatLabels(labels), supplier));
+    }
+
+    private static Meter getOrCreate(String name, String[] labels, MeterFactory factory) {
+        String labels2 = formatLabels(labels);
+        String key = name + labels2;
+
+        Meter m = METERS.get(key);
+        if (m != null) return m;
+
+        // 序列过多
+        if (SERIES.computeIfAbsent(name, k -> new AtomicInteger()).get() >= MAX_SERIES) {
+            labels2 = "{overflow=\"" + OVERFLOW + "\"}";
+            key = name + labels2;
+        }
+
+        final String labels3 = labels2;
+        return METERS.computeIfAbsent(key, k -> {
+            SERIES.get(name).incrementAndGet();
+            return factory.create(name, labels3);
+        });
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels == null || labels.length == 0) return "";
+
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            String v = labels[i + 1] == null ? "" : labels[i + 1];
+            sb.append(labels[i]).append("=\"")
+                    .append(v.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    // -- Request
+
+    /**
+     * 开始统计当前请求
+     */
+    public static void beginRequest() {
+        REQUEST_QUERIES.set(new long[2]);
+    }
+
+    /**
+     * 结束统计当前请求
+     *
+     * @return [查询次数, 查询耗时ns]
+     */
+    public static long[] endRequest() {
+        long[] qs = REQUEST_QUERIES.get();
+        REQUEST_QUERIES.remove();
+        return qs;
+    }
+
+    /**
+     * 记录一次数据库查询
+     *
+     * @param nanos
+     */
+    public static void recordQuery(long nanos) {
+        timer("rb_db_query_seconds").record(nanos);
+
+        long[] qs = REQUEST_QUERIES.get();
+        if (qs != null) {
+            qs[0]++;
+            qs[1] += nanos;
+        }
+    }
+
+    /**
+     * 记录缓存命中
+     *
+     * @param key
+     * @param hit
+     */
+    public static void recordCache(String key, boolean hit) {
+        counter(hit ? "rb_cache_hits_total" : "rb_cache_misses_total", "prefix", keyPrefix(key)).increment();
+    }
+
+    /**
+     * 缓存 KEY 的前缀（首个非字母前的部分）
+     *
+     * @param key
+     * @return
+     */
+    protected static String keyPrefix(String key) {
+        int len = Math.min(key.length(), 40);
+        int i = 0;
+        while (i < len) {
+            char c = key.charAt(i);
+            if (!(Character.isLetter(c) || c == '_' || c == '.')) break;
+            i++;
+        }
+        return i == 0 ? "_" : key.substring(0, i);
+    }
+
+    // -- Output
+
+    /**
+     * Prometheus 文本格式
+     *
+     * @return
+     */
+    public static String scrape() {
+        Map<String, List<Meter>> byName = new TreeMap<>();
+        for (Meter m : METERS.values()) {
+            byName.computeIfAbsent(m.name, k -> new ArrayList<>()).add(m);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<Meter>> e : byName.entrySet()) {
+            List<Meter> meters = e.getValue();
+            meters.sort((a, b) -> a.labels.compareTo(b.labels));
+
+            String help = HELPS.get(e.getKey());
+            if (help != null) sb.append("# HELP ").append(e.getKey()).append(' ').append(help).append('\n');
+            sb.append("# TYPE ").append(e.getKey()).append(' ').append(meters.get(0).type()).append('\n');
+
+            for (Meter m : meters) {
+                try {
+                    m.write(sb);
+                } catch (Exception ex) {
+                    log.debug("Cannot write metric : {}", m.name, ex);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 仅用于测试
+     */
+    protected static void reset() {
+        METERS.clear();
+        SERIES.clear();
+    }
+
+    // --
+
+    private interface MeterFactory {
+        Meter create(String name, String labels);
+    }
+
+    /**
+     * 指标
+     */
+    private abstract static class Meter {
+        final String name;
+        final String labels;
+
+        Meter(String name, String labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        abstract String type();
+
+        abstract void write(StringBuilder sb);
+
+        // 追加标签
+        String withLabel(String label, String value) {
+            String add = label + "=\"" + value + "\"";
+            if (labels.isEmpty()) return "{" + add + "}";
+            return labels.substring(0, labels.length() - 1) + "," + add + "}";
+        }
+    }
+
+    /**
+     * 计数
+     */
+    public static class Counter extends Meter {
+        final LongAdder value = new LongAdder();
+
+        Counter(String name, String labels) {
+            super(name, labels);
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            sb.append(name).append(labels).append(' ').append(value.sum()).append('\n');
+        }
+    }
+
+    /**
+     * 计时（直方图）
+     */
+    public static class Timer extends Meter {
+        final LongAdder count = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+        final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+
+        Timer(String name, String labels) {
+            super(name, labels);
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        /**
+         * @param nanos
+         */
+        public void record(long nanos) {
+            count.increment();
+            sumNanos.add(nanos);
+
+            double seconds = nanos / 1e9;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+        }
+
+        /**
+         * @param startNanos {@link System#nanoTime()}
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                sb.append(name).append("_bucket").append(withLabel("le", String.valueOf(BUCKETS[i])))
+                        .append(' ').append(cumulative).append('\n');
+            }
+            long c = count.sum();
+            sb.append(name).append("_bucket").append(withLabel("le", "+Inf")).append(' ').append(c).append('\n');
+            sb.append(name).append("_sum").append(labels).append(' ').append(sumNanos.sum() / 1e9).append('\n');
+            sb.append(name).append("_count").append(labels).append(' ').append(c).append('\n');
+        }
+    }
+
+    /**
+     * 仪表
+     */
+    private static class Gauge extends Meter {
+        final Supplier<Number> supplier;
+
+        Gauge(String name, String labels, Supplier<Number> supplier) {
+            super(name, labels);
+            this.supplier = supplier;
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void write(StringBuilder sb) {
+            Number v = supplier.get();
+            sb.append(name).append(labels).append(' ').append(v == null ? 0 : v).append('\n');
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地（无锁）令牌桶，仅限当前实例
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class LocalTokenBuckets implements TokenBuckets {
+
+    // 超过此数量时清理已补满的桶
+    private static final int PURGE_SIZE = 10000;
+
+    // [桶, 理论到达时间 ns]
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger purgeCounter = new AtomicInteger();
+
+    @Override
+    public RateLimitResult acquire(String key, RateRule rule) {
+        final long period = rule.getPeriodMillis() * 1000000L;
+        final long interval = period / rule.getLimit();
+        final AtomicLong tatRef = buckets.computeIfAbsent(key + "@" + rule, k -> new AtomicLong(System.nanoTime()));
+
+        while (true) {
+            final long now = System.nanoTime();
+            final long tat = tatRef.get();
+            final long newTat = (tat - now > 0 ? tat : now) + interval;
+            final long allowAt = newTat - period;
+
+            if (now - allowAt < 0) {
+                return new RateLimitResult(false, rule.getLimit(), 0, toMillis(tat - now), toMillis(allowAt - now));
+            }
+            if (tatRef.compareAndSet(tat, newTat)) {
+                purgeIfNeed();
+                return new RateLimitResult(true, rule.getLimit(), (now - allowAt) / interval, toMillis(newTat - now), 0);
+            }
+        }
+    }
+
+    private void purgeIfNeed() {
+        if (buckets.size() < PURGE_SIZE || purgeCounter.incrementAndGet() % 1000 != 0) return;
+
+        final long now = System.nanoTime();
+        for (Map.Entry<String, AtomicLong> e : buckets.entrySet()) {
+            // 已补满的桶与新建的等价
+            if (e.getValue().get() - now <= 0) buckets.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * 重置
+     *
+     * @param key
+     */
+    public void reset(String key) {
+        buckets.keySet().removeIf(k -> k.startsWith(key + "@"));
+    }
+
+    private static long toMillis(long nanos) {
+        return (nanos + 999999) / 1000000;
+    }
+}
@@ -0,0 +1,77 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.ratelimit;
+
+import lombok.Getter;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 限流结果
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Getter
+public class RateLimitResult {
+
+    final private boolean allowed;
+    final private int limit;
+    final private long remaining;
+    // 令牌补满所需时间（ms）
+    final private long resetMillis;
+    // 被拒绝时可重试的时间（ms）
+    final private long retryAfterMillis;
+
+    /**
+     * @param allowed
+     * @param limit
+     * @param remaining
+     * @param resetMillis
+     * @param retryAfterMillis
+     */
+    public RateLimitResult(boolean allowed, int limit, long remaining, long resetMillis, long retryAfterMillis) {
+        this.allowed = allowed;
+        this.limit = limit;
+        this.remaining = Math.max(remaining, 0);
+        this.resetMillis = Math.max(resetMillis, 0);
+        this.retryAfterMillis = Math.max(retryAfterMillis, 0);
+    }
+
+    /**
+     * 是否比另一个更严格（拒绝优先，其次剩余较少的）
+     *
+     * @param other
+     * @return
+     */
+    public boolean stricterThan(RateLimitResult other) {
+        if (other == null) return true;
+        if (allowed != other.allowed) return !allowed;
+        if (!allowed) return retryAfterMillis > other.retryAfterMillis;
+        return remaining < other.remaining;
+    }
+
+    /**
+     * 输出到响应头
+     *
+     * @param response
+     */
+    public void writeHeaders(HttpServletResponse response) {
+        response.setHeader("X-RateLimit-Limit", String.valueOf(limit));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(remaining));
+        response.setHeader("X-RateLimit-Reset", String.valueOf((resetMillis + 999) / 1000));
+        if (!allowed) {
+            response.setHeader("Retry-After", String.valueOf(Math.max((retryAfterMillis + 999) / 1000, 1)));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (allowed ? "allowed" : "denied") + " " + remaining + "/" + limit;
+    }
+}
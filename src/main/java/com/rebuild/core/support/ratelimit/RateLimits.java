@@ -0,0 +1,104 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.ratelimit;
+
+import com.rebuild.core.Application;
+import com.rebuild.core.support.setup.Installer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * 限流。使用 redis 时为集群共享（{@link RedisTokenBuckets}），否则为本地（{@link LocalTokenBuckets}）。
+ * redis 不可用时临时使用本地限流
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Slf4j
+public class RateLimits {
+
+    /**
+     * 默认规则（API）
+     */
+    public static final RateRule[] RULES_API = new RateRule[] {
+            new RateRule(600, 10), new RateRule(6000, 60) };
+    /**
+     * 默认规则（API 认证前按 IP）。仅防止滥用，远高于 {@link #RULES_API}，以免限制同一 IP 下配额更高的 APPID
+     */
+    public static final RateRule[] RULES_API_IP = new RateRule[] {
+            new RateRule(6000, 10), new RateRule(60000, 60) };
+    /**
+     * 默认规则（登录）
+     */
+    public static final RateRule[] RULES_LOGIN = new RateRule[] {
+            new RateRule(5, 30), new RateRule(10, 60), new RateRule(100, 3600) };
+
+    private static final LocalTokenBuckets LOCAL = new LocalTokenBuckets();
+
+    private static volatile TokenBuckets SHARED;
+    private static volatile boolean CHECKED = false;
+
+    private RateLimits() {
+    }
+
+    /**
+     * 获取令牌（每个规则一个）
+     *
+     * @param key
+     * @param rules
+     * @return 最严格的结果（任一规则拒绝即拒绝）
+     */
+    public static RateLimitResult acquire(String key, RateRule... rules) {
+        Assert.notEmpty(rules, "No rate rules");
+        final TokenBuckets buckets = getBuckets();
+
+        RateLimitResult strictest = null;
+        for (RateRule rule : rules) {
+            RateLimitResult r;
+            try {
+                r = buckets.acquire(key, rule);
+            } catch (Exception ex) {
+                log.warn("Rate limit by redis failed, use local : {}", ex.getLocalizedMessage());
+                r = LOCAL.acquire(key, rule);
+            }
+
+            if (r.stricterThan(strictest)) strictest = r;
+            if (!r.isAllowed()) break;
+        }
+        return strictest;
+    }
+
+    /**
+     * @param key
+     * @param rules
+     * @return
+     * @see #acquire(String, RateRule...)
+     */
+    public static RateLimitResult acquire(String key, List<RateRule> rules) {
+        return acquire(key, rules.toArray(new RateRule[0]));
+    }
+
+    private static TokenBuckets getBuckets() {
+        if (CHECKED) return SHARED == null ? LOCAL : SHARED;
+        // 启动完成后再确定
+        if (!Application.isReady()) return LOCAL;
+
+        synchronized (RateLimits.class) {
+            if (!CHECKED) {
+                if (Installer.isUseRedis()) {
+                    SHARED = new RedisTokenBuckets(Application.getCommonsCache().getJedisPool());
+                    log.info("Use shared rate limits : redis");
+                }
+                CHECKED = true;
+            }
+        }
+        return SHARED == null ? LOCAL : SHARED;
+    }
+}
@@ -0,0 +1,97 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.ratelimit;
+
+import lombok.Getter;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.util.Assert;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 限流规则：每 `seconds` 秒 `limit` 次（令牌桶容量为 `limit`，匀速补充）
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Getter
+public class RateRule implements Serializable {
+    private static final long serialVersionUID = -2436547163384906322L;
+
+    /**
+     * 未指定 API 的规则（全部 API 共用）
+     */
+    public static final String ANY_API = "*";
+
+    final private int limit;
+    final private int seconds;
+
+    /**
+     * @param limit
+     * @param seconds
+     */
+    public RateRule(int limit, int seconds) {
+        Assert.isTrue(limit > 0 && seconds > 0, "Invalid rate rule : " + limit + "/" + seconds);
+        this.limit = limit;
+        this.seconds = seconds;
+    }
+
+    /**
+     * @return
+     */
+    public long getPeriodMillis() {
+        return seconds * 1000L;
+    }
+
+    @Override
+    public String toString() {
+        return limit + "/" + seconds;
+    }
+
+    /**
+     * 解析规则。如 `600/10`
+     *
+     * @param rule
+     * @return
+     */
+    public static RateRule parse(String rule) {
+        String[] ls = rule.trim().split("/");
+        Assert.isTrue(ls.length == 2, "Invalid rate rule : " + rule);
+        return new RateRule(Integer.parseInt(ls[0].trim()), Integer.parseInt(ls[1].trim()));
+    }
+
+    /**
+     * 解析多个规则（逗号或换行分割），可指定 API。
+     * 如 `600/10, 6000/60, entity/create=100/60`，未指定 API 的为全部 API 共用（{@link #ANY_API}）
+     *
+     * @param rules
+     * @return [API, [规则]]
+     */
+    public static Map<String, List<RateRule>> parseRules(String rules) {
+        Map<String, List<RateRule>> map = new LinkedHashMap<>();
+        if (StringUtils.isBlank(rules)) return map;
+
+        for (String item : rules.split("[,;\n]")) {
+            if (StringUtils.isBlank(item)) continue;
+
+            String api = ANY_API;
+            String rule = item;
+            int eq = item.indexOf('=');
+            if (eq > -1) {
+                api = item.substring(0, eq).trim();
+                rule = item.substring(eq + 1);
+            }
+            map.computeIfAbsent(api, k -> new ArrayList<>()).add(parse(rule));
+        }
+        return map;
+    }
+}
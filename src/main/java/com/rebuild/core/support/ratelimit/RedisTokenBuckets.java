@@ -0,0 +1,59 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.ratelimit;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基于 redis 的令牌桶（集群共享）。使用脚本原子执行，时间取 redis 服务器时间，不受各实例时钟影响
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class RedisTokenBuckets implements TokenBuckets {
+
+    private static final String KEY_PREFIX = "RBRL:";
+
+    // GCRA [是否允许, 剩余, 补满ms, 重试ms]
+    private static final String SCRIPT_ACQUIRE =
+            "if redis.replicate_commands then pcall(redis.replicate_commands) end " +
+            "local t = redis.call('time') " +
+            "local now = tonumber(t[1]) * 1000 + tonumber(t[2]) / 1000 " +
+            "local period = tonumber(ARGV[1]) " +
+            "local interval = period / tonumber(ARGV[2]) " +
+            "local tat = tonumber(redis.call('get', KEYS[1]) or now) " +
+            "if tat < now then tat = now end " +
+            "local newTat = tat + interval " +
+            "local allowAt = newTat - period " +
+            "if now < allowAt then return {0, 0, math.ceil(tat - now), math.ceil(allowAt - now)} end " +
+            "redis.call('set', KEYS[1], string.format('%.3f', newTat), 'PX', math.ceil(newTat - now)) " +
+            "return {1, math.floor((now - allowAt) / interval), math.ceil(newTat - now), 0}";
+
+    private final JedisPool jedisPool;
+
+    public RedisTokenBuckets(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public RateLimitResult acquire(String key, RateRule rule) {
+        List<Long> r;
+        try (Jedis jedis = jedisPool.getResource()) {
+            r = (List<Long>) jedis.eval(SCRIPT_ACQUIRE,
+                    Collections.singletonList(KEY_PREFIX + key + "@" + rule),
+                    Arrays.asList(String.valueOf(rule.getPeriodMillis()), String.valueOf(rule.getLimit())));
+        }
+        return new RateLimitResult(r.get(0) == 1, rule.getLimit(), r.get(1), r.get(2), r.get(3));
+    }
+}
@@ -0,0 +1,27 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.ratelimit;
+
+/**
+ * 令牌桶。实现使用 GCRA（Generic Cell Rate Algorithm），每个桶只需保存一个时间值（理论到达时间），
+ * 与容量 `limit`、每 `seconds` 秒补满的令牌桶等价
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public interface TokenBuckets {
+
+    /**
+     * 获取一个令牌
+     *
+     * @param key
+     * @param rule
+     * @return
+     */
+    RateLimitResult acquire(String key, RateRule rule);
+}
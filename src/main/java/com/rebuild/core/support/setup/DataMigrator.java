@@ -19,10 +19,12 @@ import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.metadata.MetadataSorter;
 import com.rebuild.core.metadata.easymeta.DisplayType;
 import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
+import com.rebuild.core.metadata.impl.IndexBackfillTask;
 import com.rebuild.core.privileges.UserService;
 import com.rebuild.core.support.ConfigurationItem;
 import com.rebuild.core.support.KVStorage;
 import com.rebuild.core.support.RebuildConfiguration;
+import com.rebuild.core.support.task.TaskExecutors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.BooleanUtils;
 
@@ -34,6 +36,7 @@ import org.apache.commons.lang.BooleanUtils;
 public class DataMigrator {
 
     private static final String KEY_41 = "DataMigratorV41";
+    private static final String KEY_INDEX = "DataMigratorIndexBackfill";
 
     /**
      * 辅助数据库升级
@@ -52,6 +55,22 @@ public class DataMigrator {
                 }
             });
         }
+
+        // 已有字段补建索引（一次性）
+        if (!BooleanUtils.toBoolean(KVStorage.getCustomValue(KEY_INDEX))) {
+            log.info("Index backfilling ...");
+            ThreadPool.exec(() -> {
+                IndexBackfillTask task = new IndexBackfillTask();
+                task.setUser(UserService.SYSTEM_USER);
+                TaskExecutors.run(task);
+
+                if (task.getErrorMessage() == null && !task.isInterrupted()) {
+                    KVStorage.setCustomValue(KEY_INDEX, "true");
+                } else {
+                    log.error("Index backfilling failed : {}", task.getErrorMessage());
+                }
+            });
+        }
     }
 
     // #41 多引用字段改为三方表
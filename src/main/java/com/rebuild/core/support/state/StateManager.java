@@ -10,7 +10,6 @@ package com.rebuild.core.support.state;
 import cn.devezhao.persist4j.Field;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
-import com.rebuild.core.Application;
 import com.rebuild.core.RebuildException;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
@@ -18,9 +17,13 @@ import com.rebuild.core.metadata.impl.EasyFieldConfigProps;
 import com.rebuild.core.metadata.impl.MetadataModificationException;
 import com.rebuild.core.service.approval.ApprovalState;
 import com.rebuild.core.support.i18n.Language;
+import com.rebuild.core.support.i18n.LanguageBundle;
 import com.rebuild.utils.JSONUtils;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 状态管理
  *
@@ -31,6 +34,9 @@ public class StateManager {
 
     public static final StateManager instance = new StateManager();
 
+    // 状态类为代码内定义，进程内缓存即可 <stateClass.locale, [LanguageBundle, options]>
+    private final Map<String, Object[]> stateOptionsCache = new ConcurrentHashMap<>();
+
     private StateManager() {
     }
 
@@ -57,14 +63,16 @@ public class StateManager {
             return JSONUtils.EMPTY_ARRAY;
         }
 
-        final String cKey = "STATECLASS-" + stateClass + "." + Language.getCurrentBundle().getLocale();
-        JSONArray options = (JSONArray) Application.getCommonsCache().getx(cKey);
-        if (options != null) {
-            return (JSONArray) JSONUtils.clone(options);
+        final LanguageBundle bundle = Language.getCurrentBundle();
+        final String cKey = stateClass + "." + bundle.getLocale();
+        Object[] cached = stateOptionsCache.get(cKey);
+        // 语言包刷新后重建
+        if (cached != null && cached[0] == bundle) {
+            return (JSONArray) JSONUtils.clone((JSONArray) cached[1]);
         }
 
         Class<?> state = StateHelper.getSatetClass(stateClass);
-        options = new JSONArray();
+        JSONArray options = new JSONArray();
         for (Object c : state.getEnumConstants()) {
             StateSpec ss = (StateSpec) c;
             JSONObject item = JSONUtils.toJSONObject(
@@ -73,8 +81,8 @@ public class StateManager {
             options.add(item);
         }
 
-        Application.getCommonsCache().putx(cKey, options);
-        return options;
+        stateOptionsCache.put(cKey, new Object[]{bundle, options});
+        return (JSONArray) JSONUtils.clone(options);
     }
 
     /**
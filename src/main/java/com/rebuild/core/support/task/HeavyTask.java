@@ -150,6 +150,15 @@ public abstract class HeavyTask<T> extends SetUser implements Runnable {
         return errorMessage;
     }
 
+    /**
+     * 任务分组，决定排队优先级及并发配额
+     *
+     * @return
+     */
+    public TaskGroup getTaskGroup() {
+        return TaskGroup.DEFAULT;
+    }
+
     // 中断处理。是否允许中断由子类决定（实现）
 
     public void interrupt() {
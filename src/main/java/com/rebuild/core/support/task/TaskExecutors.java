@@ -10,19 +10,31 @@ package com.rebuild.core.support.task;
 import cn.devezhao.commons.CodecUtils;
 import cn.devezhao.commons.ThreadPool;
 import cn.devezhao.persist4j.engine.ID;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.Application;
 import com.rebuild.core.RebuildException;
+import com.rebuild.core.support.KVStorage;
 import com.rebuild.core.support.distributed.DistributedJobLock;
+import com.rebuild.core.support.metrics.Metrics;
+import com.rebuild.utils.JSONUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * 任务执行调度/管理
+ * 任务执行调度/管理。
+ * 任务按分组 {@link TaskGroup} 的优先级排队，并受分组并发配额限制；
+ * 任务状态同步至缓存（启用 redis 时多节点共享），因此可跨节点查询进度及取消
  *
  * @author devezhao
  * @see org.springframework.core.task.SyncTaskExecutor
@@ -34,18 +46,71 @@ import java.util.concurrent.*;
 public class TaskExecutors extends DistributedJobLock {
 
     private static final int MAX_TASKS_NUMBER = Integer.max(Runtime.getRuntime().availableProcessors() / 2, 2);
+    // 最大排队数
+    private static final int MAX_PENDING_NUMBER = MAX_TASKS_NUMBER * 50;
 
+    // 并发由 #dispatch 控制，因此队列不会堆积
     private static final ExecutorService EXEC = new ThreadPoolExecutor(
             MAX_TASKS_NUMBER, MAX_TASKS_NUMBER, 0L, TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<>(MAX_TASKS_NUMBER * 6));
+            new LinkedBlockingQueue<>());
 
     private static final Map<String, HeavyTask<?>> TASKS = new ConcurrentHashMap<>();
 
+    // 排队中/执行中（按分组）
+    private static final PriorityQueue<Pending> PENDINGS = new PriorityQueue<>();
+    private static final Map<TaskGroup, Integer> RUNNINGS = new EnumMap<>(TaskGroup.class);
+    private static final AtomicLong PENDING_SEQ = new AtomicLong();
+
     // 队列执行
     private static final ExecutorService SINGLE_QUEUE = new ThreadPoolExecutor(
             1, 1, 0L, TimeUnit.MILLISECONDS,
             new LinkedBlockingQueue<>());
 
+    // 同步任务状态/检查取消请求
+    private static final ScheduledExecutorService MONITOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "HeavyTaskMonitor");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final int MONITOR_INTERVAL = 2;
+    static {
+        MONITOR.scheduleWithFixedDelay(TaskExecutors::monitor, MONITOR_INTERVAL, MONITOR_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    // 指标
+    static {
+        Metrics.gauge("rb_task_running", () -> {
+            synchronized (PENDINGS) {
+                return getRunningCount();
+            }
+        });
+        Metrics.gauge("rb_task_pending", () -> {
+            synchronized (PENDINGS) {
+                return PENDINGS.size();
+            }
+        });
+        Metrics.gauge("rb_task_single_queue", () -> ((ThreadPoolExecutor) SINGLE_QUEUE).getQueue().size());
+        for (TaskGroup g : TaskGroup.values()) {
+            Metrics.gauge("rb_task_group_running", () -> {
+                synchronized (PENDINGS) {
+                    return RUNNINGS.getOrDefault(g, 0);
+                }
+            }, "group", g.name());
+        }
+    }
+
+    private static final String CKEY_STATE = "HeavyTaskState-";
+    private static final String CKEY_CANCEL = "HeavyTaskCancel-";
+    private static final int STATE_TTL = 60 * 120;
+    // 超过此时间无心跳，视为执行节点已停止
+    private static final long HEARTBEAT_TIMEOUT = 60 * 1000;
+
+    // 可恢复的任务 > 重新提交
+    private static final Map<String, Runnable> RESUMABLES = new ConcurrentHashMap<>();
+    private static final String KEY_RESUMABLES = "TaskExecutors.Resumables";
+
+    volatile private static boolean shuttingDown = false;
+
     /**
      * 异步执行（提交给任务调度）
      *
@@ -56,22 +121,97 @@ public class TaskExecutors extends DistributedJobLock {
     public static String submit(HeavyTask<?> task, ID execUser) {
         String taskid = task.getClass().getSimpleName() + "-" + CodecUtils.randomCode(20);
         task.setUser(execUser);
-        EXEC.execute(task);
+
+        synchronized (PENDINGS) {
+            if (PENDINGS.size() >= MAX_PENDING_NUMBER) {
+                throw new RejectedExecutionException("Too many tasks in queue : " + PENDINGS.size());
+            }
+            PENDINGS.add(new Pending(taskid, task));
+        }
         TASKS.put(taskid, task);
+
+        if (RESUMABLES.containsKey(task.getClass().getName())) {
+            markResumable(task.getClass().getName(), taskid);
+        }
+        saveState(taskid, task);
+
+        dispatch();
         return taskid;
     }
 
     /**
-     * 取消执行
+     * 按优先级及分组配额分派执行
+     */
+    private static void dispatch() {
+        synchronized (PENDINGS) {
+            if (shuttingDown) return;
+
+            List<Pending> overQuota = new ArrayList<>();
+            while (getRunningCount() < MAX_TASKS_NUMBER && !PENDINGS.isEmpty()) {
+                final Pending p = PENDINGS.poll();
+                final TaskGroup group = p.task.getTaskGroup();
+                int running = RUNNINGS.getOrDefault(group, 0);
+                if (running >= group.getQuota(MAX_TASKS_NUMBER)) {
+                    overQuota.add(p);
+                    continue;
+                }
+
+                RUNNINGS.put(group, running + 1);
+                EXEC.execute(() -> execute(p));
+            }
+            PENDINGS.addAll(overQuota);
+        }
+    }
+
+    private static void execute(Pending p) {
+        try {
+            saveState(p.taskid, p.task);
+            p.task.run();
+        } finally {
+            synchronized (PENDINGS) {
+                RUNNINGS.merge(p.task.getTaskGroup(), -1, Integer::sum);
+            }
+
+            // 停止服务导致的中断，待重启后恢复
+            if (!shuttingDown && RESUMABLES.containsKey(p.task.getClass().getName())) {
+                markResumable(p.task.getClass().getName(), null);
+            }
+            saveState(p.taskid, p.task);
+
+            dispatch();
+        }
+    }
+
+    private static int getRunningCount() {
+        int c = 0;
+        for (Integer n : RUNNINGS.values()) c += n;
+        return c;
+    }
+
+    /**
+     * 取消执行（任务可能在其他节点执行）
      *
      * @param taskid
      */
     public static boolean cancel(String taskid) {
         HeavyTask<?> task = TASKS.get(taskid);
         if (task == null) {
-            throw new RebuildException("No Task found : " + taskid);
+            JSONObject state = getState(taskid);
+            if (state == null) {
+                throw new RebuildException("No Task found : " + taskid);
+            }
+
+            // 通知执行节点
+            Application.getCommonsCache().put(CKEY_CANCEL + taskid, taskid, STATE_TTL);
+            for (int i = 1; i <= 3; i++) {
+                ThreadPool.waitFor(i * 1000);
+                state = getState(taskid);
+                if (state != null && state.getBooleanValue("isInterrupted")) return true;
+            }
+            return false;
         }
-        task.interrupt();
+
+        if (cancelLocal(taskid, task)) return true;
 
         boolean interrupted = false;
         for (int i = 1; i <= 3; i++) {
@@ -85,7 +225,30 @@ public class TaskExecutors extends DistributedJobLock {
     }
 
     /**
-     * 获取任务
+     * @param taskid
+     * @param task
+     * @return 未开始执行的直接取消
+     */
+    private static boolean cancelLocal(String taskid, HeavyTask<?> task) {
+        task.interrupt();
+
+        boolean removed;
+        synchronized (PENDINGS) {
+            removed = PENDINGS.removeIf(p -> p.taskid.equals(taskid));
+        }
+        if (removed) {
+            task.setInterrupted();
+            task.completedAfter();
+            if (RESUMABLES.containsKey(task.getClass().getName())) {
+                markResumable(task.getClass().getName(), null);
+            }
+            saveState(taskid, task);
+        }
+        return removed;
+    }
+
+    /**
+     * 获取任务（仅本节点）
      *
      * @param taskid
      * @return
@@ -94,6 +257,20 @@ public class TaskExecutors extends DistributedJobLock {
         return TASKS.get(taskid);
     }
 
+    /**
+     * 获取任务状态（任务可能在其他节点执行）
+     *
+     * @param taskid
+     * @return
+     */
+    public static JSONObject getState(String taskid) {
+        HeavyTask<?> task = TASKS.get(taskid);
+        if (task != null) return formatState(task);
+
+        String s = Application.getCommonsCache().get(CKEY_STATE + taskid);
+        return s == null ? null : JSON.parseObject(s);
+    }
+
     /**
      * 同步执行
      *
@@ -112,13 +289,71 @@ public class TaskExecutors extends DistributedJobLock {
         SINGLE_QUEUE.execute(command);
     }
 
+    /**
+     * 注册可恢复的任务。此类任务因停止服务等未完成的，将在重启后通过 `resubmit` 重新提交（任务自行从断点继续）
+     *
+     * @param taskClass
+     * @param resubmit
+     */
+    public static void registerResumable(Class<? extends HeavyTask<?>> taskClass, Runnable resubmit) {
+        RESUMABLES.put(taskClass.getName(), resubmit);
+    }
+
+    /**
+     * 队列统计
+     *
+     * @return
+     */
+    public static JSONObject getStats() {
+        JSONObject groups = new JSONObject(true);
+        int pending = 0;
+        synchronized (PENDINGS) {
+            for (TaskGroup g : TaskGroup.values()) {
+                int gp = 0;
+                for (Pending p : PENDINGS) {
+                    if (p.task.getTaskGroup() == g) gp++;
+                }
+                pending += gp;
+
+                groups.put(g.name(), JSONUtils.toJSONObject(
+                        new String[] { "running", "pending", "quota" },
+                        new Object[] { RUNNINGS.getOrDefault(g, 0), gp, g.getQuota(MAX_TASKS_NUMBER) }));
+            }
+        }
+
+        JSONObject stats = new JSONObject(true);
+        stats.put("maxConcurrent", MAX_TASKS_NUMBER);
+        stats.put("running", getRunningCount());
+        stats.put("pending", pending);
+        stats.put("tasks", TASKS.size());
+        stats.put("singleQueue", ((ThreadPoolExecutor) SINGLE_QUEUE).getQueue().size());
+        stats.put("groups", groups);
+        return stats;
+    }
+
     /**
      * 停止任务执行器
      */
     public static void shutdown() {
+        shuttingDown = true;
+        MONITOR.shutdownNow();
+
+        // 中断执行中的任务，以便保存断点
+        for (HeavyTask<?> task : TASKS.values()) {
+            if (!task.isCompleted()) task.interrupt();
+        }
+        EXEC.shutdown();
+        try {
+            if (!EXEC.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Some task(s) were not stopped in time");
+            }
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+
         List<Runnable> t = EXEC.shutdownNow();
-        if (!t.isEmpty()) {
-            log.warn("{} task(s) were interrupted", t.size());
+        if (!t.isEmpty() || !PENDINGS.isEmpty()) {
+            log.warn("{} task(s) were interrupted", t.size() + PENDINGS.size());
         }
 
         List<Runnable> c = SINGLE_QUEUE.shutdownNow();
@@ -127,6 +362,95 @@ public class TaskExecutors extends DistributedJobLock {
         }
     }
 
+    // -- 状态
+
+    private static JSONObject formatState(HeavyTask<?> task) {
+        JSONObject state = new JSONObject();
+        state.put("total", task.getTotal());
+        state.put("progress", task.getCompletedPercent());
+        state.put("completed", task.getCompleted());
+        state.put("succeeded", task.getSucceeded());
+        state.put("isCompleted", task.isCompleted());
+        state.put("isInterrupted", task.isInterrupted());
+        state.put("elapsedTime", task.getElapsedTime());
+        state.put("hasError", task.getErrorMessage());
+        state.put("group", task.getTaskGroup().name());
+        return state;
+    }
+
+    private static void saveState(String taskid, HeavyTask<?> task) {
+        JSONObject state = formatState(task);
+        state.put("heartbeat", System.currentTimeMillis());
+        try {
+            Application.getCommonsCache().put(CKEY_STATE + taskid, state.toJSONString(), STATE_TTL);
+        } catch (Exception ex) {
+            log.warn("Cannot save task state : {}", taskid, ex);
+        }
+    }
+
+    private static void monitor() {
+        if (TASKS.isEmpty()) return;
+
+        for (Map.Entry<String, HeavyTask<?>> e : TASKS.entrySet()) {
+            HeavyTask<?> task = e.getValue();
+            if (task.isCompleted()) continue;
+
+            try {
+                if (Application.getCommonsCache().get(CKEY_CANCEL + e.getKey()) != null) {
+                    Application.getCommonsCache().evict(CKEY_CANCEL + e.getKey());
+                    log.info("Cancel task by request : {}", e.getKey());
+                    cancelLocal(e.getKey(), task);
+                }
+                saveState(e.getKey(), task);
+            } catch (Exception ex) {
+                log.warn("Monitor task failed : {}", e.getKey(), ex);
+            }
+        }
+    }
+
+    // -- 恢复
+
+    private static synchronized void markResumable(String taskClass, String taskid) {
+        JSONObject resumables = getResumables();
+        if (taskid == null) resumables.remove(taskClass);
+        else resumables.put(taskClass, taskid);
+
+        if (resumables.isEmpty()) KVStorage.removeCustomValue(KEY_RESUMABLES);
+        else KVStorage.setCustomValue(KEY_RESUMABLES, resumables.toJSONString());
+    }
+
+    private static JSONObject getResumables() {
+        String s = KVStorage.getCustomValue(KEY_RESUMABLES);
+        return s == null ? new JSONObject() : JSON.parseObject(s);
+    }
+
+    /**
+     * 恢复未完成的任务（执行节点已停止）
+     */
+    protected void resumeTasks() {
+        for (Map.Entry<String, Object> e : getResumables().entrySet()) {
+            final String taskid = (String) e.getValue();
+            if (TASKS.containsKey(taskid)) continue;
+
+            JSONObject state = getState(taskid);
+            if (state != null && !state.getBooleanValue("isCompleted")
+                    && System.currentTimeMillis() - state.getLongValue("heartbeat") < HEARTBEAT_TIMEOUT) {
+                continue;
+            }
+
+            Runnable resubmit = RESUMABLES.get(e.getKey());
+            if (resubmit == null) continue;
+
+            log.info("Resume task : {} ({})", e.getKey(), taskid);
+            markResumable(e.getKey(), null);
+            try {
+                resubmit.run();
+            } catch (Exception ex) {
+                log.error("Resume task failed : {}", e.getKey(), ex);
+            }
+        }
+    }
+
     // --
 
     @Scheduled(fixedRate = 300000, initialDelay = 300000)
@@ -142,18 +466,42 @@ public class TaskExecutors extends DistributedJobLock {
                 }
 
                 long leftTime = (System.currentTimeMillis() - task.getCompletedTime().getTime()) / 1000;
-                if (leftTime > 60 * 120) {
+                if (leftTime > STATE_TTL) {
                     TASKS.remove(e.getKey());
                     log.info("HeavyTask self-destroying : " + e.getKey());
                 }
                 completed++;
             }
             log.info("{} task(s) in the queue. {} is completed", TASKS.size(), completed);
+            log.info("Task stats : {}", getStats());
         }
         
         Queue<Runnable> queue = ((ThreadPoolExecutor) SINGLE_QUEUE).getQueue();
         if (!queue.isEmpty()) {
             log.info("{} command(s) in the single-queue", queue.size());
         }
+
+        resumeTasks();
+    }
+
+    /**
+     * 排队中的任务
+     */
+    private static class Pending implements Comparable<Pending> {
+        final String taskid;
+        final HeavyTask<?> task;
+        final long seq;
+
+        Pending(String taskid, HeavyTask<?> task) {
+            this.taskid = taskid;
+            this.task = task;
+            this.seq = PENDING_SEQ.incrementAndGet();
+        }
+
+        @Override
+        public int compareTo(Pending o) {
+            int c = Integer.compare(task.getTaskGroup().getPriority(), o.task.getTaskGroup().getPriority());
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
     }
 }
@@ -0,0 +1,65 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.task;
+
+/**
+ * 任务分组。决定排队优先级及并发配额，避免某类任务（如导入）占满执行线程
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see HeavyTask#getTaskGroup()
+ */
+public enum TaskGroup {
+
+    /**
+     * 批量操作（分配/共享/删除等），用户通常在等待结果
+     */
+    BULK(1, 1f),
+    /**
+     * 重建索引/编号等
+     */
+    REINDEX(2, 0.5f),
+    /**
+     * 导入/导出
+     */
+    IMPORT(3, 0.5f),
+    /**
+     * 默认
+     */
+    DEFAULT(3, 1f),
+    /**
+     * 系统维护（清理/归档等）
+     */
+    MAINTENANCE(4, 0),
+
+    ;
+
+    final private int priority;
+    final private float quotaRatio;
+
+    /**
+     * @param priority 越小越优先
+     * @param quotaRatio 最大并发占比（至少 1 个）
+     */
+    TaskGroup(int priority, float quotaRatio) {
+        this.priority = priority;
+        this.quotaRatio = quotaRatio;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @param maxConcurrent 总并发数
+     * @return
+     */
+    public int getQuota(int maxConcurrent) {
+        return Math.max((int) (maxConcurrent * quotaRatio), 1);
+    }
+}
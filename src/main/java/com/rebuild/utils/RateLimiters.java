@@ -27,7 +27,9 @@ public class RateLimiters {
 
     /**
      * for 登陆
+     * @deprecated 仅限当前实例，使用 {@link com.rebuild.core.support.ratelimit.RateLimits#RULES_LOGIN}
      */
+    @Deprecated
     public static final RequestRateLimiter RRL_LOGIN = createRateLimiter(
             new int[] { 30, 60, 3600 },
             new int[] { 5, 10, 100 });
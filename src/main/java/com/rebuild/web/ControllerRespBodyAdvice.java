@@ -44,6 +44,7 @@ public class ControllerRespBodyAdvice implements ResponseBodyAdvice<Object> {
     public Object beforeBodyWrite(Object o, MethodParameter methodParameter, MediaType mediaType, Class<? extends HttpMessageConverter<?>> aClass, ServerHttpRequest serverHttpRequest, ServerHttpResponse serverHttpResponse) {
         HttpServletRequest request = ((ServletServerHttpRequest) serverHttpRequest).getServletRequest();
         HttpServletResponse response = ((ServletServerHttpResponse) serverHttpResponse).getServletResponse();
+        RebuildWebInterceptor.addQueriesHeader(response);
 
         // #supports
         // Controller send status of error
@@ -10,9 +10,13 @@ package com.rebuild.web;
 import cn.devezhao.commons.web.ServletUtils;
 import cn.devezhao.commons.web.WebUtils;
 import cn.devezhao.persist4j.engine.ID;
+import com.rebuild.core.Application;
 import com.rebuild.core.support.ConfigurationItem;
 import com.rebuild.core.support.RebuildConfiguration;
+import com.rebuild.core.support.distributed.DistributedSupport;
+import com.rebuild.web.session.ExternalSessionFilter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -20,15 +24,14 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * 在线会话/用户
+ * 在线会话/用户。在线用户登记在 {@link DistributedSupport} 中（集群可见），
+ * 最近访问先记录在本地，定时批量写入
  *
  * @author devezhao
  * @since 09/27/2018
@@ -37,69 +40,136 @@ import java.util.concurrent.CopyOnWriteArraySet;
 @Component
 public class OnlineSessionStore implements HttpSessionListener {
 
-    private static final Set<HttpSession> ONLINE_SESSIONS = new CopyOnWriteArraySet<>();
-    private static final Map<ID, HttpSession> ONLINE_USERS = new ConcurrentHashMap<>();
+    // 本实例的容器会话
+    private static final Map<String, HttpSession> LOCAL_SESSIONS = new ConcurrentHashMap<>();
+    // 待写入的最近访问
+    private static final Map<String, Object[]> PENDING_ACTIVES = new ConcurrentHashMap<>();
 
-    /**
-     * 最近访问 [时间, 路径]
-     *
-     * @see #storeLastActive(HttpServletRequest)
-     */
-    public static final String SK_LASTACTIVE = WebUtils.KEY_PREFIX + "Session-LastActive";
+    private ConcurrentMap<String, Object[]> onlineUsers;
 
     @Override
     public void sessionCreated(HttpSessionEvent event) {
         if (log.isDebugEnabled()) log.info("Created session : {}", event.getSession().getId());
 
-        ONLINE_SESSIONS.add(event.getSession());
+        LOCAL_SESSIONS.put(event.getSession().getId(), event.getSession());
     }
 
     @Override
     public void sessionDestroyed(HttpSessionEvent event) {
         if (log.isDebugEnabled()) log.info("Destroyed session : {}", event.getSession().getId());
 
-        HttpSession s = event.getSession();
-        if (ONLINE_SESSIONS.contains(s)) {
-            ONLINE_SESSIONS.remove(s);
-        } else {
-            for (Map.Entry<ID, HttpSession> e : ONLINE_USERS.entrySet()) {
-                if (s.equals(e.getValue())) {
-                    ONLINE_USERS.remove(e.getKey());
-                    break;
-                }
+        LOCAL_SESSIONS.remove(event.getSession().getId());
+        removeSession(event.getSession().getId());
+    }
+
+    /**
+     * 在线用户（集群）
+     *
+     * @return [会话ID, [用户, 最近访问时间, 路径, IP]]
+     */
+    public Map<String, Object[]> getOnlineUsers() {
+        Map<String, Object[]> all = new HashMap<>(getOnlineUsersStore());
+        // 仅更新仍在线的（已销毁/登出的不算）
+        PENDING_ACTIVES.forEach((k, v) -> all.computeIfPresent(k, (kk, vv) -> v));
+
+        final long expires = getExpiresTime();
+        all.entrySet().removeIf(e -> {
+            if ((Long) e.getValue()[1] > expires) return false;
+            getOnlineUsersStore().remove(e.getKey());
+            return true;
+        });
+        return all;
+    }
+
+    /**
+     * 清理已过期会话的在线登记。外部会话过期时没有销毁事件，需定时清理
+     */
+    @Scheduled(fixedDelay = 60 * 1000, initialDelay = 60 * 1000)
+    protected void cleanExpired() {
+        final long expires = getExpiresTime();
+        final ConcurrentMap<String, Object[]> store = getOnlineUsersStore();
+
+        int cleaned = 0;
+        for (Map.Entry<String, Object[]> e : new HashMap<>(store).entrySet()) {
+            if ((Long) e.getValue()[1] > expires) continue;
+            // 本地还有未写入的访问
+            Object[] pending = PENDING_ACTIVES.get(e.getKey());
+            if (pending != null && (Long) pending[1] > expires) continue;
+
+            // 仅移除未变化的（期间有访问的保留）
+            if (store.remove(e.getKey(), e.getValue())) {
+                PENDING_ACTIVES.remove(e.getKey());
+                cleaned++;
             }
         }
+        if (cleaned > 0) log.info("Cleaned {} expired sessions", cleaned);
+    }
+
+    // 超过会话超时时间未访问视为离线
+    private long getExpiresTime() {
+        return System.currentTimeMillis() - ExternalSessionFilter.getMaxInactiveInterval() * 1000L;
     }
 
     /**
-     * 所有会话
+     * 销毁用户的所有会话
      *
+     * @param user
      * @return
      */
-    public Set<HttpSession> getAllSession() {
-        Set<HttpSession> all = new HashSet<>();
-        all.addAll(ONLINE_SESSIONS);
-        all.addAll(ONLINE_USERS.values());
-        return Collections.unmodifiableSet(all);
+    public int killSessions(ID user) {
+        int killed = 0;
+        for (Map.Entry<String, Object[]> e : getOnlineUsers().entrySet()) {
+            if (user.equals(e.getValue()[0])) {
+                killSession(e.getKey());
+                killed++;
+            }
+        }
+        return killed;
     }
 
     /**
-     * 用户会话
+     * 销毁会话。使用容器会话时仅能销毁本实例上的
      *
-     * @param user
-     * @return
+     * @param sessionId
      */
-    public HttpSession getSession(ID user) {
-        return ONLINE_USERS.get(user);
+    public void killSession(String sessionId) {
+        log.warn("Kill session : {}", sessionId);
+        removeSession(sessionId);
+
+        HttpSession s = LOCAL_SESSIONS.remove(sessionId);
+        if (s != null) {
+            try {
+                s.invalidate();
+            } catch (Throwable ignored) {
+            }
+        } else {
+            Application.getBean(ExternalSessionFilter.class).invalidate(sessionId);
+        }
+    }
+
+    /**
+     * 移除在线登记
+     *
+     * @param sessionId
+     */
+    public void removeSession(String sessionId) {
+        PENDING_ACTIVES.remove(sessionId);
+        getOnlineUsersStore().remove(sessionId);
     }
 
     /**
      * @param request
+     * @see #flushLastActive()
      */
     public void storeLastActive(HttpServletRequest request) {
-        HttpSession s = request.getSession();
-        s.setAttribute(SK_LASTACTIVE,
-                new Object[]{System.currentTimeMillis(), request.getRequestURI(), ServletUtils.getRemoteAddr(request)});
+        HttpSession s = request.getSession(false);
+        if (s == null) return;
+
+        ID user = (ID) s.getAttribute(WebUtils.CURRENT_USER);
+        if (user == null) return;
+
+        PENDING_ACTIVES.put(s.getId(),
+                new Object[]{user, System.currentTimeMillis(), request.getRequestURI(), ServletUtils.getRemoteAddr(request)});
     }
 
     /**
@@ -111,18 +181,42 @@ public class OnlineSessionStore implements HttpSessionListener {
         Assert.notNull(loginUser, "No login user found in session!");
 
         if (!RebuildConfiguration.getBool(ConfigurationItem.MultipleSessions)) {
-            HttpSession previous = getSession((ID) loginUser);
-            if (previous != null) {
-                log.warn("Kill previous session : {} < {}", loginUser, previous.getId());
-
-                try {
-                    previous.invalidate();
-                } catch (Throwable ignored) {
+            for (Map.Entry<String, Object[]> e : getOnlineUsers().entrySet()) {
+                if (loginUser.equals(e.getValue()[0]) && !e.getKey().equals(s.getId())) {
+                    log.warn("Kill previous session : {} < {}", loginUser, e.getKey());
+                    killSession(e.getKey());
                 }
             }
         }
 
-        ONLINE_SESSIONS.remove(s);
-        ONLINE_USERS.put((ID) loginUser, s);
+        getOnlineUsersStore().put(s.getId(),
+                new Object[]{loginUser, System.currentTimeMillis(), request.getRequestURI(), ServletUtils.getRemoteAddr(request)});
+    }
+
+    /**
+     * 批量写入最近访问
+     */
+    @Scheduled(fixedDelay = 30 * 1000, initialDelay = 30 * 1000)
+    protected void flushLastActive() {
+        if (PENDING_ACTIVES.isEmpty()) return;
+
+        Map<String, Object[]> batch = new HashMap<>(PENDING_ACTIVES);
+        // 写入期间有新访问的保留
+        batch.forEach(PENDING_ACTIVES::remove);
+
+        // 仅替换已登记的，避免已销毁/登出的会话被重新登记
+        final ConcurrentMap<String, Object[]> store = getOnlineUsersStore();
+        int skipped = 0;
+        for (Map.Entry<String, Object[]> e : batch.entrySet()) {
+            if (store.replace(e.getKey(), e.getValue()) == null) skipped++;
+        }
+        if (skipped > 0 && log.isDebugEnabled()) log.debug("Skipped {} inactive sessions", skipped);
+    }
+
+    private ConcurrentMap<String, Object[]> getOnlineUsersStore() {
+        if (onlineUsers == null) {
+            onlineUsers = Application.getBean(DistributedSupport.class).getMap("OnlineUsers");
+        }
+        return onlineUsers;
     }
 }
@@ -15,12 +15,14 @@ import com.rebuild.api.RespBody;
 import com.rebuild.core.Application;
 import com.rebuild.core.DefinedException;
 import com.rebuild.core.ServerStatus;
+import com.rebuild.core.service.query.QueryTracker;
 import com.rebuild.core.UserContextHolder;
 import com.rebuild.core.cache.CommonsCache;
 import com.rebuild.core.privileges.UserHelper;
 import com.rebuild.core.privileges.bizz.ZeroEntry;
 import com.rebuild.core.support.*;
 import com.rebuild.core.support.i18n.Language;
+import com.rebuild.core.support.metrics.Metrics;
 import com.rebuild.core.support.setup.InstallState;
 import com.rebuild.utils.AppUtils;
 import com.rebuild.utils.CommonsUtils;
@@ -33,11 +35,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * 请求拦截
@@ -79,6 +83,9 @@ public class RebuildWebInterceptor implements AsyncHandlerInterceptor, InstallSt
 
         final RequestEntry requestEntry = new RequestEntry(request, locale);
         REQUEST_ENTRY.set(requestEntry);
+        Metrics.beginRequest();
+        QueryTracker.clear();
+        QueryTracker.begin();
 
         // Lang
         request.setAttribute(WebConstants.LOCALE, requestEntry.getLocale());
@@ -179,7 +186,8 @@ public class RebuildWebInterceptor implements AsyncHandlerInterceptor, InstallSt
 
     @Override
     public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
-        // Notings
+        // 页面（JSON 响应见 ControllerRespBodyAdvice）
+        if (modelAndView != null) addQueriesHeader(response);
     }
 
     @Override
@@ -193,10 +201,58 @@ public class RebuildWebInterceptor implements AsyncHandlerInterceptor, InstallSt
             log.warn("Method handle time {} ms. Request URL(s) {}", time, RebuildWebConfigurer.getRequestUrls(request));
         }
 
+        // 指标
+        long[] queries = Metrics.endRequest();
+        QueryTracker.Tracking tracking = QueryTracker.end();
+        QueryTracker.clear();
+        if (requestEntry != null) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String handle = pattern == null ? "_unmapped" : pattern.toString();
+            String status = (response.getStatus() / 100) + "xx";
+
+            Metrics.timer("rb_http_request_seconds", "handler", handle, "method", request.getMethod(), "status", status)
+                    .record(time * 1000000L);
+            if (queries != null) {
+                Metrics.counter("rb_http_request_queries_total", "handler", handle).add(queries[0]);
+                Metrics.counter("rb_http_request_query_millis_total", "handler", handle).add(queries[1] / 1000000);
+            }
+            if (tracking != null) checkQueries(tracking, handle, request);
+        }
+
         // 清理用户
         UserContextHolder.clear();
     }
 
+    // 查询过多/重复查询（N+1）
+    private void checkQueries(QueryTracker.Tracking queries, String handle, HttpServletRequest request) {
+        if (queries.isOverBudget()) {
+            Metrics.counter("rb_http_request_over_budget_total", "handler", handle).increment();
+            log.warn("Too many queries ({}) in request : {}", queries.getCount(), request.getRequestURI());
+        }
+
+        Map<String, Integer> repeated = queries.getRepeated();
+        if (!repeated.isEmpty()) {
+            Metrics.counter("rb_http_request_repeated_queries_total", "handler", handle).increment();
+            if (log.isWarnEnabled()) {
+                Map.Entry<String, Integer> top = repeated.entrySet().iterator().next();
+                log.warn("Repeated queries (N+1?) in request : {}\n  x{} {}",
+                        request.getRequestURI(), top.getValue(), top.getKey());
+            }
+        }
+    }
+
+    /**
+     * 开发模式下输出当前请求的查询次数
+     *
+     * @param response
+     */
+    protected static void addQueriesHeader(HttpServletResponse response) {
+        if (!Application.devMode() || response.isCommitted()) return;
+
+        QueryTracker.Tracking queries = QueryTracker.current();
+        if (queries != null) response.setHeader("X-RB-Queries", queries.toString());
+    }
+
     private String detectLocale(HttpServletRequest request, HttpServletResponse response) {
         String rbmobLocale = request.getHeader(AppUtils.HF_LOCALE);
         if (rbmobLocale != null) return rbmobLocale;
@@ -7,16 +7,27 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.web.admin;
 
+import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.persist4j.Field;
+import com.alibaba.fastjson.JSON;
+import com.rebuild.core.UserContextHolder;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.metadata.impl.IndexAdvisor;
+import com.rebuild.core.service.general.recyclebin.RecycleBinCleanerJob;
+import com.rebuild.core.service.general.recyclebin.RetentionPurgeTask;
+import com.rebuild.core.service.query.SlowQueryStore;
 import com.rebuild.core.support.ConfigurationItem;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.setup.DatafileBackup;
 import com.rebuild.core.support.setup.DatabaseBackup;
 import com.rebuild.core.support.setup.Installer;
+import com.rebuild.core.support.task.TaskExecutors;
 import com.rebuild.utils.AES;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -32,6 +43,10 @@ public class AdminCLI2 {
     private static final String C_SYSCFG = "syscfg";
     private static final String C_BACKUP = "backup";
     private static final String C_AES = "aes";
+    private static final String C_SLOWQUERY = "slowquery";
+    private static final String C_INDEX = "index";
+    private static final String C_PURGE = "purge";
+    private static final String C_TASK = "task";
 
     final private String[] commands;
 
@@ -65,7 +80,11 @@ public class AdminCLI2 {
                         " \ncache [clean]" +
                         " \nsyscfg NAME [VALUE]" +
                         " \nbackup [database|datafile]" +
-                        " \naes [decrypt] [VALUE]";
+                        " \naes [decrypt] [VALUE]" +
+                        " \nslowquery [recent|clean]" +
+                        " \nindex [suggest|apply ENTITY.FIELD]" +
+                        " \npurge [status|pause|resume|cancel]" +
+                        " \ntask [stats|cancel TASKID]";
                 break;
             }
             case C_CACHE: {
@@ -84,6 +103,22 @@ public class AdminCLI2 {
                 result = this.execAes();
                 break;
             }
+            case C_SLOWQUERY: {
+                result = this.execSlowquery();
+                break;
+            }
+            case C_INDEX: {
+                result = this.execIndex();
+                break;
+            }
+            case C_PURGE: {
+                result = this.execPurge();
+                break;
+            }
+            case C_TASK: {
+                result = this.execTask();
+                break;
+            }
             default: {
                 // NOOP
             }
@@ -171,4 +206,124 @@ public class AdminCLI2 {
             return AES.encrypt(value);
         }
     }
+
+    /**
+     * @return
+     * @see SlowQueryStore
+     */
+    protected String execSlowquery() {
+        String type = commands.length > 1 ? commands[1] : null;
+
+        if ("clean".equals(type)) {
+            SlowQueryStore.clean();
+            return "OK";
+        }
+
+        List<String> result = new ArrayList<>();
+        if ("recent".equals(type)) {
+            for (SlowQueryStore.SlowQuery q : SlowQueryStore.getRecent()) {
+                result.add(String.format("%s %dms rows %d [%s] %s%s",
+                        CalendarUtils.getUTCDateTimeFormat().format(new Date(q.getTime())), q.getCost(), q.getRows(),
+                        StringUtils.defaultIfBlank(q.getCaller(), "-"), q.getSql(),
+                        q.getAjql() == null ? "" : "\n    AJQL : " + q.getAjql()));
+                if (result.size() >= 50) break;
+            }
+        } else {
+            for (SlowQueryStore.QueryShape s : SlowQueryStore.aggregate()) {
+                result.add(s.toString());
+                if (result.size() >= 50) break;
+            }
+        }
+        return result.isEmpty() ? "No slow query" : StringUtils.join(result, "\n");
+    }
+
+    /**
+     * @return
+     * @see IndexAdvisor
+     */
+    protected String execIndex() {
+        String type = commands.length > 1 ? commands[1] : "suggest";
+
+        if ("apply".equals(type)) {
+            if (commands.length < 3) return "Bad arguments";
+
+            String[] ef = commands[2].split("\\.");
+            if (ef.length != 2 || !MetadataHelper.containsField(ef[0], ef[1])) {
+                return "Bad arguments [2] : " + commands[2];
+            }
+
+            Field field = MetadataHelper.getField(ef[0], ef[1]);
+            try {
+                IndexAdvisor.apply(field, UserContextHolder.getUser());
+                return "OK";
+            } catch (Exception ex) {
+                return "Exec failed : " + ex.getLocalizedMessage();
+            }
+        }
+
+        if ("suggest".equals(type)) {
+            List<String> result = new ArrayList<>();
+            for (IndexAdvisor.Suggestion s : IndexAdvisor.suggest()) {
+                result.add(s + "\n    > index apply " + s.getField().getOwnEntity().getName() + "." + s.getField().getName());
+            }
+            return result.isEmpty() ? "No suggestion" : StringUtils.join(result, "\n");
+        }
+
+        return "Bad arguments";
+    }
+
+    /**
+     * @return
+     * @see RetentionPurgeTask
+     */
+    protected String execPurge() {
+        String type = commands.length > 1 ? commands[1] : "status";
+
+        RetentionPurgeTask task = RecycleBinCleanerJob.getPurgeTask();
+        if (task == null) return "No purge task";
+
+        if ("pause".equals(type)) {
+            task.pause();
+            return "OK";
+        }
+        if ("resume".equals(type)) {
+            task.resume();
+            return "OK";
+        }
+        if ("cancel".equals(type)) {
+            return TaskExecutors.cancel(RecycleBinCleanerJob.getPurgeTaskId()) ? "OK" : "Cancel failed";
+        }
+
+        if ("status".equals(type)) {
+            String state = task.isCompleted() ? (task.isInterrupted() ? "CANCELED" : "COMPLETED")
+                    : (task.isPaused() ? "PAUSED" : "RUNNING");
+            return String.format("%s : %s, %d deleted, %ds elapsed%s",
+                    RecycleBinCleanerJob.getPurgeTaskId(), state, task.getSucceeded(), task.getElapsedTime() / 1000,
+                    task.getErrorMessage() == null ? "" : "\n    ERROR : " + task.getErrorMessage());
+        }
+
+        return "Bad arguments";
+    }
+
+    /**
+     * 任务队列
+     *
+     * @return
+     * @see TaskExecutors
+     */
+    protected String execTask() {
+        String type = commands.length > 1 ? commands[1] : "stats";
+
+        if ("cancel".equals(type)) {
+            if (commands.length < 3) return "Bad arguments";
+            if (TaskExecutors.getState(commands[2]) == null) return "No task found : " + commands[2];
+            return TaskExecutors.cancel(commands[2]) ? "OK" : "Cancel failed";
+        }
+
+        if ("stats".equals(type)) {
+            return JSON.toJSONString(TaskExecutors.getStats(), true);
+        }
+
+        return "Bad arguments";
+    }
 }
@@ -15,8 +15,10 @@ import com.rebuild.api.RespBody;
 import com.rebuild.core.Application;
 import com.rebuild.core.configuration.RebuildApiService;
 import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.support.ratelimit.RateRule;
 import com.rebuild.core.support.i18n.I18nUtils;
 import com.rebuild.web.BaseController;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.RandomUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -42,7 +44,7 @@ public class ApisManagerController extends BaseController {
     @RequestMapping("apis-manager/app-list")
     public RespBody appList() {
         Object[][] apps = Application.createQueryNoFilter(
-                "select uniqueId,appId,appSecret,bindUser,bindUser.fullName,createdOn,appId from RebuildApi")
+                "select uniqueId,appId,appSecret,bindUser,bindUser.fullName,createdOn,appId,rateLimits from RebuildApi")
                 .array();
 
         // 近30日用量
@@ -64,20 +66,46 @@ public class ApisManagerController extends BaseController {
     public RespBody appCreate(HttpServletRequest request) {
         ID user = getRequestUser(request);
         ID bindUser = getIdParameter(request, "bind");
+        String rateLimits = getParameter(request, "rateLimits");
+        if (!isValidRateLimits(rateLimits)) return RespBody.errorl("无效限流规则");
 
         Record record = EntityHelper.forNew(EntityHelper.RebuildApi, user);
         record.setString("appId", (100000000 + RandomUtils.nextInt(899999999)) + "");
         record.setString("appSecret", CodecUtils.randomCode(40));
         record.setID("bindUser", bindUser);
+        if (StringUtils.isNotBlank(rateLimits)) record.setString("rateLimits", rateLimits.trim());
         Application.getBean(RebuildApiService.class).create(record);
 
         return RespBody.ok();
     }
 
+    @RequestMapping("apis-manager/app-update")
+    public RespBody appUpdate(HttpServletRequest request) {
+        ID id = getIdParameterNotNull(request, "id");
+        String rateLimits = getParameter(request, "rateLimits");
+        if (!isValidRateLimits(rateLimits)) return RespBody.errorl("无效限流规则");
+
+        Record record = EntityHelper.forUpdate(id, getRequestUser(request));
+        if (StringUtils.isBlank(rateLimits)) record.setNull("rateLimits");
+        else record.setString("rateLimits", rateLimits.trim());
+        Application.getBean(RebuildApiService.class).update(record);
+
+        return RespBody.ok();
+    }
+
     @RequestMapping("apis-manager/app-delete")
     public RespBody appDelete(HttpServletRequest request) {
         ID id = getIdParameterNotNull(request, "id");
         Application.getBean(RebuildApiService.class).delete(id);
         return RespBody.ok();
     }
+
+    private boolean isValidRateLimits(String rateLimits) {
+        try {
+            RateRule.parseRules(rateLimits);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
 }
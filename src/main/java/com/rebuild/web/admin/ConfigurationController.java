@@ -88,8 +88,11 @@ public class ConfigurationController extends BaseController {
         ConfigurationItem[] validNumbers = new ConfigurationItem[] {
                 ConfigurationItem.RecycleBinKeepingDays,
                 ConfigurationItem.RevisionHistoryKeepingDays,
+                ConfigurationItem.LogArchiveDays,
+                ConfigurationItem.LogArchiveKeepingDays,
                 ConfigurationItem.DBBackupsKeepingDays,
-                ConfigurationItem.PasswordExpiredDays
+                ConfigurationItem.PasswordExpiredDays,
+                ConfigurationItem.TriggerCostBudget
         };
         for (ConfigurationItem item : validNumbers) {
             String number = defaultIfBlank(data, item);
@@ -0,0 +1,66 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.admin.audit;
+
+import cn.devezhao.persist4j.Entity;
+import com.rebuild.api.RespBody;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.support.archive.ArchiveStore;
+import com.rebuild.utils.JSONUtils;
+import com.rebuild.web.BaseController;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+
+/**
+ * 已归档日志查询
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ArchiveStore
+ */
+@RestController
+@RequestMapping("/admin/audit/archived-logs/")
+public class ArchivedLogsController extends BaseController {
+
+    @GetMapping("months")
+    public RespBody months(HttpServletRequest request) {
+        Entity entity = getArchivableEntity(request);
+        if (entity == null) return RespBody.error();
+
+        List<String> months = ArchiveStore.listMonths(entity);
+        return RespBody.ok(months);
+    }
+
+    @GetMapping("list")
+    public RespBody list(HttpServletRequest request) {
+        Entity entity = getArchivableEntity(request);
+        if (entity == null) return RespBody.error();
+
+        String month = getParameterNotNull(request, "month");
+        if (!month.matches("\\d{6}")) return RespBody.error();
+
+        int pageNo = getIntParameter(request, "pageNo", 1);
+        int pageSize = getIntParameter(request, "pageSize", 40);
+        Object[] res = ArchiveStore.query(entity, month, getParameter(request, "q"),
+                (pageNo - 1) * pageSize, pageSize);
+
+        return RespBody.ok(JSONUtils.toJSONObject(new String[] { "total", "data" }, res));
+    }
+
+    private Entity getArchivableEntity(HttpServletRequest request) {
+        String entity = getParameterNotNull(request, "entity");
+        if (!MetadataHelper.containsEntity(entity)) return null;
+
+        Entity e = MetadataHelper.getEntity(entity);
+        return ArchiveStore.isArchivable(e) ? e : null;
+    }
+}
@@ -7,7 +7,6 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.web.admin.audit;
 
-import cn.devezhao.commons.web.WebUtils;
 import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
@@ -20,7 +19,6 @@ import com.rebuild.core.support.i18n.I18nUtils;
 import com.rebuild.utils.JSONUtils;
 import com.rebuild.utils.LocationUtils;
 import com.rebuild.web.EntityController;
-import com.rebuild.web.OnlineSessionStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -28,7 +26,6 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
 import java.util.Date;
 
 /**
@@ -51,21 +48,13 @@ public class LoginLogController extends EntityController {
     @GetMapping("/admin/audit/online-users")
     public JSON getOnlineUsers() {
         JSONArray users = new JSONArray();
-        for (HttpSession s : Application.getSessionStore().getAllSession()) {
-            ID user = (ID) s.getAttribute(WebUtils.CURRENT_USER);
-            if (user == null) continue;
-
-            Object[] active = (Object[]) s.getAttribute(OnlineSessionStore.SK_LASTACTIVE);
-            if (active == null) {
-                active = new Object[]{ null, "/dashboard/home", null };
-            } else {
-                active = active.clone();
-                active[0] = I18nUtils.formatDate(new Date((Long) active[0]));
-            }
+        for (Object[] active : Application.getSessionStore().getOnlineUsers().values()) {
+            ID user = (ID) active[0];
+            String activeTime = I18nUtils.formatDate(new Date((Long) active[1]));
 
             JSONObject item = JSONUtils.toJSONObject(
                     new String[] { "user", "fullName", "activeTime", "activeUrl", "activeIp" },
-                    new Object[] { user, UserHelper.getName(user), active[0], active[1], active[2] });
+                    new Object[] { user, UserHelper.getName(user), activeTime, active[2], active[3] });
             users.add(item);
         }
         return users;
@@ -75,14 +64,8 @@ public class LoginLogController extends EntityController {
     public RespBody killSession(HttpServletRequest request) {
         final ID user = getIdParameterNotNull(request, "user");
 
-        HttpSession s = Application.getSessionStore().getSession(user);
-        if (s != null) {
-            log.warn("Kill session via admin : " + user + " < " + s.getId());
-            try {
-                s.invalidate();
-            } catch (Exception ignored) {
-            }
-        }
+        int c = Application.getSessionStore().killSessions(user);
+        if (c > 0) log.warn("Kill session via admin : {} ({})", user, c);
         return RespBody.ok();
     }
 
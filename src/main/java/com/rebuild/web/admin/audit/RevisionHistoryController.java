@@ -13,9 +13,11 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.rebuild.core.Application;
+import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.metadata.easymeta.EasyField;
 import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
+import com.rebuild.core.support.archive.ArchiveStore;
 import com.rebuild.core.support.i18n.Language;
 import com.rebuild.web.EntityController;
 import com.rebuild.web.IdParam;
@@ -45,6 +47,15 @@ public class RevisionHistoryController extends EntityController {
                 "select revisionContent,belongEntity from RevisionHistory where revisionId = ?")
                 .setParameter(1, revisionId)
                 .unique();
+
+        // 已归档
+        if (rev == null) {
+            JSONObject archived = ArchiveStore.find(
+                    MetadataHelper.getEntity(EntityHelper.RevisionHistory), revisionId.toLiteral());
+            if (archived == null) return new JSONArray();
+            rev = new Object[] { archived.getString("revisionContent"), archived.getString("belongEntity") };
+        }
+
         JSONArray contents = JSON.parseArray((String) rev[0]);
 
         // 补充字段名称
@@ -30,7 +30,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -137,11 +136,8 @@ public class UserController extends EntityController {
 
         // 禁用后马上销毁会话
         if (!enUser.isActive()) {
-            HttpSession s = Application.getSessionStore().getSession(enUser.getId());
-            if (s != null) {
-                log.warn("FORCE DESTROY USER SESSION : {} < {}", enUser.getId(), s.getId());
-                s.invalidate();
-            }
+            int c = Application.getSessionStore().killSessions(enUser.getId());
+            if (c > 0) log.warn("FORCE DESTROY USER SESSION : {} ({})", enUser.getId(), c);
         }
 
         return RespBody.ok();
@@ -0,0 +1,72 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.commons;
+
+import com.rebuild.core.support.ConfigurationItem;
+import com.rebuild.core.support.RebuildConfiguration;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地文件下载限制（并发数/单个速率），避免大文件下载占满容器线程。
+ * 仅用于附件下载（图片/缩略图/头像等不受限），且仅计入由请求线程传输的（sendfile 不占用请求线程）
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ConfigurationItem#DownloadMaxConcurrent
+ * @see ConfigurationItem#DownloadMaxRate
+ */
+@Slf4j
+class DownloadLimiter {
+
+    // 默认最大并发数
+    private static final int DEFAULT_MAX_CONCURRENT = 50;
+
+    // 进行中的下载数
+    private static final AtomicInteger IN_PROGRESS = new AtomicInteger(0);
+
+    private DownloadLimiter() {
+    }
+
+    /**
+     * 无空闲时立即返回（不阻塞请求线程），由调用方响应 429
+     *
+     * @return
+     */
+    static boolean acquire() {
+        // 每次读取配置，变更后即生效
+        final int max = getMaxConcurrent();
+        while (true) {
+            int n = IN_PROGRESS.get();
+            if (n >= max) {
+                log.warn("Too many downloads in progress ({}), rejected", n);
+                return false;
+            }
+            if (IN_PROGRESS.compareAndSet(n, n + 1)) return true;
+        }
+    }
+
+    /**
+     */
+    static void release() {
+        IN_PROGRESS.decrementAndGet();
+    }
+
+    /**
+     * @return bytes/s，0 为不限
+     */
+    static long getMaxRate() {
+        return Math.max(RebuildConfiguration.getInt(ConfigurationItem.DownloadMaxRate), 0) * 1024L;
+    }
+
+    private static int getMaxConcurrent() {
+        int max = RebuildConfiguration.getInt(ConfigurationItem.DownloadMaxConcurrent);
+        return max > 0 ? max : DEFAULT_MAX_CONCURRENT;
+    }
+}
@@ -15,6 +15,7 @@ import com.rebuild.api.user.AuthTokenManager;
 import com.rebuild.core.Application;
 import com.rebuild.core.RebuildException;
 import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.service.files.ThumbnailCache;
 import com.rebuild.core.support.CsrfToken;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.i18n.Language;
@@ -23,8 +24,6 @@ import com.rebuild.utils.AppUtils;
 import com.rebuild.utils.RbAssert;
 import com.rebuild.web.BaseController;
 import lombok.extern.slf4j.Slf4j;
-import net.coobird.thumbnailator.Thumbnails;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -32,16 +31,19 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import javax.imageio.ImageIO;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 文件下载/查看
@@ -91,7 +93,7 @@ public class FileDownloader extends BaseController {
 
             // 原图
             if (wh <= 0 || wh >= 1000) {
-                writeLocalFile(filePath, temp, response);
+                writeLocalFile(filePath, temp, request, response);
             }
             // 粗略图
             else {
@@ -103,27 +105,14 @@ public class FileDownloader extends BaseController {
                     return;
                 }
 
-                BufferedImage bi = ImageIO.read(img);
-                if (bi == null) {
-                    log.debug("Unsupport image type : {}", filePath);
-                    writeStream(Files.newInputStream(img.toPath()), response);
-                    return;
-                }
-
-                Thumbnails.Builder<BufferedImage> builder = Thumbnails.of(bi);
-                if (bi.getWidth() > wh) {
-                    builder.size(wh, wh);
+                // 缩略图（缓存）
+                final boolean png = mimeType != null && mimeType.contains("png");
+                File thumb = ThumbnailCache.getThumbnail(img, wh, png);
+                if (thumb != null) {
+                    response.setContentType(png ? "image/png" : "image/jpeg");
+                    writeLocalFile(thumb, request, response);
                 } else {
-                    builder.scale(1.0);
-                }
-
-                try {
-                    builder
-                            .outputFormat(mimeType != null && mimeType.contains("png") ? "png" : "jpg")
-                            .toOutputStream(response.getOutputStream());
-                } catch (IOException ex) {
-                    // ClientAbortException
-                    log.info("SUPPRESS : {}", ex.getLocalizedMessage());
+                    writeLocalFile(img, request, response);
                 }
             }
 
@@ -180,14 +169,18 @@ public class FileDownloader extends BaseController {
         String attname = getParameter(request, "attname");
         if (StringUtils.isBlank(attname)) attname = QiniuCloud.parseFileName(filePath);
 
-        ServletUtils.setNoCacheHeaders(response);
-
         // Local storage || temp
         if (!QiniuCloud.instance().available() || temp) {
+            // 每次验证（ETag/Last-Modified）
+            response.setHeader("Cache-Control", "private, no-cache");
             setDownloadHeaders(request, response, attname,
                     request.getRequestURI().contains("/filex/access/") && filePath.toLowerCase().endsWith(".pdf"));
-            writeLocalFile(filePath, temp, response);
+            // 附件下载受限
+            filePath = checkFilePath(filePath);
+            File file = temp ? RebuildConfiguration.getFileOfTemp(filePath) : RebuildConfiguration.getFileOfData(filePath);
+            writeLocalFile(file, request, response, true);
         } else {
+            ServletUtils.setNoCacheHeaders(response);
             String privateUrl = QiniuCloud.instance().makeUrl(filePath);
             privateUrl += "&attname=" + CodecUtils.urlEncode(attname);
             response.sendRedirect(privateUrl);
@@ -222,9 +215,23 @@ public class FileDownloader extends BaseController {
      * @throws IOException
      */
     public static boolean writeLocalFile(String filePath, boolean temp, HttpServletResponse response) throws IOException {
+        return writeLocalFile(filePath, temp, null, response);
+    }
+
+    /**
+     * 本地文件下载（支持 Range/ETag）
+     *
+     * @param filePath
+     * @param temp
+     * @param request
+     * @param response
+     * @return
+     * @throws IOException
+     */
+    public static boolean writeLocalFile(String filePath, boolean temp, HttpServletRequest request, HttpServletResponse response) throws IOException {
         filePath = checkFilePath(filePath);
         File file = temp ? RebuildConfiguration.getFileOfTemp(filePath) : RebuildConfiguration.getFileOfData(filePath);
-        return writeLocalFile(file, response);
+        return writeLocalFile(file, request, response);
     }
 
     /**
@@ -236,18 +243,241 @@ public class FileDownloader extends BaseController {
      * @throws IOException
      */
     public static boolean writeLocalFile(File file, HttpServletResponse response) throws IOException {
+        return writeLocalFile(file, null, response);
+    }
+
+    /**
+     * 本地文件下载（不受下载限制）
+     *
+     * @param file
+     * @param request
+     * @param response
+     * @return
+     * @throws IOException
+     * @see #writeLocalFile(File, HttpServletRequest, HttpServletResponse, boolean)
+     */
+    public static boolean writeLocalFile(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return writeLocalFile(file, request, response, false);
+    }
+
+    /**
+     * 本地文件下载。支持分段（Range，含多段）、条件请求（ETag/Last-Modified 304），
+     * 并优先使用 Tomcat sendfile（零拷贝）传输
+     *
+     * @param file
+     * @param request 为空则不支持分段及条件请求
+     * @param response
+     * @param limited 是否受下载限制（并发数/速率），仅用于附件下载
+     * @return
+     * @throws IOException
+     * @see DownloadLimiter
+     */
+    public static boolean writeLocalFile(File file, HttpServletRequest request, HttpServletResponse response, boolean limited) throws IOException {
         if (!file.exists()) {
             response.setHeader("Content-Disposition", StringUtils.EMPTY);  // Clean download
             response.sendError(HttpStatus.NOT_FOUND.value());
             return false;
         }
 
-        long size = FileUtils.sizeOf(file);
-        response.setHeader("Content-Length", String.valueOf(size));
+        final long length = file.length();
+        final long lastModified = file.lastModified() / 1000 * 1000;
+        final String etag = String.format("\"%s-%s\"", Long.toHexString(length), Long.toHexString(lastModified));
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+
+        List<long[]> ranges = null;
+        if (request != null) {
+            if (isNotModified(request, etag, lastModified)) {
+                response.setHeader("Content-Disposition", StringUtils.EMPTY);
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return true;
+            }
+
+            String range = request.getHeader("Range");
+            String ifRange = request.getHeader("If-Range");
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                ranges = parseRanges(range, length);
+                if (ranges == null) {
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return false;
+                }
+            }
+        }
+
+        final long maxRate = limited ? DownloadLimiter.getMaxRate() : 0;
+        final boolean sendfile = (ranges == null || ranges.size() == 1) && isSendfileSupported(request, maxRate);
 
-        try (InputStream fis = Files.newInputStream(file.toPath())) {
-            return writeStream(fis, response);
+        // sendfile 由容器在请求线程之外传输，不计入并发
+        final boolean acquired = limited && !sendfile;
+        if (acquired && !DownloadLimiter.acquire()) {
+            response.setHeader("Retry-After", "5");
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+            return false;
         }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // 全部
+            if (ranges == null) {
+                response.setContentLengthLong(length);
+                if (sendfile) {
+                    setSendfile(request, file, 0, length);
+                } else {
+                    transfer(channel, 0, length, response.getOutputStream(), maxRate);
+                }
+            }
+            // 单段
+            else if (ranges.size() == 1) {
+                long[] r = ranges.get(0);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader("Content-Range", String.format("bytes %d-%d/%d", r[0], r[1], length));
+                response.setContentLengthLong(r[1] - r[0] + 1);
+                if (sendfile) {
+                    setSendfile(request, file, r[0], r[1] + 1);
+                } else {
+                    transfer(channel, r[0], r[1] - r[0] + 1, response.getOutputStream(), maxRate);
+                }
+            }
+            // 多段
+            else {
+                final String boundary = "RB_BYTERANGES_" + CodecUtils.randomCode(16);
+                String contentType = StringUtils.defaultIfBlank(response.getContentType(), MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setContentType("multipart/byteranges; boundary=" + boundary);
+
+                OutputStream os = response.getOutputStream();
+                for (long[] r : ranges) {
+                    String head = String.format("\r\n--%s\r\nContent-Type: %s\r\nContent-Range: bytes %d-%d/%d\r\n\r\n",
+                            boundary, contentType, r[0], r[1], length);
+                    os.write(head.getBytes(StandardCharsets.ISO_8859_1));
+                    transfer(channel, r[0], r[1] - r[0] + 1, os, maxRate);
+                }
+                os.write(String.format("\r\n--%s--\r\n", boundary).getBytes(StandardCharsets.ISO_8859_1));
+            }
+
+        } catch (IOException ex) {
+            // ClientAbortException
+            log.debug("SUPPRESS : {}", ex.getLocalizedMessage());
+        } finally {
+            if (acquired) DownloadLimiter.release();
+        }
+        return true;
+    }
+
+    /**
+     * @param request
+     * @param etag
+     * @param lastModified
+     * @return
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String t : ifNoneMatch.split(",")) {
+                t = t.trim();
+                if (t.equals(etag) || t.equals("*") || t.equals("W/" + etag)) return true;
+            }
+            return false;
+        }
+
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException ignored) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析 Range 头（如 `bytes=0-99,200-,-500`）
+     *
+     * @param range
+     * @param length
+     * @return 无效返回 null
+     */
+    protected static List<long[]> parseRanges(String range, long length) {
+        if (!range.startsWith("bytes=") || length == 0) return null;
+
+        List<long[]> ranges = new ArrayList<>();
+        for (String r : range.substring(6).split(",")) {
+            r = r.trim();
+            int dash = r.indexOf('-');
+            if (dash == -1) return null;
+
+            long start, end;
+            try {
+                if (dash == 0) {
+                    // 后缀长度
+                    long suffix = Long.parseLong(r.substring(1));
+                    if (suffix <= 0) return null;
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(r.substring(0, dash));
+                    end = dash == r.length() - 1 ? length - 1 : Math.min(Long.parseLong(r.substring(dash + 1)), length - 1);
+                }
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+
+            if (start > end || start >= length) return null;
+            ranges.add(new long[] { start, end });
+        }
+
+        // 限制段数，避免滥用
+        return ranges.isEmpty() || ranges.size() > 20 ? null : ranges;
+    }
+
+    /**
+     * Tomcat sendfile（由容器零拷贝传输）。限速时不使用
+     */
+    private static boolean isSendfileSupported(HttpServletRequest request, long maxRate) {
+        return request != null && maxRate <= 0
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"));
+    }
+
+    private static void setSendfile(HttpServletRequest request, File file, long start, long end) {
+        request.setAttribute("org.apache.tomcat.sendfile.filename", file.getAbsolutePath());
+        request.setAttribute("org.apache.tomcat.sendfile.start", start);
+        request.setAttribute("org.apache.tomcat.sendfile.end", end);
+    }
+
+    /**
+     * @param channel
+     * @param position
+     * @param count
+     * @param os
+     * @param maxRate bytes/s，0 为不限
+     * @throws IOException
+     */
+    private static void transfer(FileChannel channel, long position, long count, OutputStream os, long maxRate) throws IOException {
+        final WritableByteChannel target = Channels.newChannel(os);
+        // 限速时按每 100ms 的配额分块
+        final long block = maxRate > 0 ? Math.max(maxRate / 10, 1024) : 256 * 1024;
+
+        long end = position + count;
+        while (position < end) {
+            long begin = System.currentTimeMillis();
+            long n = channel.transferTo(position, Math.min(block, end - position), target);
+            if (n <= 0) break;
+            position += n;
+
+            if (maxRate > 0) {
+                long expect = n * 1000 / maxRate;
+                long cost = System.currentTimeMillis() - begin;
+                if (expect > cost) {
+                    try {
+                        Thread.sleep(expect - cost);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+        os.flush();
     }
 
     /**
@@ -257,11 +487,9 @@ public class FileDownloader extends BaseController {
      * @throws IOException
      */
     public static boolean writeStream(InputStream is, HttpServletResponse response) throws IOException {
-        response.setContentLength(is.available());
-
         OutputStream os = response.getOutputStream();
         int count;
-        byte[] buffer = new byte[1024 * 1024];
+        byte[] buffer = new byte[8192];
         while ((count = is.read(buffer)) != -1) {
             os.write(buffer, 0, count);
         }
@@ -307,7 +535,9 @@ public class FileDownloader extends BaseController {
 
         if (filepath.contains("../")
                 || filepath.startsWith("_log/") || filepath.contains("/_log/")
-                || filepath.startsWith("_backups/") || filepath.contains("/_backups/")) {
+                || filepath.startsWith("_backups/") || filepath.contains("/_backups/")
+                || filepath.startsWith(".blobs/") || filepath.contains("/.blobs/")
+                || filepath.startsWith(".thumbs/") || filepath.contains("/.thumbs/")) {
             throw new RebuildException("Attack path detected : " + filepath);
         }
         return filepath;
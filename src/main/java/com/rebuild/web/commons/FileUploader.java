@@ -7,15 +7,20 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.web.commons;
 
+import cn.devezhao.commons.CodecUtils;
 import cn.devezhao.commons.ObjectUtils;
+import cn.devezhao.persist4j.engine.ID;
 import com.rebuild.api.RespBody;
+import com.rebuild.core.service.DataSpecificationException;
+import com.rebuild.core.service.files.ChunkedUploader;
+import com.rebuild.core.service.files.ContentStore;
 import com.rebuild.core.service.files.FilesHelper;
 import com.rebuild.core.support.RebuildConfiguration;
 import com.rebuild.core.support.i18n.Language;
 import com.rebuild.core.support.integration.QiniuCloud;
+import com.rebuild.utils.JSONUtils;
 import com.rebuild.web.BaseController;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.stereotype.Controller;
@@ -29,6 +34,7 @@ import org.springframework.web.multipart.commons.CommonsMultipartResolver;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
 
 /**
  * 文件上传
@@ -58,6 +64,13 @@ public class FileUploader extends BaseController {
             return;
         }
 
+        try {
+            FilesHelper.checkUploadFile(file.getOriginalFilename(), file.getSize(), isImageOnly(request));
+        } catch (DataSpecificationException ex) {
+            writeFailure(response, ex.getLocalizedMessage());
+            return;
+        }
+
         String uploadName;
         try {
             uploadName = QiniuCloud.formatFileKey(file.getOriginalFilename());
@@ -67,12 +80,15 @@ public class FileUploader extends BaseController {
             if (BooleanUtils.toBoolean(request.getParameter("temp"))) {
                 uploadName = uploadName.split("/")[2];
                 dest = RebuildConfiguration.getFileOfTemp(uploadName);
+                file.transferTo(dest);
             } else {
                 dest = RebuildConfiguration.getFileOfData(uploadName);
-                FileUtils.forceMkdir(dest.getParentFile());
+                // 按内容存储（相同文件只存一份）
+                File part = RebuildConfiguration.getFileOfTemp("upload-" + CodecUtils.randomCode(32) + ".part");
+                file.transferTo(part);
+                ContentStore.store(part, dest);
             }
 
-            file.transferTo(dest);
             if (!dest.exists()) {
                 writeFailure(response, Language.L("上传失败，请稍后重试"));
                 return;
@@ -90,6 +106,75 @@ public class FileUploader extends BaseController {
         }
     }
 
+    // -- 分片上传（可续传）。fid 为客户端文件标识（名称+大小+修改时间）
+
+    @PostMapping("upload-chunked/init")
+    @ResponseBody
+    public RespBody chunkedInit(HttpServletRequest request) {
+        final ID user = getRequestUser(request);
+        String fid = getParameterNotNull(request, "fid");
+
+        try {
+            FilesHelper.checkUploadFile(getParameterNotNull(request, "name"),
+                    ObjectUtils.toLong(getParameterNotNull(request, "size")), isImageOnly(request));
+        } catch (DataSpecificationException ex) {
+            return RespBody.error(ex.getLocalizedMessage());
+        }
+
+        String uploadId = ChunkedUploader.getUploadId(user, fid);
+        return RespBody.ok(JSONUtils.toJSONObject(
+                new String[] { "received", "chunkSize" },
+                new Object[] { ChunkedUploader.getReceived(uploadId), ChunkedUploader.MAX_CHUNK_SIZE }));
+    }
+
+    @PostMapping("upload-chunked/chunk")
+    @ResponseBody
+    public RespBody chunkedAppend(HttpServletRequest request) throws IOException {
+        final ID user = getRequestUser(request);
+        String uploadId = ChunkedUploader.getUploadId(user, getParameterNotNull(request, "fid"));
+        long offset = ObjectUtils.toLong(getParameterNotNull(request, "offset"));
+
+        // 请求体即分片内容
+        long received;
+        try {
+            received = ChunkedUploader.appendChunk(
+                    uploadId, offset, request.getInputStream(), request.getContentLengthLong());
+        } catch (DataSpecificationException ex) {
+            ChunkedUploader.abort(uploadId);
+            return RespBody.error(ex.getLocalizedMessage());
+        }
+        return RespBody.ok(JSONUtils.toJSONObject("received", received));
+    }
+
+    @PostMapping("upload-chunked/complete")
+    @ResponseBody
+    public RespBody chunkedComplete(HttpServletRequest request) {
+        final ID user = getRequestUser(request);
+        String uploadId = ChunkedUploader.getUploadId(user, getParameterNotNull(request, "fid"));
+        long fileSize = ObjectUtils.toLong(getParameterNotNull(request, "size"));
+        boolean temp = BooleanUtils.toBoolean(request.getParameter("temp"));
+
+        try {
+            String fileName = getParameterNotNull(request, "name");
+            FilesHelper.checkUploadFile(fileName, fileSize, isImageOnly(request));
+
+            String fileKey = ChunkedUploader.complete(uploadId, fileName, fileSize, temp);
+            return RespBody.ok(JSONUtils.toJSONObject("key", fileKey));
+        } catch (DataSpecificationException ex) {
+            ChunkedUploader.abort(uploadId);
+            return RespBody.error(ex.getLocalizedMessage());
+        } catch (Exception ex) {
+            log.error("Chunked upload failed : {}", uploadId, ex);
+            ChunkedUploader.abort(uploadId);
+            return RespBody.error(Language.L("上传失败，请稍后重试"));
+        }
+    }
+
+    // 仅允许图片（见前端 `type=image`）
+    private boolean isImageOnly(HttpServletRequest request) {
+        return "image".equals(request.getParameter("type"));
+    }
+
     /**
      * @see FilesHelper#storeFileSize(String, int)
      */
@@ -7,8 +7,6 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.web.commons;
 
-import cn.devezhao.commons.ThreadPool;
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONAware;
 import com.alibaba.fastjson.JSONObject;
 import com.rebuild.api.RespBody;
@@ -37,12 +35,12 @@ public class HeavyTaskController extends BaseController {
     @GetMapping("state")
     public JSONAware taskState(HttpServletRequest request) {
         String taskid = getParameterNotNull(request, "taskid");
-        HeavyTask<?> task = TaskExecutors.get(taskid);
+        JSONObject state = TaskExecutors.getState(taskid);
 
-        if (task == null) {
+        if (state == null) {
             return RespBody.error("Unknow task : " + taskid);
         } else {
-            return formatTaskState(task);
+            return state;
         }
     }
 
@@ -50,41 +48,18 @@ public class HeavyTaskController extends BaseController {
     @RequestMapping("cancel")
     public JSONAware taskCancel(HttpServletRequest request) {
         String taskid = getParameterNotNull(request, "taskid");
-        HeavyTask<?> task = TaskExecutors.get(taskid);
-        if (task == null) {
+        JSONObject state = TaskExecutors.getState(taskid);
+        if (state == null) {
             return RespBody.error("Unknow task : " + taskid);
         }
-        if (task.isCompleted()) {
+        if (state.getBooleanValue("isCompleted")) {
             return RespBody.errorl("无法终止，因为任务已经完成");
         }
 
-        task.interrupt();
-        for (int i = 0; i < 10; i++) {
-            if (task.isInterrupted()) {
-                return formatTaskState(task);
-            }
-            ThreadPool.waitFor(200);
+        // 任务可能在其他节点执行
+        if (TaskExecutors.cancel(taskid)) {
+            return TaskExecutors.getState(taskid);
         }
-
         return RespBody.errorl("无法终止任务");
     }
-
-    /**
-     * 格式化任务状态信息
-     *
-     * @param task
-     * @return
-     */
-    private JSON formatTaskState(HeavyTask<?> task) {
-        JSONObject state = new JSONObject();
-        state.put("total", task.getTotal());
-        state.put("progress", task.getCompletedPercent());
-        state.put("completed", task.getCompleted());
-        state.put("succeeded", task.getSucceeded());
-        state.put("isCompleted", task.isCompleted());
-        state.put("isInterrupted", task.isInterrupted());
-        state.put("elapsedTime", task.getElapsedTime());
-        state.put("hasError", task.getErrorMessage());
-        return state;
-    }
 }
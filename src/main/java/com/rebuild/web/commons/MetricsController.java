@@ -0,0 +1,52 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.commons;
+
+import com.rebuild.core.BootEnvironmentPostProcessor;
+import com.rebuild.core.support.metrics.Metrics;
+import com.rebuild.web.BaseController;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 运行指标（Prometheus 文本格式）
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see Metrics
+ */
+@RestController
+public class MetricsController extends BaseController {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // 供采集器使用，需配置 `rebuild.MetricsToken`
+    @GetMapping(value = "/gw/metrics", produces = CONTENT_TYPE)
+    public String gwMetrics(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String token = BootEnvironmentPostProcessor.getProperty("MetricsToken");
+        String useToken = StringUtils.removeStart(request.getHeader("Authorization"), "Bearer ");
+        if (StringUtils.isBlank(useToken)) useToken = request.getParameter("token");
+
+        if (StringUtils.isBlank(token) || !token.equals(useToken)) {
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return null;
+        }
+        return Metrics.scrape();
+    }
+
+    @GetMapping(value = "/admin/metrics", produces = CONTENT_TYPE)
+    public String adminMetrics() {
+        return Metrics.scrape();
+    }
+}
@@ -18,6 +18,7 @@ import com.rebuild.core.support.i18n.I18nUtils;
 import com.rebuild.core.support.i18n.Language;
 import com.rebuild.utils.JSONUtils;
 import com.rebuild.web.BaseController;
+import org.apache.commons.lang.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -26,6 +27,10 @@ import org.springframework.web.servlet.ModelAndView;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 系统通知
@@ -59,23 +64,15 @@ public class NotificationController extends BaseController {
         String ids = getParameter(request, "id");
 
         if ("ALL".equalsIgnoreCase(ids)) {
-            Object[][] unreads = Application.createQueryNoFilter(
-                    "select messageId from Notification where toUser = ? and unread = ?")
-                    .setParameter(1, user)
-                    .setParameter(2, true)
-                    .array();
-
-            StringBuilder sb = new StringBuilder();
-            for (Object[] o : unreads) {
-                sb.append(o[0]).append(',');
-            }
-            ids = sb.toString();
+            Application.getNotifications().makeRead(user, null);
+        } else {
+            ID[] messageIds = Arrays.stream(ids.split(","))
+                    .filter(ID::isId)
+                    .map(ID::valueOf)
+                    .toArray(ID[]::new);
+            if (messageIds.length > 0) Application.getNotifications().makeRead(user, messageIds);
         }
 
-        Arrays.stream(ids.split(","))
-                .filter(ID::isId)
-                .forEach(id -> Application.getNotifications().makeRead(ID.valueOf(id)));
-
         return RespBody.ok();
     }
 
@@ -125,18 +122,26 @@ public class NotificationController extends BaseController {
                 .setLimit(ps, pn * ps - ps)
                 .array();
 
+        // 审批状态
+        Map<ID, Object[]> stepStates = new HashMap<>();
+        if (array.length > 0) {
+            Set<String> stepIds = new HashSet<>();
+            for (Object[] m : array) stepIds.add(m[3].toString());
+
+            Object[][] steps = Application.createQueryNoFilter(String.format(
+                    "select stepId,isCanceled,state from RobotApprovalStep where stepId in ('%s')",
+                    StringUtils.join(stepIds, "','")))
+                    .array();
+            for (Object[] o : steps) stepStates.put((ID) o[0], new Object[] { o[1], o[2] });
+        }
+
         for (int i = 0; i < array.length; i++) {
             Object[] m = array[i];
             m[0] = new Object[]{m[0], UserHelper.getName((ID) m[0])};
             m[1] = MessageBuilder.formatMessage((String) m[1]);
             m[2] = I18nUtils.formatDate((Date) m[2]);
 
-            // 审批状态
-            ID approvalStep = (ID) m[3];
-            Object[] stepState = Application.createQueryNoFilter(
-                    "select isCanceled,state from RobotApprovalStep where stepId = ?")
-                    .setParameter(1, approvalStep)
-                    .unique();
+            Object[] stepState = stepStates.get((ID) m[3]);
             if (stepState == null) {
                 m[3] = new Object[] { 0 };
             } else {
@@ -22,6 +22,7 @@ import com.rebuild.core.configuration.ConfigurationException;
 import com.rebuild.core.privileges.UserHelper;
 import com.rebuild.core.service.project.ProjectHelper;
 import com.rebuild.core.service.project.ProjectManager;
+import com.rebuild.core.service.project.ProjectTaskService;
 import com.rebuild.core.service.query.AdvFilterParser;
 import com.rebuild.core.support.general.FieldValueHelper;
 import com.rebuild.core.support.i18n.I18nUtils;
@@ -36,6 +37,7 @@ import org.apache.commons.lang.StringUtils;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.ModelAndView;
@@ -45,8 +47,15 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -95,22 +104,7 @@ public class ProjectTaskController extends BaseController {
         final ID projectId = getIdParameterNotNull(request, "project");
         final String planKey = getParameterNotNull(request, "plan");
 
-        String queryWhere = "(" + buildCustomPlanSql(planKey, projectId) + ")";
-
-        // 关键词搜索
-        String search = getParameter(request, "search");
-        if (StringUtils.isNotBlank(search)) {
-            queryWhere += " and taskName like '%" + StringEscapeUtils.escapeSql(search) + "%'";
-        }
-
-        // 高级查询
-        JSON advFilter = ServletUtils.getRequestJson(request);
-        if (advFilter != null) {
-            String filterSql = new AdvFilterParser((JSONObject) advFilter).toSqlWhere();
-            if (filterSql != null) {
-                queryWhere += " and (" + filterSql + ")";
-            }
-        }
+        String queryWhere = "(" + buildCustomPlanSql(planKey, projectId) + ")" + buildFilterSql(request);
 
         int pageNo = getIntParameter(request, "pageNo", 1);
         int pageSize = getIntParameter(request, "pageSize", 40);
@@ -136,11 +130,117 @@ public class ProjectTaskController extends BaseController {
                 new Object[] { count, alist });
     }
 
+    // 看板快照：一次返回各面板的首页任务
+    @RequestMapping("tasks/board")
+    public JSON taskBoard(HttpServletRequest request) {
+        final ID user = getRequestUser(request);
+        final ID projectId = getIdParameterNotNull(request, "project");
+        final String[] planKeys = getParameterNotNull(request, "plans").split(",");
+        final int pageSize = getIntParameter(request, "pageSize", 40);
+
+        final ConfigBean project = ProjectManager.instance.getProject(projectId, user);
+        final String filterSql = buildFilterSql(request);
+        final String sort = buildQuerySort(request);
+
+        // 面板任务数（按面板分组统计）
+        Map<String, Integer> counts = new HashMap<>();
+        Set<String> planIds = new LinkedHashSet<>();
+        for (String planKey : planKeys) {
+            if (ID.isId(planKey)) {
+                planIds.add(planKey);
+            } else {
+                Object[] c = Application.createQueryNoFilter(String.format(
+                        "select count(taskId) from ProjectTask where (%s)%s", buildCustomPlanSql(planKey, projectId), filterSql))
+                        .unique();
+                counts.put(planKey, ObjectUtils.toInt(c[0]));
+            }
+        }
+        if (!planIds.isEmpty()) {
+            Object[][] array = Application.createQueryNoFilter(String.format(
+                    "select projectPlanId,count(taskId) from ProjectTask where projectId = '%s' and projectPlanId in ('%s')%s group by projectPlanId",
+                    projectId, StringUtils.join(planIds, "','"), filterSql))
+                    .array();
+            for (Object[] o : array) counts.put(o[0].toString(), ObjectUtils.toInt(o[1]));
+        }
+
+        // 首页数据。不足一页的面板合并为一次查询
+        Map<String, List<Object[]>> rowsOfPlan = new LinkedHashMap<>();
+        Set<String> smallPlans = new HashSet<>();
+        for (String planKey : planKeys) {
+            int c = counts.getOrDefault(planKey, 0);
+            rowsOfPlan.put(planKey, new ArrayList<>());
+            if (c == 0) continue;
+
+            if (c <= pageSize && ID.isId(planKey)) {
+                smallPlans.add(planKey);
+            } else {
+                String where = String.format("(%s)%s order by %s", buildCustomPlanSql(planKey, projectId), filterSql, sort);
+                rowsOfPlan.get(planKey).addAll(Arrays.asList(queryCardRows(project, where, new int[] { pageSize, 0 })));
+            }
+        }
+        if (!smallPlans.isEmpty()) {
+            String where = String.format("projectId = '%s' and projectPlanId in ('%s')%s order by %s",
+                    projectId, StringUtils.join(smallPlans, "','"), filterSql, sort);
+            for (Object[] o : queryCardRows(project, where, null)) {
+                rowsOfPlan.get(o[1].toString()).add(o);
+            }
+        }
+
+        // 一并组装卡片
+        List<Object[]> allRows = new ArrayList<>();
+        for (List<Object[]> rows : rowsOfPlan.values()) allRows.addAll(rows);
+        JSONArray allCards = formatCardDatas(project, user, allRows.toArray(new Object[0][]));
+
+        JSONObject board = new JSONObject(true);
+        int index = 0;
+        for (Map.Entry<String, List<Object[]>> e : rowsOfPlan.entrySet()) {
+            int size = e.getValue().size();
+            JSONArray tasks = new JSONArray(allCards.subList(index, index + size));
+            index += size;
+
+            board.put(e.getKey(), JSONUtils.toJSONObject(
+                    new String[] { "count", "tasks" },
+                    new Object[] { counts.getOrDefault(e.getKey(), 0), tasks }));
+        }
+        return board;
+    }
+
+    // 拖动排序
+    @PostMapping("tasks/move")
+    public RespBody taskMove(@IdParam(name = "task") ID taskId, HttpServletRequest request) {
+        ID newPlanId = getIdParameter(request, "plan");
+        ID prevTaskId = getIdParameter(request, "prev");
+        ID nextTaskId = getIdParameter(request, "next");
+
+        Application.getBean(ProjectTaskService.class).moveTask(taskId, newPlanId, prevTaskId, nextTaskId);
+        return RespBody.ok();
+    }
+
+    private String buildFilterSql(HttpServletRequest request) {
+        String filterSql = "";
+
+        // 关键词搜索
+        String search = getParameter(request, "search");
+        if (StringUtils.isNotBlank(search)) {
+            filterSql += " and taskName like '%" + StringEscapeUtils.escapeSql(search) + "%'";
+        }
+
+        // 高级查询
+        JSON advFilter = ServletUtils.getRequestJson(request);
+        if (advFilter != null) {
+            String advSql = new AdvFilterParser((JSONObject) advFilter).toSqlWhere();
+            if (advSql != null) {
+                filterSql += " and (" + advSql + ")";
+            }
+        }
+        return filterSql;
+    }
+
     private String buildQuerySort(HttpServletRequest request) {
         String sort = getParameter(request, "sort");
         if ("deadline".equalsIgnoreCase(sort)) sort = "deadline desc";
         else if ("modifiedOn".equalsIgnoreCase(sort)) sort = "modifiedOn desc";
-        else sort = "seq asc";
+        else sort = "seqRank asc";
         return sort;
     }
 
@@ -203,23 +303,13 @@ public class ProjectTaskController extends BaseController {
     }
 
     private JSONArray queryCardDatas(ConfigBean project, ID user, String queryWhere, int[] limits) {
-        // 卡片显示字段
-        JSON cardFields = project.getJSON("cardFields");
+        return formatCardDatas(project, user, queryCardRows(project, queryWhere, limits));
+    }
 
-        final Set<String> fields2show = new HashSet<>();
-        if (cardFields == null) {
-            fields2show.add("createdOn");
-            fields2show.add("endTime");
-            fields2show.add("_tag");
-        } else {
-            for (Object o : (JSONArray) cardFields) {
-                fields2show.add(o.toString());
-            }
-        }
+    private Object[][] queryCardRows(ConfigBean project, String queryWhere, int[] limits) {
+        final Set<String> fields2show = getCardFields(project);
 
-        String queryFields = FMT_FIELDS11 + ",";
-        if (fields2show.contains("createdBy")) queryFields += "createdBy,";
-        else queryFields += "taskId,";
+        String queryFields = FMT_FIELDS11 + ",createdBy,";
         if (fields2show.contains("modifiedOn")) queryFields += "modifiedOn,";
         else queryFields += "taskId,";
         if (fields2show.contains("description")) queryFields += "description,";
@@ -232,11 +322,24 @@ public class ProjectTaskController extends BaseController {
         Query query = Application.createQueryNoFilter(querySql);
         if (limits != null) query.setLimit(limits[0], limits[1]);
 
-        Object[][] tasks = query.array();
+        return query.array();
+    }
+
+    private JSONArray formatCardDatas(ConfigBean project, ID user, Object[][] tasks) {
+        final Set<String> fields2show = getCardFields(project);
+
+        // 标签一次查询
+        Map<ID, JSONArray> tagsOfTask = null;
+        if (fields2show.contains("_tag")) {
+            Set<ID> taskIds = new HashSet<>();
+            for (Object[] o : tasks) taskIds.add((ID) o[3]);
+            tagsOfTask = TaskTagController.getTaskTags(taskIds);
+        }
 
         JSONArray alist = new JSONArray();
         for (Object[] o : tasks) {
-            JSONObject item = formatTask(o, user, fields2show.contains("_tag"));
+            JSONArray tags = tagsOfTask == null ? null : tagsOfTask.getOrDefault((ID) o[3], new JSONArray());
+            JSONObject item = formatTask(o, user, tags, (ID) o[12]);
 
             if (fields2show.contains("createdBy")) {
                 item.put("createdBy", new Object[] { o[12], UserHelper.getName((ID) o[12]) });
@@ -263,6 +366,23 @@ public class ProjectTaskController extends BaseController {
         return alist;
     }
 
+    private Set<String> getCardFields(ConfigBean project) {
+        // 卡片显示字段
+        JSON cardFields = project.getJSON("cardFields");
+
+        final Set<String> fields2show = new HashSet<>();
+        if (cardFields == null) {
+            fields2show.add("createdOn");
+            fields2show.add("endTime");
+            fields2show.add("_tag");
+        } else {
+            for (Object o : (JSONArray) cardFields) {
+                fields2show.add(o.toString());
+            }
+        }
+        return fields2show;
+    }
+
     @GetMapping("tasks/details")
     public JSON taskDetails(@IdParam(name = "task") ID taskId, HttpServletRequest request) {
         final ID user = getRequestUser(request);
@@ -289,7 +409,7 @@ public class ProjectTaskController extends BaseController {
     }
 
     private static final String FMT_FIELDS11 =
-            "projectId,projectPlanId,taskNumber,taskId,taskName,createdOn,deadline,executor,status,seq,priority,endTime";
+            "projectId,projectPlanId,taskNumber,taskId,taskName,createdOn,deadline,executor,status,seqRank,priority,endTime";
     /**
      * @param o
      * @param user
@@ -299,6 +419,19 @@ public class ProjectTaskController extends BaseController {
      * @see #FMT_FIELDS11
      */
     private JSONObject formatTask(Object[] o, ID user, boolean putTags) throws ConfigurationException {
+        return formatTask(o, user, putTags ? TaskTagController.getTaskTags((ID) o[3]) : null, null);
+    }
+
+    /**
+     * @param o
+     * @param user
+     * @param tags 标签（为空则不输出）
+     * @param createdBy 创建人（为空则查询是否可管理）
+     * @return
+     * @throws ConfigurationException 如果指定用户无权限
+     * @see #FMT_FIELDS11
+     */
+    private JSONObject formatTask(Object[] o, ID user, JSONArray tags, ID createdBy) throws ConfigurationException {
         final ConfigBean project = ProjectManager.instance.getProject((ID) o[0], user);
 
         String taskNumber = String.format("%s-%s", project.getString("projectCode"), o[2]);
@@ -308,12 +441,12 @@ public class ProjectTaskController extends BaseController {
         Object[] executor = o[7] == null ? null : new Object[]{o[7], UserHelper.getName((ID) o[7])};
 
         JSONObject data = JSONUtils.toJSONObject(
-                new String[] { "id", "taskNumber", "taskName", "createdOn", "deadline", "executor", "status", "seq", "priority", "endTime", "projectId", "projectStatus" },
+                new String[] { "id", "taskNumber", "taskName", "createdOn", "deadline", "executor", "status", "seqRank", "priority", "endTime", "projectId", "projectStatus" },
                 new Object[] { o[3], taskNumber, o[4], createdOn, deadline, executor, o[8], o[9], o[10], endTime, o[0], project.getInteger("status") });
 
         // 标签
-        if (putTags) {
-            data.put("tags", TaskTagController.getTaskTags((ID) o[3]));
+        if (tags != null) {
+            data.put("tags", tags);
         }
 
         if (user != null) {
@@ -324,7 +457,8 @@ public class ProjectTaskController extends BaseController {
             data.put("planFlow", plan.getInteger("flowStatus"));
             // 权限
             data.put("projectMember", project.get("members", Set.class).contains(user));
-            data.put("isManageable", ProjectHelper.isManageable((ID) o[3], user));
+            data.put("isManageable", createdBy == null
+                    ? ProjectHelper.isManageable((ID) o[3], user) : ProjectHelper.isManageable(project, createdBy, user));
         }
 
         return data;
@@ -22,12 +22,16 @@ import com.rebuild.core.service.project.TaskTagManager;
 import com.rebuild.utils.JSONUtils;
 import com.rebuild.web.BaseController;
 import com.rebuild.web.IdParam;
+import org.apache.commons.lang.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @author devezhao
@@ -111,4 +115,26 @@ public class TaskTagController extends BaseController {
                 .array();
         return JSONUtils.toJSONObjectArray(new String[] { "name", "color" , "rid", "id" }, tags);
     }
+
+    /**
+     * 批量获取任务标签
+     *
+     * @param taskIds
+     * @return
+     */
+    static Map<ID, JSONArray> getTaskTags(Collection<ID> taskIds) {
+        Map<ID, JSONArray> map = new HashMap<>();
+        if (taskIds.isEmpty()) return map;
+
+        Object[][] tags = Application.createQueryNoFilter(String.format(
+                "select taskId,tagId.tagName,tagId.color,relationId,tagId from ProjectTaskTagRelation where taskId in ('%s') order by createdOn",
+                StringUtils.join(taskIds, "','")))
+                .array();
+        for (Object[] o : tags) {
+            JSONObject tag = JSONUtils.toJSONObject(
+                    new String[] { "name", "color" , "rid", "id" }, new Object[] { o[1], o[2], o[3], o[4] });
+            map.computeIfAbsent((ID) o[0], k -> new JSONArray()).add(tag);
+        }
+        return map;
+    }
 }
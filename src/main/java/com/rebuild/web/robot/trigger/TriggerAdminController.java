@@ -10,6 +10,8 @@ package com.rebuild.web.robot.trigger;
 import cn.devezhao.persist4j.Entity;
 import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.api.RespBody;
 import com.rebuild.core.Application;
 import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.metadata.MetadataSorter;
@@ -17,6 +19,7 @@ import com.rebuild.core.metadata.easymeta.EasyMetaFactory;
 import com.rebuild.core.service.trigger.ActionFactory;
 import com.rebuild.core.service.trigger.ActionType;
 import com.rebuild.core.service.trigger.TriggerAction;
+import com.rebuild.core.service.trigger.TriggerProfiler;
 import com.rebuild.core.support.CommonsLock;
 import com.rebuild.core.support.i18n.Language;
 import com.rebuild.web.BaseController;
@@ -24,6 +27,7 @@ import com.rebuild.web.admin.ConfigCommons;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.ModelAndView;
@@ -33,6 +37,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author devezhao zhaofang123@gmail.com
@@ -118,4 +123,16 @@ public class TriggerAdminController extends BaseController {
         }
         return array;
     }
+
+    @GetMapping("trigger/profiles")
+    public Map<String, JSONObject> triggerProfiles() {
+        return Application.getBean(TriggerProfiler.class).getProfiles();
+    }
+
+    @PostMapping("trigger/profiles-reset")
+    public RespBody triggerProfilesReset(HttpServletRequest request) {
+        ID configId = getIdParameterNotNull(request, "id");
+        Application.getBean(TriggerProfiler.class).reset(configId);
+        return RespBody.ok();
+    }
 }
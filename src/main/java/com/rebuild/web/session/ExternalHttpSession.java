@@ -0,0 +1,205 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.session;
+
+import com.rebuild.core.Application;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 外部存储的会话。属性变更在请求结束时一并写入 {@link SessionRepository}
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@SuppressWarnings("deprecation")
+public class ExternalHttpSession implements HttpSession {
+
+    // 内部属性
+    private static final String A_CREATED = "__RB_CREATED";
+    private static final String A_MAXINACTIVE = "__RB_MAXINACTIVE";
+
+    final private String id;
+    final private ServletContext servletContext;
+    final private SessionRepository repository;
+    final private boolean isNew;
+
+    final private Map<String, Object> attrs = new ConcurrentHashMap<>();
+    final private Map<String, Object> changed = new ConcurrentHashMap<>();
+    final private Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    private boolean invalidated = false;
+
+    /**
+     * @param id
+     * @param loaded 为空表示新会话
+     * @param servletContext
+     * @param repository
+     * @param defaultMaxInactive
+     */
+    protected ExternalHttpSession(String id, Map<String, Object> loaded,
+                                  ServletContext servletContext, SessionRepository repository, int defaultMaxInactive) {
+        this.id = id;
+        this.servletContext = servletContext;
+        this.repository = repository;
+        this.isNew = loaded == null;
+
+        if (loaded == null) {
+            putInternal(A_CREATED, System.currentTimeMillis());
+            putInternal(A_MAXINACTIVE, defaultMaxInactive);
+        } else {
+            attrs.putAll(loaded);
+            if (!attrs.containsKey(A_MAXINACTIVE)) attrs.put(A_MAXINACTIVE, defaultMaxInactive);
+        }
+    }
+
+    @Override
+    public long getCreationTime() {
+        checkValid();
+        Object c = attrs.get(A_CREATED);
+        return c == null ? 0 : (Long) c;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        checkValid();
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        putInternal(A_MAXINACTIVE, interval);
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return (Integer) attrs.get(A_MAXINACTIVE);
+    }
+
+    @Override
+    public javax.servlet.http.HttpSessionContext getSessionContext() {
+        return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        checkValid();
+        return isInternal(name) ? null : attrs.get(name);
+    }
+
+    @Override
+    public Object getValue(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        checkValid();
+        Set<String> names = new HashSet<>(attrs.keySet());
+        names.removeIf(ExternalHttpSession::isInternal);
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public String[] getValueNames() {
+        return Collections.list(getAttributeNames()).toArray(new String[0]);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        checkValid();
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        putInternal(name, value);
+    }
+
+    @Override
+    public void putValue(String name, Object value) {
+        setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        checkValid();
+        if (attrs.remove(name) != null) {
+            changed.remove(name);
+            removed.add(name);
+        }
+    }
+
+    @Override
+    public void removeValue(String name) {
+        removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+        checkValid();
+        invalidated = true;
+        repository.delete(id);
+        Application.getSessionStore().removeSession(id);
+    }
+
+    @Override
+    public boolean isNew() {
+        checkValid();
+        return isNew;
+    }
+
+    /**
+     * @return
+     */
+    public boolean isInvalidated() {
+        return invalidated;
+    }
+
+    /**
+     * 写入变更
+     */
+    protected void commit() {
+        if (invalidated || (changed.isEmpty() && removed.isEmpty())) return;
+
+        repository.save(id, new HashMap<>(changed), new HashSet<>(removed), getMaxInactiveInterval());
+        changed.clear();
+        removed.clear();
+    }
+
+    private void putInternal(String name, Object value) {
+        attrs.put(name, value);
+        changed.put(name, value);
+        removed.remove(name);
+    }
+
+    private void checkValid() {
+        if (invalidated) throw new IllegalStateException("Session already invalidated : " + id);
+    }
+
+    private static boolean isInternal(String name) {
+        return A_CREATED.equals(name) || A_MAXINACTIVE.equals(name);
+    }
+}
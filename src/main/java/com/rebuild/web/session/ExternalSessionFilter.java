@@ -0,0 +1,216 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.session;
+
+import cn.devezhao.commons.web.ServletUtils;
+import com.rebuild.core.Application;
+import com.rebuild.core.BootEnvironmentPostProcessor;
+import com.rebuild.core.support.setup.Installer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 外部会话存储。启用后（`rebuild.SessionStore=redis` 且使用 redis）会话不再依赖容器，
+ * 多实例无需粘性会话，重启也不会丢失登录状态。未启用时使用容器（内存）会话
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ExternalSessionFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "RBSESSION";
+
+    // 默认会话超时（s），同 Spring Boot
+    private static final int DEFAULT_MAX_INACTIVE = 30 * 60;
+
+    private static volatile int maxInactive = 0;
+
+    private volatile SessionRepository repository;
+    private volatile boolean checked = false;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        final SessionRepository repo = getRepository();
+        if (repo == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        SessionRequestWrapper wrapper = new SessionRequestWrapper(request, response, repo);
+        try {
+            chain.doFilter(wrapper, response);
+        } finally {
+            wrapper.commit();
+        }
+    }
+
+    /**
+     * @return 未启用返回 <tt>null</tt>
+     */
+    public SessionRepository getRepository() {
+        if (checked) return repository;
+        // 启动完成后再确定
+        if (!Application.isReady()) return null;
+
+        synchronized (this) {
+            if (!checked) {
+                String store = BootEnvironmentPostProcessor.getProperty("SessionStore", "memory");
+                if ("redis".equalsIgnoreCase(store)) {
+                    if (Installer.isUseRedis()) {
+                        repository = new RedisSessionRepository(Application.getCommonsCache().getJedisPool());
+                        log.info("Use external session store : redis");
+                    } else {
+                        log.warn("External session store `redis` specified, but redis is unavailable. Use memory");
+                    }
+                }
+                checked = true;
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * 会话超时（s）。即 `server.servlet.session.timeout`，与容器会话一致
+     *
+     * @return
+     */
+    public static int getMaxInactiveInterval() {
+        if (maxInactive > 0) return maxInactive;
+
+        int timeout = DEFAULT_MAX_INACTIVE;
+        String value = BootEnvironmentPostProcessor.getProperty("server.servlet.session.timeout");
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                long s = DurationStyle.detectAndParse(value, ChronoUnit.SECONDS).getSeconds();
+                if (s > 0) timeout = (int) Math.min(s, Integer.MAX_VALUE);
+            } catch (IllegalArgumentException ex) {
+                log.warn("Bad session timeout : {}", value);
+            }
+        }
+        // 尚未启动完成时不缓存
+        if (Application.isReady()) maxInactive = timeout;
+        return timeout;
+    }
+
+    /**
+     * 使会话失效（可以是其他实例上的会话）
+     *
+     * @param sessionId
+     * @return
+     */
+    public boolean invalidate(String sessionId) {
+        SessionRepository repo = getRepository();
+        if (repo == null) return false;
+
+        repo.delete(sessionId);
+        return true;
+    }
+
+    /**
+     * 会话请求
+     */
+    private static class SessionRequestWrapper extends HttpServletRequestWrapper {
+
+        final HttpServletResponse response;
+        final SessionRepository repository;
+
+        ExternalHttpSession session;
+        boolean requestedChecked = false;
+
+        SessionRequestWrapper(HttpServletRequest request, HttpServletResponse response, SessionRepository repository) {
+            super(request);
+            this.response = response;
+            this.repository = repository;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && !session.isInvalidated()) return session;
+
+            if (!requestedChecked) {
+                requestedChecked = true;
+
+                String sessionId = getRequestedSessionId();
+                if (sessionId != null) {
+                    Map<String, Object> attrs = repository.load(sessionId, getMaxInactiveInterval());
+                    if (attrs != null) {
+                        session = new ExternalHttpSession(sessionId, attrs, getServletContext(), repository, getMaxInactiveInterval());
+                        return session;
+                    }
+                }
+            }
+
+            if (!create) return null;
+
+            String sessionId = UUID.randomUUID().toString().replace("-", "");
+            session = new ExternalHttpSession(sessionId, null, getServletContext(), repository, getMaxInactiveInterval());
+            writeCookie(sessionId);
+            return session;
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            String sessionId = ServletUtils.readCookie((HttpServletRequest) getRequest(), COOKIE_NAME);
+            return StringUtils.isBlank(sessionId) ? null : sessionId;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            HttpSession s = getSession(false);
+            return s != null && s.getId().equals(getRequestedSessionId());
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return getRequestedSessionId() != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        void writeCookie(String sessionId) {
+            Cookie cookie = new Cookie(COOKIE_NAME, sessionId);
+            cookie.setPath(StringUtils.defaultIfBlank(getContextPath(), "/"));
+            cookie.setHttpOnly(true);
+            cookie.setSecure(isSecure());
+            response.addCookie(cookie);
+        }
+
+        void commit() {
+            if (session != null) session.commit();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.session;
+
+import cn.devezhao.persist4j.engine.ID;
+import org.apache.commons.lang.SerializationUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于 redis 的会话存储。每个会话一个 hash，属性逐个存储（仅写入变更的属性），
+ * 常用类型（String/ID/数字/布尔/日期）使用 `类型标识+文本` 的紧凑格式，其他类型使用 Java 序列化
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class RedisSessionRepository implements SessionRepository {
+
+    private static final String KEY_PREFIX = "RBSESSION:";
+
+    private static final byte T_STRING = 's';
+    private static final byte T_ID = 'I';
+    private static final byte T_LONG = 'l';
+    private static final byte T_INT = 'i';
+    private static final byte T_BOOL = 'b';
+    private static final byte T_DATE = 'd';
+    private static final byte T_OBJECT = 'j';
+
+    final private JedisPool jedisPool;
+
+    public RedisSessionRepository(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    @Override
+    public Map<String, Object> load(String sessionId, int maxInactive) {
+        final byte[] key = key(sessionId);
+
+        Map<byte[], byte[]> all;
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline p = jedis.pipelined();
+            Response<Map<byte[], byte[]>> r = p.hgetAll(key);
+            p.expire(key, maxInactive);
+            p.sync();
+            all = r.get();
+        }
+        if (all == null || all.isEmpty()) return null;
+
+        Map<String, Object> attrs = new HashMap<>();
+        for (Map.Entry<byte[], byte[]> e : all.entrySet()) {
+            attrs.put(new String(e.getKey(), StandardCharsets.UTF_8), decode(e.getValue()));
+        }
+        return attrs;
+    }
+
+    @Override
+    public void save(String sessionId, Map<String, Object> changed, Collection<String> removed, int maxInactive) {
+        final byte[] key = key(sessionId);
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline p = jedis.pipelined();
+            if (!changed.isEmpty()) {
+                Map<byte[], byte[]> hash = new HashMap<>();
+                for (Map.Entry<String, Object> e : changed.entrySet()) {
+                    hash.put(e.getKey().getBytes(StandardCharsets.UTF_8), encode(e.getValue()));
+                }
+                p.hset(key, hash);
+            }
+            if (!removed.isEmpty()) {
+                byte[][] fields = new byte[removed.size()][];
+                int i = 0;
+                for (String name : removed) fields[i++] = name.getBytes(StandardCharsets.UTF_8);
+                p.hdel(key, fields);
+            }
+            p.expire(key, maxInactive);
+            p.sync();
+        }
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del(key(sessionId));
+        }
+    }
+
+    private byte[] key(String sessionId) {
+        return (KEY_PREFIX + sessionId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // -- Codec
+
+    /**
+     * @param value
+     * @return
+     */
+    protected static byte[] encode(Object value) {
+        byte type;
+        String text;
+        if (value instanceof String) {
+            type = T_STRING;
+            text = (String) value;
+        } else if (value instanceof ID) {
+            type = T_ID;
+            text = ((ID) value).toLiteral();
+        } else if (value instanceof Long) {
+            type = T_LONG;
+            text = value.toString();
+        } else if (value instanceof Integer) {
+            type = T_INT;
+            text = value.toString();
+        } else if (value instanceof Boolean) {
+            type = T_BOOL;
+            text = (Boolean) value ? "1" : "0";
+        } else if (value instanceof Date) {
+            type = T_DATE;
+            text = String.valueOf(((Date) value).getTime());
+        } else {
+            byte[] bs = SerializationUtils.serialize((Serializable) value);
+            byte[] data = new byte[bs.length + 1];
+            data[0] = T_OBJECT;
+            System.arraycopy(bs, 0, data, 1, bs.length);
+            return data;
+        }
+
+        byte[] bs = text.getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[bs.length + 1];
+        data[0] = type;
+        System.arraycopy(bs, 0, data, 1, bs.length);
+        return data;
+    }
+
+    /**
+     * @param data
+     * @return
+     */
+    protected static Object decode(byte[] data) {
+        if (data == null || data.length == 0) return null;
+
+        if (data[0] == T_OBJECT) {
+            return SerializationUtils.deserialize(Arrays.copyOfRange(data, 1, data.length));
+        }
+
+        String text = new String(data, 1, data.length - 1, StandardCharsets.UTF_8);
+        switch (data[0]) {
+            case T_STRING:
+                return text;
+            case T_ID:
+                return ID.valueOf(text);
+            case T_LONG:
+                return Long.parseLong(text);
+            case T_INT:
+                return Integer.parseInt(text);
+            case T_BOOL:
+                return "1".equals(text);
+            case T_DATE:
+                return new Date(Long.parseLong(text));
+            default:
+                return null;
+        }
+    }
+}
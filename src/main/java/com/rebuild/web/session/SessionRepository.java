@@ -0,0 +1,45 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.session;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 会话存储（外部）
+ *
+ * @author devezhao
+ * @since 2026/10/19
+ * @see ExternalSessionFilter
+ */
+public interface SessionRepository {
+
+    /**
+     * 加载会话属性（同时续期）
+     *
+     * @param sessionId
+     * @param maxInactive
+     * @return 会话不存在返回 <tt>null</tt>
+     */
+    Map<String, Object> load(String sessionId, int maxInactive);
+
+    /**
+     * 保存变更的属性
+     *
+     * @param sessionId
+     * @param changed
+     * @param removed
+     * @param maxInactive
+     */
+    void save(String sessionId, Map<String, Object> changed, Collection<String> removed, int maxInactive);
+
+    /**
+     * @param sessionId
+     */
+    void delete(String sessionId);
+}
@@ -450,6 +450,7 @@ create table if not exists `rebuild_api` (
   `APP_SECRET`         varchar(60) not null comment 'APPSECRET',
   `BIND_USER`          char(20) comment '绑定用户 (权限)',
   `BIND_IPS`           varchar(300) comment 'IP 白名单',
+  `RATE_LIMITS`        varchar(300) comment '限流规则',
   `MODIFIED_ON`        timestamp not null default current_timestamp comment '修改时间',
   `MODIFIED_BY`        char(20) not null comment '修改人',
   `CREATED_BY`         char(20) not null comment '创建人',
@@ -581,7 +582,8 @@ create table if not exists `nreference_item` (
   primary key  (`ITEM_ID`),
   unique index AIX0_nreference_item (`SEQ`),
   index IX1_nreference_item (`BELONG_ENTITY`),
-  unique index UIX2_nreference_item (`BELONG_FIELD`, `RECORD_ID`, `REFERENCE_ID`)
+  unique index UIX2_nreference_item (`BELONG_FIELD`, `RECORD_ID`, `REFERENCE_ID`),
+  index IX3_nreference_item (`BELONG_FIELD`, `REFERENCE_ID`)
 )Engine=InnoDB;
 
 -- ************ Entity [Feeds] DDL ************
@@ -693,6 +695,7 @@ create table if not exists `project_task` (
   `PARENT_TASK_ID`     char(20) comment '父级任务',
   `RELATED_RECORD`     char(20) comment '相关记录',
   `SEQ`                int(11) default '0' comment '排序 (小到大)',
+  `SEQ_RANK`           varchar(100) comment '排序键 (字典序)',
   `MODIFIED_ON`        timestamp not null default current_timestamp comment '修改时间',
   `MODIFIED_BY`        char(20) not null comment '修改人',
   `CREATED_BY`         char(20) not null comment '创建人',
@@ -700,7 +703,8 @@ create table if not exists `project_task` (
   primary key  (`TASK_ID`),
   index IX0_project_task (`PROJECT_ID`, `PROJECT_PLAN_ID`, `SEQ`),
   index IX1_project_task (`PROJECT_ID`, `TASK_NUMBER`, `TASK_NAME`, `STATUS`),
-  index IX2_project_task (`RELATED_RECORD`, `PROJECT_ID`)
+  index IX2_project_task (`RELATED_RECORD`, `PROJECT_ID`),
+  index IX3_project_task (`PROJECT_PLAN_ID`, `SEQ_RANK`)
 )Engine=InnoDB;
 
 -- ************ Entity [ProjectTaskRelation] DDL ************
@@ -769,6 +773,22 @@ create table if not exists `extform_config` (
   primary key  (`CONFIG_ID`)
 )Engine=InnoDB;
 
+-- ************ Entity [SmsendQueue] DDL ************
+create table if not exists `smsend_queue` (
+  `QUEUE_ID`           char(20) not null,
+  `TYPE`               smallint(6) default '0' comment '(1=短信; 2=邮件)',
+  `TO`                 varchar(100) not null comment '接收人',
+  `SUBJECT`            varchar(300) comment '邮件主题',
+  `CONTENT`            text(65535) not null comment '发送内容',
+  `STATUS`             smallint(6) default '0' comment '(0=待发送; 2=已发送; 3=失败)',
+  `RETRY_TIMES`        smallint(6) default '0' comment '已重试次数',
+  `NEXT_TIME`          timestamp not null default current_timestamp comment '下次发送时间',
+  `LAST_ERROR`         varchar(191) comment '最近错误',
+  `CREATED_ON`         timestamp not null default current_timestamp comment '创建时间',
+  primary key  (`QUEUE_ID`),
+  index IX0_smsend_queue (`STATUS`, `NEXT_TIME`)
+)Engine=InnoDB;
+
 -- ************ Entity [CommonsLock] DDL ************
 create table if not exists `commons_lock` (
   `LOCK_ID`            char(20) not null,
@@ -846,4 +866,4 @@ insert into `project_plan_config` (`CONFIG_ID`, `PROJECT_ID`, `PLAN_NAME`, `SEQ`
 
 -- DB Version (see `db-upgrade.sql`)
 insert into `system_config` (`CONFIG_ID`, `ITEM`, `VALUE`)
-  values ('021-9000000000000001', 'DBVer', 44);
+  values ('021-9000000000000001', 'DBVer', 48);
@@ -1,6 +1,38 @@
 -- Database upgrade scripts for rebuild 1.x and 2.x
 -- Each upgraded starts with `-- #VERSION`
 
+-- #48 (v2.10)
+alter table `rebuild_api`
+  add column `RATE_LIMITS` varchar(300) comment '限流规则';
+
+-- #47 (v2.10)
+alter table `project_task`
+  add column `SEQ_RANK` varchar(100) comment '排序键 (字典序)',
+  add index IX3_project_task (`PROJECT_PLAN_ID`, `SEQ_RANK`);
+update `project_task`
+  set `SEQ_RANK` = concat(lpad(ifnull(`SEQ`, 0) + 2147483648, 10, '0'), lower(substring(`TASK_ID`, 5)), 'i');
+
+-- #46 (v2.10)
+alter table `nreference_item`
+  add index IX3_nreference_item (`BELONG_FIELD`, `REFERENCE_ID`);
+
+-- #45 (v2.10)
+-- ************ Entity [SmsendQueue] DDL ************
+create table if not exists `smsend_queue` (
+  `QUEUE_ID`           char(20) not null,
+  `TYPE`               smallint(6) default '0' comment '(1=短信; 2=邮件)',
+  `TO`                 varchar(100) not null comment '接收人',
+  `SUBJECT`            varchar(300) comment '邮件主题',
+  `CONTENT`            text(65535) not null comment '发送内容',
+  `STATUS`             smallint(6) default '0' comment '(0=待发送; 2=已发送; 3=失败)',
+  `RETRY_TIMES`        smallint(6) default '0' comment '已重试次数',
+  `NEXT_TIME`          timestamp not null default current_timestamp comment '下次发送时间',
+  `LAST_ERROR`         varchar(191) comment '最近错误',
+  `CREATED_ON`         timestamp not null default current_timestamp comment '创建时间',
+  primary key  (`QUEUE_ID`),
+  index IX0_smsend_queue (`STATUS`, `NEXT_TIME`)
+)Engine=InnoDB;
+
 -- #44 (v2.9)
 -- ************ Entity [CommonsLock] DDL ************
 create table if not exists `commons_lock` (
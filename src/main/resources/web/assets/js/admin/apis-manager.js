@@ -34,10 +34,14 @@ class AppList extends React.Component {
               <td>{secret}</td>
               <td>{item[4] || $L('无 (拥有全部权限)')}</td>
               <td>{item[6] || 0}</td>
+              <td>{item[7] || <span className="text-muted">{$L('默认')}</span>}</td>
               <td>
                 <DateShow date={item[5]} />
               </td>
               <td className="actions">
+                <a className="icon" title={$L('修改限流规则')} onClick={() => renderRbcomp(<DlgEdit id={item[0]} rateLimits={item[7]} />)}>
+                  <i className="zmdi zmdi-edit" />
+                </a>
                 <a className="icon danger-hover" onClick={() => this.delete(item)}>
                   <i className="zmdi zmdi-delete" />
                 </a>
@@ -97,13 +101,22 @@ class DlgEdit extends RbFormHandler {
 
   render() {
     return (
-      <RbModal title={$L('添加 API 秘钥')} ref={(c) => (this._dlg = c)}>
+      <RbModal title={this.props.id ? $L('修改限流规则') : $L('添加 API 秘钥')} ref={(c) => (this._dlg = c)}>
         <div className="form">
+          {!this.props.id && (
+            <div className="form-group row">
+              <label className="col-sm-3 col-form-label text-sm-right">{$L('绑定用户 (权限)')}</label>
+              <div className="col-sm-7">
+                <UserSelector hideDepartment={true} hideRole={true} hideTeam={true} multiple={false} ref={(c) => (this._UserSelector = c)} />
+                <p className="form-text mb-0">{$L('强烈建议为 API 秘钥绑定一个用户，此秘钥将拥有和其一样的权限。如不绑定则拥有全部权限')}</p>
+              </div>
+            </div>
+          )}
           <div className="form-group row">
-            <label className="col-sm-3 col-form-label text-sm-right">{$L('绑定用户 (权限)')}</label>
+            <label className="col-sm-3 col-form-label text-sm-right">{$L('限流规则')}</label>
             <div className="col-sm-7">
-              <UserSelector hideDepartment={true} hideRole={true} hideTeam={true} multiple={false} ref={(c) => (this._UserSelector = c)} />
-              <p className="form-text mb-0">{$L('强烈建议为 API 秘钥绑定一个用户，此秘钥将拥有和其一样的权限。如不绑定则拥有全部权限')}</p>
+              <textarea className="form-control form-control-sm row2x" defaultValue={this.props.rateLimits || ''} placeholder="600/10, 6000/60" ref={(c) => (this._rateLimits = c)} />
+              <p className="form-text mb-0">{$L('格式为 `次数/秒`，多个用逗号分割。可指定 API，如 `entity/create=100/60`。留空使用默认 (600/10, 6000/60)')}</p>
             </div>
           </div>
           <div className="form-group row footer">
@@ -122,9 +135,13 @@ class DlgEdit extends RbFormHandler {
   }
 
   save = () => {
-    const bindUser = this._UserSelector.val()
+    const rateLimits = $val(this._rateLimits) || ''
+    const url = this.props.id
+      ? `/admin/apis-manager/app-update?id=${this.props.id}`
+      : `/admin/apis-manager/app-create?bind=${this._UserSelector.val() || ''}`
+
     this.disabled(true)
-    $.post(`/admin/apis-manager/app-create?bind=${bindUser || ''}`, (res) => {
+    $.post(`${url}&rateLimits=${$encode(rateLimits)}`, (res) => {
       if (res.error_code === 0) location.reload()
       else RbHighbar.error(res.error_msg)
       this.disabled()
@@ -14,6 +14,7 @@ const SHOW_DEFAULTVALUE = ['TEXT', 'NTEXT', 'EMAIL', 'PHONE', 'URL', 'NUMBER', '
 const SHOW_ADVDESENSITIZED = ['TEXT', 'PHONE', 'EMAIL', 'NUMBER', 'DECIMAL']
 const SHOW_ADVPATTERN = ['TEXT', 'PHONE', 'EMAIL']
 const SHOW_SCANCODE = ['TEXT']
+const SHOW_ADVINDEX = ['TEXT', 'PHONE', 'EMAIL', 'URL', 'NUMBER', 'DECIMAL', 'DATE', 'DATETIME', 'TIME', 'SERIES', 'PICKLIST', 'CLASSIFICATION', 'STATE', 'MULTISELECT']
 
 const CURRENT_BIZZ = '{CURRENT}'
 
@@ -54,6 +55,12 @@ $(document).ready(function () {
   } else {
     $('#textScanCode').parent().remove()
   }
+  // 索引
+  if (SHOW_ADVINDEX.includes(dt)) {
+    $('.J_advOpt').removeClass('hide')
+  } else {
+    $('#advIndex').parent().remove()
+  }
 
   const $btn = $('.J_save').on('click', function () {
     if (!wpc.metaId) return
@@ -100,10 +107,12 @@ $(document).ready(function () {
     delete extConfigNew['advDesensitized']
     delete extConfigNew['advPattern']
     delete extConfigNew['textScanCode']
+    delete extConfigNew['advIndex']
 
     if (SHOW_ADVDESENSITIZED.includes(dt)) extConfigNew['advDesensitized'] = $val('#advDesensitized')
     if (SHOW_ADVPATTERN.includes(dt)) extConfigNew['advPattern'] = $val('#advPattern')
     if (SHOW_SCANCODE.includes(dt)) extConfigNew['textScanCode'] = $val('#textScanCode')
+    if (SHOW_ADVINDEX.includes(dt) && $val('#advIndex')) extConfigNew['advIndex'] = true
 
     if ((extConfigNew['advDesensitized'] || extConfigNew['advPattern'] || extConfigNew['textScanCode']) && rb.commercial < 1) {
       RbHighbar.error(WrapHtml($L('免费版不支持高级功能 [(查看详情)](https://getrebuild.com/docs/rbv-features)')))
@@ -161,6 +170,7 @@ $(document).ready(function () {
   if (extConfig.advDesensitized) $('#advDesensitized').attr('checked', true)
   if (extConfig.advPattern) $('#advPattern').val(extConfig.advPattern)
   if (extConfig.textScanCode) $('#textScanCode').val(extConfig.textScanCode)
+  if (extConfig.advIndex) $('#advIndex').attr('checked', true)
 
   // 设置扩展值
   for (let k in extConfig) {
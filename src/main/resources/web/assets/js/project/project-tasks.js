@@ -120,6 +120,8 @@ class PlanBoxes extends React.Component {
   }
 
   componentDidMount() {
+    this.loadBoard()
+
     if (this.props.readonly) return
     if (this.props.sortable === false) return
 
@@ -165,13 +167,7 @@ class PlanBoxes extends React.Component {
 
           const taskid = $item.data('taskid')
           const prevTaskId = $itemPrev.attr('data-taskid')
-
-          const prevSeq = ~~($itemPrev.attr('data-seq') || 0) // 0 = At first
-          const nextSeq = ~~($itemNext.attr('data-seq') || -1) // -1 = At last
-          let seq
-          if (nextSeq === -1) seq = -1
-          else if (prevSeq === 0) seq = nextSeq / 2
-          else seq = ~~(prevSeq + (nextSeq - prevSeq) / 2)
+          const nextTaskId = $itemNext.attr('data-taskid')
 
           // Use state of react for move
           let $itemholder
@@ -182,12 +178,18 @@ class PlanBoxes extends React.Component {
             $(this).sortable('cancel')
           }
 
-          __saveTask(taskid, { seq: seq, projectPlanId: planidNew }, () => {
-            if (planidNew) {
-              const taskData = __PlanRefs[planidOld].removeTask(taskid)
-              if (taskData) __PlanRefs[planidNew].addTask(taskData, prevTaskId, $itemholder)
+          $.post(`/project/tasks/move?task=${taskid}&prev=${prevTaskId || ''}&next=${nextTaskId || ''}&plan=${planidNew || ''}`, (res) => {
+            if (res.error_code === 0) {
+              if (planidNew) {
+                const taskData = __PlanRefs[planidOld].removeTask(taskid)
+                if (taskData) __PlanRefs[planidNew].addTask(taskData, prevTaskId, $itemholder)
+              } else {
+                __TaskRefs[taskid].refresh()
+              }
             } else {
-              __TaskRefs[taskid].refresh()
+              $itemholder && $itemholder.remove()
+              $item.show()
+              RbHighbar.error(res.error_msg)
             }
           })
         },
@@ -196,6 +198,10 @@ class PlanBoxes extends React.Component {
   }
 
   componentDidUpdate(prevProps, prevState) {
+    if (prevState.sort !== this.state.sort || prevState.search !== this.state.search || !$same(prevState.filter, this.state.filter)) {
+      this.loadBoard()
+    }
+
     if (prevState.sort !== this.state.sort) {
       try {
         $('.task-list').sortable('option', 'disabled', this.state.sort !== 'seq')
@@ -210,6 +216,24 @@ class PlanBoxes extends React.Component {
       $('.J_search .indicator-primary').addClass('hide')
     }
   }
+
+  // 一次加载全部面板（首页）
+  loadBoard() {
+    const plans = this.props.plans.map((item) => item.id).join(',')
+    $.post(
+      `/project/tasks/board?plans=${plans}&sort=${this.state.sort || ''}&search=${$encode(this.state.search || '')}&pageSize=${__DEFAULT_PAGE_SIZE}&project=${this.props.projectId}`,
+      JSON.stringify(this.state.filter),
+      (res) => {
+        if (res.error_code === 0) {
+          for (let k in res.data) {
+            __PlanRefs[k] && __PlanRefs[k].setTasks(res.data[k])
+          }
+        } else {
+          RbHighbar.error(res.error_msg)
+        }
+      }
+    )
+  }
 }
 
 // 任务面板
@@ -295,13 +319,12 @@ class PlanBox extends React.Component {
 
   componentDidMount() {
     __PlanRefs[this.props.id] = this
-    this.refreshTasks(true)
 
     const $scroller = $(this._scroller).perfectScrollbar()
     // 滚动加载
     $scroller.on('ps-scroll-down', () => {
-      // 全部已加载
-      if (this.state.tasks.length >= this.state.taskNum) return
+      // 未加载或全部已加载
+      if (!this.state.tasks || this.state.tasks.length >= this.state.taskNum) return
 
       const scrollerHeight = $scroller[0].scrollHeight
       const top = $scroller.scrollTop() + $scroller.height()
@@ -320,8 +343,11 @@ class PlanBox extends React.Component {
     })()
   }
 
-  componentDidUpdate(prevProps) {
-    if (prevProps.sort !== this.props.sort || prevProps.search !== this.props.search || !$same(prevProps.filter, this.props.filter)) this.refreshTasks()
+  // 由看板快照填充
+  setTasks(data) {
+    this.pageNo = 1
+    this.pageSize = __DEFAULT_PAGE_SIZE
+    this.setState({ tasks: data.tasks, taskNum: data.count }, () => $(this._scroller).perfectScrollbar('update'))
   }
 
   // 加载任务列表
@@ -330,7 +356,7 @@ class PlanBox extends React.Component {
       this.pageNo++
     } else {
       this.pageNo = 1
-      this.pageSize = Math.max(this.state.tasks.length + 1, __DEFAULT_PAGE_SIZE)
+      this.pageSize = Math.max((this.state.tasks || []).length + 1, __DEFAULT_PAGE_SIZE)
     }
 
     $.post(
@@ -440,7 +466,6 @@ class Task extends React.Component {
     return (
       <div
         className={`task-card content status-${this.state.status} priority-${this.state.priority}`}
-        data-seq={this.state.seq}
         data-taskid={this.state.id}
         data-planid={this.props.planid}
         onClick={() => TaskViewModal.create(this.state.id)}>
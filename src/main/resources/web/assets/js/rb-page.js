@@ -553,6 +553,16 @@ var $createUploader = function (input, next, complete, error) {
       })
     })
   } else {
+    // 大文件分片上传（可续传）
+    if (!imgOnly) {
+      $input.on('change', function (e) {
+        var file = this.files[0]
+        if (!file || file.size < $chunkedUpload.THRESHOLD || file.size > ~~$input.attr('data-maxsize')) return
+        e.stopImmediatePropagation()
+        $chunkedUpload(file, local === 'temp', next, complete, error)
+      })
+    }
+
     $input.html5Uploader({
       name: $input.attr('id') || $input.attr('name') || 'H5Upload',
       postUrl: rb.baseUrl + '/filex/upload?type=' + (imgOnly ? 'image' : 'file') + '&temp=' + (local === 'temp') + useToken,
@@ -588,6 +598,64 @@ var $createUploader = function (input, next, complete, error) {
 }
 var $initUploader = $createUploader
 
+/**
+ * 分片上传（中断后重新选择同一文件可续传）
+ */
+var $chunkedUpload = function (file, temp, next, complete, error) {
+  var useToken = rb.csrfToken ? '&_csrfToken=' + rb.csrfToken : ''
+  var fid = $encode(file.name + ':' + file.size + ':' + file.lastModified)
+  var baseUrl = rb.baseUrl + '/filex/upload-chunked/'
+  var fileQuery = 'fid=' + fid + '&name=' + $encode(file.name) + '&size=' + file.size + '&type=file&temp=' + temp + useToken
+
+  var _error = function (res) {
+    RbHighbar.error((res && res.error_msg) || $L('上传失败，请稍后重试'))
+    typeof error === 'function' && error()
+  }
+
+  var _complete = function () {
+    $.post(baseUrl + 'complete?' + fileQuery, function (res) {
+      if (res.error_code !== 0) return _error(res)
+      if (!temp) $.post('/filex/store-filesize?fs=' + file.size + '&fp=' + $encode(res.data.key) + useToken)
+      complete({ key: res.data.key })
+    }).fail(_error)
+  }
+
+  var chunkSize
+  var _send = function (offset, retry) {
+    typeof next === 'function' && next({ percent: (offset * 100) / file.size })
+    if (offset >= file.size) return _complete()
+
+    $.ajax({
+      url: baseUrl + 'chunk?fid=' + fid + '&offset=' + offset + useToken,
+      type: 'POST',
+      data: file.slice(offset, offset + chunkSize),
+      processData: false,
+      contentType: 'application/octet-stream',
+      success: function (res) {
+        if (res.error_code !== 0) return _error(res)
+        _send(res.data.received, 0)
+      },
+      error: function () {
+        // 网络异常重试
+        if (retry < 5) {
+          setTimeout(function () {
+            _send(offset, retry + 1)
+          }, 2000 * (retry + 1))
+        } else {
+          _error()
+        }
+      },
+    })
+  }
+
+  $.post(baseUrl + 'init?' + fileQuery, function (res) {
+    if (res.error_code !== 0) return _error(res)
+    chunkSize = res.data.chunkSize
+    _send(res.data.received, 0)
+  }).fail(_error)
+}
+$chunkedUpload.THRESHOLD = 1048576 * 10 // 10MB
+
 /**
  * 卸载 React 组件
  */
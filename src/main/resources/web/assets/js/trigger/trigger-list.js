@@ -44,6 +44,11 @@ class TriggerList extends ConfigList {
     this.requestUrl = '/admin/robot/trigger/list'
   }
 
+  componentDidMount() {
+    super.componentDidMount()
+    $.get('/admin/robot/trigger/profiles', (res) => this.setState({ profiles: res.data || {} }))
+  }
+
   render() {
     return (
       <React.Fragment>
@@ -59,6 +64,7 @@ class TriggerList extends ConfigList {
               <td>{item[2] || item[1]}</td>
               <td>{item[7]}</td>
               <td>{item[6] > 0 ? $L('当 %s 时', formatWhen(item[6])) : <span className="text-warning">({$L('无触发动作')})</span>}</td>
+              <td>{this.renderProfile(item[0])}</td>
               <td>{item[4] ? <span className="badge badge-warning font-weight-light">{$L('否')}</span> : <span className="badge badge-success font-weight-light">{$L('是')}</span>}</td>
               <td>
                 <DateShow date={item[5]} />
@@ -87,6 +93,44 @@ class TriggerList extends ConfigList {
     )
   }
 
+  renderProfile(id) {
+    const p = (this.state.profiles || {})[id]
+    if (!p || !p.count) return <span className="text-muted">-</span>
+
+    const title = [
+      `${$L('执行次数')} : ${p.count} (${$L('失败')} ${p.errors})`,
+      `${$L('耗时')} : avg ${p.avg}ms / p50 ${p.p50}ms / p99 ${p.p99}ms / max ${p.max}ms`,
+      `${$L('平均查询')} : ${p.queries} / ${$L('平均写入')} : ${p.writes}`,
+      `${$L('级联触发')} : ${p.depth}`,
+    ].join('\n')
+
+    return (
+      <a title={title} onClick={() => this.handleResetProfile(id)}>
+        <span className={p.errors > 0 ? 'text-danger' : null}>{p.count}</span>
+        <span className="text-muted ml-1">· p99 {p.p99}ms</span>
+      </a>
+    )
+  }
+
+  handleResetProfile(id) {
+    const that = this
+    RbAlert.create($L('确认清除此触发器的执行分析？'), {
+      confirm: function () {
+        this.disabled(true)
+        $.post(`/admin/robot/trigger/profiles-reset?id=${id}`, (res) => {
+          this.hide()
+          if (res.error_code === 0) {
+            const profiles = { ...that.state.profiles }
+            delete profiles[id]
+            that.setState({ profiles })
+          } else {
+            RbHighbar.error(res.error_msg)
+          }
+        })
+      },
+    })
+  }
+
   handleLock(item, lock) {
     if (lock !== true && item[8][0] !== rb.currentUser) {
       RbHighbar.create($L('请联系 %s 解锁', item[8][1]))
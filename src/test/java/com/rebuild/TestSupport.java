@@ -22,6 +22,7 @@ import com.rebuild.core.metadata.impl.Entity2Schema;
 import com.rebuild.core.metadata.impl.Field2Schema;
 import com.rebuild.core.privileges.UserService;
 import com.rebuild.core.rbstore.MetaschemaImporter;
+import com.rebuild.core.service.query.QueryTracker;
 import com.rebuild.core.support.task.HeavyTask;
 import com.rebuild.core.support.task.TaskExecutors;
 import com.rebuild.utils.BlockList;
@@ -29,11 +30,14 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.math.RandomUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.ResourceUtils;
 
+import java.util.function.Supplier;
+
 /**
  * JUnit4 测试基类
  */
@@ -206,4 +210,29 @@ public class TestSupport {
         record.setString("text", "TEXT-" + RandomUtils.nextLong());
         return Application.getGeneralEntityService().create(record).getPrimary();
     }
+
+    /**
+     * 断言调用（如某个 Controller 方法）的查询次数不超过 `maxQueries`，且没有重复查询（N+1）
+     *
+     * @param maxQueries
+     * @param call
+     * @param <T>
+     * @return
+     */
+    protected static <T> T assertMaxQueries(int maxQueries, Supplier<T> call) {
+        T result;
+        QueryTracker.Tracking queries = QueryTracker.begin();
+        try {
+            result = call.get();
+        } finally {
+            queries.close();
+        }
+
+        LOG.info("Queries : {}", queries);
+        Assertions.assertTrue(queries.getCount() <= maxQueries,
+                "Expected at most " + maxQueries + " queries, but " + queries.getCount());
+        Assertions.assertTrue(queries.getRepeated().isEmpty(),
+                "Repeated queries (N+1) : " + queries.getRepeated());
+        return result;
+    }
 }
@@ -18,6 +18,8 @@ import com.rebuild.core.configuration.RebuildApiManager;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.RecordBuilder;
 import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.support.ratelimit.RateLimits;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
@@ -50,6 +52,30 @@ public class ApiGatewayTest extends TestSupport {
         }
     }
 
+    @Test
+    void testRateLimitHighQuota() {
+        final String appId = "999999998";
+        if (RebuildApiManager.instance.getApp(appId) == null) {
+            Record record = RecordBuilder.builder(EntityHelper.RebuildApi)
+                    .add("appId", appId)
+                    .add("appSecret", CodecUtils.randomCode(40))
+                    .add("bindUser", UserService.SYSTEM_USER)
+                    .add("rateLimits", "3000/10, 30000/60")
+                    .build(UserService.SYSTEM_USER);
+            Application.getCommonsService().create(record, false);
+            RebuildApiManager.instance.clean(appId);
+        }
+
+        // 同一 IP 下可超出默认规则
+        final ApiGateway gateway = new ApiGateway();
+        final String remoteIp = "10.0.0." + System.currentTimeMillis() % 200;
+        final int times = RateLimits.RULES_API[0].getLimit() + 100;
+        for (int i = 0; i < times; i++) {
+            Assertions.assertTrue(gateway.checkIpRateLimit(remoteIp).isAllowed(), "ip limited at " + i);
+            Assertions.assertTrue(gateway.checkRateLimit(appId, "system-time").isAllowed(), "app limited at " + i);
+        }
+    }
+
     /**
      * 创建用于调用接口的 API Key
      *
@@ -15,7 +15,9 @@ import com.rebuild.utils.JSONUtils;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author devezhao
@@ -47,4 +49,17 @@ class CommonsCacheTest extends TestSupport {
         Application.getCommonsCache().evict(key);
         assertNull(Application.getCommonsCache().get(key));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPutIfAbsent() {
+        final String key = "abc456";
+        Application.getCommonsCache().evict(key);
+
+        assertTrue(Application.getCommonsCache().putIfAbsent(key, "1", 60));
+        assertFalse(Application.getCommonsCache().putIfAbsent(key, "2", 60));
+        assertEquals(3L, Application.getCommonsCache().incrBy(key, 2));
+        assertEquals("3", Application.getCommonsCache().get(key));
+
+        Application.getCommonsCache().evict(key);
+    }
+}
@@ -9,7 +9,9 @@ package com.rebuild.core.configuration.general;
 
 import com.alibaba.fastjson.JSONArray;
 import com.rebuild.TestSupport;
+import com.rebuild.core.Application;
 import com.rebuild.core.privileges.UserService;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -23,4 +25,17 @@ public class AdvFilterManagerTest extends TestSupport {
         JSONArray array = AdvFilterManager.instance.getAdvFilterList("User", UserService.ADMIN_USER);
         System.out.println("AdvFilterManager : " + array);
     }
+
+    @Test
+    public void testUsesConfigNoClone() {
+        Object[][] uses1 = AdvFilterManager.instance.getUsesConfig(UserService.ADMIN_USER, "User", null);
+        Object[][] uses2 = AdvFilterManager.instance.getUsesConfig(UserService.ADMIN_USER, "User", null);
+        Assertions.assertEquals(uses1.length, uses2.length);
+        if (uses1.length > 0) Assertions.assertSame(uses1[0], uses2[0]);
+
+        // 用户体系变更后重建
+        Application.getUserStore().refreshUser(UserService.ADMIN_USER);
+        Object[][] uses3 = AdvFilterManager.instance.getUsesConfig(UserService.ADMIN_USER, "User", null);
+        Assertions.assertEquals(uses1.length, uses3.length);
+    }
 }
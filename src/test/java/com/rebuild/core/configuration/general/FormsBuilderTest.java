@@ -7,17 +7,22 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.configuration.general;
 
+import cn.devezhao.commons.CalendarUtils;
 import cn.devezhao.persist4j.Entity;
 import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.rebuild.TestSupport;
+import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.privileges.UserService;
 import com.rebuild.utils.JSONUtils;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Date;
+
 /**
  * @author devezhao zhaofang123@gmail.com
  * @since 2019/06/03
@@ -39,6 +44,67 @@ public class FormsBuilderTest extends TestSupport {
         System.out.println(viewModel);
     }
 
+    @Test
+    public void testModelSkeletonCache() {
+        FormsBuilder.instance.cleanModelSkeleton();
+        final Entity user = MetadataHelper.getEntity("User");
+        final ID layoutId = ID.newId(EntityHelper.LayoutConfig);
+        final Date modifiedOn = CalendarUtils.now();
+
+        JSONArray s1 = FormsBuilder.instance.getModelSkeleton(layoutId, modifiedOn,
+                JSON.parseArray("[{field:'loginName'}]"), user, true, true);
+        Assertions.assertEquals("loginName", s1.getJSONObject(0).getString("field"));
+
+        // 同一修改时间命中缓存
+        JSONArray s2 = FormsBuilder.instance.getModelSkeleton(layoutId, modifiedOn,
+                JSON.parseArray("[{field:'email'}]"), user, true, true);
+        Assertions.assertEquals("loginName", s2.getJSONObject(0).getString("field"));
+
+        // 修改时间变化则重建
+        JSONArray s3 = FormsBuilder.instance.getModelSkeleton(layoutId, new Date(modifiedOn.getTime() + 1000),
+                JSON.parseArray("[{field:'email'}]"), user, true, true);
+        Assertions.assertEquals("email", s3.getJSONObject(0).getString("field"));
+
+        // 修改副本（含嵌套）不影响缓存
+        s2.getJSONObject(0).put("field", "fullName");
+        s2.getJSONObject(0).put("nested", JSON.parseArray("[1]"));
+        JSONArray s4 = FormsBuilder.instance.getModelSkeleton(layoutId, modifiedOn,
+                JSON.parseArray("[{field:'email'}]"), user, true, true);
+        Assertions.assertEquals(s1, s4);
+    }
+
+    @Test
+    public void testModelSkeletonDeepCopy() {
+        JSONArray skeleton = JSON.parseArray("[{field:'a', options:[{id:1, text:'A'}]}]");
+        JSONArray copy = (JSONArray) FormsBuilder.deepCopy(skeleton);
+        Assertions.assertEquals(skeleton, copy);
+
+        copy.getJSONObject(0).getJSONArray("options").getJSONObject(0).put("text", "B");
+        Assertions.assertEquals("A",
+                skeleton.getJSONObject(0).getJSONArray("options").getJSONObject(0).getString("text"));
+    }
+
+    @Test
+    public void testModelSkeletonLatency() {
+        FormsBuilder.instance.cleanModelSkeleton();
+
+        long s = System.nanoTime();
+        JSON first = FormsBuilder.instance.buildForm(TestAllFields, UserService.ADMIN_USER, null);
+        long cold = System.nanoTime() - s;
+
+        final int loops = 200;
+        JSON last = null;
+        s = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            last = FormsBuilder.instance.buildForm(TestAllFields, UserService.ADMIN_USER, null);
+        }
+        long warm = (System.nanoTime() - s) / loops;
+
+        // 缓存结果一致，且命中缓存更快
+        Assertions.assertEquals(first, last);
+        Assertions.assertTrue(warm < cold, "warm=" + warm + ", cold=" + cold);
+    }
+
     @Test
     public void testSetFormInitialValue() {
         Entity SalesOrder999 = MetadataHelper.getEntity(SalesOrder);
@@ -8,9 +8,12 @@ See LICENSE and COMMERCIAL in the project root for license information.
 package com.rebuild.core.configuration.general;
 
 import cn.devezhao.persist4j.Field;
+import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
 import com.rebuild.TestSupport;
+import com.rebuild.core.configuration.ConfigBean;
 import com.rebuild.core.metadata.MetadataHelper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -25,4 +28,18 @@ public class PickListManagerTest extends TestSupport {
         JSON list = PickListManager.instance.getPickList(picklist);
         System.out.println(list.toJSONString());
     }
+
+    @Test
+    public void testGetLabel() {
+        Field picklist = MetadataHelper.getEntity(TestAllFields).getField("picklist");
+        ConfigBean[] items = PickListManager.instance.getPickListRaw(picklist, true);
+        if (items.length == 0) return;
+
+        ID itemId = items[0].getID("id");
+        Assertions.assertEquals(items[0].getString("text"), PickListManager.instance.getLabel(itemId));
+
+        // 失效后重建
+        PickListManager.instance.clean(picklist);
+        Assertions.assertEquals(items[0].getString("text"), PickListManager.instance.getLabel(itemId));
+    }
 }
@@ -8,8 +8,13 @@ See LICENSE and COMMERCIAL in the project root for license information.
 package com.rebuild.core.metadata.easymeta;
 
 import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
 import com.rebuild.TestSupport;
 import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.support.general.DataListBuilderImpl;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -33,6 +38,41 @@ class EasyMetaTest extends TestSupport {
         }
     }
 
+    @Test
+    void testFieldDescriptorCache() {
+        Field field = MetadataHelper.getField("User", "loginName");
+        Assertions.assertSame(EasyMetaFactory.valueOf(field), EasyMetaFactory.valueOf(field));
+
+        EasyMetaFactory.cleanCache();
+        Assertions.assertSame(field, EasyMetaFactory.valueOf(field).getRawMeta());
+    }
+
+    @Test
+    void testWrapListLatency() {
+        JSONObject queryExpr = JSON.parseObject("{ entity:'User', pageNo:1, pageSize:100 }");
+        queryExpr.put("fields", JSON.parseArray("[ 'loginName', 'email', 'createdOn', 'createdBy', 'deptId', 'roleId', 'isDisabled' ]"));
+
+        final int loops = 50;
+        JSON uncached = null;
+        long s = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            EasyMetaFactory.cleanCache();
+            uncached = new DataListBuilderImpl(queryExpr, UserService.ADMIN_USER).getJSONResult();
+        }
+        long before = (System.nanoTime() - s) / loops;
+
+        JSON cached = null;
+        s = System.nanoTime();
+        for (int i = 0; i < loops; i++) {
+            cached = new DataListBuilderImpl(queryExpr, UserService.ADMIN_USER).getJSONResult();
+        }
+        long after = (System.nanoTime() - s) / loops;
+
+        // 缓存不改变结果，且不会更慢
+        Assertions.assertEquals(uncached, cached);
+        Assertions.assertTrue(after <= before, "cached=" + after + ", no-cache=" + before);
+    }
+
     @Test
     void testPattern() {
         // 固话
@@ -7,12 +7,17 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.metadata.impl;
 
+import cn.devezhao.commons.ThreadPool;
 import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Field;
 import com.rebuild.TestSupport;
 import com.rebuild.core.UserContextHolder;
+import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.metadata.MetadataHelper;
 import com.rebuild.core.metadata.easymeta.DisplayType;
 import com.rebuild.core.privileges.UserService;
+import com.rebuild.utils.JSONUtils;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -49,11 +54,53 @@ class Meta2SchemaTest extends TestSupport {
         System.out.println("New Field is created : " + newFiled);
 
         newEntity = MetadataHelper.getEntity(newEntityName);
+        Assertions.assertTrue(newEntity.containsField(newFiled));
 
         boolean drop = new Field2Schema(UserService.ADMIN_USER).dropField(newEntity.getField(newFiled), true);
         System.out.println("New Field is dropped : " + newFiled + " > " + drop);
 
+        newEntity = MetadataHelper.getEntity(newEntityName);
+        Assertions.assertFalse(newEntity.containsField(newFiled));
+
         drop = new Entity2Schema(UserService.ADMIN_USER).dropEntity(newEntity);
         System.out.println("New Entity (for Field) is dropped : " + newEntityName + " > " + drop);
+        Assertions.assertFalse(MetadataHelper.containsEntity(newEntityName));
+    }
+
+    @Test
+    void testFieldIndex() {
+        String newEntityName = new Entity2Schema(UserService.ADMIN_USER)
+                .createEntity("测试索引", null, null, false);
+        Entity newEntity = MetadataHelper.getEntity(newEntityName);
+
+        // 引用字段自动建立
+        Field owningUser = newEntity.getField(EntityHelper.OwningUser);
+        Assertions.assertEquals(Index2Schema.TYPE_INDEX, Index2Schema.getIndexType(owningUser));
+        Assertions.assertEquals(Index2Schema.TYPE_INDEX, waitIndex(owningUser));
+        // 其他公共字段不建立
+        Assertions.assertNull(Index2Schema.getIndexType(newEntity.getField(EntityHelper.ModifiedOn)));
+        Assertions.assertNull(Index2Schema.getIndexType(newEntity.getField(EntityHelper.AutoId)));
+
+        String newFiled = new Field2Schema(UserService.ADMIN_USER)
+                .createField(newEntity, "编号", DisplayType.TEXT, null, null,
+                        JSONUtils.toJSONObject(EasyFieldConfigProps.ADV_INDEX, true));
+        Field textField = MetadataHelper.getField(newEntityName, newFiled);
+        Assertions.assertEquals(Index2Schema.TYPE_INDEX, waitIndex(textField));
+
+        boolean drop = new Field2Schema(UserService.ADMIN_USER).dropField(textField, true);
+        Assertions.assertTrue(drop);
+        Assertions.assertNull(Index2Schema.getCurrentIndexType(textField));
+
+        new Entity2Schema(UserService.ADMIN_USER).dropEntity(MetadataHelper.getEntity(newEntityName));
+    }
+
+    // 索引异步建立
+    private String waitIndex(Field field) {
+        for (int i = 0; i < 50; i++) {
+            String type = Index2Schema.getCurrentIndexType(field);
+            if (type != null) return type;
+            ThreadPool.waitFor(200);
+        }
+        return null;
     }
 }
@@ -11,6 +11,7 @@ import cn.devezhao.persist4j.engine.ID;
 import com.rebuild.TestSupport;
 import com.rebuild.core.Application;
 import com.rebuild.core.UserContextHolder;
+import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.privileges.bizz.Department;
 import com.rebuild.core.privileges.bizz.User;
 import org.junit.jupiter.api.Assertions;
@@ -45,6 +46,59 @@ public class UserStoreTest extends TestSupport {
         Application.getUserStore().refreshTeam(SIMPLE_TEAM);
     }
 
+    @Test
+    public void testSnapshot() {
+        final UserStore us = Application.getUserStore();
+        User before = us.getUser(UserService.ADMIN_USER);
+        long version = us.getVersion();
+
+        us.refreshUser(UserService.ADMIN_USER);
+        Assertions.assertTrue(us.getVersion() > version);
+
+        // 已发布的对象不会被修改
+        User after = us.getUser(UserService.ADMIN_USER);
+        Assertions.assertNotSame(before, after);
+        Assertions.assertEquals(before.getOwningRole().getIdentity(), after.getOwningRole().getIdentity());
+    }
+
+    @Test
+    public void testBatch() {
+        final UserStore us = Application.getUserStore();
+        final long version = us.getVersion();
+
+        us.batch(() -> {
+            for (int i = 0; i < 10; i++) {
+                us.refreshUser(UserService.ADMIN_USER);
+                us.refreshRole(RoleService.ADMIN_ROLE);
+            }
+            // 批量中不发布
+            Assertions.assertEquals(version, us.getVersion());
+        });
+
+        // 结束后仅发布一次
+        Assertions.assertEquals(version + 1, us.getVersion());
+        Assertions.assertNotNull(us.getUser(UserService.ADMIN_USER).getOwningRole());
+    }
+
+    @Test
+    public void testRefreshNotExists() {
+        final UserStore us = Application.getUserStore();
+        final long version = us.getVersion();
+
+        // 不存在的（如已删除）移除而非放入空值
+        ID userId = ID.newId(EntityHelper.User);
+        ID deptId = ID.newId(EntityHelper.Department);
+        us.refreshUser(userId);
+        us.refreshDepartment(deptId);
+        us.refreshRole(ID.newId(EntityHelper.Role));
+        us.refreshTeam(ID.newId(EntityHelper.Team));
+
+        // 连续变更仅发布一次
+        Assertions.assertFalse(us.existsUser(userId));
+        Assertions.assertFalse(us.existsAny(deptId));
+        Assertions.assertEquals(version + 1, us.getVersion());
+    }
+
     @Test
     public void testExists() {
         Assertions.assertTrue(Application.getUserStore().existsUser("admin"));
@@ -7,8 +7,11 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.service.approval;
 
+import cn.devezhao.persist4j.engine.ID;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.rebuild.core.metadata.EntityHelper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.util.ResourceUtils;
 
@@ -52,6 +55,23 @@ public class FlowParserTest {
         System.out.println();
     }
 
+    @Test
+    public void testCompile() throws Exception {
+        File file = ResourceUtils.getFile("classpath:approval-flow1.json");
+        JSONObject flowDefinition;
+        try (InputStream in = new FileInputStream(file)) {
+            flowDefinition = JSON.parseObject(in, null);
+        }
+
+        ID approvalId = ID.newId(EntityHelper.RobotApprovalConfig);
+        FlowParser p1 = FlowParser.compile(approvalId, 1, flowDefinition);
+        Assertions.assertSame(p1, FlowParser.compile(approvalId, 1, flowDefinition));
+        Assertions.assertNotSame(p1, FlowParser.compile(approvalId, 2, flowDefinition));
+
+        Assertions.assertFalse(p1.getNextNodes(FlowNode.NODE_ROOT).isEmpty());
+        Assertions.assertTrue(p1.getNextNodes("NOT_EXISTS").isEmpty());
+    }
+
     /**
      * @param fileNo
      * @return
@@ -0,0 +1,70 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.files;
+
+import com.rebuild.TestSupport;
+import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.service.DataSpecificationException;
+import com.rebuild.core.support.RebuildConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class ChunkedUploaderTest extends TestSupport {
+
+    @Test
+    public void testChunkedAndDedup() throws IOException {
+        final byte[] content = ("ChunkedUploaderTest-" + System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8);
+
+        String[] keys = new String[2];
+        for (int i = 0; i < 2; i++) {
+            String uploadId = ChunkedUploader.getUploadId(UserService.ADMIN_USER, "test.txt:" + i);
+            ChunkedUploader.abort(uploadId);
+
+            long received = ChunkedUploader.appendChunk(uploadId, 0, new ByteArrayInputStream(content, 0, 10), 10);
+            Assertions.assertEquals(10, received);
+            // 偏移错误被忽略
+            Assertions.assertEquals(10, ChunkedUploader.appendChunk(uploadId, 0, new ByteArrayInputStream(content), 10));
+            // 续传
+            Assertions.assertEquals(10, ChunkedUploader.getReceived(uploadId));
+            received = ChunkedUploader.appendChunk(uploadId, received,
+                    new ByteArrayInputStream(content, 10, content.length - 10), content.length - 10);
+            Assertions.assertEquals(content.length, received);
+
+            keys[i] = ChunkedUploader.complete(uploadId, "test.txt", content.length, false);
+            System.out.println("Uploaded : " + keys[i]);
+        }
+
+        File file1 = RebuildConfiguration.getFileOfData(keys[0]);
+        File file2 = RebuildConfiguration.getFileOfData(keys[1]);
+        Assertions.assertArrayEquals(content, Files.readAllBytes(file1.toPath()));
+        Assertions.assertArrayEquals(content, Files.readAllBytes(file2.toPath()));
+        Assertions.assertEquals(ContentStore.sha256(file1), ContentStore.sha256(file2));
+        Assertions.assertTrue(ContentStore.exists(ContentStore.sha256(file1)));
+    }
+
+    @Test
+    public void testCheckUploadFile() {
+        FilesHelper.checkUploadFile("test.txt", 10, false);
+        FilesHelper.checkUploadFile("test.PNG", 10, true);
+
+        Assertions.assertThrows(DataSpecificationException.class,
+                () -> FilesHelper.checkUploadFile("test.txt", FilesHelper.getUploadMaxSize() + 1, false));
+        Assertions.assertThrows(DataSpecificationException.class,
+                () -> FilesHelper.checkUploadFile("test.txt", 10, true));
+    }
+}
@@ -0,0 +1,74 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.files;
+
+import com.rebuild.TestSupport;
+import com.rebuild.core.support.RebuildConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class ThumbnailCacheTest extends TestSupport {
+
+    @Test
+    public void testBucket() {
+        Assertions.assertEquals(60, ThumbnailCache.bucketOf(1));
+        Assertions.assertEquals(200, ThumbnailCache.bucketOf(150));
+        Assertions.assertEquals(1000, ThumbnailCache.bucketOf(999));
+    }
+
+    @Test
+    public void testGetThumbnail() throws IOException {
+        File image = RebuildConfiguration.getFileOfTemp("ThumbnailCacheTest-" + System.currentTimeMillis() + ".png");
+        ImageIO.write(new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB), "png", image);
+
+        // 并发请求只生成一次
+        List<CompletableFuture<File>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> ThumbnailCache.getThumbnail(image, 100, true)));
+        }
+
+        File thumb = futures.get(0).join();
+        Assertions.assertNotNull(thumb);
+        for (CompletableFuture<File> f : futures) {
+            Assertions.assertEquals(thumb, f.join());
+        }
+
+        BufferedImage bi = ImageIO.read(thumb);
+        Assertions.assertEquals(120, bi.getWidth());
+        System.out.println("Thumbnail : " + thumb);
+
+        // 原图删除后清理
+        Assertions.assertTrue(image.delete());
+        ThumbnailCache.clean();
+        Assertions.assertFalse(thumb.exists());
+    }
+
+    @Test
+    public void testRemove() throws IOException {
+        File image = RebuildConfiguration.getFileOfTemp("ThumbnailCacheTest-" + System.currentTimeMillis() + ".jpg");
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "jpg", image);
+
+        File thumb = ThumbnailCache.getThumbnail(image, 200, false);
+        Assertions.assertNotNull(thumb);
+
+        ThumbnailCache.remove(image);
+        Assertions.assertFalse(thumb.exists());
+    }
+}
@@ -7,7 +7,13 @@ See LICENSE and COMMERCIAL in the project root for license information.
 
 package com.rebuild.core.service.general.recyclebin;
 
+import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.persist4j.engine.ID;
 import com.rebuild.TestSupport;
+import com.rebuild.core.Application;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.support.task.TaskExecutors;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -20,4 +26,30 @@ public class RecycleBinCleanerJobTest extends TestSupport {
     public void executeInternal() {
         new RecycleBinCleanerJob().executeJob();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPurgeTask() {
+        ID test = addRecordOfTestAllFields(SIMPLE_USER);
+        RecycleStore recycleStore = new RecycleStore(SIMPLE_USER);
+        recycleStore.add(test);
+        recycleStore.store();
+
+        RetentionPurgeTask task = new RetentionPurgeTask()
+                .addTarget(EntityHelper.RecycleBin, CalendarUtils.addDay(1))
+                .addTarget(EntityHelper.RevisionHistory, CalendarUtils.addDay(1));
+        TaskExecutors.run(task);
+
+        Assertions.assertTrue(task.getSucceeded() > 0);
+        Assertions.assertNull(task.getErrorMessage());
+        // 进度（按批次，完成后总数即处理数）
+        Assertions.assertEquals(task.getCompleted(), task.getTotal());
+        Assertions.assertTrue(task.getCompleted() >= task.getSucceeded());
+        Assertions.assertEquals(1d, task.getCompletedPercent());
+
+        Object[] exists = Application.createQueryNoFilter(
+                "select recycleId from RecycleBin where recordId = ?")
+                .setParameter(1, test)
+                .unique();
+        Assertions.assertNull(exists);
+    }
+}
@@ -9,6 +9,7 @@ package com.rebuild.core.service.notification;
 
 import com.rebuild.TestSupport;
 import com.rebuild.core.Application;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -28,4 +29,22 @@ public class NotificationServiceTest extends TestSupport {
     void testGetUnread() {
         Application.getNotifications().getUnreadMessage(SIMPLE_USER);
     }
+
+    @Test
+    void testUnreadCounter() {
+        final NotificationService ns = Application.getNotifications();
+        int unread = ns.getUnreadMessage(SIMPLE_USER);
+
+        ns.send(MessageBuilder.createMessage(SIMPLE_USER, "发一条消息 1"));
+        ns.send(MessageBuilder.createMessage(SIMPLE_USER, "发一条消息 2"));
+        Assertions.assertEquals(unread + 2, ns.getUnreadMessage(SIMPLE_USER));
+
+        ns.makeRead(SIMPLE_USER, null);
+        Assertions.assertEquals(0, ns.getUnreadMessage(SIMPLE_USER));
+
+        ns.send(MessageBuilder.createMessage(SIMPLE_USER, "发一条消息 3"));
+        Assertions.assertEquals(1, ns.getUnreadMessage(SIMPLE_USER));
+        ns.delete(SIMPLE_USER, null);
+        Assertions.assertEquals(0, ns.getUnreadMessage(SIMPLE_USER));
+    }
 }
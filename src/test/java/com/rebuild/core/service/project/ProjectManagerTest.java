@@ -13,8 +13,10 @@ import com.rebuild.TestSupport;
 import com.rebuild.core.Application;
 import com.rebuild.core.UserContextHolder;
 import com.rebuild.core.configuration.ConfigBean;
+import com.rebuild.core.configuration.ConfigurationException;
 import com.rebuild.core.metadata.EntityHelper;
 import com.rebuild.core.privileges.UserService;
+import com.rebuild.core.service.DataSpecificationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -90,4 +92,31 @@ public class ProjectManagerTest extends TestSupport {
         // DELETE
         Application.getBean(ProjectTaskService.class).delete(task.getPrimary());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMoveTaskOtherProject() {
+        ConfigBean[] plans = ProjectManager.instance.getPlansOfProject(_LastSavedProject);
+
+        Record task = EntityHelper.forNew(EntityHelper.ProjectTask, SIMPLE_USER);
+        task.setID("projectId", _LastSavedProject);
+        task.setID("projectPlanId", plans[0].getID("id"));
+        task.setString("taskName", "任务" + System.currentTimeMillis());
+        task = Application.getBean(ProjectTaskService.class).create(task);
+
+        final ID taskId = task.getPrimary();
+        try {
+            // 非本项目面板
+            ID otherPlanId = ID.newId(EntityHelper.ProjectPlanConfig);
+            Assertions.assertThrows(ConfigurationException.class,
+                    () -> Application.getBean(ProjectTaskService.class).moveTask(taskId, otherPlanId, null, null));
+
+            // 非项目成员
+            UserContextHolder.setUser(UserService.SYSTEM_USER);
+            Assertions.assertThrows(DataSpecificationException.class,
+                    () -> Application.getBean(ProjectTaskService.class).moveTask(taskId, null, null, null));
+        } finally {
+            UserContextHolder.setUser(UserService.ADMIN_USER);
+            Application.getBean(ProjectTaskService.class).delete(taskId);
+        }
+    }
+}
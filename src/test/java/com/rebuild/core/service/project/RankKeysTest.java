@@ -0,0 +1,64 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+class RankKeysTest {
+
+    @Test
+    void between() {
+        String a = RankKeys.between(null, null);
+        String b = RankKeys.between(a, null);
+        String c = RankKeys.between(null, a);
+        Assertions.assertTrue(c.compareTo(a) < 0 && a.compareTo(b) < 0);
+
+        String m = RankKeys.between(a, b);
+        Assertions.assertTrue(a.compareTo(m) < 0 && m.compareTo(b) < 0);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RankKeys.between(b, a));
+    }
+
+    @Test
+    void randomInsert() {
+        List<String> keys = new ArrayList<>();
+        Random random = new Random(2026);
+        for (int i = 0; i < 2000; i++) {
+            int pos = random.nextInt(keys.size() + 1);
+            String prev = pos == 0 ? null : keys.get(pos - 1);
+            String next = pos == keys.size() ? null : keys.get(pos);
+            String key = RankKeys.between(prev, next);
+
+            if (prev != null) Assertions.assertTrue(prev.compareTo(key) < 0);
+            if (next != null) Assertions.assertTrue(key.compareTo(next) < 0);
+            Assertions.assertFalse(key.endsWith("0"));
+            keys.add(pos, key);
+        }
+        System.out.println("Max length : " + keys.stream().mapToInt(String::length).max().orElse(0));
+    }
+
+    @Test
+    void evenly() {
+        String[] keys = RankKeys.evenly(5000);
+        for (int i = 1; i < keys.length; i++) {
+            Assertions.assertTrue(keys[i - 1].compareTo(keys[i]) < 0);
+            // 相邻键间可插入
+            String m = RankKeys.between(keys[i - 1], keys[i]);
+            Assertions.assertTrue(keys[i - 1].compareTo(m) < 0 && m.length() <= keys[i].length());
+        }
+    }
+}
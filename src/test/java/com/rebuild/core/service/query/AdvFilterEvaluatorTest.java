@@ -0,0 +1,73 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import cn.devezhao.persist4j.Entity;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.TestSupport;
+import com.rebuild.core.Application;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.privileges.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class AdvFilterEvaluatorTest extends TestSupport {
+
+    @Test
+    void testMatchesSameAsSql() {
+        String[] filters = new String[] {
+                "{ items:[{ op:'EQ', field:'loginName', value:'ADMIN' }] }",
+                "{ items:[{ op:'LK', field:'loginName', value:'dmi' }, { op:'EQ', field:'isDisabled', value:'T' }], equation:'AND' }",
+                "{ items:[{ op:'NLK', field:'loginName', value:'dmi' }, { op:'EQ', field:'isDisabled', value:'F' }], equation:'OR' }",
+                "{ items:[{ op:'IN', field:'loginName', value:'admin|system' }] }",
+                "{ items:[{ op:'NL', field:'email' }] }",
+                "{ items:[{ op:'EQ', field:'deptId', value:'002-0000000000000001' }] }",
+                "{ items:[{ op:'EQ', field:'deptId.name', value:'nothing' }] }",
+                "{ items:[{ op:'LK', field:'loginName', value:'' }] }",
+        };
+
+        Entity user = MetadataHelper.getEntity(EntityHelper.User);
+        for (String f : filters) {
+            JSONObject filter = JSON.parseObject(f);
+            filter.put("entity", user.getName());
+
+            AdvFilterEvaluator evaluator = AdvFilterEvaluator.compile(user, filter);
+            Assertions.assertNotNull(evaluator, f);
+
+            Map<String, Object> values = new HashMap<>();
+            String[] fields = evaluator.getFields().toArray(new String[0]);
+            if (fields.length > 0) {
+                Object[] o = Application.getQueryFactory().uniqueNoFilter(UserService.ADMIN_USER, fields);
+                for (int i = 0; i < fields.length; i++) values.put(fields[i], o[i]);
+            }
+
+            Assertions.assertEquals(
+                    QueryHelper.isMatchAdvFilter(UserService.ADMIN_USER, filter), evaluator.matches(values), f);
+        }
+    }
+
+    @Test
+    void testUnsupported() {
+        Entity user = MetadataHelper.getEntity(EntityHelper.User);
+        Assertions.assertNull(AdvFilterEvaluator.compile(user,
+                JSON.parseObject("{ items:[{ op:'TDA', field:'createdOn' }] }")));
+        Assertions.assertNull(AdvFilterEvaluator.compile(user,
+                JSON.parseObject("{ items:[{ op:'EQ', field:'loginName', value:'a' }, { op:'EQ', field:'email', value:'b' }], equation:'1 AND 2' }")));
+        Assertions.assertNull(AdvFilterEvaluator.compile(user,
+                JSON.parseObject("{ items:[{ op:'GT', field:'loginName', value:'a' }] }")));
+    }
+}
@@ -32,6 +32,27 @@ public class QueryFactoryTest extends TestSupport {
         Assertions.assertTrue(array.length > 0);
     }
 
+    @Test
+    void testQueryBudget() {
+        Filter filter = Application.getPrivilegesManager().createQueryFilter(SIMPLE_USER);
+        Object[][] array = assertMaxQueries(1,
+                () -> Application.getQueryFactory().createQuery("select loginName from User", filter).array());
+        Assertions.assertTrue(array.length > 0);
+    }
+
+    @Test
+    void testHintScoped() {
+        // 未执行的查询不遗留标记
+        Application.getQueryFactory().createQueryNoFilter("select loginName from User");
+        Application.getQueryFactory().createNativeQuery("select 1");
+        Assertions.assertNull(SlowQueryStore.getHint());
+
+        Application.getQueryFactory().createQueryNoFilter("select loginName from User")
+                .setLimit(1)
+                .array();
+        Assertions.assertNull(SlowQueryStore.getHint());
+    }
+
     @Test
     void testQueryAllDT() {
         Entity allDT = MetadataHelper.getEntity(TestAllFields);
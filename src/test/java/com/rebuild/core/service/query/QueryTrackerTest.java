@@ -0,0 +1,59 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class QueryTrackerTest {
+
+    @Test
+    void testRepeated() {
+        try (QueryTracker.Tracking outer = QueryTracker.begin()) {
+            QueryTracker.record("select * from `user` where `USER_ID` = '001-0000000000000001'", 1000);
+
+            try (QueryTracker.Tracking inner = QueryTracker.begin()) {
+                for (int i = 0; i < QueryTracker.REPEATED_THRESHOLD; i++) {
+                    QueryTracker.record("select `NAME` from `account` where `ACCOUNT_ID` = '999-" + i + "'", 1000);
+                }
+
+                Assertions.assertEquals(QueryTracker.REPEATED_THRESHOLD, inner.getCount());
+                Map<String, Integer> repeated = inner.getRepeated();
+                Assertions.assertEquals(1, repeated.size());
+                Assertions.assertEquals("select `NAME` from `account` where `ACCOUNT_ID` = ?", repeated.keySet().iterator().next());
+            }
+
+            Assertions.assertSame(outer, QueryTracker.current());
+            Assertions.assertEquals(QueryTracker.REPEATED_THRESHOLD + 1, outer.getCount());
+            Assertions.assertEquals((QueryTracker.REPEATED_THRESHOLD + 1) * 1000L, outer.getNanos());
+            Assertions.assertFalse(outer.isOverBudget());
+        }
+
+        Assertions.assertNull(QueryTracker.current());
+
+        // 前缀相同但形态不同的不算重复
+        try (QueryTracker.Tracking t = QueryTracker.begin()) {
+            for (int i = 0; i < QueryTracker.REPEATED_THRESHOLD; i++) {
+                String col = i % 2 == 0 ? "`NAME`" : "`NAME`, `EMAIL`";
+                QueryTracker.record("select * from `user` where `USER_ID` = '001-" + i + "' and " + col + " is not null", 1000);
+            }
+            QueryTracker.record("update `user` set `NAME` = 'a'", 1000);
+
+            Assertions.assertTrue(t.getRepeated().isEmpty());
+            Assertions.assertEquals(1, t.getWrites());
+        }
+        // 未跟踪时忽略
+        QueryTracker.record("select 1", 1000);
+    }
+}
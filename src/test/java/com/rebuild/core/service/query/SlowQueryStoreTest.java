@@ -0,0 +1,44 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class SlowQueryStoreTest {
+
+    @Test
+    void testToShape() {
+        Assertions.assertEquals(
+                "select _t0.`NAME` from `account` as _t0 where _t0.`STATUS` = ? and _t0.`CODE` in (?) limit ?",
+                SlowQueryStore.toShape("select _t0.`NAME` from `account` as _t0\n where _t0.`STATUS` = 2 and _t0.`CODE` in ('a', 'b''c', 'd') limit 10"));
+    }
+
+    @Test
+    void testAggregate() {
+        SlowQueryStore.clean();
+        SlowQueryStore.record("select * from `test` where `A` = 1", "select A from Test where A = 1", 1200);
+        SlowQueryStore.record("select * from `test` where `A` = 2", null, 1500);
+        SlowQueryStore.record("select * from `test` where `B` = 'x'", null, 1100);
+
+        List<SlowQueryStore.QueryShape> shapes = SlowQueryStore.aggregate();
+        Assertions.assertEquals(2, shapes.size());
+        Assertions.assertEquals(2, shapes.get(0).getCount());
+        Assertions.assertEquals(2700, shapes.get(0).getTotalTime());
+        Assertions.assertEquals(3, SlowQueryStore.getRecent().size());
+
+        SlowQueryStore.clean();
+        Assertions.assertTrue(SlowQueryStore.getRecent().isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.service.trigger;
+
+import com.alibaba.fastjson.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class TriggerProfilerTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    void testPercentile() {
+        long[] stats = new long[TriggerProfiler.STATS_LENGTH];
+        for (int i = 0; i < 98; i++) {
+            TriggerProfiler.add(stats, 3 * MS, 2, 1, 1, false);
+        }
+        TriggerProfiler.add(stats, 100 * MS, 20, 5, 3, true);
+        TriggerProfiler.add(stats, 900 * MS, 40, 10, 2, false);
+
+        Assertions.assertEquals(4, TriggerProfiler.percentile(stats, 0.5));
+        Assertions.assertEquals(128, TriggerProfiler.percentile(stats, 0.99));
+        Assertions.assertEquals(900, TriggerProfiler.percentile(stats, 1));
+
+        JSONObject view = TriggerProfiler.toView(stats);
+        Assertions.assertEquals(100L, view.getLong("count"));
+        Assertions.assertEquals(1L, view.getLong("errors"));
+        Assertions.assertEquals(3L, view.getLong("depth"));
+        Assertions.assertEquals(2.6, view.getDouble("queries"));
+    }
+
+    @Test
+    void testMerge() {
+        long[] a = new long[TriggerProfiler.STATS_LENGTH];
+        long[] b = new long[TriggerProfiler.STATS_LENGTH];
+        TriggerProfiler.add(a, 10 * MS, 1, 0, 2, false);
+        TriggerProfiler.add(b, 50 * MS, 3, 1, 1, false);
+
+        long[] m = TriggerProfiler.merge(a, b);
+        Assertions.assertEquals(2, m[TriggerProfiler.S_COUNT]);
+        Assertions.assertEquals(4, m[TriggerProfiler.S_QUERIES]);
+        Assertions.assertEquals(2, m[TriggerProfiler.S_DEPTH]);
+        Assertions.assertEquals(50 * MS, m[TriggerProfiler.S_MAXNANOS]);
+        Assertions.assertEquals(50, TriggerProfiler.percentile(m, 0.99));
+    }
+
+    @Test
+    void testDecay() {
+        long[] slow = new long[TriggerProfiler.STATS_LENGTH];
+        for (int i = 0; i < 100; i++) {
+            TriggerProfiler.add(slow, 1000 * MS, 1, 1, 1, false);
+        }
+        long[] fast = new long[TriggerProfiler.STATS_LENGTH];
+        for (int i = 0; i < 100; i++) {
+            TriggerProfiler.add(fast, 10 * MS, 1, 1, 1, false);
+        }
+
+        long now = System.currentTimeMillis();
+        double[] recent = TriggerProfiler.decay(null, slow, now);
+        Assertions.assertEquals(100, recent[TriggerProfiler.R_COUNT], 0.01);
+
+        // 半衰期后旧的统计减半
+        double[] half = TriggerProfiler.decay(recent, new long[TriggerProfiler.STATS_LENGTH], now + 10 * 60 * 1000L);
+        Assertions.assertEquals(50, half[TriggerProfiler.R_COUNT], 0.01);
+
+        // 1 小时后近期平均耗时由新的统计主导
+        double[] later = TriggerProfiler.decay(recent, fast, now + 60 * 60 * 1000L);
+        double avgMs = later[TriggerProfiler.R_NANOS] / later[TriggerProfiler.R_COUNT] / MS;
+        Assertions.assertTrue(avgMs < 30, "avg " + avgMs);
+    }
+}
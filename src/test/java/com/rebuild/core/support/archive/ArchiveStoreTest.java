@@ -0,0 +1,118 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.archive;
+
+import cn.devezhao.commons.CalendarUtils;
+import cn.devezhao.persist4j.Entity;
+import cn.devezhao.persist4j.Record;
+import cn.devezhao.persist4j.engine.ID;
+import com.alibaba.fastjson.JSONObject;
+import com.rebuild.TestSupport;
+import com.rebuild.core.Application;
+import com.rebuild.core.metadata.EntityHelper;
+import com.rebuild.core.metadata.MetadataHelper;
+import com.rebuild.core.privileges.UserService;
+import com.rebuild.utils.JSONUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class ArchiveStoreTest extends TestSupport {
+
+    @Test
+    void testAppendAndQuery() throws IOException {
+        Entity entity = MetadataHelper.getEntity(EntityHelper.LoginLog);
+        final String month = "190001";
+
+        JSONObject a = JSONUtils.toJSONObject(new String[] { "logId", "ipAddr" }, new Object[] { "025-0000000000000001", "127.0.0.1" });
+        JSONObject b = JSONUtils.toJSONObject(new String[] { "logId", "ipAddr" }, new Object[] { "025-0000000000000002", "10.0.0.1" });
+        ArchiveStore.append(entity, month, Arrays.asList(a, b));
+        // 重复归档
+        ArchiveStore.append(entity, month, Collections.singletonList(b));
+
+        Assertions.assertTrue(ArchiveStore.listMonths(entity).contains(month));
+
+        Object[] res = ArchiveStore.query(entity, month, null, 0, 10);
+        Assertions.assertEquals(2, res[0]);
+
+        res = ArchiveStore.query(entity, month, "10.0.0", 0, 10);
+        Assertions.assertEquals(1, res[0]);
+        @SuppressWarnings("unchecked")
+        List<JSONObject> data = (List<JSONObject>) res[1];
+        Assertions.assertEquals("025-0000000000000002", data.get(0).getString("logId"));
+
+        Assertions.assertNotNull(ArchiveStore.find(entity, "025-0000000000000001"));
+
+        ArchiveStore.clean(entity, CalendarUtils.parse("1900-02-01"));
+        Assertions.assertFalse(ArchiveStore.listMonths(entity).contains(month));
+    }
+
+    @Test
+    void testTornSegment() throws IOException {
+        Entity entity = MetadataHelper.getEntity(EntityHelper.LoginLog);
+        final String month = "190002";
+
+        JSONObject a = JSONUtils.toJSONObject(new String[] { "logId", "ipAddr" }, new Object[] { "025-0000000000000003", "127.0.0.1" });
+        ArchiveStore.append(entity, month, Collections.singletonList(a));
+
+        // 模拟残缺的段（如磁盘写满）
+        File torn = new File(ArchiveStore.getMonthDir(entity, month), "0000000000000-torn.json.gz");
+        Files.write(torn.toPath(), new byte[] { 0x1f, (byte) 0x8b, 8, 0 });
+
+        JSONObject b = JSONUtils.toJSONObject(new String[] { "logId", "ipAddr" }, new Object[] { "025-0000000000000004", "10.0.0.1" });
+        ArchiveStore.append(entity, month, Collections.singletonList(b));
+
+        // 其他段仍可读
+        Assertions.assertEquals(2, ArchiveStore.query(entity, month, null, 0, 10)[0]);
+        Assertions.assertNotNull(ArchiveStore.find(entity, "025-0000000000000004"));
+        Assertions.assertNull(ArchiveStore.find(entity, "025-0000000000000009"));
+
+        ArchiveStore.clean(entity, CalendarUtils.parse("1900-03-01"));
+        Assertions.assertFalse(ArchiveStore.listMonths(entity).contains(month));
+    }
+
+    @Test
+    void testArchiveTask() {
+        final Entity entity = MetadataHelper.getEntity(EntityHelper.LoginLog);
+
+        Record record = EntityHelper.forNew(EntityHelper.LoginLog, UserService.SYSTEM_USER);
+        record.setID("user", SIMPLE_USER);
+        record.setString("ipAddr", "127.0.0.1");
+        record.setDate("loginTime", CalendarUtils.parse("1900-03-15"));
+        record = Application.getCommonsService().create(record);
+        final ID logId = record.getPrimary();
+
+        ArchiveTask task = new ArchiveTask(CalendarUtils.parse("1900-04-01"));
+        task.run();
+        Assertions.assertTrue(task.getSucceeded() >= 1);
+
+        // 已从主表移至归档
+        Object[] exists = Application.createQueryNoFilter("select logId from LoginLog where logId = ?")
+                .setParameter(1, logId)
+                .unique();
+        Assertions.assertNull(exists);
+        Assertions.assertTrue(ArchiveStore.listMonths(entity).contains("190003"));
+
+        JSONObject archived = ArchiveStore.find(entity, logId.toLiteral());
+        Assertions.assertNotNull(archived);
+        Assertions.assertEquals("127.0.0.1", archived.getString("ipAddr"));
+
+        ArchiveStore.clean(entity, CalendarUtils.parse("1900-04-01"));
+        Assertions.assertNull(ArchiveStore.find(entity, logId.toLiteral()));
+    }
+}
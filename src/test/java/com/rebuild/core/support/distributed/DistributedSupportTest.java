@@ -14,6 +14,11 @@ import com.rebuild.core.privileges.bizz.User;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -38,4 +43,54 @@ class DistributedSupportTest extends TestSupport {
         users.remove("User1");
         Assertions.assertTrue(users.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testListAndSet() {
+        DistributedSupport distributedSupport = (DistributedSupport) Application.getContext().getBean("DistributedSupport");
+
+        List<String> list = distributedSupport.getList("RB_TEST_LIST");
+        list.clear();
+        list.addAll(Arrays.asList("a", "b", "c"));
+        Assertions.assertEquals(3, list.size());
+        Assertions.assertEquals("b", list.remove(1));
+        Assertions.assertEquals(Arrays.asList("a", "c"), new ArrayList<>(list));
+        // 任意位置插入（含重复值）
+        list.add(1, "a");
+        list.add(0, "x");
+        list.add(4, "y");
+        Assertions.assertEquals(Arrays.asList("x", "a", "a", "c", "y"), new ArrayList<>(list));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> list.add(9, "z"));
+        list.clear();
+
+        Set<String> set = distributedSupport.getSet("RB_TEST_SET");
+        set.clear();
+        set.addAll(Arrays.asList("a", "b", "a"));
+        Assertions.assertEquals(2, set.size());
+        Assertions.assertTrue(set.contains("a"));
+        set.removeAll(Collections.singletonList("a"));
+        Assertions.assertFalse(set.contains("a"));
+        set.clear();
+    }
+
+    @Test
+    void testLocalConcurrent() throws InterruptedException {
+        final Set<Integer> set = new DistributedSupportLocal().getSet("RB_TEST_SET");
+        final List<Integer> list = new DistributedSupportLocal().getList("RB_TEST_LIST");
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 1000;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    set.add(offset + i);
+                    list.add(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        Assertions.assertEquals(8000, set.size());
+        Assertions.assertEquals(8000, list.size());
+    }
+}
@@ -0,0 +1,163 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.integration;
+
+import cn.devezhao.persist4j.engine.ID;
+import com.rebuild.TestSupport;
+import com.rebuild.core.Application;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class SMSendQueueTest extends TestSupport {
+
+    @Test
+    public void testEnqueue() {
+        ID queueId = SMSendQueue.enqueue(SMSender.TYPE_EMAIL, "test@getrebuild.com", "SMSendQueueTest", "content");
+        Object[] o = Application.createQueryNoFilter(
+                "select status,retryTimes from SmsendQueue where queueId = ?")
+                .setParameter(1, queueId)
+                .unique();
+        Assertions.assertNotNull(o);
+
+        Assertions.assertEquals(30, SMSendQueue.getBackoffSeconds(1));
+        Assertions.assertEquals(60, SMSendQueue.getBackoffSeconds(2));
+        Assertions.assertEquals(480, SMSendQueue.getBackoffSeconds(5));
+    }
+
+    @Test
+    public void testEnqueueInvalidTo() {
+        Assertions.assertNull(SMSendQueue.enqueue(SMSender.TYPE_SMS, StringUtils.repeat("1", 101), null, "content"));
+        // 不抛出
+        SMSender.sendSMSAsync(StringUtils.repeat("1", 101), "content");
+    }
+
+    @Test
+    public void testSmsViaMockApi() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/sms/send.json", exchange -> {
+            requests.incrementAndGet();
+            byte[] resp = "{\"status\":\"success\",\"send_id\":\"MOCK001\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, resp.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(resp);
+            }
+        });
+        server.start();
+
+        final String api = SMSender.SUBMAIL_API;
+        SMSender.SUBMAIL_API = "http://127.0.0.1:" + server.getAddress().getPort();
+        try {
+            String sendId = SMSender.sendSMS("17187472172", "SMSendQueueTest", new String[] { "appid", "key", "REBUILD" });
+            Assertions.assertEquals("MOCK001", sendId);
+            Assertions.assertEquals(1, requests.get());
+        } finally {
+            SMSender.SUBMAIL_API = api;
+            server.stop(0);
+            SMSender.flushLogs();
+        }
+    }
+
+    @Test
+    public void testSmtpConnectionReuse() throws Exception {
+        try (SmtpStub stub = new SmtpStub()) {
+            String[] account = new String[] {
+                    "user", "pass", "from@getrebuild.com", "REBUILD", null, "127.0.0.1:" + stub.getPort() };
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertNotNull(SMSender.sendMailViaSmtp("to@getrebuild.com", "Test " + i, "<p>content</p>", account));
+            }
+
+            Assertions.assertEquals(1, stub.connections.get());
+            Assertions.assertEquals(3, stub.messages.get());
+        } finally {
+            SmtpTransportPool.closeAll();
+        }
+    }
+
+    /**
+     * 最简 SMTP 服务（不鉴权）
+     */
+    static class SmtpStub implements AutoCloseable {
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+        final ServerSocket server;
+
+        SmtpStub() throws IOException {
+            server = new ServerSocket(0);
+            Thread t = new Thread(() -> {
+                while (!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        connections.incrementAndGet();
+                        new Thread(() -> session(socket)).start();
+                    } catch (IOException ignored) {
+                    }
+                }
+            });
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        void session(Socket socket) {
+            try (Socket s = socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter out = new PrintWriter(s.getOutputStream(), true)) {
+                out.print("220 stub\r\n");
+                out.flush();
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String cmd = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    if ("DATA".equals(cmd)) {
+                        out.print("354 go\r\n");
+                        out.flush();
+                        while ((line = in.readLine()) != null && !".".equals(line)) {
+                            // SKIP
+                        }
+                        messages.incrementAndGet();
+                        out.print("250 queued\r\n");
+                    } else if ("QUIT".equals(cmd)) {
+                        out.print("221 bye\r\n");
+                        out.flush();
+                        return;
+                    } else {
+                        out.print("250 ok\r\n");
+                    }
+                    out.flush();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
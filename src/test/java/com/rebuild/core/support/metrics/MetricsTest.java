@@ -0,0 +1,53 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+class MetricsTest {
+
+    @Test
+    void testScrape() {
+        Metrics.reset();
+
+        Metrics.counter("rb_test_total", "prefix", "a").increment();
+        Metrics.counter("rb_test_total", "prefix", "a").add(2);
+        Metrics.timer("rb_test_seconds").record(20 * 1000000L);
+        Metrics.gauge("rb_test_gauge", () -> 7);
+
+        String text = Metrics.scrape();
+        System.out.println(text);
+
+        Assertions.assertTrue(text.contains("rb_test_total{prefix=\"a\"} 3"));
+        Assertions.assertTrue(text.contains("rb_test_seconds_bucket{le=\"0.01\"} 0"));
+        Assertions.assertTrue(text.contains("rb_test_seconds_bucket{le=\"0.025\"} 1"));
+        Assertions.assertTrue(text.contains("rb_test_seconds_count 1"));
+        Assertions.assertTrue(text.contains("rb_test_gauge 7"));
+    }
+
+    @Test
+    void testOverflow() {
+        Metrics.reset();
+
+        for (int i = 0; i < 1000; i++) {
+            Metrics.counter("rb_test_total", "prefix", "p" + i).increment();
+        }
+        Assertions.assertEquals(500, Metrics.counter("rb_test_total", "prefix", "p999").get());
+    }
+
+    @Test
+    void testKeyPrefix() {
+        Assertions.assertEquals("UnreadNotificationCount", Metrics.keyPrefix("UnreadNotificationCount-001-0000000000000001"));
+        Assertions.assertEquals("_", Metrics.keyPrefix("001-0000000000000001"));
+    }
+}
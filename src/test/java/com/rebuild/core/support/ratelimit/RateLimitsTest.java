@@ -0,0 +1,83 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.core.support.ratelimit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class RateLimitsTest {
+
+    @Test
+    void testParseRules() {
+        Map<String, List<RateRule>> rules = RateRule.parseRules("600/10, 6000/60\n entity/create = 100/60");
+        Assertions.assertEquals(2, rules.get(RateRule.ANY_API).size());
+        Assertions.assertEquals(100, rules.get("entity/create").get(0).getLimit());
+        Assertions.assertTrue(RateRule.parseRules(null).isEmpty());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RateRule.parseRules("600"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RateRule.parseRules("0/10"));
+    }
+
+    @Test
+    void testLocalBurst() {
+        LocalTokenBuckets buckets = new LocalTokenBuckets();
+        RateRule rule = new RateRule(5, 60);
+
+        for (int i = 0; i < 5; i++) {
+            RateLimitResult r = buckets.acquire("test", rule);
+            Assertions.assertTrue(r.isAllowed());
+            Assertions.assertEquals(4 - i, r.getRemaining());
+        }
+
+        RateLimitResult denied = buckets.acquire("test", rule);
+        Assertions.assertFalse(denied.isAllowed());
+        // 每 12s 补充一个
+        Assertions.assertTrue(denied.getRetryAfterMillis() > 11000 && denied.getRetryAfterMillis() <= 12000);
+
+        // 其他桶不受影响
+        Assertions.assertTrue(buckets.acquire("test2", rule).isAllowed());
+
+        buckets.reset("test");
+        Assertions.assertTrue(buckets.acquire("test", rule).isAllowed());
+    }
+
+    @Test
+    void testLocalConcurrent() throws InterruptedException {
+        final LocalTokenBuckets buckets = new LocalTokenBuckets();
+        final RateRule rule = new RateRule(1000, 3600);
+        final AtomicInteger allowed = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    if (buckets.acquire("concurrent", rule).isAllowed()) allowed.incrementAndGet();
+                }
+                latch.countDown();
+            });
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        // 测试期间补充的令牌可忽略
+        Assertions.assertEquals(1000, allowed.get(), 1);
+    }
+}
@@ -9,7 +9,9 @@ package com.rebuild.core.support.task;
 
 import cn.devezhao.commons.ThreadPool;
 import com.rebuild.TestSupport;
+import com.alibaba.fastjson.JSONObject;
 import com.rebuild.core.privileges.UserService;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.RejectedExecutionException;
@@ -64,6 +66,28 @@ public class HeavyTaskTest extends TestSupport {
         ThreadPool.waitFor(1000);
     }
 
+    @Test
+    public void testGroupQuota() {
+        String[] taskids = new String[3];
+        for (int i = 0; i < taskids.length; i++) {
+            taskids[i] = TaskExecutors.submit(new TestTask("testGroupQuota", 20) {
+                @Override
+                public TaskGroup getTaskGroup() {
+                    return TaskGroup.MAINTENANCE;
+                }
+            }, UserService.SYSTEM_USER);
+        }
+
+        JSONObject stats = TaskExecutors.getStats().getJSONObject("groups").getJSONObject(TaskGroup.MAINTENANCE.name());
+        System.out.println("Stats : " + stats);
+        Assertions.assertTrue(stats.getIntValue("running") <= 1);
+
+        // 排队中的直接取消
+        String last = taskids[taskids.length - 1];
+        Assertions.assertTrue(TaskExecutors.cancel(last));
+        Assertions.assertTrue(TaskExecutors.getState(last).getBooleanValue("isInterrupted"));
+    }
+
     // --
 
     static class TestTask extends HeavyTask<Void> {
@@ -0,0 +1,41 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.commons;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+public class FileDownloaderTest {
+
+    @Test
+    public void testParseRanges() {
+        List<long[]> ranges = FileDownloader.parseRanges("bytes=0-99", 1000);
+        Assertions.assertArrayEquals(new long[] { 0, 99 }, ranges.get(0));
+
+        ranges = FileDownloader.parseRanges("bytes=900-", 1000);
+        Assertions.assertArrayEquals(new long[] { 900, 999 }, ranges.get(0));
+
+        ranges = FileDownloader.parseRanges("bytes=-100", 1000);
+        Assertions.assertArrayEquals(new long[] { 900, 999 }, ranges.get(0));
+
+        ranges = FileDownloader.parseRanges("bytes=0-0, 500-1500", 1000);
+        Assertions.assertEquals(2, ranges.size());
+        Assertions.assertArrayEquals(new long[] { 500, 999 }, ranges.get(1));
+
+        // 无效
+        Assertions.assertNull(FileDownloader.parseRanges("bytes=1000-", 1000));
+        Assertions.assertNull(FileDownloader.parseRanges("bytes=5-1", 1000));
+        Assertions.assertNull(FileDownloader.parseRanges("items=0-1", 1000));
+    }
+}
@@ -0,0 +1,37 @@
+/*!
+Copyright (c) REBUILD <https://getrebuild.com/> and/or its owners. All rights reserved.
+
+rebuild is dual-licensed under commercial and open source licenses (GPLv3).
+See LICENSE and COMMERCIAL in the project root for license information.
+*/
+
+package com.rebuild.web.session;
+
+import cn.devezhao.persist4j.engine.ID;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+/**
+ * @author devezhao
+ * @since 2026/10/19
+ */
+class RedisSessionRepositoryTest {
+
+    @Test
+    void testCodec() {
+        Object[] values = new Object[] {
+                "zh_CN", ID.valueOf("001-0000000000000001"), 123L, 45, true, new Date(),
+                new Object[] { "a", 1L } };
+
+        for (Object v : values) {
+            Object d = RedisSessionRepository.decode(RedisSessionRepository.encode(v));
+            if (v instanceof Object[]) Assertions.assertArrayEquals((Object[]) v, (Object[]) d);
+            else Assertions.assertEquals(v, d);
+        }
+
+        // 紧凑格式
+        Assertions.assertEquals(21, RedisSessionRepository.encode(ID.valueOf("001-0000000000000001")).length);
+    }
+}